@@ -113,7 +113,7 @@ public class ChildContainer extends Container implements ThreadContainer {
 		}
 		// Set the fuse path
 		try {
-			super.setFusePath(super.getExecutor().executeCommandSilently("shell:info | grep \"Karaf base\"").trim().replaceAll(" +", " ").split(" ")[2]);
+			super.setFusePath(super.getExecutor().getShellInfo("Karaf base"));
 		} catch (Exception ex) {
 			log.warn("Setting fuse path failed, it won't be available");
 		}
@@ -145,7 +145,7 @@ public class ChildContainer extends Container implements ThreadContainer {
 		}
 		executor.executeCommand("container-delete --force " + super.getName());
 		super.setCreated(false);
-		ContainerManager.getContainerList().remove(this);
+		ContainerManager.removeContainer(this);
 		log.trace("Disconnecting executor after destroying container");
 		super.getExecutor().disconnect();
 	}
@@ -186,6 +186,11 @@ public class ChildContainer extends Container implements ThreadContainer {
 		return super.getExecutor().executeCommands(commands);
 	}
 
+	@Override
+	public List<String> executeCommandsBatched(String... commands) {
+		return super.getExecutor().executeCommandsBatched(commands);
+	}
+
 	@Override
 	public List<String> executeNodeCommands(String... commands) {
 		return super.getParent().executeNodeCommands(commands);
@@ -163,6 +163,17 @@ public abstract class Container implements Comparable<Container> {
 	 */
 	public abstract List<String> executeCommands(String... commands);
 
+	/**
+	 * Executes multiple commands in container in one batch (one ssh channel). Falls back to executing the commands one by one
+	 * when some command fails.
+	 *
+	 * @param commands commands array to execute
+	 * @return list of commands responses
+	 */
+	public List<String> executeCommandsBatched(String... commands) {
+		return executeCommands(commands);
+	}
+
 	/**
 	 * Executes multiple commands in node shell.
 	 *
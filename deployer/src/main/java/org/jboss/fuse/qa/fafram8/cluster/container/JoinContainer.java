@@ -2,8 +2,6 @@ package org.jboss.fuse.qa.fafram8.cluster.container;
 
 import static org.jboss.fuse.qa.fafram8.modifier.impl.PropertyModifier.putProperty;
 
-import org.apache.commons.lang3.StringUtils;
-
 import org.jboss.fuse.qa.fafram8.cluster.node.Node;
 import org.jboss.fuse.qa.fafram8.deployer.ContainerSummoner;
 import org.jboss.fuse.qa.fafram8.exception.FaframException;
@@ -102,8 +100,7 @@ public class JoinContainer extends RootContainer implements ThreadContainer {
 			nodeManager.startFuse();
 
 			// Parent info
-			final String uri = super.getParent().getExecutor().executeCommandSilently("fabric:info");
-			final String zookeeperUri = StringUtils.substringBetween(uri, "ZooKeeper URI:", "\n").trim();
+			final String zookeeperUri = super.getParent().getExecutor().getFabricInfo("ZooKeeper URI");
 			final String options = parseOptions();
 
 			// Name of the container should be changed in property files -> only join with correct password for root and zookeeperUri from root
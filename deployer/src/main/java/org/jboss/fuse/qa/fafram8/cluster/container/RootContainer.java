@@ -202,7 +202,7 @@ public class RootContainer extends Container {
 			}
 		}
 		super.setCreated(false);
-		ContainerManager.getContainerList().remove(this);
+		ContainerManager.removeContainer(this);
 	}
 
 	@Override
@@ -271,6 +271,11 @@ public class RootContainer extends Container {
 		return super.getExecutor().executeCommands(commands);
 	}
 
+	@Override
+	public List<String> executeCommandsBatched(String... commands) {
+		return super.getExecutor().executeCommandsBatched(commands);
+	}
+
 	@Override
 	public List<String> executeNodeCommands(String... commands) {
 		if ("localhost".equals(super.getNode().getHost())) {
@@ -146,8 +146,7 @@ public class SshContainer extends Container implements ThreadContainer {
 		super.setOnline(true);
 		// Set the fuse path
 		try {
-			super.setFusePath(super.getExecutor().executeCommandSilently("shell:info | grep \"Karaf base\"").trim().replaceAll(" +", " ")
-					.split(" ")[2]);
+			super.setFusePath(super.getExecutor().getShellInfo("Karaf base"));
 		} catch (Exception ex) {
 			log.warn("Setting fuse path failed, it won't be available", ex);
 		}
@@ -178,7 +177,7 @@ public class SshContainer extends Container implements ThreadContainer {
 			}
 			executor.executeCommand("container-delete --force " + super.getName());
 			super.setCreated(false);
-			ContainerManager.getContainerList().remove(this);
+			ContainerManager.removeContainer(this);
 			if (!SystemProperty.isWithoutPublicIp()) {
 				log.trace("Disconnecting node/fuse executors after destroying the container");
 				super.getExecutor().disconnect();
@@ -254,6 +253,15 @@ public class SshContainer extends Container implements ThreadContainer {
 		}
 	}
 
+	@Override
+	public List<String> executeCommandsBatched(String... commands) {
+		if (getJoinContainer() == null) {
+			return super.getExecutor().executeCommandsBatched(commands);
+		} else {
+			return joinContainer.executeCommandsBatched(commands);
+		}
+	}
+
 	@Override
 	public List<String> executeNodeCommands(String... commands) {
 		if (getJoinContainer() == null) {
@@ -0,0 +1,208 @@
+package org.jboss.fuse.qa.fafram8.cluster.listing;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.ToString;
+
+/**
+ * Parsed container-list output. The output is parsed in one pass - the columns are found by the header, the child containers are
+ * indented under their parents and the rows without the id are the continuation of the profile list of the previous container.
+ */
+@ToString
+public final class ContainerListing {
+	private static final String[] COLUMNS = {"[id]", "[version]", "[type]", "[connected]", "[profiles]", "[provision status]"};
+
+	// Indexes of the columns
+	private static final int ID = 0;
+	private static final int VERSION = 1;
+	private static final int TYPE = 2;
+	private static final int CONNECTED = 3;
+	private static final int PROFILES = 4;
+	private static final int PROVISION_STATUS = 5;
+
+	// Listed containers by the name in the order of the output
+	private final Map<String, ListedContainer> containers = new LinkedHashMap<>();
+
+	/**
+	 * Private constructor.
+	 */
+	private ContainerListing() {
+	}
+
+	/**
+	 * Creates the empty listing.
+	 *
+	 * @return empty listing
+	 */
+	public static ContainerListing empty() {
+		return new ContainerListing();
+	}
+
+	/**
+	 * Parses the container-list output. Output without the header gives the empty listing.
+	 *
+	 * @param output container-list output
+	 * @return listing
+	 */
+	public static ContainerListing parse(String output) {
+		final ContainerListing listing = new ContainerListing();
+		if (output == null) {
+			return listing;
+		}
+
+		// Start of each column, -1 if the column is not present in this fabric version
+		final int[] starts = new int[COLUMNS.length];
+		boolean header = false;
+		// Names and indentation of the containers that can be the parent of the next row
+		final Deque<String> parents = new ArrayDeque<>();
+		final Deque<Integer> indents = new ArrayDeque<>();
+		ListedContainer last = null;
+		for (String line : StringUtils.split(output, "\r\n")) {
+			if (!header) {
+				if (line.contains(COLUMNS[PROVISION_STATUS])) {
+					for (int i = 0; i < COLUMNS.length; i++) {
+						starts[i] = line.indexOf(COLUMNS[i]);
+					}
+					header = true;
+				}
+				continue;
+			}
+
+			final String id = column(line, starts, ID);
+			if (id.isEmpty()) {
+				if (last != null) {
+					last.addProfile(column(line, starts, PROFILES));
+				}
+				continue;
+			}
+
+			final int indent = StringUtils.indexOf(line, id);
+			while (!indents.isEmpty() && indents.peek() >= indent) {
+				indents.pop();
+				parents.pop();
+			}
+			final String name = StringUtils.removeEnd(id, "*");
+			last = new ListedContainer(name, parents.peek(), indent == 0, id.endsWith("*"),
+					column(line, starts, VERSION), column(line, starts, TYPE),
+					"yes".equals(column(line, starts, CONNECTED)), column(line, starts, PROVISION_STATUS));
+			last.addProfile(column(line, starts, PROFILES));
+			parents.push(name);
+			indents.push(indent);
+			listing.containers.put(name, last);
+		}
+		return listing;
+	}
+
+	/**
+	 * Gets the value of the column in the row.
+	 *
+	 * @param line row
+	 * @param starts start of each column
+	 * @param column column index
+	 * @return trimmed value, empty string if the column is not present
+	 */
+	private static String column(String line, int[] starts, int column) {
+		final int start = starts[column];
+		if (start == -1 || start >= line.length()) {
+			return "";
+		}
+		// The column ends where the next present column starts
+		int end = line.length();
+		for (int i = column + 1; i < starts.length; i++) {
+			if (starts[i] > start) {
+				end = Math.min(line.length(), starts[i]);
+				break;
+			}
+		}
+		return line.substring(start, end).trim();
+	}
+
+	/**
+	 * Gets the container.
+	 *
+	 * @param name container name
+	 * @return container or null if not listed
+	 */
+	public ListedContainer get(String name) {
+		return containers.get(name);
+	}
+
+	/**
+	 * Checks if the container is listed.
+	 *
+	 * @param name container name
+	 * @return true if listed
+	 */
+	public boolean contains(String name) {
+		return containers.containsKey(name);
+	}
+
+	/**
+	 * Gets all listed containers.
+	 *
+	 * @return containers in the order of the output
+	 */
+	public Collection<ListedContainer> getContainers() {
+		return Collections.unmodifiableCollection(containers.values());
+	}
+
+	/**
+	 * Gets the names of the child (non-root) containers.
+	 *
+	 * @return child container names in the order of the output
+	 */
+	public List<String> getChildNames() {
+		final List<String> children = new ArrayList<>();
+		for (ListedContainer c : containers.values()) {
+			if (!c.isRoot()) {
+				children.add(c.getName());
+			}
+		}
+		return children;
+	}
+
+	/**
+	 * Gets the names of the child (non-root) containers of given type.
+	 *
+	 * @param type container type ("karaf", "process", ...)
+	 * @return child container names in the order of the output
+	 */
+	public List<String> getChildNames(String type) {
+		final List<String> children = new ArrayList<>();
+		for (ListedContainer c : containers.values()) {
+			if (!c.isRoot() && type.equals(c.getType())) {
+				children.add(c.getName());
+			}
+		}
+		return children;
+	}
+
+	/**
+	 * Gets the provision status of the container.
+	 *
+	 * @param name container name
+	 * @return provision status, empty string if the container is not listed
+	 */
+	public String getProvisionStatus(String name) {
+		final ListedContainer c = containers.get(name);
+		return c == null ? "" : c.getProvisionStatus();
+	}
+
+	/**
+	 * Gets the number of listed containers.
+	 *
+	 * @return number of containers
+	 */
+	public int size() {
+		return containers.size();
+	}
+}
@@ -0,0 +1,80 @@
+package org.jboss.fuse.qa.fafram8.cluster.listing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One container of the container-list output.
+ */
+@Getter
+@ToString
+public class ListedContainer {
+	private final String name;
+
+	// Name of the parent container, null for the root containers and for the children listed without their parent
+	private final String parent;
+
+	// Root containers are not indented in the list, ssh containers are roots too
+	private final boolean root;
+
+	// The container the command was executed on, marked with "*" in the list
+	private final boolean current;
+
+	private final String version;
+
+	private final String type;
+
+	private final boolean connected;
+
+	private final List<String> profiles = new ArrayList<>();
+
+	private final String provisionStatus;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name container name
+	 * @param parent parent container name
+	 * @param root root flag
+	 * @param current current container flag
+	 * @param version version
+	 * @param type container type
+	 * @param connected connected flag
+	 * @param provisionStatus provision status
+	 */
+	ListedContainer(String name, String parent, boolean root, boolean current, String version, String type, boolean connected,
+			String provisionStatus) {
+		this.name = name;
+		this.parent = parent;
+		this.root = root;
+		this.current = current;
+		this.version = version;
+		this.type = type;
+		this.connected = connected;
+		this.provisionStatus = provisionStatus;
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return unmodifiable list of profiles
+	 */
+	public List<String> getProfiles() {
+		return Collections.unmodifiableList(profiles);
+	}
+
+	/**
+	 * Adds the profile from the row or from the continuation row.
+	 *
+	 * @param profile profile
+	 */
+	void addProfile(String profile) {
+		if (!profile.isEmpty()) {
+			profiles.add(profile);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package org.jboss.fuse.qa.fafram8.cluster.node;
+
+import org.apache.commons.lang3.StringUtils;
+
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Characteristics of the host - OS, cores, memory, JDK and free disk. All of them are found by one command, so the host is probed
+ * with one round trip. Each value is printed as "key=value" line, so the value that the host can't provide is just missing.
+ */
+@ToString
+public final class HostInfo {
+	// Prints the values of the host, works in the linux shells and in cygwin
+	public static final String PROBE_COMMAND = "echo os=$(uname -s); "
+			+ "echo cores=$(nproc 2>/dev/null || getconf _NPROCESSORS_ONLN 2>/dev/null); "
+			+ "echo memory=$(awk '/MemTotal/ {print $2}' /proc/meminfo 2>/dev/null); "
+			+ "echo disk=$(df -Pk ~ 2>/dev/null | awk 'NR==2 {print $4}'); "
+			+ "echo java=$(java -version 2>&1 | head -1)";
+
+	private static final long KB = 1024L;
+
+	@Getter
+	private String os = "";
+
+	// Number of the cores, -1 if unknown
+	@Getter
+	private int cores = -1;
+
+	// Total memory in MB, -1 if unknown
+	@Getter
+	private long memoryMb = -1L;
+
+	// Free disk space in the user's home in MB, -1 if unknown
+	@Getter
+	private long freeDiskMb = -1L;
+
+	// First line of "java -version" output, empty if there is no java on the path
+	@Getter
+	private String java = "";
+
+	/**
+	 * Private constructor.
+	 */
+	private HostInfo() {
+	}
+
+	/**
+	 * Probes the host by the connected node executor.
+	 *
+	 * @param executor node executor
+	 * @return host info
+	 */
+	public static HostInfo probe(Executor executor) {
+		return parse(executor.executeCommandSilently(PROBE_COMMAND));
+	}
+
+	/**
+	 * Parses the output of the probe command. The unknown or invalid values keep their defaults.
+	 *
+	 * @param output probe command output
+	 * @return host info
+	 */
+	public static HostInfo parse(String output) {
+		final HostInfo info = new HostInfo();
+		if (output == null) {
+			return info;
+		}
+		for (String line : StringUtils.split(output, "\r\n")) {
+			final String key = StringUtils.substringBefore(line, "=").trim();
+			final String value = StringUtils.substringAfter(line, "=").trim();
+			switch (key) {
+				case "os":
+					info.os = value;
+					break;
+				case "cores":
+					info.cores = (int) toLong(value, -1L);
+					break;
+				case "memory":
+					info.memoryMb = toLong(value, -KB) / KB;
+					break;
+				case "disk":
+					info.freeDiskMb = toLong(value, -KB) / KB;
+					break;
+				case "java":
+					info.java = value;
+					break;
+				default:
+					break;
+			}
+		}
+		return info;
+	}
+
+	/**
+	 * Checks if the host is windows with cygwin.
+	 *
+	 * @return true if the OS is cygwin
+	 */
+	public boolean isWindows() {
+		return StringUtils.containsIgnoreCase(os, "cyg");
+	}
+
+	/**
+	 * Converts the value to long.
+	 *
+	 * @param value value
+	 * @param defaultValue value used if the value is not a number
+	 * @return number
+	 */
+	private static long toLong(String value, long defaultValue) {
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+}
@@ -30,6 +30,7 @@ public class Node {
 	public void setHost(String host) {
 		this.host = host;
 		this.executor = createExecutor();
+		this.hostInfo = null;
 	}
 
 	/**
@@ -87,6 +88,11 @@ public class Node {
 	@Setter
 	private String passPhrase;
 
+	// Characteristics of the host found before the deployment, null if the host wasn't probed
+	@Getter
+	@Setter
+	private HostInfo hostInfo;
+
 	/**
 	 * Creates the executor from the attributes - usable when you are changing the IP in the openstack provider.
 	 * @return executor instance
@@ -245,7 +251,7 @@ public class Node {
 				executor = node.createExecutor();
 			}
 			return new Node(node.getNodeId(), node.getHost(), node.getPort(), node.getUsername(), node.getPassword(),
-					executor, node.getPrivateKey(), node.getPassPhrase());
+					executor, node.getPrivateKey(), node.getPassPhrase(), node.getHostInfo());
 		}
 	}
 }
@@ -1,85 +1,56 @@
 package org.jboss.fuse.qa.fafram8.deployer;
 
+import org.jboss.fuse.qa.fafram8.cluster.container.ChildContainer;
 import org.jboss.fuse.qa.fafram8.cluster.container.Container;
-import org.jboss.fuse.qa.fafram8.cluster.container.RootContainer;
 import org.jboss.fuse.qa.fafram8.cluster.container.SshContainer;
 import org.jboss.fuse.qa.fafram8.cluster.container.ThreadContainer;
-import org.jboss.fuse.qa.fafram8.exception.FaframException;
 import org.jboss.fuse.qa.fafram8.executor.Executor;
 import org.jboss.fuse.qa.fafram8.ssh.FuseSSHClient;
 
-import java.util.Set;
 import java.util.concurrent.Callable;
 
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Thread worker class for destroying(annihilating) container.
+ * Worker class for destroying(annihilating) container. It is run by the teardown TaskGraph after the containers depending
+ * on this container (children, containers on the same node) are destroyed, so it doesn't wait for anything.
  *
  * @author : Roman Jakubco (rjakubco@redhat.com)
  */
 @Slf4j
-public class ContainerAnnihilator implements Callable {
+public class ContainerAnnihilator implements Callable<Container> {
 	@Getter
 	private Container container;
-	private boolean force;
 
 	@Getter
-	@Setter
 	private volatile boolean ready = false;
 
-	private Set<ContainerAnnihilator> containerAnnihilators;
-
-	@Setter
-	@Getter
-	private static volatile boolean stopWork = false;
+	// Destroy the container with the copy of the parent's client, so that the parent's executor is not shared with other threads
+	private final boolean parallel;
 
 	/**
 	 * Constructor.
+	 *
 	 * @param container container
-	 * @param containerAnnihilators set of container annihilators
-	 * @param force force flag
+	 * @param parallel true if other containers are destroyed at the same time
 	 */
-	public ContainerAnnihilator(Container container, Set<ContainerAnnihilator> containerAnnihilators, boolean force) {
+	public ContainerAnnihilator(Container container, boolean parallel) {
 		this.container = container;
-		this.force = force;
-		this.containerAnnihilators = containerAnnihilators;
+		this.parallel = parallel;
 	}
 
 	@Override
 	public Container call() {
-		Thread.currentThread().setName(container.getName());
-		if (container instanceof RootContainer || container instanceof SshContainer) {
-			for (ContainerAnnihilator child : this.containerAnnihilators) {
-				log.trace("Container " + container.getName() + " starting waiting for container thread: " + child.getContainer().getName());
-				while (!child.isReady()) {
-					if (ContainerAnnihilator.stopWork) {
-						Thread.currentThread().interrupt();
-						return null;
-					}
-				}
-			}
-
-			// If SSH container we need to do this
-			if (container instanceof SshContainer) {
-				final Executor executor = new Executor(new FuseSSHClient(container.getParent().getExecutor().getClient()), container.getName());
-				((ThreadContainer) container).destroy(executor);
-			} else {
-				container.destroy();
-			}
-		} else {
-			// Container is instance of ChildContainer
+		if (parallel && (container instanceof ChildContainer || container instanceof SshContainer)) {
+			final Executor executor = new Executor(new FuseSSHClient(container.getParent().getExecutor().getClient()), container.getName());
 			try {
-				final Executor executor = new Executor(new FuseSSHClient(container.getParent().getExecutor().getClient()), container.getName());
 				((ThreadContainer) container).destroy(executor);
-			} catch (Exception ex) {
-				log.warn("Exception when deleting container!", ex);
-				if (!force) {
-					throw new FaframException("Error while destroying root container! " + ex);
-				}
+			} finally {
+				executor.disconnect();
 			}
+		} else {
+			container.destroy();
 		}
 		this.ready = true;
 		return container;
@@ -5,6 +5,7 @@ import org.jboss.fuse.qa.fafram8.cluster.container.Container;
 import org.jboss.fuse.qa.fafram8.cluster.container.JoinContainer;
 import org.jboss.fuse.qa.fafram8.cluster.container.SshContainer;
 import org.jboss.fuse.qa.fafram8.cluster.container.ThreadContainer;
+import org.jboss.fuse.qa.fafram8.exception.FaframThreadException;
 import org.jboss.fuse.qa.fafram8.executor.Executor;
 import org.jboss.fuse.qa.fafram8.ssh.FuseSSHClient;
 
@@ -14,36 +15,38 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Thread worker class for creating(summoning) container.
+ * Worker class for creating(summoning) container. It is run by the deployment TaskGraph after the container's prerequisites
+ * (parent, the "same node as" container, ...) are created, so it doesn't wait for anything.
  *
  * @author : Roman Jakubco (rjakubco@redhat.com)
  */
 @Slf4j
-public class ContainerSummoner implements Callable {
+public class ContainerSummoner implements Callable<Container> {
 	@Getter
 	private Container container;
 
 	@Getter
 	private volatile boolean ready = false;
 
-	private ContainerSummoner containerSummoner;
-
 	@Getter
 	private static volatile boolean stopWork = false;
 
 	@Getter
 	private String name;
 
+	// Create the container with the copy of the parent's client, so that the parent's executor is not shared with other threads
+	private final boolean parallel;
+
 	/**
 	 * Constructor.
 	 *
 	 * @param container container
-	 * @param containerSummoner container summoner
+	 * @param parallel true if other containers are created at the same time
 	 */
-	public ContainerSummoner(Container container, ContainerSummoner containerSummoner) {
+	public ContainerSummoner(Container container, boolean parallel) {
 		this.container = container;
-		this.containerSummoner = containerSummoner;
 		this.name = container.getName();
+		this.parallel = parallel;
 	}
 
 	/**
@@ -56,20 +59,19 @@ public class ContainerSummoner implements Callable {
 	}
 
 	@Override
-	public Container call() throws InterruptedException {
-		Thread.currentThread().setName(container.getName());
-		if (container instanceof ChildContainer || container instanceof SshContainer || container instanceof JoinContainer) {
-			log.trace("Container " + container.getName() + " starting waiting for container thread: " + containerSummoner.getName());
-			while (!containerSummoner.isReady()) {
-				if (ContainerSummoner.stopWork) {
-					Thread.currentThread().interrupt();
-					return null;
-				}
-			}
-			log.trace("Container " + container.getName() + " finished waiting!");
+	public Container call() {
+		if (ContainerSummoner.stopWork) {
+			throw new FaframThreadException("Deployment stopped before creating container " + container.getName());
+		}
+		if (parallel && (container instanceof ChildContainer || container instanceof SshContainer || container instanceof JoinContainer)) {
 			final Executor executor = new Executor(new FuseSSHClient(container.getParent().getExecutor().getClient()), container.getName());
 
-			((ThreadContainer) container).create(executor);
+			try {
+				((ThreadContainer) container).create(executor);
+			} finally {
+				// The copied client borrowed the parent's session from the pool, give it back
+				executor.disconnect();
+			}
 		} else {
 			container.create();
 		}
@@ -1,30 +1,27 @@
 package org.jboss.fuse.qa.fafram8.deployer;
 
-import org.apache.commons.lang3.StringUtils;
-
 import org.jboss.fuse.qa.fafram8.cluster.container.Container;
 import org.jboss.fuse.qa.fafram8.cluster.container.JoinContainer;
 import org.jboss.fuse.qa.fafram8.cluster.container.RootContainer;
 import org.jboss.fuse.qa.fafram8.cluster.container.SshContainer;
+import org.jboss.fuse.qa.fafram8.cluster.node.HostInfo;
 import org.jboss.fuse.qa.fafram8.cluster.node.Node;
 import org.jboss.fuse.qa.fafram8.exception.FaframException;
 import org.jboss.fuse.qa.fafram8.exception.FaframThreadException;
 import org.jboss.fuse.qa.fafram8.executor.Executor;
 import org.jboss.fuse.qa.fafram8.manager.ContainerManager;
-import org.jboss.fuse.qa.fafram8.openstack.exception.InvokerPoolInterruptedException;
 import org.jboss.fuse.qa.fafram8.property.SystemProperty;
 import org.jboss.fuse.qa.fafram8.util.Option;
 import org.jboss.fuse.qa.fafram8.util.OptionUtils;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -37,8 +34,8 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public final class Deployer {
-	private static final int TIMEOUT = 3;
-	private static final int THREAD_POOL = 10;
+	// Id of the ensemble creation in the deployment graph
+	public static final String ENSEMBLE_TASK = "(ensemble)";
 
 	@Getter
 	@Setter
@@ -75,22 +72,94 @@ public final class Deployer {
 			}
 		}
 
-		if (SystemProperty.isWithThreads()) {
+		checkOSandConvertContainers();
+		// Cygwin can't handle multiple connections at once, so the deployment with the join containers (windows) stays serial
+		final boolean serial = !SystemProperty.isWithThreads() || containsJoinContainer();
+		if (!serial) {
 			log.info("*******************************Deploying with THREADS*******************************");
-			deployWithThreads();
-			ContainerManager.createEnsemble();
-		} else {
-			// Multithread deployment on windows is not supported...unfortunately....
-			checkOSandConvertContainers();
-			for (Container c : ContainerManager.getContainerList()) {
-				if (!c.isCreated()) {
-					c.create();
-				}
-				if (ContainerManager.isEnsembleReady() && !ContainerManager.isEnsembleCreated()) {
+		}
+		final TaskGraph graph = createDeploymentGraph(ContainerManager.getContainerList(), serial);
+		final boolean success = graph.execute(serial ? 1 : SystemProperty.getDeployThreads());
+		log.info(graph.report());
+		if (!success) {
+			ContainerSummoner.setStopWork(true);
+			final Throwable cause = graph.getFailures().values().iterator().next();
+			throw new FaframThreadException("Deployment failed: " + cause, cause);
+		}
+	}
+
+	/**
+	 * Creates the deployment graph of the containers. Each container is created after its parent and after the container it shares
+	 * the node with ("sameNodeAs" option). The ensemble is created when all containers up to the last ensemble member in the container
+	 * list are created and the containers after it are created after the ensemble. In the serial graph each container is created
+	 * after the previous one in the list.
+	 *
+	 * @param containers container list
+	 * @param serial true if the containers should be created one by one in the list order
+	 * @return deployment graph
+	 */
+	public static TaskGraph createDeploymentGraph(List<Container> containers, boolean serial) {
+		final TaskGraph graph = new TaskGraph("Deployment");
+		int lastMember = -1;
+		for (int i = 0; i < containers.size(); i++) {
+			final Container c = containers.get(i);
+			if (c.isCreated()) {
+				graph.add(c.getName(), null);
+			} else {
+				final ContainerSummoner containerSummoner = new ContainerSummoner(c, !serial);
+				summoningThreads.putIfAbsent(c.getName(), containerSummoner);
+				graph.add(c.getName(), containerSummoner);
+			}
+			if (ContainerManager.getEnsembleList().contains(c.getName())) {
+				lastMember = i;
+			}
+		}
+		final boolean withEnsemble = lastMember >= 0 && !ContainerManager.isEnsembleCreated();
+		if (withEnsemble) {
+			graph.add(ENSEMBLE_TASK, new Callable<Void>() {
+				@Override
+				public Void call() {
 					ContainerManager.createEnsemble();
+					return null;
+				}
+			});
+		}
+
+		for (int i = 0; i < containers.size(); i++) {
+			final Container c = containers.get(i);
+			if (c.getParent() != null && graph.contains(c.getParent().getName())) {
+				graph.addDependency(c.getName(), c.getParent().getName());
+			}
+			final String sameNodeAs = OptionUtils.getString(c.getOptions(), Option.SAME_NODE_AS);
+			if (!sameNodeAs.isEmpty() && graph.contains(sameNodeAs)) {
+				graph.addDependency(c.getName(), sameNodeAs);
+			}
+			if (serial && i > 0) {
+				graph.addDependency(c.getName(), containers.get(i - 1).getName());
+			}
+			if (withEnsemble) {
+				if (i <= lastMember) {
+					graph.addDependency(ENSEMBLE_TASK, c.getName());
+				} else {
+					graph.addDependency(c.getName(), ENSEMBLE_TASK);
 				}
 			}
 		}
+		return graph;
+	}
+
+	/**
+	 * Checks if there is a join container in the container list.
+	 *
+	 * @return true if there is a join container
+	 */
+	private static boolean containsJoinContainer() {
+		for (Container c : ContainerManager.getContainerList()) {
+			if (c instanceof JoinContainer) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -120,200 +189,148 @@ public final class Deployer {
 			ContainerManager.destroyEnsemble();
 		}
 
-		// Doing thread cleaning is not the best idea because it is not really stable.
-		// For now just do it in the stable old way
-		destroyWithoutThreads(force);
-	}
-
-	/**
-	 * Creates containers using threads.
-	 */
-	private static void deployWithThreads() {
-		final ExecutorService executorService = Executors.newFixedThreadPool(THREAD_POOL);
-		final Set<Future> futureSet = new HashSet<>();
-
-		for (Container c : ContainerManager.getContainerList()) {
-			final ContainerSummoner containerSummoner;
-			if (!c.isCreated()) {
-				setNodeIfNecessary(c);
-				if (c instanceof RootContainer && !(c instanceof JoinContainer)) {
-					containerSummoner = new ContainerSummoner(c, null);
-				} else {
-					final ContainerSummoner parentSummoner = summoningThreads.get(c.getParent().getName());
-					OptionUtils.getString(c.getOptions(), Option.SAME_NODE_AS);
-					containerSummoner = new ContainerSummoner(c, parentSummoner);
-				}
-				summoningThreads.putIfAbsent(c.getName(), containerSummoner);
-				log.debug("Creating thread for spawning container: " + c.getName());
-				futureSet.add(executorService.submit(containerSummoner));
-			}
-		}
-
-		Exception storedException = null;
-		boolean failed = false;
-		for (Future future : futureSet) {
-			try {
-				future.get();
-			} catch (Exception e) {
-				log.trace("Exception thrown from the thread ", e);
-				failed = true;
-				storedException = e;
-				break;
-			}
+		// Cygwin can't handle multiple connections at once, so the containers on windows are destroyed one by one
+		final boolean serial = SystemProperty.getDestroyThreads() <= 1 || containsJoinContainer();
+		final TaskGraph graph = createTeardownGraph(new ArrayList<>(ContainerManager.getContainerList()), serial);
+		// Parents are destroyed even if their children failed, the errors are collected
+		graph.setContinueOnFailure(force);
+		graph.execute(serial ? 1 : SystemProperty.getDestroyThreads());
+		log.info(graph.report());
+		if (graph.getFailures().isEmpty()) {
+			return;
 		}
-
-		if (failed || ContainerSummoner.isStopWork()) {
-			ContainerSummoner.setStopWork(true);
-			for (Future future : futureSet) {
-				future.cancel(true);
+		FaframException exception = null;
+		for (Map.Entry<String, Throwable> failure : graph.getFailures().entrySet()) {
+			log.warn("Error while destroying container " + failure.getKey(), failure.getValue());
+			if (exception == null) {
+				exception = new FaframException("Error while destroying container! " + failure.getValue(), failure.getValue());
+			} else {
+				exception.addSuppressed(failure.getValue());
 			}
-			executorService.shutdownNow();
-
-			throw new FaframThreadException("Deployment failed: " + storedException, storedException);
 		}
-
-		executorService.shutdown();
-		log.trace("Waiting for ContainerSummoner threads to finish a job.");
-		try {
-			while (!executorService.awaitTermination(TIMEOUT, TimeUnit.SECONDS)) {
-				log.trace("Waiting for ContainerSummoner threads to finish a job.");
-			}
-		} catch (InterruptedException ie) {
-			throw new InvokerPoolInterruptedException(ie.getMessage());
+		if (!force) {
+			throw exception;
 		}
 	}
 
 	/**
-	 * NOT USED
-	 * Destroys containers using threads.
+	 * Creates the teardown graph of the containers - the reverse of the deployment graph. Each container is destroyed after its children
+	 * and after the containers sharing its node ("sameNodeAs" option), so the children of one parent are deleted at the same time.
+	 * Root containers on the same host are stopped one by one in the reverse order of the container list, roots on different hosts
+	 * at the same time. In the serial graph the containers are destroyed one by one in the reverse order of the container list.
 	 *
-	 * @param force flag if the exceptions should be ignored
-	 * @deprecated Not used at the moment for it is not stable enough
+	 * @param containers container list
+	 * @param serial true if the containers should be destroyed one by one
+	 * @return teardown graph
 	 */
-	@Deprecated
-	private static void destroyWithThreads(boolean force) {
-		final ExecutorService executorService = Executors.newFixedThreadPool(10);
-		final Set<Future> futureSet = new HashSet<>();
-
-		// Map containing all created annihilators with the name of theirs container
-
-		final List<Container> list = ContainerManager.getContainerList();
-		for (int i = list.size() - 1; i >= 0; i--) {
-			final Container c = list.get(i);
-			final ContainerAnnihilator containerAnnihilator;
-			if (c.isCreated()) {
-				if (c instanceof RootContainer || c instanceof SshContainer) {
-					// children
-					final Set<ContainerAnnihilator> children = new HashSet<>();
-					// Find threads of child containers
-					for (Container child : ContainerManager.getChildContainers(c)) {
-						children.add(annihilatingThreads.get(child));
-					}
-
-					containerAnnihilator = new ContainerAnnihilator(c, children, force);
-				} else {
-					// Annihilator for child container
-					containerAnnihilator = new ContainerAnnihilator(c, null, force);
-				}
-				annihilatingThreads.putIfAbsent(c, containerAnnihilator);
-				log.debug("Creating thread for deleting container: " + c.getName());
-				futureSet.add(executorService.submit(containerAnnihilator));
-			}
+	public static TaskGraph createTeardownGraph(List<Container> containers, boolean serial) {
+		final TaskGraph graph = new TaskGraph("Teardown");
+		for (int i = containers.size() - 1; i >= 0; i--) {
+			final Container c = containers.get(i);
+			final ContainerAnnihilator containerAnnihilator = new ContainerAnnihilator(c, !serial);
+			annihilatingThreads.putIfAbsent(c, containerAnnihilator);
+			graph.add(c.getName(), containerAnnihilator);
 		}
 
-		Exception storedException = null;
-		boolean flag = false;
-		for (Future future : futureSet) {
-			try {
-				future.get();
-			} catch (Exception e) {
-				log.error("Exception thrown from the thread ", e);
-				flag = true;
-				storedException = e;
-				break;
+		// Last root container on each host
+		final Map<String, String> lastRoots = new HashMap<>();
+		for (int i = containers.size() - 1; i >= 0; i--) {
+			final Container c = containers.get(i);
+			if (c.getParent() != null && graph.contains(c.getParent().getName())) {
+				graph.addDependency(c.getParent().getName(), c.getName());
 			}
-		}
-
-		if (flag || ContainerAnnihilator.isStopWork()) {
-			// TODO(rjakubco): Create better error message
-			log.error("Shutting down annihilating threads because flag " + flag + " or " + ContainerAnnihilator.isStopWork());
-			ContainerAnnihilator.setStopWork(true);
-			for (Future future : futureSet) {
-				future.cancel(true);
+			final String sameNodeAs = OptionUtils.getString(c.getOptions(), Option.SAME_NODE_AS);
+			if (!sameNodeAs.isEmpty() && graph.contains(sameNodeAs)) {
+				graph.addDependency(sameNodeAs, c.getName());
 			}
-			executorService.shutdownNow();
-
-			if (!force) {
-				throw new FaframException("Deployment failed: ", storedException);
-			}
-		}
-
-		executorService.shutdown();
-		log.trace("Waiting for ContainerAnnihilator threads to finish a job.");
-		try {
-			while (!executorService.awaitTermination(TIMEOUT, TimeUnit.SECONDS)) {
-				log.trace("Waiting for ContainerAnnihilator threads to finish a job.");
+			if (c instanceof RootContainer && c.getNode() != null) {
+				final String previous = lastRoots.put(c.getNode().getHost(), c.getName());
+				if (previous != null) {
+					graph.addDependency(c.getName(), previous);
+				}
 			}
-		} catch (InterruptedException ie) {
-			ContainerAnnihilator.setStopWork(true);
-			if (!force) {
-				throw new InvokerPoolInterruptedException(ie.getMessage());
+			if (serial && i < containers.size() - 1) {
+				graph.addDependency(c.getName(), containers.get(i + 1).getName());
 			}
 		}
+		return graph;
 	}
 
 	/**
-	 * Destroys using only one thread.
-	 *
-	 * @param force flag if the exceptions should be ignored
+	 * Probes the hosts of SSH containers and converts the SSH containers running on windows to join containers.
 	 */
-	private static void destroyWithoutThreads(boolean force) {
-		for (int i = ContainerManager.getContainerList().size() - 1; i >= 0; i--) {
-			final Container c = ContainerManager.getContainerList().get(i);
+	private static void checkOSandConvertContainers() {
+		probeHosts(ContainerManager.getContainerList());
+		final List<Container> tempContainers = new ArrayList<>(ContainerManager.getContainerList());
+		for (int i = 0; i < tempContainers.size(); i++) {
+			final Container container = tempContainers.get(i);
+
+			if (container instanceof SshContainer && container.getNode().getHostInfo().isWindows()) {
+				// Create JoinContainer from SshContainer
+				log.info("Container " + container.getName() + " running on Windows. Converting to join container!");
+				final Container joinContainer = JoinContainer.joinBuilder(container).build();
 
-			try {
-				c.destroy();
-			} catch (Exception ex) {
-				ex.printStackTrace();
-				if (!force) {
-					throw new FaframException("Error while destroying container! " + ex);
+				// Replace parent for all child containers
+				final Set<Container> children = ContainerManager.getChildContainers(container);
+				for (Container child : children) {
+					child.setParent(joinContainer);
+					child.setParentName(joinContainer.getName());
 				}
+
+				// Remove SshContainer from ContainerList and replace it witj JoinContainer
+				ContainerManager.getContainerList().remove(i);
+				ContainerManager.getContainerList().add(i, joinContainer);
+				((SshContainer) container).setJoinContainer((JoinContainer) joinContainer);
 			}
 		}
 	}
 
 	/**
-	 * Connects to each node of SSH containers and check if OS is windows. If it is then convert SSHContainer to JoinContainer.
+	 * Probes the hosts of the SSH containers that weren't probed yet. Each distinct host is probed once, the hosts are probed at
+	 * the same time (at most "deploy.threads" hosts) and the host info is set to all nodes with the host.
+	 *
+	 * @param containers container list
 	 */
-	private static void checkOSandConvertContainers() {
-		final List<Container> tempContainers = new ArrayList<>(ContainerManager.getContainerList());
-		for (int i = 0; i < tempContainers.size(); i++) {
-			final Container container = tempContainers.get(i);
-
-			if (container instanceof SshContainer) {
-				final Executor executor = container.getNode().createExecutor();
-				log.trace("Connecting node executor for checking OS on the machine");
-				executor.connect();
-
-				final String os = executor.executeCommandSilently("uname");
-				if (StringUtils.containsIgnoreCase(os, "cyg")) {
-					// Create JoinContainer from SshContainer
-					log.info("Container " + container.getName() + " running on Windows. Converting to join container!");
-					final Container joinContainer = JoinContainer.joinBuilder(container).build();
+	private static void probeHosts(List<Container> containers) {
+		final Map<String, List<Node>> hosts = new LinkedHashMap<>();
+		for (Container c : containers) {
+			if (c instanceof SshContainer && c.getNode().getHostInfo() == null) {
+				if (!hosts.containsKey(c.getNode().getHost())) {
+					hosts.put(c.getNode().getHost(), new ArrayList<Node>());
+				}
+				hosts.get(c.getNode().getHost()).add(c.getNode());
+			}
+		}
+		if (hosts.isEmpty()) {
+			return;
+		}
 
-					// Replace parent for all child containers
-					final Set<Container> children = ContainerManager.getChildContainers(container);
-					for (Container child : children) {
-						child.setParent(joinContainer);
-						child.setParentName(joinContainer.getName());
+		final TaskGraph graph = new TaskGraph("Host probe");
+		for (final Map.Entry<String, List<Node>> host : hosts.entrySet()) {
+			graph.add(host.getKey(), new Callable<HostInfo>() {
+				@Override
+				public HostInfo call() {
+					final Executor executor = host.getValue().get(0).createExecutor();
+					log.trace("Connecting node executor for probing the host " + host.getKey());
+					executor.connect();
+					try {
+						final HostInfo info = HostInfo.probe(executor);
+						log.info("Host " + host.getKey() + ": " + info);
+						for (Node node : host.getValue()) {
+							node.setHostInfo(info);
+						}
+						return info;
+					} finally {
+						executor.disconnect();
 					}
-
-					// Remove SshContainer from ContainerList and replace it witj JoinContainer
-					ContainerManager.getContainerList().remove(i);
-					ContainerManager.getContainerList().add(i, joinContainer);
-					((SshContainer) container).setJoinContainer((JoinContainer) joinContainer);
 				}
-			}
+			});
+		}
+		graph.execute(SystemProperty.getDeployThreads());
+		log.debug(graph.report());
+		if (!graph.getFailures().isEmpty()) {
+			final Map.Entry<String, Throwable> failure = graph.getFailures().entrySet().iterator().next();
+			throw new FaframException("Probing the host " + failure.getKey() + " failed: " + failure.getValue(), failure.getValue());
 		}
 	}
 }
@@ -0,0 +1,329 @@
+package org.jboss.fuse.qa.fafram8.deployer;
+
+import org.jboss.fuse.qa.fafram8.exception.FaframException;
+
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dependency graph of tasks. Each task starts as soon as all its prerequisites are finished, at most "parallelism" tasks run at
+ * the same time. When a task fails, the tasks depending on it (directly or through other tasks) are not started, the other tasks
+ * are finished ("continueOnFailure" runs the dependent tasks anyway). After the execution the graph reports the failed and skipped
+ * tasks and the critical path - the chain of dependent tasks with the longest total duration.
+ */
+@Slf4j
+public class TaskGraph {
+	@Getter
+	private final String name;
+
+	// Tasks in the insertion order
+	private final Map<String, Task> tasks = new LinkedHashMap<>();
+
+	// Failures of the tasks by the task id, only the tasks that failed themselves
+	@Getter
+	private final Map<String, Throwable> failures = Collections.synchronizedMap(new LinkedHashMap<String, Throwable>());
+
+	@Getter
+	private final List<String> skipped = new ArrayList<>();
+
+	@Getter
+	private List<String> criticalPath = Collections.emptyList();
+
+	@Getter
+	private long criticalPathMillis = 0L;
+
+	@Getter
+	private long wallMillis = 0L;
+
+	// Run the tasks also after their prerequisites failed, the failures are only collected then
+	@Getter
+	@Setter
+	private boolean continueOnFailure = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name name of the graph used in the log and in the thread names
+	 */
+	public TaskGraph(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Adds the task.
+	 *
+	 * @param id unique task id
+	 * @param work work of the task, null for the task that only joins its prerequisites
+	 */
+	public void add(String id, Callable<?> work) {
+		if (tasks.containsKey(id)) {
+			throw new IllegalArgumentException("Task " + id + " is already in the " + name + " graph");
+		}
+		tasks.put(id, new Task(id, work));
+	}
+
+	/**
+	 * Checks if the task is in the graph.
+	 *
+	 * @param id task id
+	 * @return true if present
+	 */
+	public boolean contains(String id) {
+		return tasks.containsKey(id);
+	}
+
+	/**
+	 * Adds the dependency - the task starts after the prerequisite is finished. The dependency of the task on itself is ignored.
+	 *
+	 * @param id task id
+	 * @param prerequisite id of the prerequisite task
+	 */
+	public void addDependency(String id, String prerequisite) {
+		if (!tasks.containsKey(id) || !tasks.containsKey(prerequisite)) {
+			throw new IllegalArgumentException("Unknown task in dependency " + prerequisite + " -> " + id + " of the " + name + " graph");
+		}
+		if (!id.equals(prerequisite)) {
+			tasks.get(id).prerequisites.add(prerequisite);
+		}
+	}
+
+	/**
+	 * Gets the prerequisites of the task.
+	 *
+	 * @param id task id
+	 * @return prerequisite ids
+	 */
+	public Set<String> getPrerequisites(String id) {
+		return Collections.unmodifiableSet(tasks.get(id).prerequisites);
+	}
+
+	/**
+	 * Gets the duration of the finished task.
+	 *
+	 * @param id task id
+	 * @return duration in milliseconds, -1 if the task didn't finish
+	 */
+	public long getDuration(String id) {
+		final Task task = tasks.get(id);
+		return task.end == 0L ? -1L : task.end - task.start;
+	}
+
+	/**
+	 * Executes all tasks and waits until they are finished or skipped.
+	 *
+	 * @param parallelism maximal number of the tasks running at the same time
+	 * @return true if all tasks succeeded, false if some task failed (see getFailures())
+	 */
+	public boolean execute(int parallelism) {
+		final List<Task> order = topologicalOrder();
+		final AtomicInteger threadCounter = new AtomicInteger();
+		final ListeningExecutorService pool = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(Math.max(1, parallelism),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						final Thread t = new Thread(r, name + "-" + threadCounter.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				}));
+
+		final long start = System.currentTimeMillis();
+		final Map<String, ListenableFuture<Object>> futures = new LinkedHashMap<>();
+		for (Task task : order) {
+			futures.put(task.id, schedule(task, futures, pool));
+		}
+
+		try {
+			for (Task task : order) {
+				try {
+					futures.get(task.id).get();
+				} catch (ExecutionException e) {
+					if (!task.started) {
+						skipped.add(task.id);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			for (ListenableFuture<Object> future : futures.values()) {
+				future.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new FaframException(name + " interrupted", e);
+		} finally {
+			pool.shutdownNow();
+		}
+		wallMillis = System.currentTimeMillis() - start;
+		computeCriticalPath(order);
+		return failures.isEmpty();
+	}
+
+	/**
+	 * Schedules the task after its prerequisites. The failure of any prerequisite fails the task without running it, unless
+	 * the graph continues on failure.
+	 *
+	 * @param task task
+	 * @param futures futures of the already scheduled tasks
+	 * @param pool thread pool
+	 * @return future of the task
+	 */
+	private ListenableFuture<Object> schedule(final Task task, Map<String, ListenableFuture<Object>> futures,
+			final ListeningExecutorService pool) {
+		if (task.prerequisites.isEmpty()) {
+			return pool.submit(task);
+		}
+		final List<ListenableFuture<Object>> prerequisites = new ArrayList<>();
+		for (String prerequisite : task.prerequisites) {
+			prerequisites.add(futures.get(prerequisite));
+		}
+		final ListenableFuture<List<Object>> finished = continueOnFailure
+				? Futures.successfulAsList(prerequisites) : Futures.allAsList(prerequisites);
+		return Futures.transform(finished, new AsyncFunction<List<Object>, Object>() {
+			@Override
+			public ListenableFuture<Object> apply(List<Object> input) {
+				return pool.submit(task);
+			}
+		});
+	}
+
+	/**
+	 * Sorts the tasks so that each task is after all its prerequisites, the insertion order is kept otherwise.
+	 *
+	 * @return sorted tasks
+	 * @throws FaframException if there is a cycle in the dependencies
+	 */
+	private List<Task> topologicalOrder() {
+		final List<Task> order = new ArrayList<>(tasks.size());
+		final Set<String> done = new LinkedHashSet<>();
+		while (order.size() < tasks.size()) {
+			boolean progress = false;
+			for (Task task : tasks.values()) {
+				if (!done.contains(task.id) && done.containsAll(task.prerequisites)) {
+					order.add(task);
+					done.add(task.id);
+					progress = true;
+				}
+			}
+			if (!progress) {
+				final Set<String> cycle = new LinkedHashSet<>(tasks.keySet());
+				cycle.removeAll(done);
+				throw new FaframException("Cyclic dependencies in the " + name + " graph between " + cycle);
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Finds the chain of the finished tasks with the longest total duration.
+	 *
+	 * @param order tasks in the topological order
+	 */
+	private void computeCriticalPath(List<Task> order) {
+		final Map<String, Long> finish = new LinkedHashMap<>();
+		final Map<String, String> previous = new LinkedHashMap<>();
+		String last = null;
+		for (Task task : order) {
+			if (task.end == 0L) {
+				continue;
+			}
+			long longest = 0L;
+			for (String prerequisite : task.prerequisites) {
+				if (finish.containsKey(prerequisite) && finish.get(prerequisite) >= longest) {
+					longest = finish.get(prerequisite);
+					previous.put(task.id, prerequisite);
+				}
+			}
+			finish.put(task.id, longest + task.end - task.start);
+			if (last == null || finish.get(task.id) > finish.get(last)) {
+				last = task.id;
+			}
+		}
+		final List<String> path = new ArrayList<>();
+		for (String id = last; id != null; id = previous.get(id)) {
+			path.add(0, id);
+		}
+		criticalPath = path;
+		criticalPathMillis = last == null ? 0L : finish.get(last);
+	}
+
+	/**
+	 * Creates the report of the last execution.
+	 *
+	 * @return report
+	 */
+	public String report() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append(name).append(" of ").append(tasks.size()).append(" tasks took ").append(wallMillis).append(" ms, critical path ")
+				.append(criticalPathMillis).append(" ms:");
+		for (String id : criticalPath) {
+			builder.append(" ").append(id).append(" (").append(getDuration(id)).append(" ms)");
+		}
+		if (!failures.isEmpty()) {
+			builder.append(", failed: ").append(failures.keySet());
+		}
+		if (!skipped.isEmpty()) {
+			builder.append(", skipped: ").append(skipped);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * One task of the graph.
+	 */
+	private final class Task implements Callable<Object> {
+		private final String id;
+		private final Callable<?> work;
+		private final Set<String> prerequisites = new LinkedHashSet<>();
+		private volatile boolean started = false;
+		private volatile long start = 0L;
+		private volatile long end = 0L;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param id task id
+		 * @param work work
+		 */
+		private Task(String id, Callable<?> work) {
+			this.id = id;
+			this.work = work;
+		}
+
+		@Override
+		public Object call() throws Exception {
+			started = true;
+			start = System.currentTimeMillis();
+			final String threadName = Thread.currentThread().getName();
+			Thread.currentThread().setName(id);
+			try {
+				return work == null ? null : work.call();
+			} catch (Exception | Error e) {
+				log.error("Task " + id + " of the " + name + " failed: " + e);
+				failures.put(id, e);
+				throw e;
+			} finally {
+				end = System.currentTimeMillis();
+				Thread.currentThread().setName(threadName);
+			}
+		}
+	}
+}
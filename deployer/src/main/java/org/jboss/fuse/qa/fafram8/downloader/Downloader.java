@@ -15,6 +15,7 @@ import org.jboss.fuse.qa.fafram8.manager.NodeManager;
 import org.jboss.fuse.qa.fafram8.manager.RemoteNodeManager;
 import org.jboss.fuse.qa.fafram8.property.FaframConstant;
 import org.jboss.fuse.qa.fafram8.property.SystemProperty;
+import org.jboss.fuse.qa.fafram8.ssh.CommandResult;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -143,12 +144,14 @@ public final class Downloader {
 		final String location;
 		switch (protocol) {
 			case "http":
-				log.info(executor.executeCommand("curl -L -s -o " + nodeManager.getFolder()
-						+ SEP + "fuse.zip " + SystemProperty.getFuseZip()));
-				if (!executor.executeCommandSilently("file -i " + nodeManager.getFolder() + SEP + "fuse.zip").contains("application/zip")) {
-					throw new FaframException("Something went wrong when downloading, downloaded file isn't a zip file!");
+				location = nodeManager.getFolder() + SEP + "fuse.zip";
+				// Download the zip and check its type in one round trip
+				final CommandResult download = executor.executeCommandWithResult("curl -L -s -S -o " + location + " "
+						+ SystemProperty.getFuseZip() + " && file -i " + location);
+				if (download == null || !download.isSuccess() || !download.getStdout().contains("application/zip")) {
+					throw new FaframException("Something went wrong when downloading, downloaded file isn't a zip file!"
+							+ (download == null ? "" : " " + download.getStderr().trim()));
 				}
-				location = executor.executeCommandSilently("ls -d -1 " + nodeManager.getFolder() + SEP + "*");
 				break;
 			case "scp":
 				// impossible to provide password to scp command without third party library ssh-pass
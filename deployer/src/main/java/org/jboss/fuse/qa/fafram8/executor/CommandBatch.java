@@ -0,0 +1,102 @@
+package org.jboss.fuse.qa.fafram8.executor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.Getter;
+
+/**
+ * Batch of commands executed as one script in one ssh channel. An echo of the unique marker is put after each command,
+ * so the output of the script can be split back to the responses of the particular commands. When some command fails,
+ * the shell stops executing the script, so the marker of the failed command and of all following commands is missing.
+ */
+public class CommandBatch {
+	private static final int ID_LENGTH = 8;
+
+	@Getter
+	private final List<String> commands;
+
+	// Unique prefix of the markers of this batch
+	private final String markerPrefix = "FAFRAM_BATCH_" + UUID.randomUUID().toString().substring(0, ID_LENGTH) + "_";
+
+	/**
+	 * Constructor.
+	 *
+	 * @param commands commands in the batch
+	 */
+	public CommandBatch(List<String> commands) {
+		this.commands = Collections.unmodifiableList(new ArrayList<>(commands));
+	}
+
+	/**
+	 * Gets the marker printed after the command with given index.
+	 *
+	 * @param index command index
+	 * @return marker
+	 */
+	public String getMarker(int index) {
+		return markerPrefix + index + "_END";
+	}
+
+	/**
+	 * Creates the script - one command per line, each followed by the echo of its marker.
+	 *
+	 * @return script
+	 */
+	public String getScript() {
+		final StringBuilder script = new StringBuilder();
+		for (int i = 0; i < commands.size(); i++) {
+			script.append(commands.get(i)).append("\n")
+					.append("echo ").append(getMarker(i)).append("\n");
+		}
+		return script.toString();
+	}
+
+	/**
+	 * Splits the script output to the responses of the commands. Only the commands whose marker was found
+	 * are returned, so the size of the returned list is the number of the successfully finished commands.
+	 *
+	 * @param output script output
+	 * @return trimmed responses of the finished commands
+	 */
+	public List<String> parse(String output) {
+		final List<String> responses = new ArrayList<>();
+		if (output == null) {
+			return responses;
+		}
+
+		int start = 0;
+		for (int i = 0; i < commands.size(); i++) {
+			final String marker = getMarker(i);
+			final int end = output.indexOf(marker, start);
+			if (end == -1) {
+				break;
+			}
+			responses.add(output.substring(start, end).trim());
+			start = end + marker.length();
+		}
+		return responses;
+	}
+
+	/**
+	 * Gets the output printed after the last found marker - the output of the command that stopped the script.
+	 *
+	 * @param output script output
+	 * @param finished number of finished commands (size of the list returned by parse())
+	 * @return remaining output, trimmed
+	 */
+	public String getRemainder(String output, int finished) {
+		if (output == null) {
+			return "";
+		}
+		if (finished == 0) {
+			return output.trim();
+		}
+
+		final String marker = getMarker(finished - 1);
+		final int index = output.indexOf(marker);
+		return index == -1 ? "" : output.substring(index + marker.length()).trim();
+	}
+}
@@ -3,6 +3,7 @@ package org.jboss.fuse.qa.fafram8.executor;
 import org.apache.commons.lang3.StringUtils;
 
 import org.jboss.fuse.qa.fafram8.cluster.container.Container;
+import org.jboss.fuse.qa.fafram8.cluster.listing.ContainerListing;
 import org.jboss.fuse.qa.fafram8.exception.ConnectionException;
 import org.jboss.fuse.qa.fafram8.exception.FaframException;
 import org.jboss.fuse.qa.fafram8.exception.PatchException;
@@ -10,17 +11,33 @@ import org.jboss.fuse.qa.fafram8.exception.ProvisionException;
 import org.jboss.fuse.qa.fafram8.exceptions.CopyFileException;
 import org.jboss.fuse.qa.fafram8.exceptions.KarafSessionDownException;
 import org.jboss.fuse.qa.fafram8.exceptions.SSHClientException;
-import org.jboss.fuse.qa.fafram8.exceptions.VerifyFalseException;
 import org.jboss.fuse.qa.fafram8.property.SystemProperty;
+import org.jboss.fuse.qa.fafram8.ssh.CommandResult;
+import org.jboss.fuse.qa.fafram8.ssh.CommandThreadPool;
+import org.jboss.fuse.qa.fafram8.ssh.LineConsumer;
 import org.jboss.fuse.qa.fafram8.ssh.NodeSSHClient;
 import org.jboss.fuse.qa.fafram8.ssh.SSHClient;
-import org.jboss.fuse.qa.fafram8.timer.TimerUtils;
+import org.jboss.fuse.qa.fafram8.ssh.SSHRecording;
+import org.jboss.fuse.qa.fafram8.timer.KeepAliveHub;
 import org.jboss.fuse.qa.fafram8.util.ExecutorCommandHistory;
 import org.jboss.fuse.qa.fafram8.util.callables.Response;
+import org.jboss.fuse.qa.fafram8.waiter.PollPolicy;
+import org.jboss.fuse.qa.fafram8.waiter.Waiter;
+import org.jboss.fuse.qa.fafram8.waiter.ZooKeeperWatcher;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Timer;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
@@ -52,9 +69,21 @@ public class Executor {
 	@Setter
 	protected String name;
 
-	private Timer timer;
-	private static final long TIMER_START_DELAY = 300000L;
-	private static final long TIMER_DELAY = 600000L;
+	// Time in milliseconds needed to get the SSH connection on the last connect
+	@Getter
+	private long readinessTime = -1;
+
+	// Cache of the read-only queries, invalidated on each connect
+	@Getter
+	protected QueryCache queryCache = new QueryCache(SystemProperty.getQueryCacheTtl());
+
+	// Watcher of the fabric registry, created on the first wait if enabled
+	private ZooKeeperWatcher zooKeeperWatcher;
+	private boolean zooKeeperUnavailable = false;
+
+
+	// Thread pool for the asynchronous commands shared with the ssh clients
+	private static final ListeningExecutorService COMMAND_POOL = MoreExecutors.listeningDecorator(CommandThreadPool.get());
 
 	/**
 	 * Constructor.
@@ -63,13 +92,14 @@ public class Executor {
 	}
 
 	/**
-	 * Constructor.
+	 * Constructor. The client is wrapped into the recording or the replay client when the "ssh.record" or "ssh.replay"
+	 * property is set.
 	 *
 	 * @param client ssh client instance
 	 * @param name executor name
 	 */
 	public Executor(SSHClient client, String name) {
-		this.client = client;
+		this.client = SSHRecording.wrap(client);
 		this.name = name;
 		history = new ExecutorCommandHistory(name);
 	}
@@ -85,11 +115,12 @@ public class Executor {
 	@SuppressWarnings("TryWithIdenticalCatches")
 	private String executeCommand(String cmd, boolean silent, boolean ignoreExceptions) {
 		try {
+			final long start = System.currentTimeMillis();
 			final String response = client.executeCommand(cmd, silent, ignoreExceptions);
 			if (!silent) {
 				log.debug("Response: " + response);
 			}
-			history.log(cmd, response);
+			history.log(cmd, response, System.currentTimeMillis() - start);
 			return response;
 		} catch (KarafSessionDownException e) {
 			if (!ignoreExceptions) {
@@ -136,6 +167,53 @@ public class Executor {
 		return executeCommand(cmd, true, ignoreExceptions);
 	}
 
+	/**
+	 * Executes the read-only command silently, the response is cached for the time set by the query.cache.ttl property.
+	 *
+	 * @param cmd command without side effects
+	 * @return response
+	 */
+	public String executeQuery(String cmd) {
+		String response = queryCache.get(cmd);
+		if (response == null) {
+			response = executeCommandSilently(cmd);
+			queryCache.put(cmd, response);
+		} else {
+			log.trace("Cached response of \"{}\" used", cmd);
+		}
+		return response;
+	}
+
+	/**
+	 * Gets the property from the cached shell:info.
+	 *
+	 * @param property property name, for example "Karaf base"
+	 * @return property value or null if not found
+	 */
+	public String getShellInfo(String property) {
+		for (String line : StringUtils.split(StringUtils.defaultString(executeQuery("shell:info")), "\r\n")) {
+			if (line.trim().startsWith(property)) {
+				return StringUtils.substringAfter(line, property).trim();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the property from the cached fabric:info.
+	 *
+	 * @param property property name, for example "ZooKeeper URI"
+	 * @return property value or null if not found
+	 */
+	public String getFabricInfo(String property) {
+		for (String line : StringUtils.split(StringUtils.defaultString(executeQuery("fabric:info")), "\r\n")) {
+			if (line.trim().startsWith(property + ":")) {
+				return StringUtils.substringAfter(line, ":").trim();
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Executes a command.
 	 *
@@ -160,6 +238,237 @@ public class Executor {
 		return responses;
 	}
 
+	/**
+	 * Executes multiple commands in one batch - all commands are sent as one script in one ssh channel. If some command
+	 * fails, its response is the output printed before the shell stopped and the remaining commands are executed one by one,
+	 * so the responses are the same as from executeCommands(). Batching can be turned off by the batch.commands property.
+	 *
+	 * @param commands commands array
+	 * @return list of command responses
+	 */
+	public List<String> executeCommandsBatched(String... commands) {
+		if (commands.length < 2 || !SystemProperty.isBatchCommands()) {
+			return executeCommands(commands);
+		}
+
+		final CommandBatch batch = new CommandBatch(Arrays.asList(commands));
+		log.info("Executing batch of " + commands.length + " commands");
+		String output = null;
+		try {
+			output = client.executeCommand(batch.getScript(), true, true);
+		} catch (KarafSessionDownException | SSHClientException e) {
+			log.debug("Batch failed, executing the commands one by one: " + e);
+		}
+
+		final List<String> responses = new ArrayList<>(batch.parse(output));
+		for (int i = 0; i < responses.size(); i++) {
+			log.info("Executing command: " + commands[i]);
+			log.debug("Response: " + responses.get(i));
+			history.log(commands[i], responses.get(i));
+		}
+
+		if (responses.size() < commands.length) {
+			final String remainder = batch.getRemainder(output, responses.size());
+			// Command that didn't print anything or was not found yet is executed again, the output of the failed command is kept
+			if (!remainder.isEmpty() && !remainder.startsWith("Command not found")) {
+				final String failed = commands[responses.size()];
+				log.warn("Batch stopped at command \"" + failed + "\", executing the rest one by one");
+				log.info("Executing command: " + failed);
+				log.debug("Response: " + remainder);
+				history.log(failed, remainder);
+				responses.add(remainder);
+			}
+			for (int i = responses.size(); i < commands.length; i++) {
+				responses.add(executeCommand(commands[i]));
+			}
+		}
+		return responses;
+	}
+
+	/**
+	 * Executes a command asynchronously in the shared bounded command thread pool.
+	 *
+	 * @param cmd command
+	 * @return future with the command response (null response if the command failed, same as in executeCommand)
+	 */
+	public ListenableFuture<String> executeCommandAsync(String cmd) {
+		return executeCommandAsync(cmd, false, true);
+	}
+
+	/**
+	 * Executes a command silently and asynchronously in the shared bounded command thread pool.
+	 *
+	 * @param cmd command
+	 * @param ignoreExceptions true to not log any exceptions
+	 * @return future with the command response (null response if the command failed)
+	 */
+	public ListenableFuture<String> executeCommandSilentlyAsync(String cmd, boolean ignoreExceptions) {
+		return executeCommandAsync(cmd, true, ignoreExceptions);
+	}
+
+	/**
+	 * Executes multiple commands asynchronously. The commands are executed concurrently, so use it only for commands
+	 * that don't depend on each other.
+	 *
+	 * @param commands commands array
+	 * @return future with the list of command responses in the same order as the commands
+	 */
+	public ListenableFuture<List<String>> executeCommandsAsync(String... commands) {
+		final List<ListenableFuture<String>> futures = new ArrayList<>(commands.length);
+		for (String command : commands) {
+			futures.add(executeCommandAsync(command));
+		}
+		return Futures.allAsList(futures);
+	}
+
+	/**
+	 * Executes a command asynchronously in the shared bounded command thread pool and returns its output, error output, exit code
+	 * and duration.
+	 *
+	 * @param cmd command
+	 * @param silent do not log the command and the exceptions if true
+	 * @return future with the command result (null result if the command couldn't be executed, same as in executeCommandWithResult)
+	 */
+	public ListenableFuture<CommandResult> executeCommandWithResultAsync(final String cmd, final boolean silent) {
+		return submit(new Callable<CommandResult>() {
+			@Override
+			public CommandResult call() {
+				return executeCommandWithResult(cmd, silent);
+			}
+		});
+	}
+
+	/**
+	 * Executes a command asynchronously in the shared bounded command thread pool and returns its output, error output, exit code
+	 * and duration.
+	 *
+	 * @param cmd command
+	 * @return future with the command result (null result if the command couldn't be executed)
+	 */
+	public ListenableFuture<CommandResult> executeCommandWithResultAsync(String cmd) {
+		return executeCommandWithResultAsync(cmd, false);
+	}
+
+	/**
+	 * Executes multiple commands asynchronously and returns their results. The commands are executed concurrently, so use it only
+	 * for commands that don't depend on each other.
+	 *
+	 * @param commands commands array
+	 * @return future with the list of command results in the same order as the commands
+	 */
+	public ListenableFuture<List<CommandResult>> executeCommandsWithResultAsync(String... commands) {
+		final List<ListenableFuture<CommandResult>> futures = new ArrayList<>(commands.length);
+		for (String command : commands) {
+			futures.add(executeCommandWithResultAsync(command));
+		}
+		return Futures.allAsList(futures);
+	}
+
+	/**
+	 * Submits the command to the command thread pool.
+	 *
+	 * @param cmd command
+	 * @param silent do not log if true
+	 * @param ignoreExceptions do not log if true
+	 * @return future with the command response
+	 */
+	protected ListenableFuture<String> executeCommandAsync(final String cmd, final boolean silent, final boolean ignoreExceptions) {
+		return submit(new Callable<String>() {
+			@Override
+			public String call() {
+				return executeCommand(cmd, silent, ignoreExceptions);
+			}
+		});
+	}
+
+	/**
+	 * Submits the asynchronous command to the command thread pool. All asynchronous commands of the executor go through this method.
+	 *
+	 * @param command command call
+	 * @param <T> type of the command response
+	 * @return future with the command response
+	 */
+	protected <T> ListenableFuture<T> submit(Callable<T> command) {
+		return COMMAND_POOL.submit(command);
+	}
+
+	/**
+	 * Executes a command and passes its output line by line to the consumer as it arrives. Returning false from
+	 * the consumer stops the command.
+	 *
+	 * @param cmd command
+	 * @param ignoreExceptions true to not log any exceptions
+	 * @param consumer output line consumer
+	 * @return true if the whole output was read, false if stopped by the consumer, null if the command failed
+	 */
+	public Boolean executeCommandStreaming(String cmd, boolean ignoreExceptions, LineConsumer consumer) {
+		try {
+			final boolean finished = client.executeCommandStreaming(cmd, consumer, true);
+			history.log(cmd, finished ? "<streamed>" : "<streamed, stopped by consumer>");
+			return finished;
+		} catch (KarafSessionDownException e) {
+			if (!ignoreExceptions) {
+				log.error("Karaf session is down!");
+			}
+		} catch (SSHClientException e) {
+			if (!ignoreExceptions) {
+				log.error("SSHClient exception thrown: " + e);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Executes a command and passes its output line by line to the consumer as it arrives. Returning false from
+	 * the consumer stops the command.
+	 *
+	 * @param cmd command
+	 * @param consumer output line consumer
+	 * @return true if the whole output was read, false if stopped by the consumer, null if the command failed
+	 */
+	public Boolean executeCommandStreaming(String cmd, LineConsumer consumer) {
+		return executeCommandStreaming(cmd, false, consumer);
+	}
+
+	/**
+	 * Executes a command and returns its output, error output, exit code and duration.
+	 *
+	 * @param cmd command
+	 * @param silent do not log the command and the exceptions if true
+	 * @return command result, null if the command couldn't be executed
+	 */
+	public CommandResult executeCommandWithResult(String cmd, boolean silent) {
+		try {
+			final CommandResult result = client.executeCommandWithResult(cmd, silent);
+			if (!silent) {
+				log.debug("Response: " + result);
+			}
+			history.log(cmd, result.getStdout().trim(), result.getDurationMillis());
+			return result;
+		} catch (KarafSessionDownException e) {
+			if (!silent) {
+				log.error("Karaf session is down!");
+			}
+		} catch (SSHClientException e) {
+			if (!silent) {
+				log.error("SSHClient exception thrown: " + e);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Executes a command and returns its output, error output, exit code and duration.
+	 *
+	 * @param cmd command
+	 * @return command result, null if the command couldn't be executed
+	 */
+	public CommandResult executeCommandWithResult(String cmd) {
+		return executeCommandWithResult(cmd, false);
+	}
+
 	/**
 	 * Checks if the client can connect.
 	 *
@@ -181,32 +490,11 @@ public class Executor {
 	 */
 	public void connect() {
 		log.debug("Connecting: " + this.toString());
-		Boolean connected = false;
-		final int step = 5;
-		int elapsed = 0;
-		final long timeout = step * 1000L;
-
 		log.info("Waiting for SSH connection ...");
-		while (!connected) {
-			// Check if the time is up
-			if (elapsed > SystemProperty.getStartWaitTime()) {
-				log.error("Connection couldn't be established after " + SystemProperty.getStartWaitTime()
-						+ " seconds");
-				throw new ConnectionException("Connection couldn't be established after "
-						+ SystemProperty.getStartWaitTime() + " seconds");
-			}
-			try {
-				client.connect(true);
-				connected = true;
-				log.info("Connected to SSH server");
-			} catch (VerifyFalseException ex) {
-				log.debug("Remaining time: " + (SystemProperty.getStartWaitTime() - elapsed) + " seconds. ");
-				elapsed += step;
-			} catch (SSHClientException e) {
-				elapsed += step;
-			}
-			sleep(timeout);
-		}
+		readinessTime = createReadinessProbe().await(false);
+		log.info("Connected to SSH server");
+		// The container could be restarted, the cached responses may not be valid anymore
+		queryCache.invalidate();
 
 		// When connected, schedule a new keep alive thread for this executor
 		// First shutdown all other tasks from previous runs, because you can use .connect() without previous .disconnect()
@@ -228,6 +516,7 @@ public class Executor {
 	 */
 	public void disconnect() {
 		this.stopKeepAliveTimer();
+		closeZooKeeperWatcher();
 		client.disconnect();
 	}
 
@@ -243,75 +532,42 @@ public class Executor {
 	 * Waits for the container to boot.
 	 */
 	public void waitForBoot() {
-		final int step = 3;
-		final long timeout = step * 1000L;
-		boolean online = false;
-
-		int elapsed = 0;
-
-		while (!online) {
-			// Check if the time is up
-			if (elapsed > SystemProperty.getStartWaitTime()) {
-				log.error("Connection couldn't be established after " + SystemProperty.getStartWaitTime()
-						+ " seconds");
-				throw new ConnectionException("Connection couldn't be established after "
-						+ SystemProperty.getStartWaitTime() + " seconds");
-			}
-
-			try {
-				// Try to execute the command - if it throws an exception, it is not ready yet
-				// Suppress the exception here to reduce spam
-				client.connect(true);
-				online = true;
-				log.info("Container online");
-			} catch (Exception ex) {
-				log.debug("Remaining time: " + (SystemProperty.getStartWaitTime() - elapsed) + " seconds. ");
-				elapsed += step;
-			}
-			sleep(timeout);
-		}
+		// Try to connect - if it fails, it is not ready yet
+		readinessTime = createReadinessProbe().await(false);
+		log.info("Container online");
+		queryCache.invalidate();
 		// There should be nothing scheduled, but just to be sure
 		this.stopKeepAliveTimer();
 		this.startKeepAliveTimer();
 	}
 
+	/**
+	 * Creates the probe that waits for the SSH server of this executor for the start wait time.
+	 *
+	 * @return readiness probe
+	 */
+	protected ReadinessProbe createReadinessProbe() {
+		return new ReadinessProbe(client, name, PollPolicy.backoff(SystemProperty.getStartWaitTime(), TimeUnit.SECONDS));
+	}
+
 	/**
 	 * Waits for the broker start.
 	 */
 	public void waitForBroker() {
-		final int step = 3;
-		final long timeout = step * 1000L;
-		boolean online = false;
-
-		int elapsed = 0;
-
 		log.info("Waiting for the broker to be online");
-
-		while (!online) {
-			// Check if the time is up
-			if (elapsed > SystemProperty.getBrokerStartWaitTime()) {
-				log.error("Broker wasn't started after " + SystemProperty.getBrokerStartWaitTime() + " seconds");
-				throw new FaframException(
-						"Broker wasn't started after " + SystemProperty.getBrokerStartWaitTime() + " seconds");
-			}
-
-			String response = null;
-			try {
-				response = client.executeCommand("activemq:bstat", true);
-			} catch (Exception ignored) {
-				// Do nothing
-			}
-
-			if (StringUtils.contains("BrokerName", response)) {
-				log.debug("Remaining time: " + (SystemProperty.getBrokerStartWaitTime() - elapsed) + " seconds. ");
-				elapsed += step;
-			} else {
-				online = true;
-				log.info("Broker online");
+		final Response<String> response = Waiter.await("broker of " + name, new Callable<Response<String>>() {
+			@Override
+			public Response<String> call() throws Exception {
+				final String bstat = client.executeCommand("activemq:bstat", true);
+				return StringUtils.contains(bstat, "BrokerName") ? Response.success(bstat) : Response.timeOut(bstat);
 			}
+		}, PollPolicy.backoff(SystemProperty.getBrokerStartWaitTime(), TimeUnit.SECONDS));
 
-			sleep(timeout);
+		if (!response.getSuccess()) {
+			log.error("Broker wasn't started after " + SystemProperty.getBrokerStartWaitTime() + " seconds");
+			throw new FaframException("Broker wasn't started after " + SystemProperty.getBrokerStartWaitTime() + " seconds");
 		}
+		log.info("Broker online");
 	}
 
 	/**
@@ -320,32 +576,18 @@ public class Executor {
 	public void waitForShutdown() {
 		this.stopKeepAliveTimer();
 
-		final int step = 5;
-		final long timeout = (step * 1000L);
-		boolean online = true;
-
-		int elapsed = 0;
-
 		log.info("Waiting for shutdown");
-
-		while (online) {
-			// Check if the time is up
-			if (elapsed > SystemProperty.getStopWaitTime()) {
-				log.error("Connection could be established after " + SystemProperty.getStopWaitTime() + " seconds");
-				throw new ConnectionException(
-						"Connection could be established after " + SystemProperty.getStopWaitTime() + " seconds");
-			}
-
-			try {
+		final Response<Boolean> response = Waiter.await("shutdown of " + name, new Callable<Response<Boolean>>() {
+			@Override
+			public Response<Boolean> call() {
 				// Check if we are still connected
-				online = client.isConnected();
-				log.debug("Remaining time: " + (SystemProperty.getStopWaitTime() - elapsed) + " seconds. ");
-				elapsed += step;
-			} catch (Exception ex) {
-				online = false;
+				return client.isConnected() ? Response.timeOut(true) : Response.success(false);
 			}
+		}, PollPolicy.backoff(SystemProperty.getStopWaitTime(), TimeUnit.SECONDS));
 
-			sleep(timeout);
+		if (!response.getSuccess()) {
+			log.error("Connection could be established after " + SystemProperty.getStopWaitTime() + " seconds");
+			throw new ConnectionException("Connection could be established after " + SystemProperty.getStopWaitTime() + " seconds");
 		}
 	}
 
@@ -360,17 +602,17 @@ public class Executor {
 		if (this.getName().equals(c.getName())) {
 			c.getExecutor().stopKeepAliveTimer();
 		}
-		final int step = 5;
-		final long timeout = (step * 1000L);
+		final long step = TimeUnit.SECONDS.toMillis(5);
+		// The wait can be woken up early by the pid znode change, so the time is measured, not counted in steps
+		final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(SystemProperty.getStopWaitTime());
 		boolean online = true;
 
-		int elapsed = 0;
-
 		log.info("Waiting for container " + c.getName() + " to shutdown");
 
 		while (online) {
 			// Check if the time is up
-			if (elapsed > SystemProperty.getStopWaitTime()) {
+			final long remaining = deadline - System.currentTimeMillis();
+			if (remaining < 0) {
 				log.error("PID was still found after " + SystemProperty.getStopWaitTime() + " seconds");
 				throw new FaframException(
 						"PID was still found after after " + SystemProperty.getStopWaitTime() + " seconds");
@@ -379,13 +621,15 @@ public class Executor {
 			try {
 				// If the response contains NoNodeException, then the container is stopped definitely and the node disappears
 				online = !client.executeCommand("zk:get /fabric/registry/containers/status/" + c.getName() + "/pid", true).contains("NoNode");
-				log.debug("Remaining time: " + (SystemProperty.getStopWaitTime() - elapsed) + " seconds. ");
-				elapsed += step;
+				log.debug("Remaining time: " + TimeUnit.MILLISECONDS.toSeconds(remaining) + " seconds. ");
 			} catch (Exception ex) {
 				online = false;
 			}
 
-			sleep(timeout);
+			if (online) {
+				awaitChange(Collections.singletonList(String.format(ZooKeeperWatcher.PID_PATH, c.getName())),
+						Math.max(0L, Math.min(step, deadline - System.currentTimeMillis() + 1)));
+			}
 		}
 		// Because we can stop ssh container through root's executor and in that case the "c" here would be ssh container, but the executor is from root
 		if (this.getName().equals(c.getName())) {
@@ -456,27 +700,23 @@ public class Executor {
 	public void waitForProvisioning(String containerName, Container c, String status, int time) {
 		final String waitFor = c == null ? containerName : c.getName();
 
-		final int step = 3;
-		final long timeout = step * 1000L;
-		final long startTimeout = 10000L;
-
-		// Wait before executing - sometimes the provision is triggered a bit later
-		sleep(startTimeout);
+		// The first check is done immediately, the intervals grow up to the limit
+		final PollPolicy policy = PollPolicy.backoff(time, TimeUnit.SECONDS);
+		// Sometimes the provision is triggered a bit later, so the unchanged status is trusted only after the settle time
+		final ProvisionTracker tracker = new ProvisionTracker(waitFor, SystemProperty.getProvisionSettleTime());
 
-		// Used to control the cycle
-		int elapsed = 0;
+		int attempt = 0;
 		String provisionStatus = "";
 		boolean isSuccessful = false;
 		boolean restarted = false;
 
 		while (!isSuccessful) {
-			handleProvisionWaitTime(elapsed, waitFor, status, provisionStatus, time);
+			handleProvisionWaitTime(tracker.getElapsed(), waitFor, status, provisionStatus, time);
 			provisionStatus = "";
 			String reason = "";
 
 			try {
 				provisionStatus = StringUtils.substringAfter(client.executeCommand("container-info " + waitFor, true), "Provision Status:").trim();
-				isSuccessful = provisionStatus.contains(status);
 			} catch (Exception e) {
 				// Get the reason
 				reason = e.getMessage();
@@ -487,29 +727,37 @@ public class Executor {
 				} catch (Exception ignored) {
 				}
 			}
-			if (("requires full restart".equals(provisionStatus) || provisionStatus.contains("NoNodeException") || provisionStatus.contains(
-					"Client is not started") || (SystemProperty.isRetryProvisioning() && "failed".equals(provisionStatus))) && c != null) {
+			tracker.update(provisionStatus);
+
+			if (requiresRestart(provisionStatus) && c != null) {
 				handleProvisionRetries(waitFor, status);
 				restarted = true;
 				log.warn("Container requires restart (provision status: " + provisionStatus + ")! Restarting...");
 				break;
 			}
 
-			// If we are waiting for certain provision status and status is either error/success(opposite to wanted status) then terminate waitForProvision with exception
-			log.trace("Waiting for: {} , current provision status: {}", status, provisionStatus);
-			if (!status.equals(provisionStatus) && (provisionStatus.contains("error") || provisionStatus.contains("success"))) {
-				log.error("Container {} did not provision to state \"{}\" but ended in state: \"{}\"", waitFor, status, provisionStatus);
-				throw new ProvisionException("Container " + waitFor + " failed to provision to state \"" + status + "\"  and ended in provision status \"" + provisionStatus + "\"");
+			if (tracker.isSettled()) {
+				isSuccessful = provisionStatus.contains(status);
+
+				// If we are waiting for certain provision status and status is either error/success(opposite to wanted status) then terminate waitForProvision with exception
+				log.trace("Waiting for: {} , current provision status: {}", status, provisionStatus);
+				if (!status.equals(provisionStatus) && (provisionStatus.contains("error") || provisionStatus.contains("success"))) {
+					log.error("Container {} did not provision to state \"{}\" but ended in state: \"{}\"", waitFor, status, provisionStatus);
+					throw new ProvisionException("Container " + waitFor + " failed to provision to state \"" + status + "\"  and ended in provision status \""
+							+ provisionStatus + "\"");
+				}
 			}
 
 			if (!isSuccessful) {
-				log.debug("Remaining time: " + (time - elapsed) + " seconds. " + (""
+				final long remaining = TimeUnit.SECONDS.toMillis(time) - tracker.getElapsed();
+				log.debug("Remaining time: " + TimeUnit.MILLISECONDS.toSeconds(remaining) + " seconds. " + (""
 						.equals(reason) ? "" : "(" + reason + ")") + ("".equals(provisionStatus) ? "" : "("
 						+ provisionStatus + ")"));
-				elapsed += step;
-				sleep(timeout);
+				awaitChange(Collections.singletonList(String.format(ZooKeeperWatcher.PROVISION_RESULT_PATH, waitFor)),
+						Math.max(0L, Math.min(policy.getDelay(attempt++), remaining + 1)));
 			}
 		}
+		log.debug("Container {} provisioned to \"{}\" in {} ms", waitFor, provisionStatus, tracker.getElapsed());
 
 		// If the container was restarted during the provisioning, trigger the provisioning again
 		handleRestart(restarted, c);
@@ -517,6 +765,174 @@ public class Executor {
 		provisionRetries = 0;
 	}
 
+	/**
+	 * Waits for the successful provisioning of all containers.
+	 *
+	 * @param containers containers
+	 * @return provisioning time in milliseconds of each container
+	 */
+	public Map<String, Long> waitForProvisioning(Collection<Container> containers) {
+		return waitForProvisioning(containers, "success", SystemProperty.getProvisionWaitTime());
+	}
+
+	/**
+	 * Waits for the provision status of all containers. One container-list is executed in each poll for all containers, the wait ends
+	 * when all containers are provisioned or when any of them fails. The containers that require restart are restarted and waited for
+	 * one by one after the others.
+	 *
+	 * @param containers containers
+	 * @param status provision status
+	 * @param time time in seconds
+	 * @return provisioning time in milliseconds of each container
+	 */
+	public Map<String, Long> waitForProvisioning(Collection<Container> containers, String status, int time) {
+		final PollPolicy policy = PollPolicy.backoff(time, TimeUnit.SECONDS);
+		final Map<String, ProvisionTracker> pending = new LinkedHashMap<>();
+		for (Container c : containers) {
+			pending.put(c.getName(), new ProvisionTracker(c.getName(), SystemProperty.getProvisionSettleTime()));
+		}
+		final Map<String, Long> times = new LinkedHashMap<>();
+		final List<Container> restart = new ArrayList<>();
+
+		int attempt = 0;
+		while (!pending.isEmpty()) {
+			final ContainerListing listing = getContainerListing();
+			for (Container c : containers) {
+				final ProvisionTracker tracker = pending.get(c.getName());
+				if (tracker == null) {
+					continue;
+				}
+				final String provisionStatus = listing.getProvisionStatus(c.getName());
+				tracker.update(provisionStatus);
+				if (requiresRestart(provisionStatus)) {
+					log.warn("Container " + c.getName() + " requires restart (provision status: " + provisionStatus + ")!");
+					pending.remove(c.getName());
+					restart.add(c);
+				} else if (tracker.isSettled() && provisionStatus.contains(status)) {
+					log.debug("Container {} provisioned to \"{}\" in {} ms", c.getName(), provisionStatus, tracker.getElapsed());
+					pending.remove(c.getName());
+					times.put(c.getName(), tracker.getElapsed());
+				} else if (tracker.isSettled() && !status.equals(provisionStatus)
+						&& (provisionStatus.contains("error") || provisionStatus.contains("success"))) {
+					log.error("Container {} did not provision to state \"{}\" but ended in state: \"{}\"", c.getName(), status, provisionStatus);
+					throw new ProvisionException("Container " + c.getName() + " failed to provision to state \"" + status
+							+ "\"  and ended in provision status \"" + provisionStatus + "\"");
+				}
+			}
+
+			if (!pending.isEmpty()) {
+				final ProvisionTracker first = pending.values().iterator().next();
+				final long remaining = TimeUnit.SECONDS.toMillis(time) - first.getElapsed();
+				if (remaining < 0) {
+					log.error("Containers " + pending.keySet() + " failed to provision to state \"" + status + "\" in time");
+					throw new ProvisionException("Containers " + pending.keySet() + " failed to provision to state \"" + status + "\" in time");
+				}
+				log.debug("Waiting for provisioning of " + pending.keySet() + ", remaining time: " + TimeUnit.MILLISECONDS.toSeconds(remaining)
+						+ " seconds");
+				final List<String> paths = new ArrayList<>();
+				for (String container : pending.keySet()) {
+					paths.add(String.format(ZooKeeperWatcher.PROVISION_RESULT_PATH, container));
+				}
+				awaitChange(paths, Math.min(policy.getDelay(attempt++), remaining + 1));
+			}
+		}
+
+		for (Container c : restart) {
+			final long start = System.currentTimeMillis();
+			waitForProvisioning(null, c, status, time);
+			times.put(c.getName(), System.currentTimeMillis() - start);
+		}
+		log.info("Provisioning times: " + times);
+		return times;
+	}
+
+	/**
+	 * Gets the parsed container-list. The command is not logged and not added to the history.
+	 *
+	 * @return container listing, empty listing if the command failed
+	 */
+	public ContainerListing getContainerListing() {
+		try {
+			return ContainerListing.parse(client.executeCommand("container-list", true));
+		} catch (Exception e) {
+			log.debug("Container list failed (" + e.getMessage() + ")");
+			// Re-init the ssh connection if it's not successful
+			reconnectSilently();
+			return ContainerListing.empty();
+		}
+	}
+
+	/**
+	 * Checks if the provision status requires the restart of the container.
+	 *
+	 * @param provisionStatus provision status
+	 * @return true if the container should be restarted
+	 */
+	private static boolean requiresRestart(String provisionStatus) {
+		return "requires full restart".equals(provisionStatus) || provisionStatus.contains("NoNodeException")
+				|| provisionStatus.contains("Client is not started") || (SystemProperty.isRetryProvisioning() && "failed".equals(provisionStatus));
+	}
+
+	/**
+	 * Waits for the change of any of the fabric registry znodes. Without the ZooKeeper watcher it just sleeps for the given time.
+	 *
+	 * @param paths znode paths
+	 * @param timeout maximal wait time in milliseconds
+	 */
+	private void awaitChange(Collection<String> paths, long timeout) {
+		final ZooKeeperWatcher watcher = getZooKeeperWatcher();
+		if (watcher == null) {
+			sleep(timeout);
+			return;
+		}
+		final long start = System.currentTimeMillis();
+		try {
+			if (watcher.awaitChange(paths, timeout)) {
+				log.trace("Fabric registry changed after " + (System.currentTimeMillis() - start) + " ms");
+			}
+		} catch (IOException e) {
+			log.warn("ZooKeeper watch failed, falling back to polling: " + e.getMessage());
+			zooKeeperUnavailable = true;
+			closeZooKeeperWatcher();
+			sleep(Math.max(0L, timeout - (System.currentTimeMillis() - start)));
+		}
+	}
+
+	/**
+	 * Gets the ZooKeeper watcher of the fabric. The ZooKeeper URI and the password are taken from the container, the watcher is not
+	 * created again after it failed.
+	 *
+	 * @return watcher or null if it's not enabled or available
+	 */
+	private synchronized ZooKeeperWatcher getZooKeeperWatcher() {
+		if (!SystemProperty.isZooKeeperWatch() || zooKeeperUnavailable) {
+			return null;
+		}
+		if (zooKeeperWatcher != null && zooKeeperWatcher.isOpen()) {
+			return zooKeeperWatcher;
+		}
+		try {
+			final String uri = StringUtils.substringBetween(client.executeCommand("fabric:info", true), "ZooKeeper URI:", "\n").trim();
+			final String password = client.executeCommand("fabric:ensemble-password", true).trim();
+			zooKeeperWatcher = ZooKeeperWatcher.connect(uri, password);
+			return zooKeeperWatcher;
+		} catch (Exception e) {
+			log.warn("Unable to watch the fabric ZooKeeper, falling back to polling: " + e.getMessage());
+			zooKeeperUnavailable = true;
+			return null;
+		}
+	}
+
+	/**
+	 * Closes the ZooKeeper watcher.
+	 */
+	private synchronized void closeZooKeeperWatcher() {
+		if (zooKeeperWatcher != null) {
+			zooKeeperWatcher.close();
+			zooKeeperWatcher = null;
+		}
+	}
+
 	/**
 	 * Handles the maximal provision retries count. If the retries are > 2, fail because probably the container won't provision.
 	 *
@@ -533,12 +949,12 @@ public class Executor {
 	/**
 	 * Handles the maximal provision time. If the time is up, fail because probably the container won't provision.
 	 *
-	 * @param elapsed elapsed time
+	 * @param elapsed elapsed time in milliseconds
 	 * @param container container
 	 * @param status status to wait for
 	 */
-	private void handleProvisionWaitTime(int elapsed, String container, String status, String containerActualStatus, int time) {
-		if (elapsed > time) {
+	private void handleProvisionWaitTime(long elapsed, String container, String status, String containerActualStatus, int time) {
+		if (elapsed > TimeUnit.SECONDS.toMillis(time)) {
 			log.error("Container " + container + " failed to provision to state \"" + status + "\" in time and ended in status:" + containerActualStatus);
 			throw new ProvisionException("Container " + container + " failed to provision to state \"" + status + "\" in time and ended in status:"
 					+ containerActualStatus);
@@ -581,49 +997,35 @@ public class Executor {
 	 * @param patchName patch name
 	 * @param status status of patch to wait for
 	 */
-	public void waitForPatchStatus(String patchName, boolean status) {
-		final int step = 3;
-		final long timeout = step * 1000L;
-		int retries = 0;
-		boolean isSuccessful = false;
-
+	public void waitForPatchStatus(final String patchName, final boolean status) {
 		log.info("Waiting for patch to be installed");
-
-		while (!isSuccessful) {
-			sleep(timeout);
-			retries += step;
-			boolean shouldReconnect = false;
-			if (retries > SystemProperty.getPatchWaitTime()) {
-				log.error("Container failed to install patch after " + SystemProperty.getPatchWaitTime() + " seconds.");
-
-				final String action = "true".equals(String.valueOf(status)) ? "install" : "rollback";
-				log.error("Standalone container failed to " + action + " patch after "
-						+ SystemProperty.getPatchWaitTime() + " seconds.");
-				throw new PatchException(
-						"Container failed to " + action + " patch after " + SystemProperty.getPatchWaitTime() + " seconds.");
-			}
-
-			String reason = "";
-
-			try {
-				isSuccessful =
-						client.executeCommand("patch:list | grep " + patchName, true).contains(String.valueOf(status));
-			} catch (Exception e) {
-				reason = e.getMessage();
-				shouldReconnect = true;
-			}
-
-			if (!isSuccessful) {
-				log.debug("Remaining time: " + (SystemProperty.getPatchWaitTime() - retries) + " seconds. " + (""
-						.equals(reason) ? "" : "(" + reason + ")"));
-			}
-
-			if (shouldReconnect) {
+		final Response<String> response = Waiter.await("patch " + patchName, new Callable<Response<String>>() {
+			@Override
+			public Response<String> call() throws Exception {
 				try {
-					client.connect(true);
-				} catch (Exception ignored) {
+					final String patch = client.executeCommand("patch:list | grep " + patchName, true);
+					return patch.contains(String.valueOf(status)) ? Response.success(patch) : Response.timeOut(patch);
+				} catch (Exception e) {
+					reconnectSilently();
+					throw e;
 				}
 			}
+		}, PollPolicy.backoff(SystemProperty.getPatchWaitTime(), TimeUnit.SECONDS));
+
+		if (!response.getSuccess()) {
+			final String action = status ? "install" : "rollback";
+			log.error("Container failed to " + action + " patch after " + SystemProperty.getPatchWaitTime() + " seconds.");
+			throw new PatchException("Container failed to " + action + " patch after " + SystemProperty.getPatchWaitTime() + " seconds.");
+		}
+	}
+
+	/**
+	 * Re-inits the ssh connection after the failed command, errors are ignored.
+	 */
+	private void reconnectSilently() {
+		try {
+			client.connect(true);
+		} catch (Exception ignored) {
 		}
 	}
 
@@ -642,44 +1044,24 @@ public class Executor {
 	}
 
 	/**
-	 * Gets all the child containers and returns all their names.
-	 * <p/>
-	 * TODO(avano): this could be reworked in the future after the changes to deploying
+	 * Gets all the child containers and returns all their names. The root flag is taken from the same container-list, ssh containers
+	 * are listed as roots.
 	 *
 	 * @return list of child container names
 	 */
 	public List<String> listChildContainers() {
 		// I don't want this to be spammed in the log / added to history, therefore I'm using client instead of the executeCommand method
-		final List<String> childs = new ArrayList<>();
-
 		// Do nothing if we don't use .withFabric()
 		if (!SystemProperty.isFabric()) {
-			return childs;
+			return new ArrayList<>();
 		}
 
 		try {
-			final String containerListResponse = client.executeCommand("container-list | grep -v root | grep karaf", true);
-
-			if (containerListResponse == null) {
-				return childs;
-			}
-
-			final String[] childContainerList = containerListResponse.split("\n");
-
-			for (String line : childContainerList) {
-				final String containerName = line.trim().split(" ")[0];
-				// Ssh container is also listed as root
-				final boolean isChild = client.executeCommand("container-info " + containerName, true).replaceAll(" +", " ")
-						.contains("Root: false");
-				if (isChild) {
-					childs.add(containerName);
-				}
-			}
+			return ContainerListing.parse(client.executeCommand("container-list", true)).getChildNames("karaf");
 		} catch (Exception ex) {
 			log.error("Error while getting child container list! " + ex);
+			return new ArrayList<>();
 		}
-
-		return childs;
 	}
 
 	/**
@@ -687,55 +1069,49 @@ public class Executor {
 	 * Check {@link org.jboss.fuse.qa.fafram8.util.callables.Response} and other classes
 	 * in this package.
 	 *
-	 * @param methodBlock callable which is executed every 3 seconds until it returns success
+	 * @param methodBlock callable which is checked on the calling thread every 3 seconds until it returns success
 	 * @param secondsTimeout repeat callable until it's success or timeout (in seconds)
 	 * @param <T> type of expected data response
 	 * @return {@link Response} wrapper with boolean success/fail and nullable data response
 	 */
 	public static <T> Response<T> waitFor(Callable<Response<T>> methodBlock, long secondsTimeout) {
-		final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(secondsTimeout);
 		log.info("Waiting {} seconds for operation {} to complete", secondsTimeout, methodBlock);
-
-		Response<T> response = Response.timeOut();
-		while (System.currentTimeMillis() <= deadline) {
-			try {
-				response = methodBlock.call();
-				if (response.getSuccess()) {
-					log.info("Patience rewarded, success of {}", methodBlock);
-					return response;
-				}
-				log.debug("Remaining time: {} seconds", TimeUnit.MILLISECONDS.toSeconds(
-						deadline - System.currentTimeMillis()
-				));
-			} catch (Exception e) {
-				log.debug("Remaining time: {} - op {} raised exception {}",
-						TimeUnit.MILLISECONDS.toSeconds(deadline - System.currentTimeMillis()),
-						methodBlock, e.getMessage(), e);
-			}
-			sleep(DEFAULT_TIMEOUT_PERIOD);
+		final Response<T> response = Waiter.await(String.valueOf(methodBlock), methodBlock,
+				PollPolicy.fixed(DEFAULT_TIMEOUT_PERIOD, TimeUnit.SECONDS.toMillis(secondsTimeout), TimeUnit.MILLISECONDS));
+		if (response.getSuccess()) {
+			log.info("Patience rewarded, success of {}", methodBlock);
+		} else {
+			log.warn("Time is up, fail of {} in {} seconds.", methodBlock, secondsTimeout);
 		}
-		log.warn("Time is up, fail of {} in {} seconds.", methodBlock, secondsTimeout);
 		return response;
 	}
 
 	/**
-	 * Starts the keep alive timer for this executor.
+	 * Utility method for waiting on custom condition without blocking the calling thread.
+	 * The conditions of all asynchronous waits are checked on the shared wait pool, the wait can be cancelled using the returned future.
+	 *
+	 * @param methodBlock callable which is executed until it returns success
+	 * @param policy poll policy with the delays and the timeout
+	 * @param <T> type of expected data response
+	 * @return future with the {@link Response} wrapper
+	 */
+	public static <T> ListenableFuture<Response<T>> waitForAsync(Callable<Response<T>> methodBlock, PollPolicy policy) {
+		return Waiter.submit(String.valueOf(methodBlock), methodBlock, policy);
+	}
+
+	/**
+	 * Registers this executor in the keep alive hub.
 	 */
 	public void startKeepAliveTimer() {
-		log.trace("Creating timer for " + this.getName());
-		timer = TimerUtils.getNewTimer(this.getName());
-		timer.schedule(new KeepAlive(this), TIMER_START_DELAY, TIMER_DELAY);
+		log.trace("Registering keep alive for " + this.getName());
+		KeepAliveHub.getInstance().register(this);
 	}
 
 	/**
-	 * Stops the keep alive timer for this executor.
+	 * Unregisters this executor from the keep alive hub.
 	 */
 	public void stopKeepAliveTimer() {
-		if (timer == null) {
-			return;
-		}
-		log.trace("Stopping timer for " + this.getName());
-		timer.cancel();
+		KeepAliveHub.getInstance().unregister(this);
 	}
 
 	/**
@@ -745,7 +1121,7 @@ public class Executor {
 	 */
 	public boolean isCygwin() {
 		log.trace("Checking operating system");
-		return StringUtils.containsIgnoreCase(executeCommandSilently("uname"), "cyg");
+		return StringUtils.containsIgnoreCase(executeQuery("uname"), "cyg");
 	}
 
 	/**
@@ -759,7 +1135,7 @@ public class Executor {
 
 		if (variables != null) {
 			for (String variable : variables) {
-				final String resolvedVariable = executeCommandSilently("echo $" + variable);
+				final String resolvedVariable = executeQuery("echo $" + variable);
 				log.trace("Resolved variable for \"{}\"  is \"{}\"", variable, resolvedVariable);
 				if (resolvedVariable == null || resolvedVariable.isEmpty() || "null".equals(resolvedVariable)) {
 					throw new FaframException("System variable " + variable + " cannot be resolved on machine for container: " + this.getName());
@@ -0,0 +1,75 @@
+package org.jboss.fuse.qa.fafram8.executor;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks the provision status transitions of one container. The provisioning can be triggered a bit later than the wait
+ * starts, so the status seen at the beginning can be the old one. The status is trusted when it has changed since the wait
+ * started (a transition was seen) or when it stayed the same for the settle time.
+ */
+@Slf4j
+final class ProvisionTracker {
+	private final String container;
+
+	private final long settleTime;
+
+	private final long start = System.currentTimeMillis();
+
+	// Set when the first status was recorded
+	private boolean seen = false;
+
+	@Getter
+	private String last = "";
+
+	@Getter
+	private boolean transitioned = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param container container name
+	 * @param settleTime time in milliseconds after which the unchanged status is trusted
+	 */
+	ProvisionTracker(String container, long settleTime) {
+		this.container = container;
+		this.settleTime = settleTime;
+	}
+
+	/**
+	 * Records the current status. Empty status (the status couldn't be read) is ignored.
+	 *
+	 * @param status provision status
+	 */
+	void update(String status) {
+		if (status == null || status.isEmpty()) {
+			return;
+		}
+		if (!seen) {
+			seen = true;
+			log.trace("Container {} provision status: {}", container, status);
+		} else if (!status.equals(last)) {
+			transitioned = true;
+			log.debug("Container {} provision status: {} -> {}", container, last, status);
+		}
+		last = status;
+	}
+
+	/**
+	 * Checks if the last status can be trusted.
+	 *
+	 * @return true if the status changed since the start or if the settle time passed
+	 */
+	boolean isSettled() {
+		return transitioned || System.currentTimeMillis() - start >= settleTime;
+	}
+
+	/**
+	 * Gets the time since the start of the wait.
+	 *
+	 * @return elapsed time in milliseconds
+	 */
+	long getElapsed() {
+		return System.currentTimeMillis() - start;
+	}
+}
@@ -0,0 +1,149 @@
+package org.jboss.fuse.qa.fafram8.executor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+
+/**
+ * Cache of the read-only queries of one executor (one host or one container). The responses expire after the time to live and the
+ * whole cache is invalidated when the executor connects again (after the restart). The hits and misses are counted for each cache
+ * and for all caches together.
+ */
+public class QueryCache {
+	private static final long PERCENT = 100L;
+
+	private static final AtomicLong TOTAL_HITS = new AtomicLong();
+	private static final AtomicLong TOTAL_MISSES = new AtomicLong();
+
+	// Cached responses by the command
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	// Time to live in milliseconds, 0 disables the cache
+	@Getter
+	private final long ttl;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param ttl time to live in milliseconds
+	 */
+	public QueryCache(long ttl) {
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Gets the cached response.
+	 *
+	 * @param command command
+	 * @return response or null if not cached or expired
+	 */
+	public String get(String command) {
+		final Entry entry = entries.get(command);
+		if (entry == null || System.currentTimeMillis() > entry.expires) {
+			misses.incrementAndGet();
+			TOTAL_MISSES.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		TOTAL_HITS.incrementAndGet();
+		return entry.response;
+	}
+
+	/**
+	 * Caches the response. Null responses (failed commands) are not cached.
+	 *
+	 * @param command command
+	 * @param response response
+	 */
+	public void put(String command, String response) {
+		if (ttl > 0 && response != null) {
+			entries.put(command, new Entry(response, System.currentTimeMillis() + ttl));
+		}
+	}
+
+	/**
+	 * Removes all cached responses.
+	 */
+	public void invalidate() {
+		entries.clear();
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return number of hits of this cache
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return number of misses of this cache
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return number of hits of all caches
+	 */
+	public static long getTotalHits() {
+		return TOTAL_HITS.get();
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return number of misses of all caches
+	 */
+	public static long getTotalMisses() {
+		return TOTAL_MISSES.get();
+	}
+
+	/**
+	 * Gets the statistics of all caches.
+	 *
+	 * @return statistics string
+	 */
+	public static String getStatistics() {
+		final long hitCount = TOTAL_HITS.get();
+		final long total = hitCount + TOTAL_MISSES.get();
+		return hitCount + " hits, " + (total - hitCount) + " misses" + (total == 0 ? "" : " (" + hitCount * PERCENT / total + "% hit rate)");
+	}
+
+	/**
+	 * Resets the statistics of all caches.
+	 */
+	public static void clearStatistics() {
+		TOTAL_HITS.set(0);
+		TOTAL_MISSES.set(0);
+	}
+
+	/**
+	 * Cached response.
+	 */
+	private static final class Entry {
+		private final String response;
+		private final long expires;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param response response
+		 * @param expires expiration time
+		 */
+		private Entry(String response, long expires) {
+			this.response = response;
+			this.expires = expires;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package org.jboss.fuse.qa.fafram8.executor;
+
+import org.jboss.fuse.qa.fafram8.exception.ConnectionException;
+import org.jboss.fuse.qa.fafram8.property.SystemProperty;
+import org.jboss.fuse.qa.fafram8.ssh.ReplaySSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SSHClient;
+import org.jboss.fuse.qa.fafram8.util.callables.Response;
+import org.jboss.fuse.qa.fafram8.waiter.PollPolicy;
+import org.jboss.fuse.qa.fafram8.waiter.Waiter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Waits until the SSH server is ready. Each attempt first checks the TCP port with a short connect timeout and does the SSH
+ * handshake only when the port is open. The attempts are done by the wait engine with the delays given by the poll policy
+ * (exponential backoff with jitter) and the probe returns right after the successful handshake.
+ * Time needed to get ready is recorded for each name (container).
+ */
+@Slf4j
+public class ReadinessProbe {
+	// Readiness times in milliseconds for each name, kept for the whole run
+	private static final Map<String, Long> READINESS_TIMES = Collections.synchronizedMap(new LinkedHashMap<String, Long>());
+
+	private final SSHClient client;
+	private final String name;
+	private final PollPolicy policy;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param client ssh client to connect
+	 * @param name name under which the readiness time is recorded
+	 * @param policy poll policy
+	 */
+	public ReadinessProbe(SSHClient client, String name, PollPolicy policy) {
+		this.client = client;
+		this.name = name;
+		this.policy = policy;
+	}
+
+	/**
+	 * Waits until the client is connected.
+	 *
+	 * @param silent log the result on trace level only
+	 * @return time in milliseconds needed to connect
+	 * @throws ConnectionException if the client couldn't connect before the timeout
+	 */
+	public long await(boolean silent) {
+		final long start = System.currentTimeMillis();
+		final Response<Long> response = Waiter.await("SSH of " + name, new Callable<Response<Long>>() {
+			@Override
+			public Response<Long> call() throws Exception {
+				if (!isPortOpen()) {
+					return Response.timeOut();
+				}
+				client.connect(true);
+				return Response.success(System.currentTimeMillis() - start);
+			}
+		}, policy);
+
+		if (!response.getSuccess()) {
+			final long seconds = TimeUnit.MILLISECONDS.toSeconds(policy.getTimeout());
+			log.error("Connection couldn't be established after " + seconds + " seconds");
+			throw new ConnectionException("Connection couldn't be established after " + seconds + " seconds");
+		}
+		final long elapsed = response.getData();
+		READINESS_TIMES.put(name, elapsed);
+		if (silent) {
+			log.trace("{} ready after {} ms", name, elapsed);
+		} else {
+			log.debug("{} ready after {} ms", name, elapsed);
+		}
+		return elapsed;
+	}
+
+	/**
+	 * Checks if the SSH port of the client accepts TCP connections. The client without the host is considered open,
+	 * the handshake decides then. The replayed client doesn't use the network, so it is always open.
+	 *
+	 * @return true if the port is open
+	 */
+	public boolean isPortOpen() {
+		if (client.getHost() == null || client instanceof ReplaySSHClient) {
+			return true;
+		}
+		try (Socket socket = new Socket()) {
+			socket.connect(new InetSocketAddress(client.getHost(), client.getPort()), SystemProperty.getProbeConnectTimeout());
+			return true;
+		} catch (IOException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Gets the recorded readiness times.
+	 *
+	 * @return map of name - readiness time in milliseconds
+	 */
+	public static Map<String, Long> getReadinessTimes() {
+		synchronized (READINESS_TIMES) {
+			return new LinkedHashMap<>(READINESS_TIMES);
+		}
+	}
+
+	/**
+	 * Clears the recorded readiness times.
+	 */
+	public static void clearReadinessTimes() {
+		READINESS_TIMES.clear();
+	}
+}
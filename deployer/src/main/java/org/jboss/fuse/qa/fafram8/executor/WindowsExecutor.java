@@ -1,17 +1,23 @@
 package org.jboss.fuse.qa.fafram8.executor;
 
-import org.jboss.fuse.qa.fafram8.exception.ConnectionException;
-import org.jboss.fuse.qa.fafram8.exceptions.SSHClientException;
-import org.jboss.fuse.qa.fafram8.exceptions.VerifyFalseException;
-import org.jboss.fuse.qa.fafram8.property.SystemProperty;
+import org.jboss.fuse.qa.fafram8.ssh.CommandResult;
+import org.jboss.fuse.qa.fafram8.ssh.LineConsumer;
+import org.jboss.fuse.qa.fafram8.ssh.NodeSSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SSHRecording;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Special executor for Windows machines that reconnects SSH client for each command. Reconnect is required for successful deployment on Windows.
  * It is used only internally in Fafram and automatically created when Fafram recognizes that it is deploying Fuse to Windows machine.
+ * The asynchronous commands are executed synchronously in the calling thread, because the reconnects can't run concurrently.
  *
  * @author : Roman Jakubco (rjakubco@redhat.com)
  */
@@ -24,9 +30,14 @@ public class WindowsExecutor extends Executor {
 	 * @param executor executor from which attributes will be copied
 	 */
 	public WindowsExecutor(Executor executor) {
-		super.client = executor.getClient();
+		// The reconnect needs a brand new session each time, so the copy of the client doesn't use the session pool.
+		// The node executor keeps its pooled client.
+		final SSHClient copy = new NodeSSHClient(executor.getClient());
+		copy.setPooled(false);
+		super.client = SSHRecording.wrap(copy);
 		this.name = executor.getName();
 		super.history = executor.getHistory();
+		super.queryCache = executor.getQueryCache();
 	}
 
 	/**
@@ -34,32 +45,9 @@ public class WindowsExecutor extends Executor {
 	 */
 	private void connectSilent() {
 		log.trace("Connecting: " + this.toString());
-		Boolean connected = false;
-		final int step = 5;
-		int elapsed = 0;
-		final long timeout = step * 1000L;
-
 		log.trace("Waiting for SSH connection ...");
-		while (!connected) {
-			// Check if the time is up
-			if (elapsed > SystemProperty.getStartWaitTime()) {
-				log.error("Connection couldn't be established after " + SystemProperty.getStartWaitTime()
-						+ " seconds");
-				throw new ConnectionException("Connection couldn't be established after "
-						+ SystemProperty.getStartWaitTime() + " seconds");
-			}
-			try {
-				client.connect(true);
-				connected = true;
-				log.trace("Connected to SSH server");
-			} catch (VerifyFalseException ex) {
-				log.trace("Remaining time: " + (SystemProperty.getStartWaitTime() - elapsed) + " seconds. ");
-				elapsed += step;
-			} catch (SSHClientException e) {
-				elapsed += step;
-			}
-			Executor.sleep(timeout);
-		}
+		createReadinessProbe().await(true);
+		log.trace("Connected to SSH server");
 
 		// When connected, schedule a new keep alive thread for this executor
 		// First shutdown all other tasks from previous runs, because you can use .connect() without previous .disconnect()
@@ -96,10 +84,49 @@ public class WindowsExecutor extends Executor {
 		return super.executeCommands(commands);
 	}
 
+	@Override
+	public List<String> executeCommandsBatched(String... commands) {
+		log.trace("Reconnecting executor on Windows before executing batch of commands");
+		reconnectSilently();
+		return super.executeCommandsBatched(commands);
+	}
+
 	@Override
 	public String executeCommandSilently(String cmd) {
 		log.trace("Reconnecting executor on Windows before executing command silently");
 		reconnectSilently();
 		return super.executeCommandSilently(cmd);
 	}
+
+	@Override
+	public Boolean executeCommandStreaming(String cmd, boolean ignoreExceptions, LineConsumer consumer) {
+		log.trace("Reconnecting executor on Windows before executing streamed command");
+		reconnectSilently();
+		return super.executeCommandStreaming(cmd, ignoreExceptions, consumer);
+	}
+
+	@Override
+	public CommandResult executeCommandWithResult(String cmd, boolean silent) {
+		log.trace("Reconnecting executor on Windows before executing command with result");
+		reconnectSilently();
+		return super.executeCommandWithResult(cmd, silent);
+	}
+
+	/**
+	 * Executes the asynchronous command right away in the calling thread. Reconnecting before each command can't be done
+	 * concurrently, so the asynchronous methods return already completed futures on Windows.
+	 *
+	 * @param command command call
+	 * @param <T> type of the command response
+	 * @return completed future with the command response
+	 */
+	@Override
+	protected <T> ListenableFuture<T> submit(Callable<T> command) {
+		log.trace("Executing asynchronous command synchronously on Windows");
+		try {
+			return Futures.immediateFuture(command.call());
+		} catch (Exception e) {
+			return Futures.immediateFailedFuture(e);
+		}
+	}
 }
@@ -14,19 +14,27 @@ import org.jboss.fuse.qa.fafram8.invoker.MavenPomInvoker;
 import org.jboss.fuse.qa.fafram8.patcher.Patcher;
 import org.jboss.fuse.qa.fafram8.property.SystemProperty;
 import org.jboss.fuse.qa.fafram8.provision.provider.ProviderSingleton;
+import org.jboss.fuse.qa.fafram8.ssh.LineConsumer;
 import org.jboss.fuse.qa.fafram8.util.Option;
 import org.jboss.fuse.qa.fafram8.util.OptionUtils;
 
+import com.google.common.util.concurrent.ListenableFuture;
+
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -42,7 +50,7 @@ public class ContainerManager {
 	// Singleton instance
 	private static ContainerManager instance = null;
 
-	// List of all containers
+	// List of all containers, copy-on-write so that the readers can iterate it while the containers are destroyed in parallel
 	private static List<Container> containerList = null;
 
 	// List of bundles that will be installed into the _default_ root container only.
@@ -73,7 +81,7 @@ public class ContainerManager {
 	public static ContainerManager getInstance() {
 		if (instance == null) {
 			instance = new ContainerManager();
-			containerList = new ArrayList<>();
+			containerList = new CopyOnWriteArrayList<>();
 			bundles = new ArrayList<>();
 			commands = new ArrayList<>();
 			brokers = new ArrayList<>();
@@ -116,6 +124,18 @@ public class ContainerManager {
 		return containerList;
 	}
 
+	/**
+	 * Sorts the container list. The copy-on-write list can't be sorted in place by Collections.sort() on java 7.
+	 */
+	public static void sortContainerList() {
+		synchronized (getContainerList()) {
+			final List<Container> sorted = new ArrayList<>(containerList);
+			Collections.sort(sorted);
+			containerList.clear();
+			containerList.addAll(sorted);
+		}
+	}
+
 	/**
 	 * Gets the ensemble list.
 	 *
@@ -134,7 +154,7 @@ public class ContainerManager {
 	 * @return container instance
 	 */
 	public static Container getContainer(String name) {
-		for (Container c : containerList) {
+		for (Container c : getContainerList()) {
 			if (name.equals(c.getName())) {
 				return c;
 			}
@@ -142,6 +162,25 @@ public class ContainerManager {
 		return null;
 	}
 
+	/**
+	 * Removes the container from the container list. Safe to call from multiple threads.
+	 *
+	 * @param container container
+	 */
+	public static void removeContainer(Container container) {
+		getContainerList().remove(container);
+	}
+
+	/**
+	 * Waits for the successful provisioning of all containers using one container-list on the root container in each poll.
+	 *
+	 * @param containers containers
+	 * @return provisioning time in milliseconds of each container
+	 */
+	public static Map<String, Long> waitForProvisioning(Collection<Container> containers) {
+		return getRoot().getExecutor().waitForProvisioning(containers);
+	}
+
 	/**
 	 * Returns the first root container.
 	 *
@@ -258,17 +297,19 @@ public class ContainerManager {
 	 * @param c container to execute on
 	 */
 	public static void executeStartupCommands(Container c) {
-		for (String command : OptionUtils.get(c.getOptions(), Option.COMMANDS)) {
-			c.executeCommand(command);
-		}
+		final List<String> startupCommands = new ArrayList<>(OptionUtils.get(c.getOptions(), Option.COMMANDS));
 
 		// Execute additional commands provided by system property
 		for (String command : SystemProperty.getAdditionalCommands().split(";")) {
 			if (!command.isEmpty()) {
-				c.executeCommand(command);
+				startupCommands.add(command);
 			}
 		}
 
+		if (!startupCommands.isEmpty()) {
+			c.executeCommandsBatched(startupCommands.toArray(new String[startupCommands.size()]));
+		}
+
 		if (c.isFabric()) {
 			c.waitForProvisioning();
 		}
@@ -294,7 +335,15 @@ public class ContainerManager {
 	 * @param projectPath path to pom.xml of the project that should be uploaded to root container
 	 */
 	public static void uploadBundle(Container container, String projectPath) {
-		final String mavenProxy = StringUtils.substringAfter(StringUtils.substringAfter(container.getExecutor().executeCommandSilently("fabric:info | grep upload"), ":"), "://").trim();
+		// fabric:info is cached, so uploading more bundles doesn't query it again
+		String uploadUri = "";
+		for (String line : StringUtils.split(StringUtils.defaultString(container.getExecutor().executeQuery("fabric:info")), "\r\n")) {
+			if (line.contains("upload")) {
+				uploadUri = line;
+				break;
+			}
+		}
+		final String mavenProxy = StringUtils.substringAfter(StringUtils.substringAfter(uploadUri, ":"), "://").trim();
 
 		final MavenPomInvoker bundleInstaller = new MavenPomInvoker(projectPath, "http://" + container.getUser() + ":" + container.getPassword() + "@" + mavenProxy.replaceAll("(.+)(?=:8181)", container.getNode().getHost()));
 		try {
@@ -460,6 +509,7 @@ public class ContainerManager {
 	 */
 	public static void initBrokers(Broker... brokers) {
 		final Container root = getRoot();
+		final Set<Container> assigned = new LinkedHashSet<>();
 
 		for (Broker b : brokers) {
 			if (b == null) {
@@ -468,7 +518,7 @@ public class ContainerManager {
 			b.setAssignContainer(true);
 			//execute all necessery commands
 			final List<String> createCommands = b.getCreateCommands();
-			root.executeCommands(createCommands.toArray(new String[createCommands.size()]));
+			root.executeCommandsBatched(createCommands.toArray(new String[createCommands.size()]));
 			// assign profiles to all commands
 			for (String containerName : b.getContainers()) {
 				final Container c = getContainer(containerName);
@@ -476,10 +526,11 @@ public class ContainerManager {
 					throw new FaframException("Container " + containerName + " not found!");
 				}
 				OptionUtils.get(c.getOptions(), Option.PROFILE).add(b.getProfileName());
-				//wait for provision
-				c.waitForProvisioning();
+				assigned.add(c);
 			}
 		}
+		//wait for provision of all assigned containers
+		root.getExecutor().waitForProvisioning(assigned);
 	}
 
 	/**
@@ -509,11 +560,15 @@ public class ContainerManager {
 		log.trace("Reconnecting ensemble's root container executor before creating ensemble (should solve insufficient roles that happened sometimes)");
 		ensembleRoot.getExecutor().reconnect();
 		ensembleRoot.executeCommand("ensemble-add --force " + ensembleString.toString());
+		// The fabric info (ZooKeeper URI, ...) changes with the ensemble
+		ensembleRoot.getExecutor().getQueryCache().invalidate();
 
 		// Wait for all containers to be ready
+		final List<Container> ensemble = new ArrayList<>();
 		for (String cName : ensembleList) {
-			getContainer(cName).waitForProvisioning();
+			ensemble.add(getContainer(cName));
 		}
+		ensembleRoot.getExecutor().waitForProvisioning(ensemble);
 
 		ensembleCreated = true;
 	}
@@ -542,6 +597,7 @@ public class ContainerManager {
 			throw new FaframException("No root container found in the ensemble list!");
 		}
 		ensembleRoot.executeCommand("ensemble-remove --force " + ensembleString.toString());
+		ensembleRoot.getExecutor().getQueryCache().invalidate();
 		ensembleCreated = false;
 	}
 
@@ -591,7 +647,7 @@ public class ContainerManager {
 	 */
 	public static Set<Container> getChildContainers(Container container) {
 		final Set<Container> containers = new HashSet<>();
-		for (Container c : ContainerManager.getContainerList()) {
+		for (Container c : getContainerList()) {
 			if (!(c instanceof RootContainer)) {
 				if (c.getParent().getName().equals(container.getName())) {
 					containers.add(c);
@@ -618,22 +674,19 @@ public class ContainerManager {
 		if (SystemProperty.suppressStart() || root.getExecutor() == null || !root.getExecutor().isConnected()) {
 			return;
 		}
-		for (Container container : containerList) {
-			final String response;
-			int warnCount = 0;
-			if (root.getName().equals(container.getName())) {
-				response = root.getExecutor().executeCommandSilently("log:display-exception", true);
-				warnCount = getWarnCount(root.getExecutor(), "log:display | grep WARN | wc -l");
-			} else if (container instanceof RootContainer) {
-				response = container.getExecutor().executeCommandSilently("log:display-exception", true);
-				warnCount = getWarnCount(container.getExecutor(), "log:display | grep WARN | wc -l");
-			} else {
-				response = root.getExecutor().executeCommandSilently("container-connect " + container.getName() + " log:display-exception", true);
-				warnCount = getWarnCount(root.getExecutor(), "container-connect " + container.getName() + " log:display | grep WARN | wc -l");
-			}
-			if (response != null && !response.trim().isEmpty()) {
+		// Fan out the WARN counts for all containers first, they are independent on each other
+		final List<Container> containers = new ArrayList<>(containerList);
+		final List<ListenableFuture<String>> warnCounts = new ArrayList<>(containers.size());
+		for (Container container : containers) {
+			warnCounts.add(logExecutor(root, container).executeCommandSilentlyAsync(logCommand(root, container, "log:display | grep WARN | wc -l"),
+					true));
+		}
+		for (int i = 0; i < containers.size(); i++) {
+			final Container container = containers.get(i);
+			if (hasOutput(logExecutor(root, container), logCommand(root, container, "log:display-exception"))) {
 				builder.append("Container ").append(container.getName()).append(" contains exceptions in log!").append("\n");
 			}
+			final int warnCount = getWarnCount(warnCounts.get(i));
 			if (warnCount == -1) {
 				builder.append("Couldn't get WARN count for container ").append(container.getName()).append("\n");
 			} else if (warnCount != 0) {
@@ -644,15 +697,60 @@ public class ContainerManager {
 	}
 
 	/**
-	 * Gets the WARN count from the log.
+	 * Gets the executor used for reading the container log - root containers use their own executor, other containers
+	 * are reached through the root container using container-connect.
+	 * @param root root container
+	 * @param container container
+	 * @return executor
+	 */
+	private static Executor logExecutor(Container root, Container container) {
+		if (!root.getName().equals(container.getName()) && container instanceof RootContainer) {
+			return container.getExecutor();
+		}
+		return root.getExecutor();
+	}
+
+	/**
+	 * Gets the log command for the container.
+	 * @param root root container
+	 * @param container container
+	 * @param cmd command
+	 * @return command, prefixed by container-connect if needed
+	 */
+	private static String logCommand(Container root, Container container, String cmd) {
+		if (root.getName().equals(container.getName()) || container instanceof RootContainer) {
+			return cmd;
+		}
+		return "container-connect " + container.getName() + " " + cmd;
+	}
+
+	/**
+	 * Checks if the command prints anything. Stops reading the output on the first non-empty line.
 	 * @param executor executor
 	 * @param cmd command to execute
+	 * @return true if there was some output
+	 */
+	private static boolean hasOutput(Executor executor, String cmd) {
+		final boolean[] found = {false};
+		executor.executeCommandStreaming(cmd, true, new LineConsumer() {
+			@Override
+			public boolean accept(String line) {
+				found[0] = !line.trim().isEmpty();
+				return !found[0];
+			}
+		});
+		return found[0];
+	}
+
+	/**
+	 * Gets the WARN count from the log.
+	 * @param response future with the WARN count command response
 	 * @return warn count != -1 if everything went well
 	 */
-	private static int getWarnCount(Executor executor, String cmd) {
+	private static int getWarnCount(ListenableFuture<String> response) {
 		int warnCount = -1;
 		try {
-			warnCount = Integer.parseInt(executor.executeCommandSilently(cmd, true).trim());
+			warnCount = Integer.parseInt(response.get().trim());
 		} catch (Exception ex) {
 		}
 		return warnCount;
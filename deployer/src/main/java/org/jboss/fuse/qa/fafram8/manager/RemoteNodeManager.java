@@ -11,6 +11,7 @@ import org.jboss.fuse.qa.fafram8.exception.ZipNotFoundException;
 import org.jboss.fuse.qa.fafram8.executor.Executor;
 import org.jboss.fuse.qa.fafram8.modifier.ModifierExecutor;
 import org.jboss.fuse.qa.fafram8.property.SystemProperty;
+import org.jboss.fuse.qa.fafram8.ssh.CommandResult;
 
 import java.io.File;
 
@@ -27,6 +28,9 @@ public class RemoteNodeManager implements NodeManager {
 
 	// File separator
 	private static final String SEP = File.separator;
+
+	// Exit code of the unzip command when the zip file doesn't exist
+	private static final int ZIP_NOT_FOUND_EXIT_CODE = 100;
 	// executor to node(remote host)
 	@Getter
 	private Executor executor;
@@ -70,14 +74,18 @@ public class RemoteNodeManager implements NodeManager {
 			productZipPath = "$(cygpath -w " + productZipPath + ")";
 		}
 
-		if (Integer.parseInt(executor.executeCommandSilently("stat -t " + productZipPath + " >/dev/null 2>&1; echo $?").trim()) != 0) {
+		final String unzip = productZipPath.contains(getFolder())
+				? "cd " + getFolder() + "; jar xf $(basename " + productZipPath + ")"
+				: "cd " + getFolder() + "; jar xf " + productZipPath;
+
+		// Check the zip and unzip it in one round trip, the special exit code means that the zip doesn't exist
+		final CommandResult result = executor.executeCommandWithResult("stat -t " + productZipPath + " >/dev/null 2>&1 || exit "
+				+ ZIP_NOT_FOUND_EXIT_CODE + "; " + unzip);
+		if (result == null || result.getExitCode() == ZIP_NOT_FOUND_EXIT_CODE) {
 			throw new ZipNotFoundException("Zip file " + productZipPath + " does not exist!");
 		}
-
-		if (productZipPath.contains(getFolder())) {
-			executor.executeCommand("cd " + getFolder() + "; jar xf $(basename " + productZipPath + ")");
-		} else {
-			executor.executeCommand("cd " + getFolder() + "; jar xf " + productZipPath);
+		if (!result.isSuccess()) {
+			log.warn("Unzipping " + productZipPath + " ended with exit code " + result.getExitCode() + ": " + result.getStderr().trim());
 		}
 
 		// Problem if WORKING_DIRECTORY is set because then the first command doesn't work
@@ -1,6 +1,5 @@
 package org.jboss.fuse.qa.fafram8.modifier.impl;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.tools.ant.DirectoryScanner;
 
@@ -9,15 +8,21 @@ import org.jboss.fuse.qa.fafram8.exception.FaframException;
 import org.jboss.fuse.qa.fafram8.exceptions.CopyFileException;
 import org.jboss.fuse.qa.fafram8.modifier.Modifier;
 import org.jboss.fuse.qa.fafram8.property.SystemProperty;
-import org.jboss.fuse.qa.fafram8.ssh.NodeSSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.LineConsumer;
+import org.jboss.fuse.qa.fafram8.ssh.SSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SftpTransfer;
 
 import java.io.File;
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import lombok.EqualsAndHashCode;
@@ -99,32 +104,58 @@ public final class ArchiveModifier extends Modifier {
 	private void archiveRemoteFiles(Container container) {
 		final int endIndex = 6;
 		final String randomFolder = super.getExecutor().getClient().getHost() + "-" + UUID.randomUUID().toString().substring(0, endIndex);
-		final NodeSSHClient sshClient = (NodeSSHClient) super.getExecutor().getClient();
+		final SSHClient sshClient = super.getExecutor().getClient();
 
 		if (container.getFusePath() == null) {
 			log.warn("Container fuse path was null, skipping archiver");
 			return;
 		}
 
-		for (String s : archiveFiles) {
-			final String response = super.getExecutor().executeCommand(
-					"find " + container.getFusePath() + " -type f -wholename \""
-							+ container.getFusePath() + (container.getFusePath().endsWith(File.separator) ? "" : File.separator) + s + "\"");
-			if (!(response == null || response.isEmpty())) {
-				for (String filePath : response.split("\n")) {
-					try {
-						final File archivedFile = Paths.get(archiveTargetPath.toAbsolutePath().toString(), randomFolder,
-								StringUtils.substringAfterLast(filePath, File.separator)).toFile();
-						FileUtils.writeStringToFile(archivedFile, sshClient.readFileFromRemote(filePath));
-					} catch (IOException | CopyFileException e) {
-						log.error("Failed to archived file {} from remote machine {}!", filePath, sshClient, e);
-						throw new FaframException("Failed to archived file " + filePath + " from remote machine " + sshClient + "!", e);
-					}
-				}
+		final String fusePath = container.getFusePath();
+		final boolean gzip = SystemProperty.isArchiveGzip();
+		// Download the files in parallel as find reports them instead of waiting for the whole listing
+		try (SftpTransfer transfer = new SftpTransfer(sshClient)) {
+			final List<Future<Long>> downloads = new ArrayList<>();
+			// The file matched by more patterns is downloaded only once, so that two downloads never write the same local file
+			final Set<String> found = new HashSet<>();
+			for (String s : archiveFiles) {
+				super.getExecutor().executeCommandStreaming(
+						"find " + container.getFusePath() + " -type f -wholename \""
+								+ container.getFusePath() + (container.getFusePath().endsWith(File.separator) ? "" : File.separator) + s + "\"",
+						new LineConsumer() {
+							@Override
+							public boolean accept(String filePath) {
+								if (!filePath.trim().isEmpty() && found.add(filePath.trim())) {
+									downloads.add(transfer.downloadAsync(filePath.trim(),
+											getArchivedFile(randomFolder, fusePath, filePath.trim(), gzip), gzip));
+								}
+								return true;
+							}
+						});
 			}
+			SftpTransfer.waitFor(downloads);
+			log.info("Archived files from {}: {}", sshClient.getHost(), transfer.getStatistics());
+		} catch (CopyFileException e) {
+			log.error("Failed to archive files from remote machine {}!", sshClient, e);
+			throw new FaframException("Failed to archive files from remote machine " + sshClient + "!", e);
 		}
 	}
 
+	/**
+	 * Gets the local file for the archived remote file. The path relative to the fuse dir is kept, so that the files with the same name
+	 * (like the logs of the child containers) don't overwrite each other.
+	 *
+	 * @param folder folder in the archive target
+	 * @param fusePath remote fuse dir
+	 * @param filePath remote file path
+	 * @param gzip true if the file is gzipped
+	 * @return local file
+	 */
+	private File getArchivedFile(String folder, String fusePath, String filePath, boolean gzip) {
+		final String relativePath = StringUtils.removeStart(StringUtils.removeStart(filePath, fusePath), File.separator);
+		return Paths.get(archiveTargetPath.toAbsolutePath().toString(), folder, relativePath + (gzip ? ".gz" : "")).toFile();
+	}
+
 	/**
 	 * Factory method.
 	 *
@@ -7,6 +7,7 @@ import org.jboss.fuse.qa.fafram8.exception.FaframException;
 import org.jboss.fuse.qa.fafram8.exceptions.CopyFileException;
 import org.jboss.fuse.qa.fafram8.executor.Executor;
 import org.jboss.fuse.qa.fafram8.modifier.Modifier;
+import org.jboss.fuse.qa.fafram8.ssh.SftpTransfer;
 
 import java.io.File;
 
@@ -46,7 +47,7 @@ public final class FileModifier extends Modifier {
 	 *
 	 * @param fileToReplace path to file inside Fuse folder that should be replaced or where the new file should
 	 * be copied to
-	 * @param fileToUse absolute path to local file that will be copied
+	 * @param fileToUse absolute path to local file or directory that will be copied
 	 * @param executor executor with ssh client to remote location
 	 * @return RemoteFileModifier
 	 */
@@ -89,14 +90,20 @@ public final class FileModifier extends Modifier {
 	}
 
 	/**
-	 * Moves files on remote.
+	 * Moves files on remote. Directories are copied with the whole tree.
 	 */
 	private void moveRemoteFile(Container container) {
 		final String path = container.getFusePath() + File.separator + fileToReplace;
+		final File file = new File(fileToUse);
 
-		try {
+		try (SftpTransfer transfer = new SftpTransfer(super.getExecutor().getClient())) {
 			log.debug("Copying file: {} to remote location: {}", fileToUse, path);
-			super.getExecutor().copyFileToRemote(fileToUse, path);
+			if (file.isDirectory()) {
+				transfer.uploadDirectory(file, path);
+			} else {
+				transfer.upload(file, path);
+			}
+			log.debug("Copied {} to {}: {}", fileToUse, super.getExecutor().getClient().getHost(), transfer.getStatistics());
 		} catch (CopyFileException ex) {
 			log.error("Could not copy file to remote location: ", ex);
 			throw new FaframException("Could not copy file to remote location: ", ex);
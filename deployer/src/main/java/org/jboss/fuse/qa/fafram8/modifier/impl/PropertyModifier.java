@@ -4,6 +4,7 @@ import org.jboss.fuse.qa.fafram8.cluster.container.Container;
 import org.jboss.fuse.qa.fafram8.exception.FaframException;
 import org.jboss.fuse.qa.fafram8.exceptions.CopyFileException;
 import org.jboss.fuse.qa.fafram8.modifier.Modifier;
+import org.jboss.fuse.qa.fafram8.ssh.CommandResult;
 import org.jboss.fuse.qa.fafram8.ssh.NodeSSHClient;
 
 import java.io.ByteArrayInputStream;
@@ -155,12 +156,12 @@ public final class PropertyModifier extends Modifier {
 
 		final NodeSSHClient sshClient = (NodeSSHClient) super.getExecutor().getClient();
 
-		final String response = super.getExecutor().executeCommandSilently("stat " + path);
-		if (!(response == null || response.isEmpty())) {
-			// Load file from remote if exists
-			try (StringReader stringReader = new StringReader(sshClient.readFileFromRemote(path))) {
+		// Load file from remote if exists - the exit code tells if it exists, so only one round trip is needed
+		final CommandResult file = super.getExecutor().executeCommandWithResult("cat " + path, true);
+		if (file != null && file.isSuccess()) {
+			try (StringReader stringReader = new StringReader(file.getStdout())) {
 				p.load(stringReader);
-			} catch (CopyFileException | IOException ex) {
+			} catch (IOException ex) {
 				log.error("Failed to load properties files {} from remote machine {}", path, sshClient, ex);
 				throw new FaframException("Failed to load properties file " + path + " from remote machine " + sshClient, ex);
 			}
@@ -106,6 +106,9 @@ public final class FaframConstant {
 	// Archive files pattern
 	public static final String ARCHIVE_PATTERN = "fafram.archive.pattern";
 
+	// Gzip archived remote files flag
+	public static final String ARCHIVE_GZIP = "fafram.archive.gzip";
+
 	// Base directory path
 	public static final String BASE_DIR = "fafram.base.dir";
 
@@ -207,4 +210,49 @@ public final class FaframConstant {
 
 	// Flag that ssh containers do not have public ip
 	public static final String WITHOUT_PUBLIC_IP = "without.public.ip";
+
+	// Flag if multiple commands should be sent in one batch (one ssh channel) where possible
+	public static final String BATCH_COMMANDS = "batch.commands";
+
+	// First delay between the polling attempts in milliseconds, the delay is doubled after each attempt
+	public static final String POLL_INITIAL_DELAY = "poll.initial.delay";
+
+	// Maximal delay between the polling attempts in milliseconds
+	public static final String POLL_MAX_DELAY = "poll.max.delay";
+
+	// Timeout of the TCP check of the SSH port in milliseconds
+	public static final String PROBE_CONNECT_TIMEOUT = "probe.connect.timeout";
+
+	// Time in milliseconds after which the unchanged provision status is trusted
+	public static final String PROVISION_SETTLE_TIME = "provision.settle.time";
+
+	// Watch the fabric registry in ZooKeeper to wake up the provisioning and shutdown waits
+	public static final String ZOOKEEPER_WATCH = "zookeeper.watch";
+
+	// Interval in milliseconds of the SSH keep-alive messages and of the connection checks
+	public static final String KEEP_ALIVE_INTERVAL = "keep.alive.interval";
+
+	// Number of the threads that check the conditions of the submitted waits
+	public static final String WAIT_THREADS = "wait.threads";
+
+	// Time in milliseconds to cache the responses of the read-only queries (uname, fabric:info, shell:info, ...), 0 disables the cache
+	public static final String QUERY_CACHE_TTL = "query.cache.ttl";
+
+	// Number of the last commands kept in the command history of each executor
+	public static final String HISTORY_SIZE = "history.size";
+
+	// Responses longer than this number of characters are spilled from the command history to the response file
+	public static final String HISTORY_SPILL_THRESHOLD = "history.spill.threshold";
+
+	// Write the command journal to one file per executor instead of one file per run
+	public static final String JOURNAL_PER_EXECUTOR = "journal.per.executor";
+
+	// Gzip the command journal
+	public static final String JOURNAL_GZIP = "journal.gzip";
+
+	// Maximal number of the containers created at the same time when deploying with threads
+	public static final String DEPLOY_THREADS = "deploy.threads";
+
+	// Maximal number of the containers destroyed at the same time, 1 destroys the containers one by one
+	public static final String DESTROY_THREADS = "destroy.threads";
 }
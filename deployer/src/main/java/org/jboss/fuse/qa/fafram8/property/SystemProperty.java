@@ -373,6 +373,15 @@ public class SystemProperty {
 		return System.getProperty(FaframConstant.ARCHIVE_PATTERN, "data/log/*,");
 	}
 
+	/**
+	 * Getter.
+	 *
+	 * @return true if the archived remote files should be gzipped
+	 */
+	public static boolean isArchiveGzip() {
+		return Boolean.parseBoolean(System.getProperty(FaframConstant.ARCHIVE_GZIP, "false"));
+	}
+
 	/**
 	 * Getter.
 	 *
@@ -541,6 +550,141 @@ public class SystemProperty {
 		return System.getProperty(FaframConstant.WITH_THREADS) != null;
 	}
 
+	/**
+	 * Getter.
+	 *
+	 * @return batch.commands property, default true
+	 */
+	public static boolean isBatchCommands() {
+		return Boolean.parseBoolean(System.getProperty(FaframConstant.BATCH_COMMANDS, "true"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return first delay between the polling attempts in milliseconds, default 250
+	 */
+	public static long getPollInitialDelay() {
+		return Long.parseLong(System.getProperty(FaframConstant.POLL_INITIAL_DELAY, "250"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return maximal delay between the polling attempts in milliseconds, default 5000
+	 */
+	public static long getPollMaxDelay() {
+		return Long.parseLong(System.getProperty(FaframConstant.POLL_MAX_DELAY, "5000"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return timeout of the TCP check of the SSH port in milliseconds, default 1000
+	 */
+	public static int getProbeConnectTimeout() {
+		return Integer.parseInt(System.getProperty(FaframConstant.PROBE_CONNECT_TIMEOUT, "1000"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return time in milliseconds after which the unchanged provision status is trusted, default 1000
+	 */
+	public static long getProvisionSettleTime() {
+		return Long.parseLong(System.getProperty(FaframConstant.PROVISION_SETTLE_TIME, "1000"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return zookeeper.watch property, default false
+	 */
+	public static boolean isZooKeeperWatch() {
+		return Boolean.parseBoolean(System.getProperty(FaframConstant.ZOOKEEPER_WATCH, "false"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return interval in milliseconds of the SSH keep-alive messages, default 60000
+	 */
+	public static int getKeepAliveInterval() {
+		return Integer.parseInt(System.getProperty(FaframConstant.KEEP_ALIVE_INTERVAL, "60000"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return number of the threads that check the conditions of the submitted waits, default 16
+	 */
+	public static int getWaitThreads() {
+		return Integer.parseInt(System.getProperty(FaframConstant.WAIT_THREADS, "16"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return maximal number of the containers created at the same time when deploying with threads, default 10
+	 */
+	public static int getDeployThreads() {
+		return Integer.parseInt(System.getProperty(FaframConstant.DEPLOY_THREADS, "10"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return maximal number of the containers destroyed at the same time, default 10
+	 */
+	public static int getDestroyThreads() {
+		return Integer.parseInt(System.getProperty(FaframConstant.DESTROY_THREADS, "10"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return time in milliseconds to cache the responses of the read-only queries, default 60000
+	 */
+	public static long getQueryCacheTtl() {
+		return Long.parseLong(System.getProperty(FaframConstant.QUERY_CACHE_TTL, "60000"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return number of the last commands kept in the command history of each executor, default 1000
+	 */
+	public static int getHistorySize() {
+		return Integer.parseInt(System.getProperty(FaframConstant.HISTORY_SIZE, "1000"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return length of the response in characters above which the response is spilled to the response file, default 4096
+	 */
+	public static int getHistorySpillThreshold() {
+		return Integer.parseInt(System.getProperty(FaframConstant.HISTORY_SPILL_THRESHOLD, "4096"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return true if the command journal should be written to one file per executor
+	 */
+	public static boolean isJournalPerExecutor() {
+		return Boolean.parseBoolean(System.getProperty(FaframConstant.JOURNAL_PER_EXECUTOR, "false"));
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return true if the command journal should be gzipped
+	 */
+	public static boolean isJournalGzip() {
+		return Boolean.parseBoolean(System.getProperty(FaframConstant.JOURNAL_GZIP, "false"));
+	}
+
 	/**
 	 * Getter.
 	 *
@@ -11,11 +11,13 @@ import org.jboss.fuse.qa.fafram8.exception.EmptyContainerListException;
 import org.jboss.fuse.qa.fafram8.exception.FaframException;
 import org.jboss.fuse.qa.fafram8.exception.InstanceAlreadyExistsException;
 import org.jboss.fuse.qa.fafram8.exception.OfflineEnvironmentException;
+import org.jboss.fuse.qa.fafram8.exceptions.CopyFileException;
 import org.jboss.fuse.qa.fafram8.executor.Executor;
 import org.jboss.fuse.qa.fafram8.openstack.provision.OpenStackClient;
 import org.jboss.fuse.qa.fafram8.property.FaframConstant;
 import org.jboss.fuse.qa.fafram8.property.SystemProperty;
-import org.jboss.fuse.qa.fafram8.ssh.NodeSSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SftpTransfer;
 
 import org.openstack4j.model.compute.Server;
 
@@ -23,7 +25,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import lombok.Getter;
@@ -163,14 +167,37 @@ public class OpenStackProvisionProvider implements ProvisionProvider {
 
 		log.info("Loading iptables configuration files.");
 
-		// For each container in container list execute and set a correct iptables configuration file
+		// For each container in container list set a correct iptables configuration file
+		// Remote path of the file on each host
+		final Map<String, String> remoteFilePaths = new LinkedHashMap<>();
+		final List<SSHClient> clients = new ArrayList<>();
+		final List<Container> containers = new ArrayList<>();
 		for (Container c : containerList) {
 			if (c instanceof ChildContainer) {
 				// If the child container is child then skip. The file will be copied and executed for all ssh containers
 				// and root. It doesn't make sense to do also for child containers.
 				continue;
 			}
-			executeIpTables(c);
+			log.trace("Connnecting node executor to set the IPTables");
+			c.getNode().getExecutor().connect();
+			setCorrectIpTablesFilePath(c.getNode().getExecutor());
+			clients.add(c.getNode().getExecutor().getClient());
+			remoteFilePaths.put(c.getNode().getExecutor().getClient().getHost(), this.ipTablesFilePath);
+			containers.add(c);
+		}
+
+		// if offline environment then skip this. The iptables configuration should be present in the image itself.
+		if (!SystemProperty.isOffline()) {
+			try {
+				// Copy the file to all nodes in parallel
+				SftpTransfer.uploadToAll(clients, remoteFilePaths, new File(SystemProperty.getIptablesConfFilePath()));
+			} catch (CopyFileException e) {
+				throw new FaframException("There was problem copying iptables configuration file to the nodes", e);
+			}
+		}
+
+		for (Container c : containers) {
+			executeIpTables(c, remoteFilePaths.get(c.getNode().getExecutor().getClient().getHost()));
 		}
 
 		log.info("IPTables configuration files successfully loaded on all nodes! Environment configuration according to {} file.",
@@ -215,33 +242,24 @@ public class OpenStackProvisionProvider implements ProvisionProvider {
 	}
 
 	/**
-	 * Executes command line commands on node to successfully load and configure iptables on provided container. If the
-	 * custom iptables configuration file is used then this methods also copies cofniguration file to specified node of
-	 * container.
+	 * Executes command line commands on node to successfully load and configure iptables on provided container. The
+	 * configuration file must be already present on the node of the container.
 	 *
 	 * @param container container on which the iptables should be configured
+	 * @param filePath path to the iptables configuration file on the node
 	 */
-	private void executeIpTables(Container container) {
-		log.trace("Connnecting node executor to set the IPTables");
-		container.getNode().getExecutor().connect();
-		setCorrectIpTablesFilePath(container.getNode().getExecutor());
+	private void executeIpTables(Container container, String filePath) {
 		try {
-			// if offline environment then skip this. The iptables configuration should be present in the image itself.
-			if (!SystemProperty.isOffline()) {
-				((NodeSSHClient) container.getNode().getExecutor().getClient()).copyFileToRemote(SystemProperty.getIptablesConfFilePath(), this
-						.ipTablesFilePath);
-			}
-
 			log.debug("Executing iptables configuration file on node: " + container.getNode().getExecutor().toString());
 
-			final String response = container.getNode().getExecutor().executeCommandSilently("stat " + this.ipTablesFilePath);
+			final String response = container.getNode().getExecutor().executeCommandSilently("stat " + filePath);
 
 			if (response == null || response.isEmpty()) {
 				throw new OfflineEnvironmentException(
 						"Configuration file for iptables" + " doesn't exists on node: " + container.getNode().getHost() + ".",
-						new FileNotFoundException("File " + this.ipTablesFilePath + " doesn't exists."));
+						new FileNotFoundException("File " + filePath + " doesn't exists."));
 			}
-			container.getNode().getExecutor().executeCommand("sudo iptables-restore " + this.ipTablesFilePath);
+			container.getNode().getExecutor().executeCommand("sudo iptables-restore " + filePath);
 			log.debug("Iptables successfully configured on node {}.", container.getNode().getExecutor());
 		} catch (Exception e) {
 			throw new FaframException("There was problem setting iptables on node: " + container.getNode().getHost(), e);
@@ -10,11 +10,15 @@ import org.jboss.fuse.qa.fafram8.executor.Executor;
 import org.jboss.fuse.qa.fafram8.property.SystemProperty;
 import org.jboss.fuse.qa.fafram8.ssh.NodeSSHClient;
 import org.jboss.fuse.qa.fafram8.ssh.SSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SftpTransfer;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import lombok.extern.slf4j.Slf4j;
@@ -60,6 +64,9 @@ public class StaticProvider implements ProvisionProvider {
 					executor.executeCommandSilently("pkill -9 -f karaf.base");
 				} catch (Exception e) {
 					throw new FaframException("Exception when killing Fuse on provides nodes (StaticProvider):", e);
+				} finally {
+					// Give the session back to the pool
+					executor.disconnect();
 				}
 			}
 		}
@@ -99,22 +106,24 @@ public class StaticProvider implements ProvisionProvider {
 		}
 
 		log.info("Loading iptables configuration files.");
-		SSHClient sshClient;
-		Executor executor;
+		// Remote path of the file on each host
+		final Map<String, String> remoteFilePaths = new LinkedHashMap<>();
+		final List<SSHClient> clients = new ArrayList<>();
+		final List<Executor> executors = new ArrayList<>();
 		String remoteFilePath = "";
 
-		for (Container c : containerList) {
-			if (c instanceof ChildContainer) {
-				//If the child container is child then skip. The file will be copied and executed for all ssh containers
-				//and root. It doesn't make sense to do also for child containers.
-				continue;
-			}
+		try {
+			for (Container c : containerList) {
+				if (c instanceof ChildContainer) {
+					//If the child container is child then skip. The file will be copied and executed for all ssh containers
+					//and root. It doesn't make sense to do also for child containers.
+					continue;
+				}
 
-			sshClient = new NodeSSHClient().defaultSSHPort().host(c.getNode().getHost())
-					.username(c.getNode().getUsername()).password(c.getNode().getPassword());
-			executor = new Executor(sshClient, c.getNode().getHost());
-			log.debug("Loading iptables on node {}.", executor);
-			try {
+				final SSHClient sshClient = new NodeSSHClient().defaultSSHPort().host(c.getNode().getHost())
+						.username(c.getNode().getUsername()).password(c.getNode().getPassword());
+				final Executor executor = new Executor(sshClient, c.getNode().getHost());
+				executors.add(executor);
 				log.trace("Connecting own executor to load IPtables");
 				executor.connect();
 
@@ -124,15 +133,20 @@ public class StaticProvider implements ProvisionProvider {
 				// Path to copied iptables file on remote nodes
 				remoteFilePath =
 						directory + File.separator + StringUtils.substringAfterLast(SystemProperty.getIptablesConfFilePath(), File.separator);
+				clients.add(executor.getClient());
+				remoteFilePaths.put(executor.getClient().getHost(), remoteFilePath);
+			}
 
-				// Copy iptables configuration file from local to all remote nodes
-				((NodeSSHClient) sshClient).copyFileToRemote(SystemProperty.getIptablesConfFilePath(), remoteFilePath);
+			// Copy iptables configuration file from local to all remote nodes in parallel
+			SftpTransfer.uploadToAll(clients, remoteFilePaths, new File(SystemProperty.getIptablesConfFilePath()));
 
+			for (Executor executor : executors) {
+				log.debug("Loading iptables on node {}.", executor);
 				final String response = executor.executeCommandSilently("stat " + SystemProperty.getIptablesConfFilePath());
 
 				if (response == null || response.isEmpty()) {
 					throw new OfflineEnvironmentException("Configuration file for iptables"
-							+ " doesn't exists on node: " + c.getNode().getHost() + ".",
+							+ " doesn't exists on node: " + executor.getClient().getHost() + ".",
 							new FileNotFoundException("File " + SystemProperty.getIptablesConfFilePath() + " doesn't exists."));
 				}
 				log.debug("Saving default iptables configuration on node {}.", executor);
@@ -140,8 +154,12 @@ public class StaticProvider implements ProvisionProvider {
 
 				executor.executeCommand("sudo iptables-restore " + SystemProperty.getIptablesConfFilePath());
 				log.debug("Iptables successfully configured on node {}.", executor);
-			} catch (Exception e) {
-				throw new OfflineEnvironmentException(e);
+			}
+		} catch (Exception e) {
+			throw new OfflineEnvironmentException(e);
+		} finally {
+			for (Executor executor : executors) {
+				executor.disconnect();
 			}
 		}
 
@@ -192,6 +210,8 @@ public class StaticProvider implements ProvisionProvider {
 				log.debug("Iptables restored on node {}.", executor);
 			} catch (Exception e) {
 				throw new OfflineEnvironmentException(e);
+			} finally {
+				executor.disconnect();
 			}
 		}
 
@@ -17,6 +17,8 @@ import org.jboss.fuse.qa.fafram8.deployer.ContainerSummoner;
 import org.jboss.fuse.qa.fafram8.deployer.Deployer;
 import org.jboss.fuse.qa.fafram8.exception.FaframException;
 import org.jboss.fuse.qa.fafram8.exception.ValidatorException;
+import org.jboss.fuse.qa.fafram8.executor.QueryCache;
+import org.jboss.fuse.qa.fafram8.executor.ReadinessProbe;
 import org.jboss.fuse.qa.fafram8.invoker.MavenPomInvoker;
 import org.jboss.fuse.qa.fafram8.invoker.MavenProject;
 import org.jboss.fuse.qa.fafram8.manager.ContainerManager;
@@ -30,10 +32,12 @@ import org.jboss.fuse.qa.fafram8.provision.provider.OpenStackProvisionProvider;
 import org.jboss.fuse.qa.fafram8.provision.provider.ProviderSingleton;
 import org.jboss.fuse.qa.fafram8.provision.provider.ProvisionProvider;
 import org.jboss.fuse.qa.fafram8.provision.provider.StaticProvider;
-import org.jboss.fuse.qa.fafram8.timer.TimerUtils;
+import org.jboss.fuse.qa.fafram8.ssh.SessionPool;
+import org.jboss.fuse.qa.fafram8.timer.KeepAliveHub;
 import org.jboss.fuse.qa.fafram8.util.CommandHistory;
 import org.jboss.fuse.qa.fafram8.util.Option;
 import org.jboss.fuse.qa.fafram8.util.OptionUtils;
+import org.jboss.fuse.qa.fafram8.util.ResponseSpill;
 import org.jboss.fuse.qa.fafram8.util.callables.Response;
 import org.jboss.fuse.qa.fafram8.validator.Validator;
 
@@ -42,7 +46,6 @@ import org.junit.rules.ExternalResource;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -182,7 +185,13 @@ public class Fafram extends ExternalResource {
 			OpenStackProvisionProvider.getInstance().getClient().setImage(SystemProperty.getExternalProperty(FaframConstant.OPENSTACK_IMAGE));
 		}
 
-		TimerUtils.cancelTimers();
+		KeepAliveHub.getInstance().clear();
+		SessionPool.getInstance().closeIdle();
+		log.debug("SSH readiness times [ms]: " + ReadinessProbe.getReadinessTimes());
+		ReadinessProbe.clearReadinessTimes();
+		log.debug("Query cache: " + QueryCache.getStatistics());
+		QueryCache.clearStatistics();
+		ResponseSpill.close();
 		SystemProperty.clearAllProperties();
 		ModifierExecutor.clearAllModifiers();
 		ContainerManager.clearAllLists();
@@ -201,7 +210,7 @@ public class Fafram extends ExternalResource {
 	 */
 	public Fafram containers(Container... containers) {
 		ContainerManager.getContainerList().addAll(new ArrayList<>(Arrays.asList(containers)));
-		Collections.sort(ContainerManager.getContainerList());
+		ContainerManager.sortContainerList();
 		if (running) {
 			// == if we are adding the containers in the test method, we need to create them
 			// Validate the containers
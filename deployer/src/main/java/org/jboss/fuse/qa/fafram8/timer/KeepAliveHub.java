@@ -0,0 +1,146 @@
+package org.jboss.fuse.qa.fafram8.timer;
+
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.property.SystemProperty;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keep-alive hub shared by all executors. The sessions of the registered executors send the SSH protocol keep-alive messages
+ * (no command is executed), one scheduler thread periodically checks if the sessions are still connected and logs the lost
+ * connections.
+ */
+@Slf4j
+public final class KeepAliveHub {
+	private static KeepAliveHub instance = null;
+
+	// Registered executors and the last time they were seen connected
+	private final ConcurrentMap<Executor, Liveness> executors = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService scheduler;
+
+	private final int interval;
+
+	/**
+	 * Constructor.
+	 */
+	private KeepAliveHub() {
+		interval = SystemProperty.getKeepAliveInterval();
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				final Thread t = new Thread(r, "keep-alive-hub");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				check();
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Gets the instance.
+	 *
+	 * @return instance
+	 */
+	public static synchronized KeepAliveHub getInstance() {
+		if (instance == null) {
+			instance = new KeepAliveHub();
+		}
+		return instance;
+	}
+
+	/**
+	 * Registers the executor and enables the keep-alive messages on its session. Registering the executor again (after reconnect)
+	 * enables the keep-alive on the new session.
+	 *
+	 * @param executor executor
+	 */
+	public void register(Executor executor) {
+		if (!executor.getClient().enableKeepAlive(interval)) {
+			log.trace("Keep-alive not enabled for " + executor.getName() + ", the client is not connected");
+		}
+		executors.put(executor, new Liveness());
+	}
+
+	/**
+	 * Unregisters the executor.
+	 *
+	 * @param executor executor
+	 */
+	public void unregister(Executor executor) {
+		executors.remove(executor);
+	}
+
+	/**
+	 * Checks if the executor is registered and its session was connected in the last check.
+	 *
+	 * @param executor executor
+	 * @return true if the executor is alive
+	 */
+	public boolean isAlive(Executor executor) {
+		final Liveness liveness = executors.get(executor);
+		return liveness != null && liveness.alive;
+	}
+
+	/**
+	 * Gets the number of registered executors.
+	 *
+	 * @return number of executors
+	 */
+	public int size() {
+		return executors.size();
+	}
+
+	/**
+	 * Unregisters all executors.
+	 */
+	public void clear() {
+		executors.clear();
+	}
+
+	/**
+	 * Checks the connection of all registered executors. Only the state of the session is checked, nothing is sent.
+	 *
+	 * @return number of executors that are not connected
+	 */
+	public int check() {
+		int lost = 0;
+		final long now = System.currentTimeMillis();
+		for (Map.Entry<Executor, Liveness> entry : executors.entrySet()) {
+			final Liveness liveness = entry.getValue();
+			if (entry.getKey().isConnected()) {
+				liveness.alive = true;
+				liveness.lastAlive = now;
+			} else {
+				if (liveness.alive) {
+					log.warn("Connection of executor " + entry.getKey().getName() + " lost, last seen alive "
+							+ (now - liveness.lastAlive) + " ms ago");
+				}
+				liveness.alive = false;
+				lost++;
+			}
+		}
+		return lost;
+	}
+
+	/**
+	 * Liveness of one executor.
+	 */
+	private static final class Liveness {
+		private volatile boolean alive = true;
+		private volatile long lastAlive = System.currentTimeMillis();
+	}
+}
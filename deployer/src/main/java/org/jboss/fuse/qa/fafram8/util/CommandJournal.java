@@ -0,0 +1,321 @@
+package org.jboss.fuse.qa.fafram8.util;
+
+import org.jboss.fuse.qa.fafram8.property.SystemProperty;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only journal of the executed commands. The records are queued by the executors and written by one background thread, all
+ * records waiting in the queue are written together and the files are flushed once per such group. The journal is one file per run
+ * in the archive target ("journal.per.executor" property for one file per executor), optionally gzipped ("journal.gzip" property).
+ */
+@Slf4j
+public final class CommandJournal {
+	private static final int MAX_GROUP = 1000;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final long FLUSH_TIMEOUT = 30L;
+
+	// Key of the run file in the open files
+	private static final String RUN_FILE = "";
+
+	private static CommandJournal instance = null;
+
+	private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+
+	// Open files by the executor name, used only by the writer thread
+	private final Map<String, Sink> sinks = new LinkedHashMap<>();
+
+	// Start of the file names, the same for all files of this run
+	private final String prefix;
+
+	// Formatter used only by the writer thread
+	private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss");
+
+	/**
+	 * Constructor.
+	 */
+	private CommandJournal() {
+		prefix = dateFormat.format(new Date());
+		final Thread writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				write();
+			}
+		}, "command-journal");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Gets the instance.
+	 *
+	 * @return instance
+	 */
+	public static synchronized CommandJournal getInstance() {
+		if (instance == null) {
+			instance = new CommandJournal();
+		}
+		return instance;
+	}
+
+	/**
+	 * Queues the command record of the executor.
+	 *
+	 * @param executor executor name
+	 * @param record record
+	 */
+	public void append(String executor, CommandRecord record) {
+		queue.add(new Entry(executor, record, null, null, false));
+	}
+
+	/**
+	 * Queues the text, the text is written to all journal files.
+	 *
+	 * @param text text
+	 */
+	public void append(String text) {
+		queue.add(new Entry(null, null, text, null, false));
+	}
+
+	/**
+	 * Waits until all queued entries are written and forced to the disk.
+	 *
+	 * @return true if flushed, false if the writer didn't finish in time
+	 */
+	public boolean flush() {
+		return request(false);
+	}
+
+	/**
+	 * Writes all queued entries and closes the files. The files are opened again for the next entries, so the changed archive target
+	 * or the journal properties are used from then on.
+	 *
+	 * @return true if closed, false if the writer didn't finish in time
+	 */
+	public boolean close() {
+		return request(true);
+	}
+
+	/**
+	 * Queues the flush or close request and waits for it.
+	 *
+	 * @param close close the files after the flush
+	 * @return true if done, false if the writer didn't finish in time
+	 */
+	private boolean request(boolean close) {
+		final CountDownLatch latch = new CountDownLatch(1);
+		queue.add(new Entry(null, null, null, latch, close));
+		try {
+			return latch.await(FLUSH_TIMEOUT, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Gets the journal file of the run. The file exists only after the first entry is written.
+	 *
+	 * @return run file
+	 */
+	public File getFile() {
+		return path(RUN_FILE).toFile();
+	}
+
+	/**
+	 * Writer loop. Takes all queued entries, writes them and flushes the files once for the whole group.
+	 */
+	private void write() {
+		final List<Entry> group = new ArrayList<>();
+		while (true) {
+			try {
+				group.add(queue.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(group, MAX_GROUP - 1);
+
+			final List<CountDownLatch> flushed = new ArrayList<>();
+			boolean close = false;
+			for (Entry entry : group) {
+				if (entry.latch != null) {
+					flushed.add(entry.latch);
+					close |= entry.close;
+				} else if (entry.text != null) {
+					writeText(entry.text);
+				} else {
+					writeRecord(entry.executor, entry.record);
+				}
+			}
+			flushAll(!flushed.isEmpty());
+			if (close) {
+				closeAll();
+			}
+			for (CountDownLatch latch : flushed) {
+				latch.countDown();
+			}
+			group.clear();
+		}
+	}
+
+	/**
+	 * Writes the record to the run file or to the executor file.
+	 *
+	 * @param executor executor name
+	 * @param record record
+	 */
+	private void writeRecord(String executor, CommandRecord record) {
+		final String key = SystemProperty.isJournalPerExecutor() ? executor : RUN_FILE;
+		write(key, "Executor: " + executor + "\n" + ExecutorCommandHistory.format(record, dateFormat));
+	}
+
+	/**
+	 * Writes the text to the run file and to all open executor files.
+	 *
+	 * @param text text
+	 */
+	private void writeText(String text) {
+		write(RUN_FILE, text);
+		for (String key : new ArrayList<>(sinks.keySet())) {
+			if (!RUN_FILE.equals(key)) {
+				write(key, text);
+			}
+		}
+	}
+
+	/**
+	 * Writes the text to the file, the file is opened on the first write.
+	 *
+	 * @param key file key
+	 * @param text text
+	 */
+	private void write(String key, String text) {
+		try {
+			Sink sink = sinks.get(key);
+			if (sink == null) {
+				sink = new Sink(path(key), SystemProperty.isJournalGzip());
+				sinks.put(key, sink);
+			}
+			sink.out.write(text.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			log.error("Unable to write the command journal: " + e);
+		}
+	}
+
+	/**
+	 * Flushes all open files.
+	 *
+	 * @param force force the content to the disk
+	 */
+	private void flushAll(boolean force) {
+		for (Sink sink : sinks.values()) {
+			try {
+				sink.out.flush();
+				if (force) {
+					sink.channel.force(false);
+				}
+			} catch (IOException e) {
+				log.error("Unable to flush the command journal: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Closes all open files. The files are opened again on the next write, the content is appended.
+	 */
+	private void closeAll() {
+		for (Sink sink : sinks.values()) {
+			try {
+				sink.out.close();
+			} catch (IOException e) {
+				log.error("Unable to close the command journal: " + e);
+			}
+		}
+		sinks.clear();
+	}
+
+	/**
+	 * Gets the path of the journal file.
+	 *
+	 * @param key file key
+	 * @return path
+	 */
+	private Path path(String key) {
+		final String name = prefix + (RUN_FILE.equals(key) ? "" : "-" + key) + ".txt" + (SystemProperty.isJournalGzip() ? ".gz" : "");
+		return Paths.get(SystemProperty.getArchiveTarget(), name).toAbsolutePath();
+	}
+
+	/**
+	 * Queued entry - command record, text or flush request.
+	 */
+	private static final class Entry {
+		private final String executor;
+		private final CommandRecord record;
+		private final String text;
+		private final CountDownLatch latch;
+		private final boolean close;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param executor executor name
+		 * @param record record
+		 * @param text text
+		 * @param latch latch released after the flush
+		 * @param close close the files after the flush
+		 */
+		private Entry(String executor, CommandRecord record, String text, CountDownLatch latch, boolean close) {
+			this.executor = executor;
+			this.record = record;
+			this.text = text;
+			this.latch = latch;
+			this.close = close;
+		}
+	}
+
+	/**
+	 * Open journal file.
+	 */
+	private static final class Sink {
+		private final FileChannel channel;
+		private final OutputStream out;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param path file path
+		 * @param gzip gzip the content
+		 * @throws IOException if the file can't be opened
+		 */
+		private Sink(Path path, boolean gzip) throws IOException {
+			Files.createDirectories(path.getParent());
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			final OutputStream stream = Channels.newOutputStream(channel);
+			// Sync flush so that each group is readable from the file even if the JVM dies
+			out = new BufferedOutputStream(gzip ? new GZIPOutputStream(stream, BUFFER_SIZE, true) : stream, BUFFER_SIZE);
+		}
+	}
+}
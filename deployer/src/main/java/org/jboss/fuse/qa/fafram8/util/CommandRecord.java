@@ -0,0 +1,84 @@
+package org.jboss.fuse.qa.fafram8.util;
+
+import java.io.File;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One executed command in the command history. Small responses are kept in the record, larger responses are spilled to the response
+ * file and only their position is kept. The size and the hash are always of the full response.
+ */
+@Getter
+@ToString(exclude = "response")
+public class CommandRecord {
+	// Sequence number of the record in the history of the executor
+	private final long sequence;
+
+	private final long timestamp;
+
+	private final String command;
+
+	// Response, null if spilled to the file or if the command failed, truncated if the spill failed
+	private final String response;
+
+	private final int responseSize;
+
+	private final int responseHash;
+
+	// Duration of the command in milliseconds, -1 if not measured
+	private final long durationMillis;
+
+	// File and position of the spilled response, null and -1 if not spilled
+	private final File spillFile;
+
+	private final long spillOffset;
+
+	private final int spillLength;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param sequence sequence number
+	 * @param timestamp time of the command
+	 * @param command command
+	 * @param response response kept in the record
+	 * @param responseSize response length
+	 * @param responseHash response hash code
+	 * @param durationMillis duration in milliseconds
+	 * @param spillFile file with the spilled response
+	 * @param spillOffset offset of the spilled response
+	 * @param spillLength length of the spilled response in bytes
+	 */
+	CommandRecord(long sequence, long timestamp, String command, String response, int responseSize, int responseHash, long durationMillis,
+			File spillFile, long spillOffset, int spillLength) {
+		this.sequence = sequence;
+		this.timestamp = timestamp;
+		this.command = command;
+		this.response = response;
+		this.responseSize = responseSize;
+		this.responseHash = responseHash;
+		this.durationMillis = durationMillis;
+		this.spillFile = spillFile;
+		this.spillOffset = spillOffset;
+		this.spillLength = spillLength;
+	}
+
+	/**
+	 * Checks if the response was spilled to the response file.
+	 *
+	 * @return true if spilled
+	 */
+	public boolean isSpilled() {
+		return spillFile != null;
+	}
+
+	/**
+	 * Gets the full response, the spilled response is read back from the response file.
+	 *
+	 * @return response, truncated if the spill failed
+	 */
+	public String getFullResponse() {
+		return isSpilled() ? ResponseSpill.read(spillFile, spillOffset, spillLength) : response;
+	}
+}
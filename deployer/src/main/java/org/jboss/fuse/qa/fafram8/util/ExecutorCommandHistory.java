@@ -1,21 +1,41 @@
 package org.jboss.fuse.qa.fafram8.util;
 
+import org.jboss.fuse.qa.fafram8.property.SystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Command history for Executor.
+ * Command history for Executor. The last "history.size" commands are kept in a lock-free ring buffer, the older records are dropped.
+ * Responses longer than "history.spill.threshold" characters are spilled to the response file and the record keeps only their size,
+ * hash and position. When the response can't be spilled, the record keeps the response truncated to the threshold, so the history
+ * never fails the command. Each record is also queued to the command journal.
  *
  * @author : Roman Jakubco (rjakubco@redhat.com)
  */
 @Slf4j
 public class ExecutorCommandHistory {
-	private static final int MAX_BUILDER_LENGTH = 10;
-	private StringBuilder builder;
-	private static SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss");
-	private String name;
+	private static final String DATE_FORMAT = "yyyy-MM-dd-HH-mm-ss";
+
+	@Getter
+	private final String name;
+
+	private final AtomicReferenceArray<CommandRecord> records;
+
+	// Sequence number of the next record
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final int spillThreshold;
 
 	/**
 	 * Constructor.
@@ -24,29 +44,98 @@ public class ExecutorCommandHistory {
 	 */
 	public ExecutorCommandHistory(String name) {
 		this.name = name;
-		builder = new StringBuilder();
-		builder.append("Executor: ").append(name).append("\n\n");
+		records = new AtomicReferenceArray<>(Math.max(1, SystemProperty.getHistorySize()));
+		spillThreshold = SystemProperty.getHistorySpillThreshold();
 	}
 
 	/**
-	 * Logs command and its response to StringBuilder.
+	 * Logs command and its response.
 	 *
 	 * @param cmd executed command
 	 * @param response response of the executed command
 	 */
 	public void log(String cmd, String response) {
-		builder.append(dateFormat.format(new Date()))
-				.append("\n")
-				.append("Command: ").append(cmd)
-				.append("\n")
-				.append("Response: ").append(response)
-				.append("\n")
-				.append("------------------------------------------------------------------")
-				.append("\n");
+		log(cmd, response, -1L);
+	}
+
+	/**
+	 * Logs command, its response and duration.
+	 *
+	 * @param cmd executed command
+	 * @param response response of the executed command
+	 * @param durationMillis duration of the command in milliseconds
+	 */
+	public void log(String cmd, String response, long durationMillis) {
+		final long seq = sequence.getAndIncrement();
+		final CommandRecord record = createRecord(seq, cmd, response, durationMillis);
+		records.set((int) (seq % records.length()), record);
+		if (name != null) {
+			CommandJournal.getInstance().append(name, record);
+		}
 	}
 
 	/**
-	 * Returns the StringBuilder with all logged messages.
+	 * Creates the record, the long response is spilled to the response file or truncated if the spill fails.
+	 *
+	 * @param seq sequence number
+	 * @param cmd command
+	 * @param response response
+	 * @param durationMillis duration
+	 * @return record
+	 */
+	private CommandRecord createRecord(long seq, String cmd, String response, long durationMillis) {
+		final long now = System.currentTimeMillis();
+		if (response == null) {
+			return new CommandRecord(seq, now, cmd, null, 0, 0, durationMillis, null, -1L, 0);
+		}
+		if (response.length() <= spillThreshold) {
+			return new CommandRecord(seq, now, cmd, response, response.length(), response.hashCode(), durationMillis, null, -1L, 0);
+		}
+		final byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+		final long offset;
+		final File file;
+		synchronized (ResponseSpill.class) {
+			try {
+				offset = ResponseSpill.append(bytes);
+			} catch (IOException e) {
+				log.warn(e.getMessage() + ", keeping the truncated response: " + e.getCause());
+				final String truncated = response.substring(0, spillThreshold) + "... [truncated, " + response.length() + " characters]";
+				return new CommandRecord(seq, now, cmd, truncated, response.length(), response.hashCode(), durationMillis, null, -1L, 0);
+			}
+			file = ResponseSpill.getFile();
+		}
+		return new CommandRecord(seq, now, cmd, null, response.length(), response.hashCode(), durationMillis, file, offset, bytes.length);
+	}
+
+	/**
+	 * Gets the records that are still in the history.
+	 *
+	 * @return records from the oldest one
+	 */
+	public List<CommandRecord> getRecords() {
+		final long end = sequence.get();
+		final List<CommandRecord> list = new ArrayList<>();
+		for (long seq = Math.max(0L, end - records.length()); seq < end; seq++) {
+			final CommandRecord record = records.get((int) (seq % records.length()));
+			// The slot may be overwritten by a newer record or not written yet
+			if (record != null && record.getSequence() == seq) {
+				list.add(record);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Gets the number of the records dropped from the history.
+	 *
+	 * @return number of dropped records
+	 */
+	public long getDropped() {
+		return Math.max(0L, sequence.get() - records.length());
+	}
+
+	/**
+	 * Returns all logged commands and responses as a string.
 	 *
 	 * @return final String of all executed commands
 	 */
@@ -54,10 +143,48 @@ public class ExecutorCommandHistory {
 		if (this.name == null) {
 			return "";
 		}
-		if (builder.length() >= MAX_BUILDER_LENGTH) {
-			builder.append("\n================================================================================================\n");
+		// Not shared, SimpleDateFormat is not thread-safe
+		final SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+		final StringBuilder builder = new StringBuilder();
+		builder.append("Executor: ").append(name).append("\n\n");
+		if (getDropped() > 0) {
+			builder.append("(").append(getDropped()).append(" older commands dropped)\n");
 		}
+		for (CommandRecord record : getRecords()) {
+			builder.append(format(record, dateFormat));
+		}
+		builder.append("\n================================================================================================\n");
+		return builder.toString();
+	}
 
+	/**
+	 * Formats one record.
+	 *
+	 * @param record record
+	 * @param dateFormat date format
+	 * @return formatted record
+	 */
+	public static String format(CommandRecord record, SimpleDateFormat dateFormat) {
+		final StringBuilder builder = new StringBuilder();
+		builder.append(dateFormat.format(new Date(record.getTimestamp())))
+				.append("\n")
+				.append("Command: ").append(record.getCommand())
+				.append("\n");
+		if (record.isSpilled()) {
+			builder.append("Response: <").append(record.getResponseSize()).append(" characters in ").append(record.getSpillFile())
+					.append(" at offset ").append(record.getSpillOffset()).append(">");
+		} else {
+			builder.append("Response: ").append(record.getResponse());
+		}
+		builder.append("\n")
+				.append("Size: ").append(record.getResponseSize())
+				.append(", hash: ").append(Integer.toHexString(record.getResponseHash()));
+		if (record.getDurationMillis() >= 0) {
+			builder.append(", duration: ").append(record.getDurationMillis()).append(" ms");
+		}
+		builder.append("\n")
+				.append("------------------------------------------------------------------")
+				.append("\n");
 		return builder.toString();
 	}
 }
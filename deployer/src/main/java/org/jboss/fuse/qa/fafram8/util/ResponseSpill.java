@@ -0,0 +1,111 @@
+package org.jboss.fuse.qa.fafram8.util;
+
+import org.jboss.fuse.qa.fafram8.exception.FaframException;
+import org.jboss.fuse.qa.fafram8.property.SystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only file with the large command responses of all executors. The file is created in the archive target on the first spill.
+ */
+@Slf4j
+public final class ResponseSpill {
+	private static FileChannel channel = null;
+	private static Path path = null;
+
+	/**
+	 * Private constructor.
+	 */
+	private ResponseSpill() {
+	}
+
+	/**
+	 * Appends the response to the file. The file of the response should be taken by getFile() in the same block synchronized
+	 * on this class.
+	 *
+	 * @param response response
+	 * @return offset of the response in the file
+	 * @throws IOException if the response can't be written, the file is closed then and the next spill opens a new one
+	 */
+	static synchronized long append(byte[] response) throws IOException {
+		if (channel == null) {
+			final String date = new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss").format(new Date());
+			final Path file = Paths.get(SystemProperty.getArchiveTarget(), date + "-responses.log").toAbsolutePath();
+			try {
+				Files.createDirectories(file.getParent());
+				channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			} catch (IOException e) {
+				throw new IOException("Unable to create the response file " + file, e);
+			}
+			path = file;
+			log.debug("Spilling large command responses to " + path);
+		}
+		try {
+			final long offset = channel.size();
+			final ByteBuffer buffer = ByteBuffer.wrap(response);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			return offset;
+		} catch (IOException e) {
+			close();
+			throw new IOException("Unable to spill the response to " + path, e);
+		}
+	}
+
+	/**
+	 * Reads the response from the file.
+	 *
+	 * @param file response file
+	 * @param offset offset of the response
+	 * @param length length of the response in bytes
+	 * @return response
+	 */
+	static String read(File file, long offset, int length) {
+		try (FileChannel reader = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			final ByteBuffer buffer = ByteBuffer.allocate(length);
+			int read = 0;
+			while (buffer.hasRemaining() && read != -1) {
+				read = reader.read(buffer, offset + buffer.position());
+			}
+			return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new FaframException("Unable to read the spilled response from " + file, e);
+		}
+	}
+
+	/**
+	 * Gets the response file.
+	 *
+	 * @return response file or null if nothing was spilled yet
+	 */
+	public static synchronized File getFile() {
+		return path == null ? null : path.toFile();
+	}
+
+	/**
+	 * Closes the file, next spill creates a new one.
+	 */
+	public static synchronized void close() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				log.warn("Unable to close " + path + ": " + e);
+			}
+		}
+		channel = null;
+	}
+}
@@ -0,0 +1,143 @@
+package org.jboss.fuse.qa.fafram8.waiter;
+
+import org.jboss.fuse.qa.fafram8.util.callables.Response;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+/**
+ * Composition of the wait conditions. The composed conditions remember which parts were already satisfied and don't check them
+ * again, so each composed condition should be used for one wait only.
+ */
+public final class Conditions {
+	/**
+	 * Private constructor.
+	 */
+	private Conditions() {
+	}
+
+	/**
+	 * Condition satisfied when all conditions are satisfied.
+	 *
+	 * @param conditions conditions
+	 * @param <T> type of the response data
+	 * @return condition with the data of all conditions in the original order
+	 */
+	@SafeVarargs
+	public static <T> Callable<Response<List<T>>> all(Callable<Response<T>>... conditions) {
+		return all(Arrays.asList(conditions));
+	}
+
+	/**
+	 * Condition satisfied when all conditions are satisfied.
+	 *
+	 * @param conditions conditions
+	 * @param <T> type of the response data
+	 * @return condition with the data of all conditions in the original order
+	 */
+	public static <T> Callable<Response<List<T>>> all(List<? extends Callable<Response<T>>> conditions) {
+		return nOf(conditions.size(), conditions);
+	}
+
+	/**
+	 * Condition satisfied when any of the conditions is satisfied.
+	 *
+	 * @param conditions conditions
+	 * @param <T> type of the response data
+	 * @return condition with the data of the first satisfied condition
+	 */
+	@SafeVarargs
+	public static <T> Callable<Response<T>> any(Callable<Response<T>>... conditions) {
+		return any(Arrays.asList(conditions));
+	}
+
+	/**
+	 * Condition satisfied when any of the conditions is satisfied.
+	 *
+	 * @param conditions conditions
+	 * @param <T> type of the response data
+	 * @return condition with the data of the first satisfied condition
+	 */
+	public static <T> Callable<Response<T>> any(final List<? extends Callable<Response<T>>> conditions) {
+		final NOf<T> first = new NOf<>(1, conditions);
+		return new Callable<Response<T>>() {
+			@Override
+			public Response<T> call() {
+				final Response<List<T>> response = first.call();
+				if (response.getSuccess()) {
+					return Response.success(response.getData().get(0));
+				}
+				return Response.timeOut();
+			}
+
+			@Override
+			public String toString() {
+				return "any of " + conditions;
+			}
+		};
+	}
+
+	/**
+	 * Condition satisfied when at least n conditions are satisfied.
+	 *
+	 * @param n number of conditions that must be satisfied
+	 * @param conditions conditions
+	 * @param <T> type of the response data
+	 * @return condition with the data of the satisfied conditions in the original order
+	 */
+	public static <T> Callable<Response<List<T>>> nOf(int n, List<? extends Callable<Response<T>>> conditions) {
+		return new NOf<>(n, conditions);
+	}
+
+	/**
+	 * At least n of the conditions. Satisfied conditions are remembered, exception thrown by one condition counts as not satisfied.
+	 *
+	 * @param <T> type of the response data
+	 */
+	private static final class NOf<T> implements Callable<Response<List<T>>> {
+		private final int n;
+		private final List<? extends Callable<Response<T>>> conditions;
+
+		// Data of the satisfied conditions by the condition index
+		private final Map<Integer, T> satisfied = new TreeMap<>();
+
+		/**
+		 * Constructor.
+		 *
+		 * @param n number of conditions that must be satisfied
+		 * @param conditions conditions
+		 */
+		private NOf(int n, List<? extends Callable<Response<T>>> conditions) {
+			this.n = n;
+			this.conditions = conditions;
+		}
+
+		@Override
+		public synchronized Response<List<T>> call() {
+			for (int i = 0; i < conditions.size() && satisfied.size() < n; i++) {
+				if (satisfied.containsKey(i)) {
+					continue;
+				}
+				try {
+					final Response<T> response = conditions.get(i).call();
+					if (response.getSuccess()) {
+						satisfied.put(i, response.getData());
+					}
+				} catch (Exception ignored) {
+					// Not satisfied yet
+				}
+			}
+			final List<T> data = new ArrayList<>(satisfied.values());
+			return satisfied.size() >= n ? Response.success(data) : Response.timeOut(data);
+		}
+
+		@Override
+		public String toString() {
+			return n + " of " + conditions;
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package org.jboss.fuse.qa.fafram8.waiter;
+
+import org.jboss.fuse.qa.fafram8.property.SystemProperty;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Policy of repeated checks - fixed delay or exponential backoff, optionally with random jitter, limited by the overall timeout.
+ * The n-th delay is initialDelay * multiplier^n capped by maxDelay, randomly shortened or prolonged by the jitter fraction,
+ * so the checks of several containers started at the same time don't hit the servers together.
+ */
+@Getter
+@ToString
+public final class PollPolicy {
+	private static final double DEFAULT_MULTIPLIER = 2.0;
+	private static final double DEFAULT_JITTER = 0.2;
+
+	// First delay in milliseconds
+	private final long initialDelay;
+
+	// Maximal delay in milliseconds
+	private final long maxDelay;
+
+	// Delay multiplier after each attempt
+	private final double multiplier;
+
+	// Random part of the delay, 0.2 means +-20%
+	private final double jitter;
+
+	// Overall timeout in milliseconds
+	private final long timeout;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param initialDelay first delay in milliseconds
+	 * @param maxDelay maximal delay in milliseconds
+	 * @param multiplier delay multiplier after each attempt
+	 * @param jitter random part of the delay (0 - 1)
+	 * @param timeout overall timeout in milliseconds
+	 */
+	public PollPolicy(long initialDelay, long maxDelay, double multiplier, double jitter, long timeout) {
+		this.initialDelay = Math.max(1L, initialDelay);
+		this.maxDelay = Math.max(this.initialDelay, maxDelay);
+		this.multiplier = Math.max(1.0, multiplier);
+		this.jitter = Math.min(1.0, Math.max(0.0, jitter));
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Creates the default backoff policy with the delays set by the poll.initial.delay and poll.max.delay properties.
+	 *
+	 * @param timeout overall timeout
+	 * @param unit timeout unit
+	 * @return poll policy
+	 */
+	public static PollPolicy backoff(long timeout, TimeUnit unit) {
+		return new PollPolicy(SystemProperty.getPollInitialDelay(), SystemProperty.getPollMaxDelay(), DEFAULT_MULTIPLIER, DEFAULT_JITTER,
+				unit.toMillis(timeout));
+	}
+
+	/**
+	 * Creates the policy with the fixed delay.
+	 *
+	 * @param period delay between the attempts
+	 * @param timeout overall timeout
+	 * @param unit unit of the delay and the timeout
+	 * @return poll policy
+	 */
+	public static PollPolicy fixed(long period, long timeout, TimeUnit unit) {
+		return new PollPolicy(unit.toMillis(period), unit.toMillis(period), 1.0, 0.0, unit.toMillis(timeout));
+	}
+
+	/**
+	 * Creates the exponential backoff policy without the jitter.
+	 *
+	 * @param initialDelay first delay
+	 * @param maxDelay maximal delay
+	 * @param multiplier delay multiplier after each attempt
+	 * @param timeout overall timeout
+	 * @param unit unit of the delays and the timeout
+	 * @return poll policy
+	 */
+	public static PollPolicy exponential(long initialDelay, long maxDelay, double multiplier, long timeout, TimeUnit unit) {
+		return new PollPolicy(unit.toMillis(initialDelay), unit.toMillis(maxDelay), multiplier, 0.0, unit.toMillis(timeout));
+	}
+
+	/**
+	 * Creates the copy of this policy with a different jitter.
+	 *
+	 * @param jitter random part of the delay (0 - 1)
+	 * @return poll policy
+	 */
+	public PollPolicy withJitter(double jitter) {
+		return new PollPolicy(initialDelay, maxDelay, multiplier, jitter, timeout);
+	}
+
+	/**
+	 * Creates the copy of this policy with a different timeout.
+	 *
+	 * @param timeout overall timeout
+	 * @param unit timeout unit
+	 * @return poll policy
+	 */
+	public PollPolicy withTimeout(long timeout, TimeUnit unit) {
+		return new PollPolicy(initialDelay, maxDelay, multiplier, jitter, unit.toMillis(timeout));
+	}
+
+	/**
+	 * Gets the delay before the next attempt.
+	 *
+	 * @param attempt number of the failed attempts so far (starting with 0)
+	 * @return delay in milliseconds
+	 */
+	public long getDelay(int attempt) {
+		final double base = Math.min(maxDelay, initialDelay * Math.pow(multiplier, attempt));
+		if (jitter == 0.0) {
+			return (long) base;
+		}
+		final double factor = 1.0 - jitter + 2 * jitter * ThreadLocalRandom.current().nextDouble();
+		return Math.max(1L, Math.min(maxDelay, (long) (base * factor)));
+	}
+}
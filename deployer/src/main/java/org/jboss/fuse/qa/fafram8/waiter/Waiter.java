@@ -0,0 +1,234 @@
+package org.jboss.fuse.qa.fafram8.waiter;
+
+import org.jboss.fuse.qa.fafram8.exception.FaframException;
+import org.jboss.fuse.qa.fafram8.property.SystemProperty;
+import org.jboss.fuse.qa.fafram8.util.callables.Response;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Wait engine. One shared scheduler thread only times the attempts, it never runs them, so a slow condition (blocking SSH command,
+ * HTTP call) can't delay the attempts of other waits. The attempts of the awaited wait run on the waiting thread, the attempts of the
+ * submitted wait run on the attempt pool of "wait.threads" threads. No thread is blocked between the attempts. The delays are given by
+ * the poll policy. The wait ends with the successful response of the condition
+ * or with the last response when the time is up. The wait can be cancelled through the returned future.
+ */
+@Slf4j
+public final class Waiter {
+	private static final long IDLE_TIME = 60L;
+
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+			new WaiterThreadFactory("waiter-scheduler"));
+
+	// Attempts of the submitted waits, the idle threads are released
+	private static final ThreadPoolExecutor ATTEMPTS = new ThreadPoolExecutor(SystemProperty.getWaitThreads(),
+			SystemProperty.getWaitThreads(), IDLE_TIME, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			new WaiterThreadFactory("waiter-attempt"));
+
+	static {
+		ATTEMPTS.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Private constructor.
+	 */
+	private Waiter() {
+	}
+
+	/**
+	 * Starts the wait. The first attempt is done right away. Exception thrown by the condition counts as the unsuccessful attempt.
+	 *
+	 * @param name name of the wait used in the log
+	 * @param condition condition returning the successful response when the wait is over
+	 * @param policy poll policy
+	 * @param <T> type of the response data
+	 * @return future completed with the successful response or with the last response when the time is up
+	 */
+	public static <T> ListenableFuture<Response<T>> submit(String name, Callable<Response<T>> condition, PollPolicy policy) {
+		final WaitTask<T> task = new WaitTask<>(name, condition, policy, ATTEMPTS);
+		task.schedule(0L);
+		return task;
+	}
+
+	/**
+	 * Waits for the condition. The attempts run on the calling thread, the wait is cancelled if the thread is interrupted.
+	 *
+	 * @param name name of the wait used in the log
+	 * @param condition condition returning the successful response when the wait is over
+	 * @param policy poll policy
+	 * @param <T> type of the response data
+	 * @return successful response or the last response when the time is up
+	 */
+	public static <T> Response<T> await(String name, Callable<Response<T>> condition, PollPolicy policy) {
+		final BlockingQueue<Runnable> attempts = new LinkedBlockingQueue<>();
+		final WaitTask<T> task = new WaitTask<>(name, condition, policy, new Executor() {
+			@Override
+			public void execute(Runnable attempt) {
+				attempts.add(attempt);
+			}
+		});
+		attempts.add(task);
+		try {
+			while (!task.isDone()) {
+				attempts.take().run();
+			}
+			return task.get();
+		} catch (InterruptedException e) {
+			task.cancel(true);
+			Thread.currentThread().interrupt();
+			return Response.timeOut();
+		} catch (ExecutionException e) {
+			throw new FaframException("Wait for " + name + " failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Factory of the named daemon threads.
+	 */
+	private static final class WaiterThreadFactory implements ThreadFactory {
+		private final String prefix;
+		private final AtomicInteger counter = new AtomicInteger();
+
+		/**
+		 * Constructor.
+		 *
+		 * @param prefix prefix of the thread names
+		 */
+		private WaiterThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			final Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+	/**
+	 * One wait - the future of the wait that schedules its own attempts. The scheduler only hands the attempt over to the attempt pool.
+	 *
+	 * @param <T> type of the response data
+	 */
+	private static final class WaitTask<T> extends AbstractFuture<Response<T>> implements Runnable {
+		private final String name;
+		private final Callable<Response<T>> condition;
+		private final PollPolicy policy;
+		private final long deadline;
+		private final Executor attempts;
+
+		private final Runnable dispatch = new Runnable() {
+			@Override
+			public void run() {
+				if (isDone()) {
+					return;
+				}
+				try {
+					attempts.execute(WaitTask.this);
+				} catch (RejectedExecutionException e) {
+					setException(e);
+				}
+			}
+		};
+
+		private int attempt = 0;
+		private Response<T> last = Response.timeOut();
+		private volatile ScheduledFuture<?> next;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param name name of the wait
+		 * @param condition condition
+		 * @param policy poll policy
+		 * @param attempts executor of the attempts
+		 */
+		private WaitTask(String name, Callable<Response<T>> condition, PollPolicy policy, Executor attempts) {
+			this.name = name;
+			this.attempts = attempts;
+			this.condition = condition;
+			this.policy = policy;
+			this.deadline = System.currentTimeMillis() + policy.getTimeout();
+		}
+
+		@Override
+		public void run() {
+			if (isDone()) {
+				return;
+			}
+			try {
+				final Response<T> response = condition.call();
+				if (response.getSuccess()) {
+					log.trace("Wait for {} succeeded after {} attempts", name, attempt + 1);
+					set(response);
+					return;
+				}
+				last = response;
+			} catch (Exception e) {
+				log.trace("Wait for {} - attempt {} raised exception {}", name, attempt + 1, e.toString());
+			} catch (Error e) {
+				setException(e);
+				return;
+			}
+
+			final long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				set(last);
+				return;
+			}
+			log.trace("Wait for {} - remaining time: {} seconds", name, TimeUnit.MILLISECONDS.toSeconds(remaining));
+			schedule(Math.min(policy.getDelay(attempt++), remaining));
+		}
+
+		/**
+		 * Schedules the next attempt, the scheduler hands the attempt over to the attempts executor.
+		 *
+		 * @param delay delay in milliseconds
+		 */
+		private void schedule(long delay) {
+			try {
+				next = SCHEDULER.schedule(dispatch, delay, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				setException(e);
+				return;
+			}
+			// Cancelled while scheduling
+			if (isCancelled()) {
+				next.cancel(false);
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			final boolean cancelled = super.cancel(mayInterruptIfRunning);
+			final ScheduledFuture<?> scheduled = next;
+			if (cancelled && scheduled != null) {
+				scheduled.cancel(mayInterruptIfRunning);
+			}
+			return cancelled;
+		}
+
+		@Override
+		public String toString() {
+			return "Wait for " + name;
+		}
+	}
+}
@@ -0,0 +1,299 @@
+package org.jboss.fuse.qa.fafram8.waiter;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watcher of the fabric registry znodes, so that the waits can be woken up the moment the watched znode changes instead of waiting for
+ * the next poll over SSH.
+ *
+ * <p>The ZooKeeper client reconnects by itself and sets the watches again after the connection is lost. When the session expires, a new
+ * session is created on the next wait. Lost connection or expired session only shorten the current wait to the plain sleep, the exception
+ * is thrown only for the errors that won't go away (such as the missing permissions).
+ */
+@Slf4j
+public final class ZooKeeperWatcher implements Closeable {
+	// Provision result znode of the container
+	public static final String PROVISION_RESULT_PATH = "/fabric/registry/containers/provision/%s/result";
+
+	// Pid znode of the running container
+	public static final String PID_PATH = "/fabric/registry/containers/status/%s/pid";
+
+	private static final int SESSION_TIMEOUT = 30000;
+	private static final long CONNECT_TIMEOUT = 5000L;
+
+	private final String connectString;
+	private final byte[] auth;
+
+	// Current session, replaced when it expires
+	private ZooKeeper zooKeeper;
+
+	// Number of the watch events of each path, guarded by itself
+	private final Map<String, Long> events = new HashMap<>();
+
+	private volatile boolean open = true;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param connectString comma separated list of host:port
+	 * @param password zookeeper password
+	 */
+	private ZooKeeperWatcher(String connectString, String password) {
+		this.connectString = connectString;
+		this.auth = ("fabric:" + password).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Connects to the ZooKeeper and authenticates with the fabric digest.
+	 *
+	 * @param connectString comma separated list of host:port
+	 * @param password zookeeper password
+	 * @return connected watcher
+	 * @throws IOException if no server is available
+	 */
+	public static ZooKeeperWatcher connect(String connectString, String password) throws IOException {
+		final ZooKeeperWatcher watcher = new ZooKeeperWatcher(connectString, password);
+		try {
+			watcher.getSession();
+		} catch (IOException ex) {
+			watcher.close();
+			throw ex;
+		}
+		return watcher;
+	}
+
+	/**
+	 * Checks if the znode exists.
+	 *
+	 * @param path znode path
+	 * @param watch true if the watch should be set on the znode (the watch is set also if the znode doesn't exist)
+	 * @return true if the znode exists
+	 * @throws IOException on connection error
+	 */
+	public boolean exists(String path, boolean watch) throws IOException {
+		try {
+			return getSession().exists(path, watch) != null;
+		} catch (KeeperException ex) {
+			throw new IOException("ZooKeeper request for " + path + " failed: " + ex.getMessage(), ex);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException(ex);
+		}
+	}
+
+	/**
+	 * Gets the data of the znode.
+	 *
+	 * @param path znode path
+	 * @param watch true if the watch should be set on the znode (the watch is set also if the znode doesn't exist)
+	 * @return znode data, null if the znode doesn't exist
+	 * @throws IOException on connection error
+	 */
+	public String getData(String path, boolean watch) throws IOException {
+		try {
+			final byte[] data = getSession().getData(path, watch, new Stat());
+			return data == null ? "" : new String(data, StandardCharsets.UTF_8);
+		} catch (KeeperException.NoNodeException ex) {
+			if (watch) {
+				// Watch the creation of the znode
+				exists(path, true);
+			}
+			return null;
+		} catch (KeeperException ex) {
+			throw new IOException("ZooKeeper request for " + path + " failed: " + ex.getMessage(), ex);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException(ex);
+		}
+	}
+
+	/**
+	 * Waits for the change (creation, deletion or data change) of the znode.
+	 *
+	 * @param path znode path
+	 * @param timeout timeout in milliseconds
+	 * @return true if the znode changed, false if the time is up
+	 * @throws IOException if the znode can't be watched
+	 */
+	public boolean awaitChange(String path, long timeout) throws IOException {
+		return awaitChange(Collections.singletonList(path), timeout);
+	}
+
+	/**
+	 * Waits for the change (creation, deletion or data change) of any of the znodes. If the watches can't be set because the connection
+	 * is lost or the session expired, it just waits for the given time.
+	 *
+	 * @param paths znode paths
+	 * @param timeout timeout in milliseconds
+	 * @return true if any of the znodes changed, false if the time is up
+	 * @throws IOException if the znodes can't be watched
+	 */
+	public boolean awaitChange(Collection<String> paths, long timeout) throws IOException {
+		final long end = System.currentTimeMillis() + timeout;
+		final Map<String, Long> before = new HashMap<>();
+		synchronized (events) {
+			for (String path : paths) {
+				before.put(path, eventCount(path));
+			}
+		}
+		try {
+			final ZooKeeper session = getSession();
+			for (String path : paths) {
+				session.exists(path, true);
+			}
+		} catch (IOException ex) {
+			if (!open) {
+				throw ex;
+			}
+			log.debug("ZooKeeper session not available, waiting without the watch: " + ex.getMessage());
+		} catch (KeeperException.ConnectionLossException | KeeperException.SessionExpiredException ex) {
+			log.debug("ZooKeeper watch not set, waiting without it: " + ex.getMessage());
+		} catch (KeeperException ex) {
+			throw new IOException("ZooKeeper watch failed: " + ex.getMessage(), ex);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+
+		synchronized (events) {
+			while (open) {
+				for (String path : paths) {
+					if (eventCount(path) != before.get(path)) {
+						return true;
+					}
+				}
+				final long remaining = end - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				try {
+					events.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+		throw new IOException("ZooKeeper watcher closed");
+	}
+
+	/**
+	 * Checks if the watcher is open. The watcher stays open when the connection is lost, it is closed only by the close method.
+	 *
+	 * @return true if the watcher is open
+	 */
+	public boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public void close() {
+		open = false;
+		synchronized (this) {
+			closeSession();
+		}
+		synchronized (events) {
+			events.notifyAll();
+		}
+	}
+
+	/**
+	 * Gets the current session or creates a new one if there is none or the previous one expired.
+	 *
+	 * @return session
+	 * @throws IOException if the watcher is closed or the session can't be created in time
+	 */
+	private synchronized ZooKeeper getSession() throws IOException {
+		if (!open) {
+			throw new IOException("ZooKeeper watcher closed");
+		}
+		if (zooKeeper != null && zooKeeper.getState().isAlive()) {
+			return zooKeeper;
+		}
+		if (zooKeeper != null) {
+			log.debug("ZooKeeper session 0x" + Long.toHexString(zooKeeper.getSessionId()) + " expired, creating a new one");
+			closeSession();
+		}
+
+		final CountDownLatch connected = new CountDownLatch(1);
+		final ZooKeeper session = new ZooKeeper(connectString, SESSION_TIMEOUT, new Watcher() {
+			@Override
+			public void process(WatchedEvent event) {
+				if (event.getType() != Event.EventType.None) {
+					notifyChange(event.getPath());
+				} else if (event.getState() == Event.KeeperState.SyncConnected) {
+					connected.countDown();
+				}
+			}
+		});
+		session.addAuthInfo("digest", auth);
+		zooKeeper = session;
+		try {
+			if (!connected.await(CONNECT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				closeSession();
+				throw new IOException("Unable to connect to ZooKeeper " + connectString + " in " + CONNECT_TIMEOUT + " ms");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			closeSession();
+			throw new IOException(ex);
+		}
+		log.debug("Connected to ZooKeeper " + connectString + ", session 0x" + Long.toHexString(session.getSessionId()));
+		return session;
+	}
+
+	/**
+	 * Closes the current session. Must be called with the watcher lock held.
+	 */
+	private void closeSession() {
+		if (zooKeeper == null) {
+			return;
+		}
+		try {
+			zooKeeper.close();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		zooKeeper = null;
+	}
+
+	/**
+	 * Records the watch event of the path and wakes up the waiting threads.
+	 *
+	 * @param path znode path
+	 */
+	private void notifyChange(String path) {
+		log.trace("ZooKeeper znode changed: " + path);
+		synchronized (events) {
+			events.put(path, eventCount(path) + 1);
+			events.notifyAll();
+		}
+	}
+
+	/**
+	 * Gets the number of the watch events of the path. Must be called with the events lock held.
+	 *
+	 * @param path znode path
+	 * @return number of events
+	 */
+	private long eventCount(String path) {
+		final Long count = events.get(path);
+		return count == null ? 0 : count;
+	}
+}
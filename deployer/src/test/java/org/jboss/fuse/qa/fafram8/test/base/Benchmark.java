@@ -0,0 +1,8 @@
+package org.jboss.fuse.qa.fafram8.test.base;
+
+/**
+ * JUnit category of the benchmarks. They are excluded from the default test run and executed only in the "benchmark" profile
+ * (-Dbenchmark), the measured times are logged.
+ */
+public interface Benchmark {
+}
@@ -0,0 +1,232 @@
+package org.jboss.fuse.qa.fafram8.test.base;
+
+import org.jboss.fuse.qa.fafram8.exceptions.KarafSessionDownException;
+import org.jboss.fuse.qa.fafram8.exceptions.SSHClientException;
+import org.jboss.fuse.qa.fafram8.ssh.CommandResult;
+import org.jboss.fuse.qa.fafram8.ssh.LineConsumer;
+import org.jboss.fuse.qa.fafram8.ssh.SSHClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * SSH client for the unit tests that doesn't connect anywhere and returns predefined responses.
+ */
+public class StubSSHClient extends SSHClient {
+	// Responses for the commands, commands without the response return empty string
+	private final Map<String, String> responses = Collections.synchronizedMap(new HashMap<String, String>());
+
+	// Commands that fail - the script is stopped on them as in the Karaf shell
+	private final Set<String> failing = Collections.synchronizedSet(new HashSet<String>());
+
+	@Getter
+	private final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+
+	// Streamed commands stopped by the consumer
+	@Getter
+	private final List<String> stopped = Collections.synchronizedList(new ArrayList<String>());
+
+	// Commands wait until this many commands run at the same time, null if they don't wait
+	private volatile CountDownLatch together = null;
+
+	// Number of the following connect attempts that fail
+	@Setter
+	private volatile int connectFailures = 0;
+
+	@Getter
+	private volatile int connectAttempts = 0;
+
+	private volatile boolean connected = false;
+
+	/**
+	 * Sets the response for the command.
+	 *
+	 * @param command command
+	 * @param response response
+	 * @return this
+	 */
+	public StubSSHClient respond(String command, String response) {
+		responses.put(command, response);
+		return this;
+	}
+
+	/**
+	 * Changes the response for the command after the delay.
+	 *
+	 * @param command command
+	 * @param response new response
+	 * @param delay delay in milliseconds
+	 * @return this
+	 */
+	public StubSSHClient respondLater(final String command, final String response, final long delay) {
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				respond(command, response);
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+		return this;
+	}
+
+	/**
+	 * Makes the commands wait until the given number of commands runs at the same time. A command that waits for the others for
+	 * a minute fails.
+	 *
+	 * @param commands number of the commands
+	 * @return this
+	 */
+	public StubSSHClient runTogether(int commands) {
+		together = new CountDownLatch(commands);
+		return this;
+	}
+
+	/**
+	 * Marks the command as failing.
+	 *
+	 * @param command command
+	 * @return this
+	 */
+	public StubSSHClient fail(String command) {
+		failing.add(command);
+		return this;
+	}
+
+	@Override
+	public String executeCommand(String command, boolean suppressLog) throws KarafSessionDownException, SSHClientException {
+		return executeCommand(command, suppressLog, false);
+	}
+
+	@Override
+	public String executeCommand(String command, boolean suppressLog, boolean ignoreExceptions) throws KarafSessionDownException,
+			SSHClientException {
+		if (!connected) {
+			throw new KarafSessionDownException("session is down");
+		}
+		executed.add(command);
+		awaitTogether();
+		if (command.contains("\n")) {
+			return executeScript(command);
+		}
+		return respond(command);
+	}
+
+	@Override
+	public CommandResult executeCommandWithResult(String command, boolean suppressLog) throws KarafSessionDownException,
+			SSHClientException {
+		final long start = System.currentTimeMillis();
+		final String response = executeCommand(command, suppressLog);
+		if (failing.contains(command)) {
+			return new CommandResult("", response, 1, System.currentTimeMillis() - start);
+		}
+		return new CommandResult(response, "", 0, System.currentTimeMillis() - start);
+	}
+
+	@Override
+	public boolean executeCommandStreaming(String command, LineConsumer consumer, boolean suppressLog) throws KarafSessionDownException,
+			SSHClientException {
+		final String response = executeCommand(command, suppressLog);
+		if (response.isEmpty()) {
+			return true;
+		}
+		for (String line : response.split("\n")) {
+			if (!consumer.accept(line)) {
+				stopped.add(command);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Waits until the set number of commands runs at the same time.
+	 *
+	 * @throws SSHClientException if the other commands didn't come in time
+	 */
+	private void awaitTogether() throws SSHClientException {
+		final CountDownLatch latch = together;
+		if (latch == null) {
+			return;
+		}
+		latch.countDown();
+		try {
+			if (!latch.await(1, TimeUnit.MINUTES)) {
+				throw new SSHClientException("Commands were not executed concurrently, " + latch.getCount() + " of them missing");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SSHClientException(e);
+		}
+	}
+
+	/**
+	 * Executes the multi-line script, stops on the failing command.
+	 *
+	 * @param script script
+	 * @return output of the script
+	 */
+	private String executeScript(String script) {
+		final StringBuilder output = new StringBuilder();
+		for (String line : script.split("\n")) {
+			if (line.startsWith("echo ")) {
+				output.append(line.substring("echo ".length())).append("\n");
+			} else {
+				output.append(respond(line)).append("\n");
+				if (failing.contains(line)) {
+					break;
+				}
+			}
+		}
+		return output.toString();
+	}
+
+	/**
+	 * Gets the response for one command.
+	 *
+	 * @param command command
+	 * @return response
+	 */
+	private String respond(String command) {
+		if (failing.contains(command)) {
+			return "Error executing command: " + command;
+		}
+		final String response = responses.get(command);
+		return response == null ? "" : response;
+	}
+
+	@Override
+	public void connect(boolean suppressLog) throws SSHClientException {
+		connectAttempts++;
+		if (connectFailures > 0) {
+			connectFailures--;
+			throw new SSHClientException("connection refused");
+		}
+		connected = true;
+	}
+
+	@Override
+	public void disconnect() {
+		connected = false;
+	}
+
+	@Override
+	public Boolean isConnected() {
+		return connected;
+	}
+}
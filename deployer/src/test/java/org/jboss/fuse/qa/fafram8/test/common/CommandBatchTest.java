@@ -0,0 +1,78 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.executor.CommandBatch;
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Batched command execution test.
+ */
+public class CommandBatchTest {
+	private StubSSHClient client;
+	private Executor executor;
+
+	@Before
+	public void init() throws Exception {
+		client = new StubSSHClient();
+		client.respond("profile-create a", "").respond("profile-list", "a\nb").respond("version", "6.2.1");
+		client.connect(true);
+		executor = new Executor(client, "batch");
+	}
+
+	@Test
+	public void parseTest() {
+		final CommandBatch batch = new CommandBatch(Arrays.asList("first", "second", "third"));
+		final String output = "one\n" + batch.getMarker(0) + "\n\n" + batch.getMarker(1) + "\nthree" + batch.getMarker(2) + "\n";
+		assertEquals(Arrays.asList("one", "", "three"), batch.parse(output));
+	}
+
+	@Test
+	public void parseMissingMarkerTest() {
+		final CommandBatch batch = new CommandBatch(Arrays.asList("first", "second", "third"));
+		final String output = "one\n" + batch.getMarker(0) + "\nError executing command\n";
+		assertEquals(Arrays.asList("one"), batch.parse(output));
+		assertEquals("Error executing command", batch.getRemainder(output, 1));
+	}
+
+	@Test
+	public void markerOfTenDoesNotMatchOneTest() {
+		final String[] commands = new String[11];
+		Arrays.fill(commands, "c");
+		final CommandBatch batch = new CommandBatch(Arrays.asList(commands));
+		assertTrue(!batch.getMarker(10).contains(batch.getMarker(1)));
+	}
+
+	@Test
+	public void oneChannelTest() {
+		final List<String> responses = executor.executeCommandsBatched("profile-create a", "profile-list", "version");
+		assertEquals(Arrays.asList("", "a\nb", "6.2.1"), responses);
+		// Whole batch executed as one command
+		assertEquals(1, client.getExecuted().size());
+		assertTrue(executor.getHistory().getLog().contains("Command: profile-list"));
+	}
+
+	@Test
+	public void failedCommandTest() {
+		client.fail("profile-list");
+		final List<String> responses = executor.executeCommandsBatched("profile-create a", "profile-list", "version");
+		assertEquals(Arrays.asList("", "Error executing command: profile-list", "6.2.1"), responses);
+		// Batch + the command after the failed one
+		assertEquals(Arrays.asList("version"), client.getExecuted().subList(1, client.getExecuted().size()));
+	}
+
+	@Test
+	public void failedBatchTest() {
+		client.disconnect();
+		final List<String> responses = executor.executeCommandsBatched("profile-create a", "version");
+		assertEquals(Arrays.asList(null, null), responses);
+	}
+}
@@ -0,0 +1,118 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import org.jboss.fuse.qa.fafram8.property.FaframConstant;
+import org.jboss.fuse.qa.fafram8.util.CommandHistory;
+import org.jboss.fuse.qa.fafram8.util.CommandJournal;
+import org.jboss.fuse.qa.fafram8.util.ExecutorCommandHistory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Command journal test.
+ */
+public class CommandJournalTest {
+	private static final String TARGET = Paths.get("target", "journal-test").toAbsolutePath().toString();
+	private static final int THREADS = 8;
+	private static final int COMMANDS = 2000;
+
+	@Before
+	public void init() throws Exception {
+		CommandJournal.getInstance().close();
+		FileUtils.deleteDirectory(new File(TARGET));
+		System.setProperty(FaframConstant.ARCHIVE_TARGET, TARGET);
+	}
+
+	@After
+	public void clean() {
+		CommandJournal.getInstance().close();
+		System.clearProperty(FaframConstant.ARCHIVE_TARGET);
+		System.clearProperty(FaframConstant.JOURNAL_GZIP);
+		System.clearProperty(FaframConstant.JOURNAL_PER_EXECUTOR);
+	}
+
+	@Test
+	public void streamingTest() throws Exception {
+		final ExecutorCommandHistory history = new ExecutorCommandHistory("root");
+		history.log("echo hello", "hello");
+		history.log("echo hi", "hi");
+		// Only the flush is needed, the records are already queued
+		CommandHistory.writeLogs();
+
+		final String content = FileUtils.readFileToString(CommandJournal.getInstance().getFile());
+		assertTrue(content.contains("Executor: root"));
+		assertTrue(content.indexOf("Command: echo hello") < content.indexOf("Command: echo hi"));
+		assertTrue(content.contains("****"));
+	}
+
+	@Test
+	public void concurrentTest() throws Exception {
+		final ExecutorCommandHistory history = new ExecutorCommandHistory("root");
+		final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		for (int t = 0; t < THREADS; t++) {
+			pool.submit(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < COMMANDS; i++) {
+						history.log("echo concurrent", "ok");
+					}
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+		assertTrue(CommandJournal.getInstance().flush());
+
+		// No record is lost or interleaved with the others
+		final String content = FileUtils.readFileToString(CommandJournal.getInstance().getFile());
+		assertEquals(THREADS * COMMANDS, StringUtils.countMatches(content, "Command: echo concurrent"));
+	}
+
+	@Test
+	public void gzipPerExecutorTest() throws Exception {
+		System.setProperty(FaframConstant.JOURNAL_GZIP, "true");
+		System.setProperty(FaframConstant.JOURNAL_PER_EXECUTOR, "true");
+		new ExecutorCommandHistory("root").log("echo root", "root");
+		new ExecutorCommandHistory("child").log("echo child", "child");
+		CommandHistory.writeLogs();
+		// The gzip trailer is written on close
+		CommandJournal.getInstance().close();
+
+		final String prefix = StringUtils.substringBefore(CommandJournal.getInstance().getFile().getName(), ".txt");
+		final String root = gunzip(new File(TARGET, prefix + "-root.txt.gz"));
+		final String child = gunzip(new File(TARGET, prefix + "-child.txt.gz"));
+		assertTrue(root.contains("Command: echo root") && !root.contains("echo child"));
+		assertTrue(child.contains("Command: echo child") && child.contains("****"));
+	}
+
+	/**
+	 * Reads the gzipped file.
+	 *
+	 * @param file file
+	 * @return content
+	 * @throws Exception on error
+	 */
+	private static String gunzip(File file) throws Exception {
+		try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+			return IOUtils.toString(in, StandardCharsets.UTF_8);
+		}
+	}
+}
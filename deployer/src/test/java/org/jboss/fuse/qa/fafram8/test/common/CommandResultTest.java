@@ -0,0 +1,53 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.ssh.CommandResult;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Executor command result test.
+ */
+public class CommandResultTest {
+	private StubSSHClient client;
+	private Executor executor;
+
+	@Before
+	public void init() throws Exception {
+		client = new StubSSHClient();
+		client.respond("cat a.properties", "a=b\n").fail("cat missing.properties");
+		client.connect(true);
+		executor = new Executor(client, "result");
+	}
+
+	@Test
+	public void successTest() {
+		final CommandResult result = executor.executeCommandWithResult("cat a.properties");
+		assertTrue(result.isSuccess());
+		assertEquals("a=b\n", result.getStdout());
+		assertEquals("", result.getStderr());
+		assertTrue(result.getDurationMillis() >= 0);
+		assertTrue(executor.getHistory().getLog().contains("Command: cat a.properties"));
+	}
+
+	@Test
+	public void failureTest() {
+		final CommandResult result = executor.executeCommandWithResult("cat missing.properties", true);
+		assertFalse(result.isSuccess());
+		assertEquals(1, result.getExitCode());
+		assertTrue(result.getStderr().contains("missing.properties"));
+	}
+
+	@Test
+	public void disconnectedTest() {
+		client.disconnect();
+		assertNull(executor.executeCommandWithResult("cat a.properties", true));
+	}
+}
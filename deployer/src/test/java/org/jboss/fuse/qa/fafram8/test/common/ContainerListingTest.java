@@ -0,0 +1,125 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.cluster.listing.ContainerListing;
+import org.jboss.fuse.qa.fafram8.cluster.listing.ListedContainer;
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.property.FaframConstant;
+import org.jboss.fuse.qa.fafram8.test.base.Benchmark;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Container list parser test.
+ */
+@Slf4j
+public class ContainerListingTest {
+	private static final String HEADER =
+			"[id]          [version]  [type]  [connected]  [profiles]              [provision status]\n";
+	private static final String LIST = HEADER
+			+ "root*         1.0        karaf   yes          fabric                  success\n"
+			+ "                                              fabric-ensemble-0000-1\n"
+			+ "  child1      1.0        karaf   yes          default                 success\n"
+			+ "    nested    1.0        karaf   no           default                 downloading\n"
+			+ "  child2      1.1        karaf   yes          mq-default              error java.lang.Exception: failed\n"
+			+ "ssh1          1.0        karaf   yes          default                 success\n"
+			+ "  sshchild    1.0        karaf   yes          default                 success\n";
+	private static final int ROWS = 1000;
+	private static final int ITERATIONS = 100;
+
+	@After
+	public void clean() {
+		System.clearProperty(FaframConstant.FABRIC);
+	}
+
+	@Test
+	public void parseTest() {
+		final ContainerListing listing = ContainerListing.parse(LIST);
+		assertEquals(6, listing.size());
+
+		final ListedContainer root = listing.get("root");
+		assertTrue(root.isRoot());
+		assertTrue(root.isCurrent());
+		assertNull(root.getParent());
+		assertEquals(Arrays.asList("fabric", "fabric-ensemble-0000-1"), root.getProfiles());
+
+		final ListedContainer nested = listing.get("nested");
+		assertFalse(nested.isRoot());
+		assertFalse(nested.isConnected());
+		assertEquals("child1", nested.getParent());
+		assertEquals("downloading", nested.getProvisionStatus());
+
+		assertEquals("root", listing.get("child2").getParent());
+		assertEquals("1.1", listing.get("child2").getVersion());
+		assertEquals("error java.lang.Exception: failed", listing.getProvisionStatus("child2"));
+		assertTrue(listing.get("ssh1").isRoot());
+		assertEquals("ssh1", listing.get("sshchild").getParent());
+		assertEquals(Arrays.asList("child1", "nested", "child2", "sshchild"), listing.getChildNames());
+		assertEquals("", listing.getProvisionStatus("missing"));
+	}
+
+	@Test
+	public void parseWithoutTypeColumnTest() {
+		final ContainerListing listing = ContainerListing.parse("Some warning\n"
+				+ "[id]      [version]  [connected]  [profiles]  [provision status]\n"
+				+ "root*     1.0        yes          fabric      success\n"
+				+ "  child   1.0        yes          default\n");
+		assertEquals("", listing.get("child").getType());
+		assertTrue(listing.get("child").isConnected());
+		assertEquals("", listing.getProvisionStatus("child"));
+		assertEquals(Collections.singletonList("default"), listing.get("child").getProfiles());
+	}
+
+	@Test
+	public void parseWithoutHeaderTest() {
+		assertEquals(0, ContainerListing.parse("Command not found: container-list").size());
+		assertEquals(0, ContainerListing.parse(null).size());
+	}
+
+	@Test
+	public void listChildContainersTest() throws Exception {
+		System.setProperty(FaframConstant.FABRIC, "");
+		final StubSSHClient client = new StubSSHClient();
+		client.connect(true);
+		client.respond("container-list", LIST
+				+ "  process1    1.0        process yes          default                 success\n");
+		// Only the karaf containers
+		assertEquals(Arrays.asList("child1", "nested", "child2", "sshchild"), new Executor(client, "root").listChildContainers());
+		// One round trip instead of one container-info per container
+		assertEquals(Collections.singletonList("container-list"), client.getExecuted());
+	}
+
+	@Test
+	@Category(Benchmark.class)
+	public void benchmarkTest() {
+		final StringBuilder builder = new StringBuilder(HEADER).append("root*         1.0        karaf   yes          fabric"
+				+ "                  success\n");
+		for (int i = 0; i < ROWS; i++) {
+			builder.append(String.format("  child%-4d   1.0        karaf   yes          default                 success%n", i))
+					.append("                                              mq-default\n");
+		}
+		final String output = builder.toString();
+
+		// Warm up
+		ContainerListing.parse(output);
+		final long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			assertEquals(ROWS + 1, ContainerListing.parse(output).size());
+		}
+		final long micros = (System.nanoTime() - start) / ITERATIONS / 1000L;
+		log.info("Parsing of {} rows took {} us", ROWS, micros);
+		assertEquals(ROWS, ContainerListing.parse(output).getChildNames().size());
+	}
+}
@@ -0,0 +1,73 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.ssh.CommandResult;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous executor commands test.
+ */
+public class ExecutorAsyncTest {
+	private static final int COMMANDS = 8;
+
+	private StubSSHClient client;
+	private Executor executor;
+
+	@Before
+	public void init() throws Exception {
+		client = new StubSSHClient();
+		client.respond("a", "A").respond("b", "B").respond("c", "C");
+		client.connect(true);
+		executor = new Executor(client, "async");
+	}
+
+	@Test
+	public void responsesInOrderTest() throws Exception {
+		final List<String> responses = executor.executeCommandsAsync("c", "a", "b").get(1, TimeUnit.MINUTES);
+		assertEquals(Arrays.asList("C", "A", "B"), responses);
+		assertTrue(executor.getHistory().getLog().contains("Command: a"));
+	}
+
+	@Test
+	public void commandsRunConcurrentlyTest() throws Exception {
+		// Each command waits until all of them run, the commands executed one by one would fail
+		client.runTogether(COMMANDS);
+		final String[] commands = new String[COMMANDS];
+		Arrays.fill(commands, "a");
+
+		final List<String> responses = executor.executeCommandsAsync(commands).get(2, TimeUnit.MINUTES);
+		assertEquals(Collections.nCopies(COMMANDS, "A"), responses);
+		assertEquals(COMMANDS, client.getExecuted().size());
+	}
+
+	@Test
+	public void failedCommandTest() throws Exception {
+		client.disconnect();
+		assertNull(executor.executeCommandAsync("a").get(1, TimeUnit.MINUTES));
+		assertNull(executor.executeCommandWithResultAsync("a").get(1, TimeUnit.MINUTES));
+	}
+
+	@Test
+	public void resultsInOrderTest() throws Exception {
+		client.fail("b");
+		final List<CommandResult> results = executor.executeCommandsWithResultAsync("c", "b", "a").get(1, TimeUnit.MINUTES);
+		assertEquals("C", results.get(0).getStdout());
+		assertTrue(results.get(0).isSuccess());
+		assertFalse(results.get(1).isSuccess());
+		assertEquals("A", results.get(2).getStdout());
+		assertTrue(executor.getHistory().getLog().contains("Command: b"));
+	}
+}
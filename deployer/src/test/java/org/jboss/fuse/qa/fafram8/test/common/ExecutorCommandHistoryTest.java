@@ -0,0 +1,144 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.lang3.StringUtils;
+
+import org.jboss.fuse.qa.fafram8.property.FaframConstant;
+import org.jboss.fuse.qa.fafram8.util.CommandRecord;
+import org.jboss.fuse.qa.fafram8.util.ExecutorCommandHistory;
+import org.jboss.fuse.qa.fafram8.util.ResponseSpill;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor command history test.
+ */
+public class ExecutorCommandHistoryTest {
+	private static final int SIZE = 100;
+	private static final int THRESHOLD = 50;
+	private static final int THREADS = 8;
+	private static final int COMMANDS = 1000;
+
+	@Before
+	public void init() {
+		System.setProperty(FaframConstant.HISTORY_SIZE, String.valueOf(SIZE));
+		System.setProperty(FaframConstant.HISTORY_SPILL_THRESHOLD, String.valueOf(THRESHOLD));
+	}
+
+	@After
+	public void clean() {
+		System.clearProperty(FaframConstant.HISTORY_SIZE);
+		System.clearProperty(FaframConstant.HISTORY_SPILL_THRESHOLD);
+		ResponseSpill.close();
+	}
+
+	@Test
+	public void boundedTest() {
+		final ExecutorCommandHistory history = new ExecutorCommandHistory("root");
+		for (int i = 0; i < SIZE * 3; i++) {
+			history.log("echo " + i, String.valueOf(i), i);
+		}
+		final List<CommandRecord> records = history.getRecords();
+		assertEquals(SIZE, records.size());
+		assertEquals(SIZE * 2, history.getDropped());
+		assertEquals("echo " + SIZE * 2, records.get(0).getCommand());
+		assertEquals("echo " + (SIZE * 3 - 1), records.get(SIZE - 1).getCommand());
+		assertEquals(SIZE * 3 - 1, records.get(SIZE - 1).getDurationMillis());
+
+		final String log = history.getLog();
+		assertTrue(log.startsWith("Executor: root"));
+		assertTrue(log.contains("200 older commands dropped"));
+		assertFalse(log.contains("Command: echo 199\n"));
+		assertTrue(log.contains("Command: echo 299\nResponse: 299\n"));
+	}
+
+	@Test
+	public void spillTest() {
+		final ExecutorCommandHistory history = new ExecutorCommandHistory("root");
+		final String large = StringUtils.repeat("log line\n", THRESHOLD);
+		history.log("log:display", large);
+		history.log("echo small", "small");
+		history.log("log:display", large + "end");
+		history.log("failed", null);
+
+		final List<CommandRecord> records = history.getRecords();
+		assertTrue(records.get(0).isSpilled());
+		assertNull(records.get(0).getResponse());
+		assertEquals(large.length(), records.get(0).getResponseSize());
+		assertEquals(large.hashCode(), records.get(0).getResponseHash());
+		assertEquals(large, records.get(0).getFullResponse());
+		assertEquals(large + "end", records.get(2).getFullResponse());
+		assertFalse(records.get(1).isSpilled());
+		assertEquals("small", records.get(1).getFullResponse());
+		assertNull(records.get(3).getFullResponse());
+		assertTrue(ResponseSpill.getFile().length() > large.length() * 2);
+		assertTrue(history.getLog().contains(ResponseSpill.getFile().getName()));
+	}
+
+	@Test
+	public void spillFailureTest() throws Exception {
+		// The archive target can't be created, the file is in the way
+		final File blocker = File.createTempFile("fafram-archive", ".tmp");
+		System.setProperty(FaframConstant.ARCHIVE_TARGET, new File(blocker, "archived").getPath());
+		try {
+			final ExecutorCommandHistory history = new ExecutorCommandHistory("root");
+			final String large = StringUtils.repeat("log line\n", THRESHOLD);
+			history.log("log:display", large);
+
+			final CommandRecord record = history.getRecords().get(0);
+			assertFalse(record.isSpilled());
+			assertEquals(large.length(), record.getResponseSize());
+			assertTrue(record.getFullResponse().startsWith(large.substring(0, THRESHOLD)));
+			assertTrue(record.getFullResponse().length() < large.length());
+		} finally {
+			System.clearProperty(FaframConstant.ARCHIVE_TARGET);
+			blocker.delete();
+		}
+	}
+
+	@Test
+	public void concurrentTest() throws Exception {
+		final ExecutorCommandHistory history = new ExecutorCommandHistory("root");
+		final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		for (int t = 0; t < THREADS; t++) {
+			final int thread = t;
+			pool.submit(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < COMMANDS; i++) {
+						history.log("echo " + thread + "-" + i, "ok");
+						// Formatting of the dates in parallel with logging
+						if (i % SIZE == 0) {
+							history.getLog();
+						}
+					}
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+		final List<CommandRecord> records = history.getRecords();
+		assertEquals(SIZE, records.size());
+		assertEquals(THREADS * COMMANDS - SIZE, history.getDropped());
+		final Set<Long> sequences = new HashSet<>();
+		for (CommandRecord record : records) {
+			sequences.add(record.getSequence());
+		}
+		assertEquals(SIZE, sequences.size());
+	}
+}
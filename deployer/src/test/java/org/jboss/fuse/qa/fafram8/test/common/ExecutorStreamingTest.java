@@ -0,0 +1,87 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.ssh.LineConsumer;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streamed executor commands test.
+ */
+public class ExecutorStreamingTest {
+	private static final String LOG = "log:display";
+
+	private StubSSHClient client;
+	private Executor executor;
+
+	@Before
+	public void init() throws Exception {
+		client = new StubSSHClient();
+		client.respond(LOG, "INFO started\nWARN slow\nERROR failed\nINFO stopped");
+		client.connect(true);
+		executor = new Executor(client, "streaming");
+	}
+
+	@Test
+	public void allLinesTest() {
+		final List<String> lines = new ArrayList<>();
+		assertTrue(executor.executeCommandStreaming(LOG, collect(lines, null)));
+		assertEquals(Arrays.asList("INFO started", "WARN slow", "ERROR failed", "INFO stopped"), lines);
+		assertTrue(client.getStopped().isEmpty());
+		assertTrue(executor.getHistory().getLog().contains("<streamed>"));
+	}
+
+	@Test
+	public void earlyStopTest() {
+		final List<String> lines = new ArrayList<>();
+		assertFalse(executor.executeCommandStreaming(LOG, collect(lines, "ERROR")));
+		// Nothing after the line that stopped the command
+		assertEquals(Arrays.asList("INFO started", "WARN slow", "ERROR failed"), lines);
+		assertEquals(Collections.singletonList(LOG), client.getStopped());
+		assertTrue(executor.getHistory().getLog().contains("<streamed, stopped by consumer>"));
+	}
+
+	@Test
+	public void emptyOutputTest() {
+		final List<String> lines = new ArrayList<>();
+		assertTrue(executor.executeCommandStreaming("log:clear", collect(lines, null)));
+		assertTrue(lines.isEmpty());
+	}
+
+	@Test
+	public void failedCommandTest() {
+		client.disconnect();
+		final List<String> lines = new ArrayList<>();
+		assertNull(executor.executeCommandStreaming(LOG, true, collect(lines, null)));
+		assertTrue(lines.isEmpty());
+	}
+
+	/**
+	 * Creates the consumer that collects the lines.
+	 *
+	 * @param lines list for the lines
+	 * @param stopPrefix prefix of the line that stops the command, null to read all lines
+	 * @return line consumer
+	 */
+	private static LineConsumer collect(final List<String> lines, final String stopPrefix) {
+		return new LineConsumer() {
+			@Override
+			public boolean accept(String line) {
+				lines.add(line);
+				return stopPrefix == null || !line.startsWith(stopPrefix);
+			}
+		};
+	}
+}
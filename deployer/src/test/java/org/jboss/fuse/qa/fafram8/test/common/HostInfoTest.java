@@ -0,0 +1,64 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.cluster.node.HostInfo;
+import org.jboss.fuse.qa.fafram8.cluster.node.Node;
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+
+import org.junit.Test;
+
+/**
+ * Host characterization test.
+ */
+public class HostInfoTest {
+	private static final int CORES = 8;
+	private static final long MEMORY = 16000L;
+	private static final long DISK = 2048L;
+
+	@Test
+	public void linuxTest() {
+		final HostInfo info = HostInfo.parse("os=Linux\ncores=8\nmemory=16384000\ndisk=2097152\n"
+				+ "java=openjdk version \"1.8.0_181\"\n");
+		assertEquals("Linux", info.getOs());
+		assertFalse(info.isWindows());
+		assertEquals(CORES, info.getCores());
+		assertEquals(MEMORY, info.getMemoryMb());
+		assertEquals(DISK, info.getFreeDiskMb());
+		assertEquals("openjdk version \"1.8.0_181\"", info.getJava());
+	}
+
+	@Test
+	public void windowsWithMissingValuesTest() {
+		final HostInfo info = HostInfo.parse("os=CYGWIN_NT-6.1\r\ncores=\r\nmemory=unknown\r\njava=\r\n");
+		assertTrue(info.isWindows());
+		assertEquals(-1, info.getCores());
+		assertEquals(-1L, info.getMemoryMb());
+		assertEquals(-1L, info.getFreeDiskMb());
+		assertEquals("", info.getJava());
+	}
+
+	@Test
+	public void probeTest() throws Exception {
+		final StubSSHClient client = new StubSSHClient().respond(HostInfo.PROBE_COMMAND, "os=Linux\ncores=8");
+		client.connect(true);
+		final HostInfo info = HostInfo.probe(new Executor(client, "node"));
+		assertEquals(CORES, info.getCores());
+	}
+
+	@Test
+	public void nodeCacheTest() {
+		final Node node = Node.builder().host("node1").build();
+		final HostInfo info = HostInfo.parse("os=Linux");
+		node.setHostInfo(info);
+		// The copied node keeps the info of the same host
+		assertSame(info, Node.builder(node).build().getHostInfo());
+		node.setHost("node2");
+		assertNull(node.getHostInfo());
+	}
+}
@@ -0,0 +1,102 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+import org.jboss.fuse.qa.fafram8.timer.KeepAliveHub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Keep alive hub test.
+ */
+public class KeepAliveHubTest {
+	private static final int EXECUTORS = 100;
+	private static final int THREADS = 8;
+
+	private final List<Executor> executors = new ArrayList<>();
+
+	@Before
+	public void init() throws Exception {
+		KeepAliveHub.getInstance().clear();
+		for (int i = 0; i < EXECUTORS; i++) {
+			final StubSSHClient client = new StubSSHClient();
+			client.connect(true);
+			executors.add(new Executor(client, "executor-" + i));
+		}
+	}
+
+	@After
+	public void clean() {
+		KeepAliveHub.getInstance().clear();
+	}
+
+	@Test
+	public void oneThreadTest() {
+		for (Executor executor : executors) {
+			executor.startKeepAliveTimer();
+		}
+		assertEquals(EXECUTORS, KeepAliveHub.getInstance().size());
+		int hubThreads = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("keep-alive-hub")) {
+				hubThreads++;
+			}
+		}
+		assertEquals(1, hubThreads);
+	}
+
+	@Test
+	public void livenessTest() {
+		for (Executor executor : executors) {
+			executor.startKeepAliveTimer();
+		}
+		assertEquals(0, KeepAliveHub.getInstance().check());
+		executors.get(0).getClient().disconnect();
+		assertEquals(1, KeepAliveHub.getInstance().check());
+		assertFalse(KeepAliveHub.getInstance().isAlive(executors.get(0)));
+		assertTrue(KeepAliveHub.getInstance().isAlive(executors.get(1)));
+
+		executors.get(1).stopKeepAliveTimer();
+		assertFalse(KeepAliveHub.getInstance().isAlive(executors.get(1)));
+		assertEquals(EXECUTORS - 1, KeepAliveHub.getInstance().size());
+	}
+
+	@Test
+	public void concurrentRegistrationTest() throws Exception {
+		final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			final List<Future<Integer>> futures = new ArrayList<>();
+			for (final Executor executor : executors) {
+				futures.add(pool.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						executor.startKeepAliveTimer();
+						final int lost = KeepAliveHub.getInstance().check();
+						executor.stopKeepAliveTimer();
+						executor.startKeepAliveTimer();
+						return lost;
+					}
+				}));
+			}
+			for (Future<Integer> future : futures) {
+				assertEquals(0, (int) future.get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(EXECUTORS, KeepAliveHub.getInstance().size());
+	}
+}
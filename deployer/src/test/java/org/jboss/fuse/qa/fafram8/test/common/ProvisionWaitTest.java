@@ -0,0 +1,171 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.cluster.container.ChildContainer;
+import org.jboss.fuse.qa.fafram8.cluster.container.Container;
+import org.jboss.fuse.qa.fafram8.cluster.container.RootContainer;
+import org.jboss.fuse.qa.fafram8.exception.ProvisionException;
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.property.FaframConstant;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Wait for provisioning test - the status is checked immediately, the changed status is accepted right away. The bulk wait checks
+ * all containers with one container-list.
+ */
+@Slf4j
+public class ProvisionWaitTest {
+	private static final String CONTAINER = "child";
+	private static final String COMMAND = "container-info " + CONTAINER;
+	private static final long SETTLE_TIME = 500L;
+	private static final long CHANGE_DELAY = 300L;
+	private static final long POLL_DELAY = 50L;
+	private static final int TIMEOUT = 10;
+	private static final String HEADER = "[id]      [version]  [type]  [connected]  [profiles]              [provision status]\n";
+
+	private StubSSHClient client;
+	private Executor executor;
+
+	@Before
+	public void init() throws Exception {
+		System.setProperty(FaframConstant.PROVISION_SETTLE_TIME, String.valueOf(SETTLE_TIME));
+		System.setProperty(FaframConstant.POLL_INITIAL_DELAY, String.valueOf(POLL_DELAY));
+		client = new StubSSHClient();
+		client.connect(true);
+		executor = new Executor(client, "provision");
+	}
+
+	@After
+	public void clean() {
+		System.clearProperty(FaframConstant.PROVISION_SETTLE_TIME);
+		System.clearProperty(FaframConstant.POLL_INITIAL_DELAY);
+	}
+
+	@Test
+	public void transitionTest() {
+		// The settle time longer than the timeout, the wait succeeds only if the changed status is accepted right away
+		System.setProperty(FaframConstant.PROVISION_SETTLE_TIME, String.valueOf(TimeUnit.SECONDS.toMillis(TIMEOUT * 2)));
+		status("downloading");
+		changeLater("success");
+		final long start = System.currentTimeMillis();
+		executor.waitForProvisioning(CONTAINER, null, "success", TIMEOUT);
+		final long time = System.currentTimeMillis() - start;
+		log.info("Provisioned in {} ms", time);
+		assertTrue(time >= CHANGE_DELAY);
+	}
+
+	@Test
+	public void unchangedStatusTest() {
+		status("success");
+		final long start = System.currentTimeMillis();
+		executor.waitForProvisioning(CONTAINER, null, "success", TIMEOUT);
+		// The old status is trusted only after the settle time
+		assertTrue(System.currentTimeMillis() - start >= SETTLE_TIME);
+	}
+
+	@Test
+	public void retriggeredProvisioningTest() {
+		// The old "success" status is replaced by the new provisioning that fails
+		status("success");
+		changeLater("error");
+		try {
+			executor.waitForProvisioning(CONTAINER, null, "success", TIMEOUT);
+		} catch (ProvisionException expected) {
+			assertTrue(expected.getMessage().contains("error"));
+			return;
+		}
+		throw new AssertionError("Provisioning should fail");
+	}
+
+	@Test(expected = ProvisionException.class)
+	public void timeoutTest() {
+		status("downloading");
+		executor.waitForProvisioning(CONTAINER, null, "success", 1);
+	}
+
+	@Test
+	public void bulkTest() {
+		final List<Container> containers = children("c1", "c2", "c3");
+		client.respond("container-list", HEADER
+				+ "root*     1.0        karaf   yes          fabric                  success\n"
+				+ "                                            fabric-ensemble-0000-1\n"
+				+ "  c1      1.0        karaf   yes          default                 success\n"
+				+ "  c2      1.0        karaf   yes          default                 downloading\n"
+				+ "  c3      1.0        karaf   yes          default                 analyzing\n");
+		client.respondLater("container-list", HEADER
+				+ "root*     1.0        karaf   yes          fabric                  success\n"
+				+ "  c1      1.0        karaf   yes          default                 success\n"
+				+ "  c2      1.0        karaf   yes          default                 success\n"
+				+ "                                            mq-default\n"
+				+ "  c3      1.0        karaf   yes          default                 success\n", CHANGE_DELAY);
+
+		final Map<String, Long> times = executor.waitForProvisioning(containers);
+		final int polls = client.getExecuted().size();
+		log.info("Provisioning times: {}, container-list executed {} times", times, polls);
+		assertEquals(Arrays.asList("c2", "c3", "c1"), Arrays.asList(times.keySet().toArray()));
+		assertTrue(times.get("c1") >= SETTLE_TIME);
+		for (String command : client.getExecuted()) {
+			assertEquals("container-list", command);
+		}
+		// At most one container-list for all containers in each poll
+		assertTrue("container-list executed " + polls + " times", polls <= times.get("c1") / POLL_DELAY + 1);
+	}
+
+	@Test(expected = ProvisionException.class)
+	public void bulkFailureTest() {
+		final List<Container> containers = children("c1", "c2");
+		client.respond("container-list", HEADER
+				+ "  c1      1.0        karaf   yes          default                 downloading\n"
+				+ "  c2      1.0        karaf   yes          default                 downloading\n");
+		client.respondLater("container-list", HEADER
+				+ "  c1      1.0        karaf   yes          default                 downloading\n"
+				+ "  c2      1.0        karaf   yes          default                 error\n", CHANGE_DELAY);
+		executor.waitForProvisioning(containers);
+	}
+
+	/**
+	 * Creates the child containers.
+	 *
+	 * @param names container names
+	 * @return list of containers
+	 */
+	private List<Container> children(String... names) {
+		final Container root = RootContainer.builder().defaultRoot().build();
+		final Container[] containers = new Container[names.length];
+		for (int i = 0; i < names.length; i++) {
+			containers[i] = ChildContainer.builder().name(names[i]).parent(root).build();
+		}
+		return Arrays.asList(containers);
+	}
+
+	/**
+	 * Sets the provision status of the container.
+	 *
+	 * @param status provision status
+	 */
+	private void status(String status) {
+		client.respond(COMMAND, "Name: " + CONTAINER + "\nProvision Status: " + status);
+	}
+
+	/**
+	 * Changes the provision status after a while.
+	 *
+	 * @param status new provision status
+	 */
+	private void changeLater(String status) {
+		client.respondLater(COMMAND, "Name: " + CONTAINER + "\nProvision Status: " + status, CHANGE_DELAY);
+	}
+}
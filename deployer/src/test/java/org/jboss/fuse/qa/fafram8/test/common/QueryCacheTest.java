@@ -0,0 +1,137 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.cluster.container.ChildContainer;
+import org.jboss.fuse.qa.fafram8.cluster.container.Container;
+import org.jboss.fuse.qa.fafram8.cluster.container.RootContainer;
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.executor.QueryCache;
+import org.jboss.fuse.qa.fafram8.manager.ContainerManager;
+import org.jboss.fuse.qa.fafram8.property.FaframConstant;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Query cache test.
+ */
+@Slf4j
+public class QueryCacheTest {
+	private static final long TTL = 200L;
+
+	private StubSSHClient client;
+	private Executor executor;
+
+	@Before
+	public void init() throws Exception {
+		System.setProperty(FaframConstant.QUERY_CACHE_TTL, String.valueOf(TTL));
+		QueryCache.clearStatistics();
+		client = new StubSSHClient();
+		// No port to probe when the executor connects again
+		client.host(null);
+		client.connect(true);
+		client.respond("uname", "CYGWIN_NT-6.1");
+		client.respond("echo $JAVA_HOME", "/opt/java");
+		client.respond("shell:info", "Karaf\n  Karaf version               2.4.0\n  Karaf base                  /opt/fuse/instances/child\n");
+		client.respond("fabric:info", "Fabric Release:                1.2.0\nZooKeeper URI:                 10.0.0.1:2181\n");
+		executor = new Executor(client, "root");
+	}
+
+	@After
+	public void clean() {
+		System.clearProperty(FaframConstant.QUERY_CACHE_TTL);
+	}
+
+	@Test
+	public void cachedQueriesTest() {
+		for (int i = 0; i < 5; i++) {
+			assertTrue(executor.isCygwin());
+			assertEquals("/opt/java/bin", executor.resolveVariablesInString("${JAVA_HOME}/bin"));
+			assertEquals("/opt/fuse/instances/child", executor.getShellInfo("Karaf base"));
+			assertEquals("10.0.0.1:2181", executor.getFabricInfo("ZooKeeper URI"));
+		}
+		assertNull(executor.getFabricInfo("Web Console"));
+		assertEquals(4, client.getExecuted().size());
+		assertEquals(4, executor.getQueryCache().getMisses());
+		assertEquals(17, executor.getQueryCache().getHits());
+		log.info("Query cache: {}", QueryCache.getStatistics());
+		assertEquals("17 hits, 4 misses (80% hit rate)", QueryCache.getStatistics());
+	}
+
+	@Test
+	public void expirationTest() throws Exception {
+		assertTrue(executor.isCygwin());
+		assertTrue(executor.isCygwin());
+		Thread.sleep(TTL * 2);
+		assertTrue(executor.isCygwin());
+		assertEquals(2, Collections.frequency(client.getExecuted(), "uname"));
+	}
+
+	@Test
+	public void invalidationTest() {
+		executor.getShellInfo("Karaf base");
+		client.respond("shell:info", "Karaf\n  Karaf base                  /opt/fuse/restarted\n");
+		assertEquals("/opt/fuse/instances/child", executor.getShellInfo("Karaf base"));
+		// The executor connects again after the restart
+		executor.waitForBoot();
+		assertEquals("/opt/fuse/restarted", executor.getShellInfo("Karaf base"));
+	}
+
+	@Test
+	public void ensembleChangeTest() {
+		System.setProperty(FaframConstant.PROVISION_SETTLE_TIME, "0");
+		client.respond("container-list", "[id]   [version]  [type]  [connected]  [profiles]  [provision status]\n"
+				+ "root*  1.0        karaf   yes          fabric      success\n"
+				+ "c1     1.0        karaf   yes          default     success\n");
+		final Container root = RootContainer.builder().name("root").build();
+		root.setExecutor(executor);
+		final Container c1 = ChildContainer.builder().name("c1").parent(root).build();
+		ContainerManager.getContainerList().addAll(Arrays.asList(root, c1));
+		ContainerManager.getEnsembleList().addAll(Arrays.asList("root", "c1"));
+		try {
+			assertEquals("10.0.0.1:2181", executor.getFabricInfo("ZooKeeper URI"));
+			client.respond("fabric:info", "ZooKeeper URI:                 10.0.0.1:2181,10.0.0.2:2181\n");
+			ContainerManager.createEnsemble();
+			assertEquals("10.0.0.1:2181,10.0.0.2:2181", executor.getFabricInfo("ZooKeeper URI"));
+
+			client.respond("fabric:info", "ZooKeeper URI:                 10.0.0.1:2181\n");
+			ContainerManager.destroyEnsemble();
+			assertEquals("10.0.0.1:2181", executor.getFabricInfo("ZooKeeper URI"));
+		} finally {
+			System.clearProperty(FaframConstant.PROVISION_SETTLE_TIME);
+			ContainerManager.clearAllLists();
+		}
+	}
+
+	@Test
+	public void failedQueryNotCachedTest() {
+		client.disconnect();
+		assertFalse(executor.isCygwin());
+		assertEquals(0, executor.getQueryCache().getHits());
+		executor.waitForBoot();
+		assertTrue(executor.isCygwin());
+	}
+
+	@Test
+	public void disabledTest() {
+		final Executor uncached = new Executor(client, "uncached");
+		System.setProperty(FaframConstant.QUERY_CACHE_TTL, "0");
+		final Executor disabled = new Executor(client, "disabled");
+		uncached.isCygwin();
+		uncached.isCygwin();
+		disabled.isCygwin();
+		disabled.isCygwin();
+		assertEquals(3, Collections.frequency(client.getExecuted(), "uname"));
+	}
+}
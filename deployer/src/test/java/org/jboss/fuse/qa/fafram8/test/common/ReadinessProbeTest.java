@@ -0,0 +1,94 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.jboss.fuse.qa.fafram8.exception.ConnectionException;
+import org.jboss.fuse.qa.fafram8.executor.ReadinessProbe;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+import org.jboss.fuse.qa.fafram8.waiter.PollPolicy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ServerSocket;
+
+/**
+ * Readiness probe and poll policy test.
+ */
+public class ReadinessProbeTest {
+	private static final long TIMEOUT = 2000L;
+
+	private ServerSocket server;
+	private StubSSHClient client;
+
+	@Before
+	public void init() throws Exception {
+		server = new ServerSocket(0);
+		client = new StubSSHClient();
+		client.host("localhost").port(server.getLocalPort());
+	}
+
+	@After
+	public void close() throws Exception {
+		server.close();
+		ReadinessProbe.clearReadinessTimes();
+	}
+
+	@Test
+	public void readyImmediatelyTest() {
+		final long elapsed = new ReadinessProbe(client, "root", policy(TIMEOUT)).await(false);
+		assertTrue(client.isConnected());
+		assertEquals(1, client.getConnectAttempts());
+		assertTrue("Ready after " + elapsed + " ms", elapsed < TIMEOUT);
+		assertEquals(Long.valueOf(elapsed), ReadinessProbe.getReadinessTimes().get("root"));
+	}
+
+	@Test
+	public void handshakeRetryTest() {
+		client.setConnectFailures(3);
+		new ReadinessProbe(client, "child", policy(TIMEOUT)).await(true);
+		assertTrue(client.isConnected());
+		assertEquals(4, client.getConnectAttempts());
+	}
+
+	@Test
+	public void closedPortTest() throws Exception {
+		server.close();
+		try {
+			new ReadinessProbe(client, "down", policy(300L)).await(true);
+			fail("Probe should time out");
+		} catch (ConnectionException expected) {
+			// The handshake isn't even tried when the port is closed
+			assertEquals(0, client.getConnectAttempts());
+			assertFalse(ReadinessProbe.getReadinessTimes().containsKey("down"));
+		}
+	}
+
+	@Test
+	public void backoffTest() {
+		final PollPolicy policy = new PollPolicy(100L, 1000L, 2.0, 0.0, TIMEOUT);
+		assertEquals(100L, policy.getDelay(0));
+		assertEquals(400L, policy.getDelay(2));
+		assertEquals(1000L, policy.getDelay(10));
+
+		final PollPolicy jittered = new PollPolicy(100L, 1000L, 2.0, 0.2, TIMEOUT);
+		for (int i = 0; i < 100; i++) {
+			final long delay = jittered.getDelay(1);
+			assertTrue("Delay " + delay, delay >= 160L && delay <= 240L);
+		}
+	}
+
+	/**
+	 * Creates the fast poll policy.
+	 *
+	 * @param timeout timeout in milliseconds
+	 * @return poll policy
+	 */
+	private PollPolicy policy(long timeout) {
+		return new PollPolicy(10L, 50L, 2.0, 0.2, timeout);
+	}
+}
@@ -0,0 +1,141 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.cluster.container.ChildContainer;
+import org.jboss.fuse.qa.fafram8.cluster.container.Container;
+import org.jboss.fuse.qa.fafram8.cluster.container.RootContainer;
+import org.jboss.fuse.qa.fafram8.exceptions.KarafSessionDownException;
+import org.jboss.fuse.qa.fafram8.exceptions.SSHClientException;
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.manager.ContainerManager;
+import org.jboss.fuse.qa.fafram8.property.FaframConstant;
+import org.jboss.fuse.qa.fafram8.ssh.RecordingSSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.ReplaySSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SSHRecording;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Record and replay of the ensemble creation, provisioning wait and shutdown through the ContainerManager and the Executor. The run
+ * is recorded from the stub client and replayed without it.
+ */
+public class SSHReplayTest {
+	private static final String HEADER = "[id]      [version]  [type]  [connected]  [profiles]              [provision status]\n";
+	private static final long CHANGE_DELAY = 300L;
+	private static final String SHUTDOWN = "shutdown -f";
+
+	private File file;
+
+	@Before
+	public void init() throws Exception {
+		file = File.createTempFile("fafram-ssh", ".rec");
+		System.setProperty(FaframConstant.PROVISION_SETTLE_TIME, "200");
+		System.setProperty(FaframConstant.POLL_INITIAL_DELAY, "50");
+	}
+
+	@After
+	public void clean() {
+		System.clearProperty(SSHRecording.RECORD);
+		System.clearProperty(SSHRecording.REPLAY);
+		System.clearProperty(FaframConstant.PROVISION_SETTLE_TIME);
+		System.clearProperty(FaframConstant.POLL_INITIAL_DELAY);
+		ContainerManager.clearAllLists();
+		file.delete();
+	}
+
+	@Test
+	public void replayTest() throws Exception {
+		System.setProperty(SSHRecording.RECORD, file.getAbsolutePath());
+		final StubSSHClient stub = new ShutdownStubSSHClient();
+		stub.respond("container-list", listing("downloading"));
+		stub.respondLater("container-list", listing("success"), CHANGE_DELAY);
+		final Executor recorder = new Executor(stub, "root");
+		assertTrue(recorder.getClient() instanceof RecordingSSHClient);
+		final Map<String, Long> recorded = run(recorder);
+		((RecordingSSHClient) recorder.getClient()).getRecording().close();
+		System.clearProperty(SSHRecording.RECORD);
+		ContainerManager.clearAllLists();
+
+		System.setProperty(SSHRecording.REPLAY, file.getAbsolutePath());
+		// Not connected stub - any call that reaches it fails
+		final StubSSHClient offline = new StubSSHClient();
+		offline.setHost(null);
+		final Executor replay = new Executor(offline, "root");
+		assertTrue(replay.getClient() instanceof ReplaySSHClient);
+		final Map<String, Long> replayed = run(replay);
+
+		assertEquals(recorded.keySet(), replayed.keySet());
+		assertTrue(offline.getExecuted().isEmpty());
+		assertFalse(replay.isConnected());
+	}
+
+	/**
+	 * Creates the ensemble, waits for the provisioning and shuts the root down.
+	 *
+	 * @param executor root executor
+	 * @return provisioning times
+	 * @throws Exception when the client can't connect
+	 */
+	private Map<String, Long> run(Executor executor) throws Exception {
+		executor.getClient().connect(true);
+		final Container root = RootContainer.builder().name("root").build();
+		root.setExecutor(executor);
+		final Container c1 = ChildContainer.builder().name("c1").parent(root).build();
+		final Container c2 = ChildContainer.builder().name("c2").parent(root).build();
+		ContainerManager.getContainerList().addAll(Arrays.asList(root, c1, c2));
+		ContainerManager.getEnsembleList().addAll(Arrays.asList("root", "c1", "c2"));
+
+		ContainerManager.createEnsemble();
+		assertTrue(ContainerManager.isEnsembleCreated());
+		final Map<String, Long> times = ContainerManager.waitForProvisioning(Arrays.asList(c1, c2));
+		executor.executeCommand(SHUTDOWN);
+		// The connection is dropped by the server after the shutdown, the replay has to drop it at the same point
+		executor.waitForShutdown();
+		return times;
+	}
+
+	/**
+	 * Creates the container-list output.
+	 *
+	 * @param status provision status of all containers
+	 * @return container-list output
+	 */
+	private static String listing(String status) {
+		return HEADER
+				+ "root*     1.0        karaf   yes          fabric                  " + status + "\n"
+				+ "  c1      1.0        karaf   yes          default                 " + status + "\n"
+				+ "  c2      1.0        karaf   yes          default                 " + status + "\n";
+	}
+
+	/**
+	 * Stub client that drops the connection after the shutdown command.
+	 */
+	private static final class ShutdownStubSSHClient extends StubSSHClient {
+		/**
+		 * Constructor.
+		 */
+		private ShutdownStubSSHClient() {
+			setHost(null);
+		}
+
+		@Override
+		public String executeCommand(String command, boolean suppressLog, boolean ignoreExceptions) throws KarafSessionDownException,
+				SSHClientException {
+			final String response = super.executeCommand(command, suppressLog, ignoreExceptions);
+			if (SHUTDOWN.equals(command)) {
+				disconnect();
+			}
+			return response;
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.cluster.container.ChildContainer;
+import org.jboss.fuse.qa.fafram8.cluster.container.Container;
+import org.jboss.fuse.qa.fafram8.cluster.container.RootContainer;
+import org.jboss.fuse.qa.fafram8.cluster.container.SshContainer;
+import org.jboss.fuse.qa.fafram8.cluster.node.Node;
+import org.jboss.fuse.qa.fafram8.deployer.Deployer;
+import org.jboss.fuse.qa.fafram8.deployer.TaskGraph;
+import org.jboss.fuse.qa.fafram8.exception.FaframException;
+import org.jboss.fuse.qa.fafram8.manager.ContainerManager;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Task graph and deployment graph test.
+ */
+@Slf4j
+public class TaskGraphTest {
+	private static final long DURATION = 100L;
+	private static final int PARALLELISM = 3;
+	private static final int TASKS = 12;
+
+	private final List<String> finished = new CopyOnWriteArrayList<>();
+
+	@After
+	public void clean() {
+		ContainerManager.clearAllLists();
+		Deployer.getSummoningThreads().clear();
+		Deployer.getAnnihilatingThreads().clear();
+	}
+
+	@Test
+	public void dependencyOrderTest() {
+		final TaskGraph graph = new TaskGraph("test");
+		graph.add("child", work("child", DURATION));
+		graph.add("root", work("root", DURATION));
+		graph.add("grandchild", work("grandchild", DURATION));
+		graph.add("other", work("other", DURATION));
+		graph.addDependency("child", "root");
+		graph.addDependency("grandchild", "child");
+
+		assertTrue(graph.execute(PARALLELISM));
+		assertEquals(4, finished.size());
+		assertTrue(finished.indexOf("root") < finished.indexOf("child"));
+		assertTrue(finished.indexOf("child") < finished.indexOf("grandchild"));
+		assertEquals(Arrays.asList("root", "child", "grandchild"), graph.getCriticalPath());
+		assertTrue(graph.getCriticalPathMillis() >= DURATION * 3);
+		// The independent task ran in parallel with the chain
+		assertTrue(graph.getWallMillis() < DURATION * 4);
+		final String report = graph.report();
+		log.info(report);
+		assertTrue(report, report.startsWith("test of 4 tasks took " + graph.getWallMillis() + " ms"));
+		assertTrue(report, report.contains(": root (" + graph.getDuration("root") + " ms) child ("));
+	}
+
+	@Test
+	public void failureCancelsSubtreeTest() {
+		final TaskGraph graph = new TaskGraph("test");
+		graph.add("root", work("root", 0));
+		graph.add("broken", new Callable<Void>() {
+			@Override
+			public Void call() {
+				throw new FaframException("Container failed");
+			}
+		});
+		graph.add("brokenChild", work("brokenChild", 0));
+		graph.add("brokenGrandchild", work("brokenGrandchild", 0));
+		graph.add("sibling", work("sibling", DURATION));
+		graph.addDependency("broken", "root");
+		graph.addDependency("brokenChild", "broken");
+		graph.addDependency("brokenGrandchild", "brokenChild");
+		graph.addDependency("sibling", "root");
+
+		assertFalse(graph.execute(PARALLELISM));
+		assertEquals(Collections.singleton("broken"), graph.getFailures().keySet());
+		assertEquals(Arrays.asList("brokenChild", "brokenGrandchild"), graph.getSkipped());
+		assertTrue(finished.contains("sibling"));
+		assertFalse(finished.contains("brokenChild"));
+		assertTrue(graph.report().contains("skipped"));
+	}
+
+	@Test
+	public void parallelismTest() {
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger max = new AtomicInteger();
+		final TaskGraph graph = new TaskGraph("test");
+		for (int i = 0; i < TASKS; i++) {
+			graph.add("task" + i, new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					final int now = running.incrementAndGet();
+					synchronized (max) {
+						max.set(Math.max(max.get(), now));
+					}
+					Thread.sleep(DURATION / 2);
+					running.decrementAndGet();
+					return null;
+				}
+			});
+		}
+		assertTrue(graph.execute(PARALLELISM));
+		assertTrue(max.get() > 1 && max.get() <= PARALLELISM);
+	}
+
+	@Test(expected = FaframException.class)
+	public void cycleTest() {
+		final TaskGraph graph = new TaskGraph("test");
+		graph.add("a", null);
+		graph.add("b", null);
+		graph.addDependency("a", "b");
+		graph.addDependency("b", "a");
+		graph.execute(1);
+	}
+
+	@Test
+	public void deploymentGraphTest() {
+		final Container root = RootContainer.builder().name("root").build();
+		final Container ensembleRoot = RootContainer.builder().name("ensembleRoot").build();
+		final Container child = ChildContainer.builder().name("child").parent(root).build();
+		final Container ssh = SshContainer.builder().name("ssh").parent(root).build();
+		final Container sameNode = ChildContainer.builder().name("sameNode").parent(root).sameNodeAs("ssh").build();
+		final Container late = ChildContainer.builder().name("late").parent(ensembleRoot).build();
+		final List<Container> containers = Arrays.asList(root, child, ssh, ensembleRoot, sameNode, late);
+		ContainerManager.getEnsembleList().add("ensembleRoot");
+
+		final TaskGraph graph = Deployer.createDeploymentGraph(containers, false);
+		assertEquals(Collections.singleton("root"), graph.getPrerequisites("child"));
+		assertEquals(Collections.singleton("root"), graph.getPrerequisites("ssh"));
+		assertTrue(graph.getPrerequisites("sameNode").containsAll(Arrays.asList("root", "ssh", Deployer.ENSEMBLE_TASK)));
+		assertTrue(graph.getPrerequisites(Deployer.ENSEMBLE_TASK).containsAll(Arrays.asList("root", "child", "ssh", "ensembleRoot")));
+		assertTrue(graph.getPrerequisites("late").containsAll(Arrays.asList("ensembleRoot", Deployer.ENSEMBLE_TASK)));
+		assertTrue(graph.getPrerequisites("ensembleRoot").isEmpty());
+
+		final TaskGraph serial = Deployer.createDeploymentGraph(containers, true);
+		assertTrue(serial.getPrerequisites("ensembleRoot").contains("ssh"));
+	}
+
+	@Test
+	public void continueOnFailureTest() {
+		final TaskGraph graph = new TaskGraph("test");
+		graph.add("child", new Callable<Void>() {
+			@Override
+			public Void call() {
+				throw new FaframException("Container failed");
+			}
+		});
+		graph.add("root", work("root", 0));
+		graph.addDependency("root", "child");
+		graph.setContinueOnFailure(true);
+
+		assertFalse(graph.execute(PARALLELISM));
+		assertEquals(Collections.singleton("child"), graph.getFailures().keySet());
+		assertTrue(graph.getSkipped().isEmpty());
+		assertTrue(finished.contains("root"));
+	}
+
+	@Test
+	public void teardownGraphTest() {
+		final Container root = RootContainer.builder().name("root").node(Node.builder().host("host1").build()).build();
+		final Container otherRoot = RootContainer.builder().name("otherRoot").node(Node.builder().host("host1").build()).build();
+		final Container remoteRoot = RootContainer.builder().name("remoteRoot").node(Node.builder().host("host2").build()).build();
+		final Container child = ChildContainer.builder().name("child").parent(root).build();
+		final Container ssh = SshContainer.builder().name("ssh").parent(root).build();
+		final Container sameNode = ChildContainer.builder().name("sameNode").parent(root).sameNodeAs("ssh").build();
+		final List<Container> containers = Arrays.asList(root, otherRoot, remoteRoot, child, ssh, sameNode);
+
+		final TaskGraph graph = Deployer.createTeardownGraph(containers, false);
+		assertEquals(new HashSet<>(Arrays.asList("child", "ssh", "sameNode", "otherRoot")), graph.getPrerequisites("root"));
+		assertEquals(Collections.singleton("sameNode"), graph.getPrerequisites("ssh"));
+		assertTrue(graph.getPrerequisites("child").isEmpty());
+		assertTrue(graph.getPrerequisites("otherRoot").isEmpty());
+		assertTrue(graph.getPrerequisites("remoteRoot").isEmpty());
+
+		final TaskGraph serial = Deployer.createTeardownGraph(containers, true);
+		assertTrue(serial.getPrerequisites("child").contains("ssh"));
+		assertTrue(serial.getPrerequisites("otherRoot").contains("remoteRoot"));
+	}
+
+	@Test
+	public void removeWhileReadingTest() {
+		final Container root = RootContainer.builder().name("root").build();
+		final Container child = ChildContainer.builder().name("child").parent(root).build();
+		final Container other = ChildContainer.builder().name("other").parent(root).build();
+		ContainerManager.getContainerList().addAll(Arrays.asList(child, root, other));
+		ContainerManager.sortContainerList();
+		assertEquals(Arrays.asList(root, child, other), ContainerManager.getContainerList());
+
+		// The destroyed containers remove themselves while the other threads read the list
+		final List<Container> read = new ArrayList<>();
+		for (Container c : ContainerManager.getContainerList()) {
+			if (!c.isRoot()) {
+				ContainerManager.removeContainer(c);
+			}
+			assertEquals(root, ContainerManager.getRoot());
+			read.add(c);
+		}
+		assertEquals(Arrays.asList(root, child, other), read);
+		assertEquals(Collections.singletonList(root), ContainerManager.getContainerList());
+	}
+
+	/**
+	 * Creates the work that sleeps and records its end.
+	 *
+	 * @param name name
+	 * @param duration duration in milliseconds
+	 * @return work
+	 */
+	private Callable<Void> work(final String name, final long duration) {
+		return new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				Thread.sleep(duration);
+				finished.add(name);
+				return null;
+			}
+		};
+	}
+}
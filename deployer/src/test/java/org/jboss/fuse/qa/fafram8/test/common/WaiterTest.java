@@ -0,0 +1,267 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.exception.FaframException;
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.property.FaframConstant;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+import org.jboss.fuse.qa.fafram8.util.callables.Response;
+import org.jboss.fuse.qa.fafram8.waiter.Conditions;
+import org.jboss.fuse.qa.fafram8.waiter.PollPolicy;
+import org.jboss.fuse.qa.fafram8.waiter.Waiter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Wait engine test.
+ */
+@Slf4j
+public class WaiterTest {
+	private static final long PERIOD = 50L;
+	private static final long TIMEOUT = 5000L;
+	private static final long SHORT_TIMEOUT = 300L;
+	private static final int WAITS = 200;
+	private static final int BLOCKED = 5;
+	private static final String POLL_DELAY = "50";
+
+	@Before
+	public void init() {
+		System.setProperty(FaframConstant.POLL_INITIAL_DELAY, POLL_DELAY);
+		System.setProperty(FaframConstant.POLL_MAX_DELAY, POLL_DELAY);
+	}
+
+	@After
+	public void clean() {
+		System.clearProperty(FaframConstant.POLL_INITIAL_DELAY);
+		System.clearProperty(FaframConstant.POLL_MAX_DELAY);
+		System.clearProperty(FaframConstant.BROKER_START_WAIT_TIME);
+	}
+
+	@Test
+	public void policyTest() {
+		final PollPolicy fixed = PollPolicy.fixed(1, 10, TimeUnit.SECONDS);
+		assertEquals(1000L, fixed.getDelay(0));
+		assertEquals(1000L, fixed.getDelay(5));
+		assertEquals(10000L, fixed.getTimeout());
+
+		final PollPolicy exponential = PollPolicy.exponential(100, 1000, 2.0, 10, TimeUnit.MILLISECONDS);
+		assertEquals(100L, exponential.getDelay(0));
+		assertEquals(400L, exponential.getDelay(2));
+		assertEquals(1000L, exponential.getDelay(10));
+
+		final PollPolicy jitter = exponential.withJitter(0.5);
+		for (int i = 0; i < 100; i++) {
+			final long delay = jitter.getDelay(1);
+			assertTrue("Delay " + delay, delay >= 100L && delay <= 300L);
+		}
+	}
+
+	@Test
+	public void conditionsTest() throws Exception {
+		final AtomicInteger firstCalls = new AtomicInteger();
+		final Callable<Response<String>> first = counting("first", 1, firstCalls);
+		final Callable<Response<String>> second = counting("second", 3, new AtomicInteger());
+		final Callable<Response<String>> never = counting("never", Integer.MAX_VALUE, new AtomicInteger());
+
+		final Callable<Response<List<String>>> all = Conditions.all(first, second);
+		assertFalse(all.call().getSuccess());
+		assertFalse(all.call().getSuccess());
+		final Response<List<String>> response = all.call();
+		assertTrue(response.getSuccess());
+		assertEquals(Arrays.asList("first", "second"), response.getData());
+		// The satisfied condition is not checked again
+		assertEquals(1, firstCalls.get());
+
+		assertEquals("first", Conditions.any(never, counting("first", 1, new AtomicInteger())).call().getData());
+		final List<Callable<Response<String>>> conditions = Arrays.asList(never, counting("a", 1, new AtomicInteger()),
+				counting("b", 2, new AtomicInteger()));
+		final Callable<Response<List<String>>> twoOf = Conditions.nOf(2, conditions);
+		assertFalse(twoOf.call().getSuccess());
+		assertEquals(Arrays.asList("a", "b"), twoOf.call().getData());
+	}
+
+	@Test
+	public void concurrentWaitsTest() throws Exception {
+		// Each condition is satisfied only after all the waits were polled, so the waits can't queue behind each other
+		final CountDownLatch allPolled = new CountDownLatch(WAITS);
+		final List<ListenableFuture<Response<String>>> futures = new ArrayList<>();
+		for (int i = 0; i < WAITS; i++) {
+			final AtomicBoolean polled = new AtomicBoolean();
+			futures.add(Waiter.submit("wait-" + i, new Callable<Response<String>>() {
+				@Override
+				public Response<String> call() {
+					if (polled.compareAndSet(false, true)) {
+						allPolled.countDown();
+					}
+					return allPolled.getCount() == 0 ? Response.success("ready") : Response.<String>timeOut();
+				}
+			}, PollPolicy.fixed(PERIOD, TIMEOUT, TimeUnit.MILLISECONDS)));
+		}
+		for (ListenableFuture<Response<String>> future : futures) {
+			assertTrue(future.get().getSuccess());
+		}
+		int waiterThreads = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("waiter-")) {
+				waiterThreads++;
+			}
+		}
+		log.info("{} waits done on {} threads", WAITS, waiterThreads);
+		assertTrue(waiterThreads < WAITS / 10);
+	}
+
+	@Test
+	public void blockingConditionTest() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final PollPolicy policy = PollPolicy.fixed(PERIOD, TIMEOUT, TimeUnit.MILLISECONDS);
+		final List<ListenableFuture<Response<String>>> blocked = new ArrayList<>();
+		// More blocked conditions than the idle threads of the attempt pool
+		for (int i = 0; i < BLOCKED; i++) {
+			blocked.add(Waiter.submit("blocked-" + i, new Callable<Response<String>>() {
+				@Override
+				public Response<String> call() throws Exception {
+					release.await();
+					return Response.success("released");
+				}
+			}, policy));
+		}
+		try {
+			final Response<String> response = Waiter.submit("free", counting("free", 2, new AtomicInteger()), policy)
+					.get(SHORT_TIMEOUT * 2, TimeUnit.MILLISECONDS);
+			assertTrue(response.getSuccess());
+		} finally {
+			release.countDown();
+		}
+		for (ListenableFuture<Response<String>> future : blocked) {
+			assertTrue(future.get().getSuccess());
+		}
+	}
+
+	@Test
+	public void awaitOnCallingThreadTest() {
+		final Thread caller = Thread.currentThread();
+		final AtomicInteger calls = new AtomicInteger();
+		final Response<String> response = Waiter.await("caller", new Callable<Response<String>>() {
+			@Override
+			public Response<String> call() {
+				assertSame(caller, Thread.currentThread());
+				return calls.incrementAndGet() >= 3 ? Response.success("done") : Response.<String>timeOut();
+			}
+		}, PollPolicy.fixed(PERIOD, TIMEOUT, TimeUnit.MILLISECONDS));
+		assertTrue(response.getSuccess());
+		assertEquals(3, calls.get());
+	}
+
+	@Test
+	public void cancelTest() throws Exception {
+		final AtomicInteger calls = new AtomicInteger();
+		final ListenableFuture<Response<String>> future = Waiter.submit("cancelled", counting("never", Integer.MAX_VALUE, calls),
+				PollPolicy.fixed(PERIOD, TIMEOUT, TimeUnit.MILLISECONDS));
+		Thread.sleep(PERIOD * 3);
+		assertTrue(future.cancel(false));
+		final int cancelledAt = calls.get();
+		Thread.sleep(PERIOD * 3);
+		assertTrue(calls.get() <= cancelledAt + 1);
+	}
+
+	@Test
+	public void timeoutTest() {
+		final AtomicInteger calls = new AtomicInteger();
+		final Response<String> response = Waiter.await("timeout", new Callable<Response<String>>() {
+			@Override
+			public Response<String> call() {
+				return Response.timeOut("attempt " + calls.incrementAndGet());
+			}
+		}, PollPolicy.fixed(PERIOD, SHORT_TIMEOUT, TimeUnit.MILLISECONDS));
+		assertFalse(response.getSuccess());
+		assertEquals("attempt " + calls.get(), response.getData());
+	}
+
+	@Test
+	public void brokerTest() throws Exception {
+		System.setProperty(FaframConstant.BROKER_START_WAIT_TIME, "5");
+		final StubSSHClient client = new StubSSHClient();
+		client.connect(true);
+		client.respondLater("activemq:bstat", "BrokerName = amq", SHORT_TIMEOUT);
+		new Executor(client, "root").waitForBroker();
+		assertTrue(client.getExecuted().size() > 1);
+	}
+
+	@Test(expected = FaframException.class)
+	public void brokerTimeoutTest() throws Exception {
+		System.setProperty(FaframConstant.BROKER_START_WAIT_TIME, "1");
+		final StubSSHClient client = new StubSSHClient();
+		client.connect(true);
+		new Executor(client, "root").waitForBroker();
+	}
+
+	@Test
+	public void shutdownTest() throws Exception {
+		final StubSSHClient client = new StubSSHClient();
+		client.connect(true);
+		final Thread disconnect = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(SHORT_TIMEOUT);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				client.disconnect();
+			}
+		});
+		disconnect.start();
+		new Executor(client, "root").waitForShutdown();
+		assertFalse(client.isConnected());
+	}
+
+	@Test
+	public void patchStatusTest() throws Exception {
+		final StubSSHClient client = new StubSSHClient();
+		client.connect(true);
+		client.respond("patch:list | grep p1", "p1  false");
+		client.respondLater("patch:list | grep p1", "p1  true", SHORT_TIMEOUT);
+		new Executor(client, "root").waitForPatchStatus("p1", true);
+	}
+
+	/**
+	 * Creates the condition that is satisfied from the given attempt.
+	 *
+	 * @param data response data
+	 * @param successAttempt attempt from which the condition is satisfied
+	 * @param calls counter of the calls
+	 * @return condition
+	 */
+	private static Callable<Response<String>> counting(final String data, final int successAttempt, final AtomicInteger calls) {
+		return new Callable<Response<String>>() {
+			@Override
+			public Response<String> call() {
+				return calls.incrementAndGet() >= successAttempt ? Response.success(data) : Response.<String>timeOut();
+			}
+
+			@Override
+			public String toString() {
+				return data;
+			}
+		};
+	}
+}
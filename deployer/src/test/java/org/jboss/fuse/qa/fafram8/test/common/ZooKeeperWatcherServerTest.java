@@ -0,0 +1,273 @@
+package org.jboss.fuse.qa.fafram8.test.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.curator.test.TestingServer;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+
+import org.jboss.fuse.qa.fafram8.cluster.container.ChildContainer;
+import org.jboss.fuse.qa.fafram8.cluster.container.Container;
+import org.jboss.fuse.qa.fafram8.cluster.container.RootContainer;
+import org.jboss.fuse.qa.fafram8.exception.FaframException;
+import org.jboss.fuse.qa.fafram8.executor.Executor;
+import org.jboss.fuse.qa.fafram8.property.FaframConstant;
+import org.jboss.fuse.qa.fafram8.test.base.StubSSHClient;
+import org.jboss.fuse.qa.fafram8.waiter.ZooKeeperWatcher;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ZooKeeper watcher test against the real ZooKeeper server. The znodes are changed by the ZooKeeper client.
+ */
+public class ZooKeeperWatcherServerTest {
+	private static final String PASSWORD = "admin";
+	private static final String RESULT = String.format(ZooKeeperWatcher.PROVISION_RESULT_PATH, "child");
+	private static final String PID = String.format(ZooKeeperWatcher.PID_PATH, "child");
+	private static final int SESSION_TIMEOUT = 30000;
+	private static final long CHANGE_DELAY = 300L;
+	private static final long TIMEOUT = 10000L;
+	private static final long TOUCH_PERIOD = 50L;
+	private static final int STOP_WAIT_TIME = 1;
+
+	private TestingServer server;
+	private ZooKeeper client;
+
+	@Before
+	public void init() throws Exception {
+		server = new TestingServer();
+		client = connectClient();
+		create(RESULT, "downloading");
+	}
+
+	@After
+	public void clean() throws Exception {
+		client.close();
+		server.close();
+	}
+
+	@Test
+	public void dataTest() throws Exception {
+		try (ZooKeeperWatcher watcher = ZooKeeperWatcher.connect(server.getConnectString(), PASSWORD)) {
+			assertTrue(watcher.exists(RESULT, false));
+			assertEquals("downloading", watcher.getData(RESULT, false));
+			assertFalse(watcher.exists(PID, false));
+			assertNull(watcher.getData(PID, false));
+		}
+	}
+
+	@Test
+	public void dataChangeTest() throws Exception {
+		try (ZooKeeperWatcher watcher = ZooKeeperWatcher.connect(server.getConnectString(), PASSWORD)) {
+			assertFalse(watcher.awaitChange(RESULT, CHANGE_DELAY));
+			changeLater(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return client.setData(RESULT, "success".getBytes(StandardCharsets.UTF_8), -1);
+				}
+			});
+			assertTrue(watcher.awaitChange(RESULT, TIMEOUT));
+			assertEquals("success", watcher.getData(RESULT, false));
+		}
+	}
+
+	@Test
+	public void createAndDeleteTest() throws Exception {
+		try (ZooKeeperWatcher watcher = ZooKeeperWatcher.connect(server.getConnectString(), PASSWORD)) {
+			assertNull(watcher.getData(PID, false));
+			changeLater(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					create(PID, "1234");
+					return null;
+				}
+			});
+			assertTrue(watcher.awaitChange(Arrays.asList(RESULT, PID), TIMEOUT));
+			assertEquals("1234", watcher.getData(PID, false));
+
+			changeLater(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					client.delete(PID, -1);
+					return null;
+				}
+			});
+			assertTrue(watcher.awaitChange(PID, TIMEOUT));
+			assertFalse(watcher.exists(PID, false));
+		}
+	}
+
+	@Test
+	public void serverRestartTest() throws Exception {
+		try (ZooKeeperWatcher watcher = ZooKeeperWatcher.connect(server.getConnectString(), PASSWORD)) {
+			// Sets the watch before the restart
+			assertFalse(watcher.awaitChange(PID, CHANGE_DELAY));
+			server.restart();
+			client.close();
+			client = connectClient();
+			changeLater(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					create(PID, "1234");
+					return null;
+				}
+			});
+			// The client sets the watch again after the reconnect
+			assertTrue(watcher.awaitChange(PID, TIMEOUT));
+			assertTrue(watcher.isOpen());
+		}
+	}
+
+	@Test
+	public void sessionExpiredTest() throws Exception {
+		try (ZooKeeperWatcher watcher = ZooKeeperWatcher.connect(server.getConnectString(), PASSWORD)) {
+			// New server on the same port doesn't know the session of the watcher
+			final int port = server.getPort();
+			server.close();
+			server = new TestingServer(port);
+			client.close();
+			client = connectClient();
+			create(RESULT, "downloading");
+
+			final long end = System.currentTimeMillis() + TIMEOUT;
+			boolean reconnected = false;
+			while (!reconnected && System.currentTimeMillis() < end) {
+				try {
+					// Fails until the client finds out that the session expired, then the new session is created
+					reconnected = watcher.exists(RESULT, false);
+				} catch (IOException ex) {
+					Thread.sleep(CHANGE_DELAY);
+				}
+			}
+			assertTrue(reconnected);
+
+			changeLater(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return client.setData(RESULT, "success".getBytes(StandardCharsets.UTF_8), -1);
+				}
+			});
+			assertTrue(watcher.awaitChange(RESULT, TIMEOUT));
+		}
+	}
+
+	@Test
+	public void containerStopWaitTest() throws Exception {
+		System.setProperty(FaframConstant.ZOOKEEPER_WATCH, "true");
+		System.setProperty(FaframConstant.STOP_WAIT_TIME, String.valueOf(STOP_WAIT_TIME));
+		create(PID, "1234");
+		final StubSSHClient ssh = new StubSSHClient();
+		ssh.respond("fabric:info", "ZooKeeper URI: " + server.getConnectString() + "\n");
+		ssh.respond("fabric:ensemble-password", PASSWORD);
+		ssh.respond("zk:get " + PID, "1234");
+		ssh.connect(true);
+		final Executor executor = new Executor(ssh, "root");
+		final Container container = ChildContainer.builder().name("child").parent(RootContainer.builder().defaultRoot().build()).build();
+
+		// The pid znode keeps changing, so the wait is woken up many times before the stop wait time
+		final AtomicBoolean stop = new AtomicBoolean();
+		final Thread touch = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (!stop.get()) {
+					try {
+						client.setData(PID, "1234".getBytes(StandardCharsets.UTF_8), -1);
+						Thread.sleep(TOUCH_PERIOD);
+					} catch (Exception e) {
+						return;
+					}
+				}
+			}
+		});
+		touch.start();
+		final long start = System.currentTimeMillis();
+		try {
+			executor.waitForContainerStop(container);
+			fail("Container stop wait should time out");
+		} catch (FaframException ex) {
+			assertTrue(System.currentTimeMillis() - start >= TimeUnit.SECONDS.toMillis(STOP_WAIT_TIME));
+		} finally {
+			stop.set(true);
+			touch.join();
+			executor.disconnect();
+			System.clearProperty(FaframConstant.ZOOKEEPER_WATCH);
+			System.clearProperty(FaframConstant.STOP_WAIT_TIME);
+		}
+	}
+
+	/**
+	 * Creates the connected ZooKeeper client that changes the znodes.
+	 *
+	 * @return client
+	 * @throws Exception if the client is not connected in time
+	 */
+	private ZooKeeper connectClient() throws Exception {
+		final CountDownLatch connected = new CountDownLatch(1);
+		final ZooKeeper zooKeeper = new ZooKeeper(server.getConnectString(), SESSION_TIMEOUT, new Watcher() {
+			@Override
+			public void process(WatchedEvent event) {
+				if (event.getState() == Event.KeeperState.SyncConnected) {
+					connected.countDown();
+				}
+			}
+		});
+		assertTrue(connected.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		return zooKeeper;
+	}
+
+	/**
+	 * Changes the znodes after a while, so that the change comes during the wait.
+	 *
+	 * @param change change of the znodes
+	 */
+	private static void changeLater(final Callable<Object> change) {
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(CHANGE_DELAY);
+					change.call();
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		thread.start();
+	}
+
+	/**
+	 * Creates the znode with its parents.
+	 *
+	 * @param path znode path
+	 * @param data znode data
+	 * @throws Exception on error
+	 */
+	private void create(String path, String data) throws Exception {
+		final StringBuilder parent = new StringBuilder();
+		final String[] names = path.substring(1).split("/");
+		for (int i = 0; i < names.length - 1; i++) {
+			parent.append('/').append(names[i]);
+			if (client.exists(parent.toString(), false) == null) {
+				client.create(parent.toString(), new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+			}
+		}
+		client.create(path, data.getBytes(StandardCharsets.UTF_8), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+	}
+}
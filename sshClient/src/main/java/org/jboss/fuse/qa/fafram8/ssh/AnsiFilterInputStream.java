@@ -0,0 +1,190 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that drops the ANSI CSI escape sequences (colors, cursor movement, ...) from the underlying stream.
+ * The sequences are removed by a small state machine while the stream is read, so the response doesn't need to be
+ * copied again by the regular expression. The state is kept between the reads, so the sequence can be split between
+ * two buffers.
+ */
+public class AnsiFilterInputStream extends FilterInputStream {
+	private static final int ESC = 0x1B;
+	private static final int CSI_START = '[';
+
+	// CSI parameter (0x30-0x3F) and intermediate (0x20-0x2F) bytes
+	private static final int CSI_BODY_MIN = 0x20;
+	private static final int CSI_BODY_MAX = 0x3F;
+
+	// CSI final bytes
+	private static final int CSI_FINAL_MIN = 0x40;
+	private static final int CSI_FINAL_MAX = 0x7E;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final int STATE_TEXT = 0;
+	private static final int STATE_ESC = 1;
+	private static final int STATE_CSI = 2;
+
+	private int state = STATE_TEXT;
+
+	// Byte that didn't fit into the caller's buffer (lone ESC is written one read later together with the next byte)
+	private int pending = -1;
+
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+
+	private final byte[] single = new byte[1];
+
+	/**
+	 * Constructor.
+	 *
+	 * @param in stream to filter
+	 */
+	public AnsiFilterInputStream(InputStream in) {
+		super(in);
+	}
+
+	@Override
+	public int read() throws IOException {
+		final int count = read(single, 0, 1);
+		return count == -1 ? -1 : single[0] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+
+		int count = 0;
+		if (pending != -1) {
+			b[off + count++] = (byte) pending;
+			pending = -1;
+		}
+
+		// Loop until at least one byte is written or the end of the stream is reached, 0 must not be returned
+		while (count < len) {
+			final int read = in.read(buffer, 0, Math.min(len - count, buffer.length));
+			if (read == -1) {
+				if (state == STATE_ESC) {
+					// Lone ESC at the end of the stream is not a sequence
+					state = STATE_TEXT;
+					count = write(b, off, len, count, ESC);
+				}
+				return count == 0 ? -1 : count;
+			}
+
+			for (int i = 0; i < read; i++) {
+				count = filter(b, off, len, count, buffer[i] & 0xFF);
+			}
+
+			if (count > 0) {
+				break;
+			}
+		}
+
+		return count;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0) {
+			return 0;
+		}
+
+		// The internal buffer is used for the raw input, so the skipped bytes need their own one
+		final byte[] skipBuffer = new byte[(int) Math.min(n, BUFFER_SIZE)];
+		long skipped = 0;
+		while (skipped < n) {
+			final int count = read(skipBuffer, 0, (int) Math.min(n - skipped, skipBuffer.length));
+			if (count == -1) {
+				break;
+			}
+			skipped += count;
+		}
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		// Underlying available bytes can be all part of an escape sequence
+		return pending == -1 ? 0 : 1;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+
+	/**
+	 * Runs one byte through the state machine.
+	 *
+	 * @param b output buffer
+	 * @param off output offset
+	 * @param len output length
+	 * @param count bytes already written
+	 * @param c input byte
+	 * @return new number of written bytes
+	 */
+	private int filter(byte[] b, int off, int len, int count, int c) {
+		switch (state) {
+			case STATE_ESC:
+				if (c == CSI_START) {
+					state = STATE_CSI;
+					return count;
+				}
+				// Not a CSI sequence, keep the ESC
+				final int written = write(b, off, len, count, ESC);
+				if (c == ESC) {
+					return written;
+				}
+				state = STATE_TEXT;
+				return write(b, off, len, written, c);
+			case STATE_CSI:
+				if (c >= CSI_FINAL_MIN && c <= CSI_FINAL_MAX) {
+					state = STATE_TEXT;
+				} else if (c < CSI_BODY_MIN || c > CSI_BODY_MAX) {
+					// Malformed sequence, drop what was read and keep the byte
+					state = STATE_TEXT;
+					return write(b, off, len, count, c);
+				}
+				return count;
+			default:
+				if (c == ESC) {
+					state = STATE_ESC;
+					return count;
+				}
+				return write(b, off, len, count, c);
+		}
+	}
+
+	/**
+	 * Writes the byte to the output buffer or remembers it if the buffer is full.
+	 *
+	 * @param b output buffer
+	 * @param off output offset
+	 * @param len output length
+	 * @param count bytes already written
+	 * @param c byte to write
+	 * @return new number of written bytes
+	 */
+	private int write(byte[] b, int off, int len, int count, int c) {
+		if (count < len) {
+			b[off + count] = (byte) c;
+			return count + 1;
+		}
+		pending = c;
+		return count;
+	}
+}
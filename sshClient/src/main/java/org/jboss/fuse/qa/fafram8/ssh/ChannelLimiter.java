@@ -0,0 +1,188 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Limits the number of channels opened at the same time over one session. The SSH server refuses to open more channels
+ * than its MaxSessions setting (10 by default for OpenSSH) so the callers over the limit wait for a free channel
+ * instead of failing. The limit is set by the "ssh.max.sessions" property, the wait is limited by the "ssh.channel.wait.timeout"
+ * property.
+ *
+ * <p>The persistent consoles hold their channel for the whole life of the client, so they never wait for a channel and only
+ * "ssh.max.consoles" of them (half of the channels by default) can be opened over one session. The rest is left for the commands.
+ */
+@Slf4j
+public final class ChannelLimiter {
+	// Property for the maximum number of the concurrently opened channels per session
+	public static final String MAX_CHANNELS = "ssh.max.sessions";
+
+	// Property for the time in milliseconds to wait for a free channel
+	public static final String WAIT_TIMEOUT = "ssh.channel.wait.timeout";
+
+	// Property for the maximum number of the persistent consoles per session
+	public static final String MAX_CONSOLES = "ssh.max.consoles";
+
+	private static final String DEFAULT_MAX_CHANNELS = "10";
+	private static final String DEFAULT_WAIT_TIMEOUT = "300000";
+
+	// Weak keys - the permits disappear together with the session
+	private static final Map<Session, Semaphore> PERMITS = Collections.synchronizedMap(new WeakHashMap<Session, Semaphore>());
+	private static final Map<Session, Semaphore> CONSOLE_PERMITS = Collections.synchronizedMap(new WeakHashMap<Session, Semaphore>());
+
+	/**
+	 * Private constructor.
+	 */
+	private ChannelLimiter() {
+	}
+
+	/**
+	 * Gets the maximum number of channels per session.
+	 *
+	 * @return maximum number of channels
+	 */
+	public static int getMaxChannels() {
+		return Integer.parseInt(System.getProperty(MAX_CHANNELS, DEFAULT_MAX_CHANNELS));
+	}
+
+	/**
+	 * Gets the time to wait for a free channel.
+	 *
+	 * @return time in milliseconds
+	 */
+	public static long getWaitTimeout() {
+		return Long.parseLong(System.getProperty(WAIT_TIMEOUT, DEFAULT_WAIT_TIMEOUT));
+	}
+
+	/**
+	 * Gets the maximum number of the persistent consoles per session.
+	 *
+	 * @return maximum number of consoles
+	 */
+	public static int getMaxConsoles() {
+		return Integer.parseInt(System.getProperty(MAX_CONSOLES, String.valueOf(getMaxChannels() / 2)));
+	}
+
+	/**
+	 * Waits for a free channel slot on given session.
+	 *
+	 * @param session session
+	 * @throws JSchException if there is no free slot in the wait timeout or the thread was interrupted while waiting
+	 */
+	public static void acquire(Session session) throws JSchException {
+		final Semaphore permits = permitsFor(session);
+		if (permits.tryAcquire()) {
+			return;
+		}
+
+		log.trace("All " + getMaxChannels() + " channels to " + session.getHost() + " are in use, waiting for a free one");
+		try {
+			if (!permits.tryAcquire(getWaitTimeout(), TimeUnit.MILLISECONDS)) {
+				throw new JSchException("No free channel to " + session.getHost() + " in " + getWaitTimeout() + " ms, all "
+						+ getMaxChannels() + " channels are in use");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JSchException("Interrupted while waiting for a free channel", e);
+		}
+	}
+
+	/**
+	 * Takes a free channel slot on given session without waiting.
+	 *
+	 * @param session session
+	 * @return true if the slot was taken, false if all slots are in use
+	 */
+	public static boolean tryAcquire(Session session) {
+		return permitsFor(session).tryAcquire();
+	}
+
+	/**
+	 * Takes a free channel slot for the persistent console on given session without waiting.
+	 *
+	 * @param session session
+	 * @return true if the slot was taken, false if all channel slots or all console slots are in use
+	 */
+	public static boolean tryAcquireConsole(Session session) {
+		final Semaphore consoles = consolePermitsFor(session);
+		if (!consoles.tryAcquire()) {
+			return false;
+		}
+		if (tryAcquire(session)) {
+			return true;
+		}
+		consoles.release();
+		return false;
+	}
+
+	/**
+	 * Frees the channel slot on given session.
+	 *
+	 * @param session session
+	 */
+	public static void release(Session session) {
+		permitsFor(session).release();
+	}
+
+	/**
+	 * Frees the channel slot of the persistent console on given session.
+	 *
+	 * @param session session
+	 */
+	public static void releaseConsole(Session session) {
+		release(session);
+		consolePermitsFor(session).release();
+	}
+
+	/**
+	 * Gets the number of free channel slots on given session.
+	 *
+	 * @param session session
+	 * @return number of free slots
+	 */
+	public static int available(Session session) {
+		return permitsFor(session).availablePermits();
+	}
+
+	/**
+	 * Gets the semaphore for given session.
+	 *
+	 * @param session session
+	 * @return semaphore
+	 */
+	private static Semaphore permitsFor(Session session) {
+		synchronized (PERMITS) {
+			Semaphore permits = PERMITS.get(session);
+			if (permits == null) {
+				permits = new Semaphore(getMaxChannels(), true);
+				PERMITS.put(session, permits);
+			}
+			return permits;
+		}
+	}
+
+	/**
+	 * Gets the console semaphore for given session.
+	 *
+	 * @param session session
+	 * @return semaphore
+	 */
+	private static Semaphore consolePermitsFor(Session session) {
+		synchronized (CONSOLE_PERMITS) {
+			Semaphore permits = CONSOLE_PERMITS.get(session);
+			if (permits == null) {
+				permits = new Semaphore(getMaxConsoles());
+				CONSOLE_PERMITS.put(session, permits);
+			}
+			return permits;
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Result of the executed command - standard output, error output, exit code and the wall time of the execution.
+ */
+@Getter
+@ToString
+public class CommandResult {
+	// Exit code when the command didn't report any
+	public static final int UNKNOWN_EXIT_CODE = -1;
+
+	private final String stdout;
+
+	private final String stderr;
+
+	private final int exitCode;
+
+	private final long durationMillis;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param stdout standard output
+	 * @param stderr error output
+	 * @param exitCode exit code
+	 * @param durationMillis wall time of the execution in milliseconds
+	 */
+	public CommandResult(String stdout, String stderr, int exitCode, long durationMillis) {
+		this.stdout = stdout;
+		this.stderr = stderr;
+		this.exitCode = exitCode;
+		this.durationMillis = durationMillis;
+	}
+
+	/**
+	 * Checks if the command ended with the exit code 0.
+	 *
+	 * @return true if the command succeeded
+	 */
+	public boolean isSuccess() {
+		return exitCode == 0;
+	}
+}
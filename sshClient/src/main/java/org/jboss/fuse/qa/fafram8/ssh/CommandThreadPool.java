@@ -0,0 +1,57 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded thread pool for the asynchronous command execution shared by all SSH clients. The number of threads is set
+ * by the "ssh.command.threads" property. Tasks over the limit are queued.
+ * The asynchronous commands must not block on other asynchronous commands, otherwise the pool can run out of threads.
+ */
+public final class CommandThreadPool {
+	// Property for the number of threads executing the asynchronous commands
+	public static final String THREADS = "ssh.command.threads";
+
+	private static final String DEFAULT_THREADS = "16";
+
+	private static final long KEEP_ALIVE_SECONDS = 60L;
+
+	private static ExecutorService pool = null;
+
+	/**
+	 * Private constructor.
+	 */
+	private CommandThreadPool() {
+	}
+
+	/**
+	 * Gets the pool, creates it on the first use.
+	 *
+	 * @return executor service
+	 */
+	public static synchronized ExecutorService get() {
+		if (pool == null) {
+			final int threads = Integer.parseInt(System.getProperty(THREADS, DEFAULT_THREADS));
+			final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						private final AtomicInteger counter = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable r) {
+							final Thread t = new Thread(r, "ssh-command-" + counter.incrementAndGet());
+							// Don't prevent the JVM from exiting after the tests
+							t.setDaemon(true);
+							return t;
+						}
+					});
+			// Idle threads are not needed between the deployments
+			executor.allowCoreThreadTimeOut(true);
+			pool = executor;
+		}
+		return pool;
+	}
+}
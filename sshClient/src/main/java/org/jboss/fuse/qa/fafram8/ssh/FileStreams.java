@@ -0,0 +1,94 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Copies the remote file streams to the local files. The bytes are written as they are (no decoding to text)
+ * through a fixed-size buffer, so the size of the file doesn't affect the heap.
+ */
+final class FileStreams {
+	// Size of the copy buffer, the same as the JSch SFTP packet payload
+	static final int BUFFER_SIZE = 32 * 1024;
+
+	/**
+	 * Private constructor.
+	 */
+	private FileStreams() {
+	}
+
+	/**
+	 * Writes the whole stream to the local file, parent directories are created.
+	 *
+	 * @param in stream to read, not closed
+	 * @param local local file
+	 * @param append true to append to the existing file (resumed download), false to overwrite it
+	 * @param gzip true to gzip the content on the fly
+	 * @return number of bytes read from the stream
+	 * @throws IOException if the stream can't be read or the file can't be written
+	 */
+	static long copyToFile(InputStream in, File local, boolean append, boolean gzip) throws IOException {
+		final File parent = local.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+			throw new IOException("Unable to create directory " + parent);
+		}
+
+		try (FileChannel file = FileChannel.open(local.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+			return gzip ? copyCompressed(in, file) : copy(in, file);
+		}
+	}
+
+	/**
+	 * Copies the stream to the channel.
+	 *
+	 * @param in input stream
+	 * @param file file channel
+	 * @return number of copied bytes
+	 * @throws IOException on read or write error
+	 */
+	private static long copy(InputStream in, FileChannel file) throws IOException {
+		final ReadableByteChannel source = Channels.newChannel(in);
+		final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		long total = 0;
+		int read;
+		while ((read = source.read(buffer)) != -1) {
+			total += read;
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				file.write(buffer);
+			}
+			buffer.clear();
+		}
+		return total;
+	}
+
+	/**
+	 * Copies the stream to the channel and gzips it.
+	 *
+	 * @param in input stream
+	 * @param file file channel
+	 * @return number of uncompressed bytes
+	 * @throws IOException on read or write error
+	 */
+	private static long copyCompressed(InputStream in, FileChannel file) throws IOException {
+		final GZIPOutputStream out = new GZIPOutputStream(Channels.newOutputStream(file), BUFFER_SIZE);
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		long total = 0;
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			total += read;
+			out.write(buffer, 0, read);
+		}
+		// Writes the gzip trailer, the channel is closed by the caller
+		out.finish();
+		return total;
+	}
+}
@@ -2,13 +2,19 @@ package org.jboss.fuse.qa.fafram8.ssh;
 
 import org.jboss.fuse.qa.fafram8.exceptions.KarafSessionDownException;
 import org.jboss.fuse.qa.fafram8.exceptions.SSHClientException;
+import org.jboss.fuse.qa.fafram8.exceptions.VerifyFalseException;
 
 import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.JSchException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -18,6 +24,21 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class FuseSSHClient extends SSHClient {
+	// Property for turning on the persistent Karaf console mode
+	public static final String CONSOLE_MODE = "ssh.karaf.console";
+
+	// Execute the commands in one persistent interactive console instead of a new exec channel for each command
+	@Getter
+	@Setter
+	protected boolean consoleMode = Boolean.parseBoolean(System.getProperty(CONSOLE_MODE, "false"));
+
+	// Console is used by one command at a time, concurrent commands use the exec channels
+	private final Lock consoleLock = new ReentrantLock();
+
+	private KarafConsole console = null;
+
+	// Set when the shell channel can't be opened, the exec channels are used then until the next connect
+	private boolean consoleUnsupported = false;
 
 	/**
 	 * Constructor.
@@ -38,6 +59,10 @@ public class FuseSSHClient extends SSHClient {
 		this.password = client.getPassword();
 		this.privateKey = client.getPrivateKey();
 		this.passphrase = client.getPassphrase();
+		this.pooled = client.isPooled();
+		if (client instanceof FuseSSHClient) {
+			this.consoleMode = ((FuseSSHClient) client).isConsoleMode();
+		}
 	}
 
 	@Override
@@ -60,18 +85,11 @@ public class FuseSSHClient extends SSHClient {
 					break;
 				}
 
-				channel = session.openChannel("exec");
-				((ChannelExec) channel).setCommand(command);
-
-				channel.setInputStream(null);
-				((ChannelExec) channel).setErrStream(System.err);
-
-				final InputStream in = channel.getInputStream();
-
-				channel.connect();
-
-				returnString = convertStreamToString(in);
-				if (returnString.replaceAll("\u001B\\[[;\\d]*m", "").trim().startsWith("Command not found")) {
+				returnString = consoleMode ? executeInConsole(command) : null;
+				if (returnString == null) {
+					returnString = executeInChannel(command);
+				}
+				if (returnString.trim().startsWith("Command not found")) {
 					if (!suppressLog) {
 						log.debug("Retrying command in " + (commandRetryTimeout / 1000) + " seconds");
 					}
@@ -88,7 +106,7 @@ public class FuseSSHClient extends SSHClient {
 				}
 			} while (retry);
 
-			returnString = returnString.replaceAll("\u001B\\[[;\\d]*m", "").trim();
+			returnString = returnString.trim();
 
 			return returnString;
 		} catch (JSchException ex) {
@@ -108,8 +126,190 @@ public class FuseSSHClient extends SSHClient {
 		}
 	}
 
+	/**
+	 * Executes the command in a new exec channel.
+	 *
+	 * @param command command
+	 * @return command output
+	 * @throws JSchException if the channel can't be opened
+	 * @throws IOException if the output can't be read
+	 */
+	private String executeInChannel(String command) throws JSchException, IOException {
+		final ChannelExec channel = (ChannelExec) openChannel("exec");
+		try {
+			channel.setCommand(command);
+
+			channel.setInputStream(null);
+			channel.setErrStream(System.err);
+
+			final InputStream in = channel.getInputStream();
+
+			channel.connect();
+
+			return convertStreamToString(in);
+		} finally {
+			closeChannel(channel);
+		}
+	}
+
+	/**
+	 * Executes the command in the persistent console, opens the console if needed.
+	 *
+	 * @param command command
+	 * @return command output or null if the console can't be used (busy, not supported or not responding)
+	 * @throws JSchException if the session is down
+	 * @throws IOException if the console was closed during the command
+	 */
+	private String executeInConsole(String command) throws JSchException, IOException {
+		if (!consoleLock.tryLock()) {
+			return null;
+		}
+		try {
+			if (console == null || !console.isOpen()) {
+				if (consoleUnsupported) {
+					return null;
+				}
+				try {
+					console = KarafConsole.open(this);
+				} catch (JSchException | IOException ex) {
+					if (ex.getMessage() != null && ex.getMessage().contains("session is down")) {
+						throw ex;
+					}
+					log.debug("Karaf console can't be opened, using exec channels: " + ex);
+					consoleUnsupported = true;
+					return null;
+				}
+				if (console == null) {
+					// The other clients sharing the session hold all console slots, try again with the next command
+					log.trace("No free Karaf console slot on " + host + ", using exec channel");
+					return null;
+				}
+			}
+			try {
+				return console.execute(command);
+			} catch (SocketTimeoutException ex) {
+				// Hung console, the exec channels are used until the next connect
+				log.warn("Karaf console didn't finish command \"" + command + "\", using exec channels: " + ex.getMessage());
+				closeConsole();
+				consoleUnsupported = true;
+				return null;
+			} catch (IOException ex) {
+				// The command may have been executed already, so don't repeat it in the exec channel
+				closeConsole();
+				throw ex;
+			}
+		} finally {
+			consoleLock.unlock();
+		}
+	}
+
+	/**
+	 * Closes the persistent console.
+	 */
+	private void closeConsole() {
+		final KarafConsole current = console;
+		console = null;
+		if (current != null) {
+			current.close();
+		}
+	}
+
+	@Override
+	public void connect(boolean suppressLog) throws VerifyFalseException, SSHClientException {
+		// The console belongs to the previous session
+		closeConsole();
+		consoleUnsupported = false;
+		super.connect(suppressLog);
+	}
+
+	@Override
+	public void disconnect() {
+		closeConsole();
+		super.disconnect();
+	}
+
 	@Override
 	public String executeCommand(String command, boolean suppressLog) throws KarafSessionDownException, SSHClientException {
 		return executeCommand(command, suppressLog, false);
 	}
+
+	@Override
+	public boolean executeCommandStreaming(String command, LineConsumer consumer, boolean suppressLog) throws KarafSessionDownException,
+			SSHClientException {
+		final int retriesCount = 2;
+		final long commandRetryTimeout = 1000 * Long.parseLong(System.getProperty("command.retry.timeout", "5"));
+		for (int retries = 1; retries < retriesCount; retries++) {
+			final CommandNotFoundDetector detector = new CommandNotFoundDetector(consumer);
+			final boolean finished = super.executeCommandStreaming(command, detector, suppressLog);
+			if (!detector.isNotFound()) {
+				return finished;
+			}
+			if (!suppressLog) {
+				log.debug("Retrying command in " + (commandRetryTimeout / 1000) + " seconds");
+			}
+			try {
+				Thread.sleep(commandRetryTimeout);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SSHClientException("Interrupted while waiting for command retry");
+			}
+		}
+		// Last try, pass the output as it is
+		return super.executeCommandStreaming(command, consumer, suppressLog);
+	}
+
+	/**
+	 * Line consumer that checks whether the first non-empty line is the "Command not found" message and if so, stops
+	 * the command without passing anything to the delegate consumer.
+	 */
+	private static final class CommandNotFoundDetector implements LineConsumer {
+		private final LineConsumer delegate;
+		private boolean checked = false;
+		private boolean notFound = false;
+		private int emptyLines = 0;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param delegate consumer to pass the lines to
+		 */
+		private CommandNotFoundDetector(LineConsumer delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public boolean accept(String line) {
+			if (checked) {
+				return delegate.accept(line);
+			}
+
+			if (line.trim().isEmpty()) {
+				// Hold the empty lines until it is known if the command exists
+				emptyLines++;
+				return true;
+			}
+
+			checked = true;
+			if (line.trim().startsWith("Command not found")) {
+				notFound = true;
+				return false;
+			}
+
+			for (int i = 0; i < emptyLines; i++) {
+				if (!delegate.accept("")) {
+					return false;
+				}
+			}
+			return delegate.accept(line);
+		}
+
+		/**
+		 * Getter.
+		 *
+		 * @return true if the command was not found
+		 */
+		private boolean isNotFound() {
+			return notFound;
+		}
+	}
 }
@@ -0,0 +1,129 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of the JSch instances shared by all SSH clients. There is one JSch instance for each private key and passphrase,
+ * so the key file is parsed only once (again only when the file is modified) instead of on every connect, and the identities
+ * are not added to the JSch instance again and again. Clients without the private key share one JSch without identities.
+ * The session configuration is also created only once.
+ */
+@Slf4j
+public final class IdentityCache {
+	// Value of the private key meaning no key
+	public static final String NO_KEY = "none";
+
+	private static final IdentityCache INSTANCE = new IdentityCache();
+
+	// Configuration common for all sessions
+	private static final Hashtable<String, String> SESSION_CONFIG = new Hashtable<>();
+
+	static {
+		SESSION_CONFIG.put("StrictHostKeyChecking", "no");
+	}
+
+	private final Map<String, CachedIdentity> identities = new HashMap<>();
+
+	/**
+	 * Private constructor.
+	 */
+	private IdentityCache() {
+	}
+
+	/**
+	 * Gets the instance.
+	 *
+	 * @return identity cache
+	 */
+	public static IdentityCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the JSch instance with the identity loaded, creates it on the first use.
+	 *
+	 * @param privateKey path to the private key or "none"
+	 * @param passphrase key passphrase, can be null
+	 * @return shared JSch instance
+	 * @throws JSchException if the key can't be loaded
+	 */
+	public synchronized JSch getJSch(String privateKey, String passphrase) throws JSchException {
+		final String key = privateKey + '\u0000' + passphrase;
+		final long lastModified = NO_KEY.equals(privateKey) ? 0L : new File(privateKey).lastModified();
+
+		CachedIdentity identity = identities.get(key);
+		if (identity == null || identity.lastModified != lastModified) {
+			final JSch jsch = new JSch();
+			if (!NO_KEY.equals(privateKey)) {
+				log.debug("Loading private key " + privateKey);
+				if (passphrase != null) {
+					jsch.addIdentity(privateKey, passphrase);
+				} else {
+					jsch.addIdentity(privateKey);
+				}
+			}
+			identity = new CachedIdentity(jsch, lastModified);
+			identities.put(key, identity);
+		}
+		return identity.jsch;
+	}
+
+	/**
+	 * Creates a new not connected session with the cached identity and the common configuration.
+	 *
+	 * @param client client with the connection parameters
+	 * @return session
+	 * @throws JSchException if the key can't be loaded or the session can't be created
+	 */
+	public Session createSession(SSHClient client) throws JSchException {
+		final Session session = getJSch(client.getPrivateKey(), client.getPassphrase())
+				.getSession(client.getUsername(), client.getHost(), client.getPort());
+		session.setConfig(SESSION_CONFIG);
+		session.setPassword(client.getPassword());
+		return session;
+	}
+
+	/**
+	 * Gets the number of cached identities.
+	 *
+	 * @return number of cached JSch instances
+	 */
+	public synchronized int size() {
+		return identities.size();
+	}
+
+	/**
+	 * Removes all cached identities.
+	 */
+	public synchronized void clear() {
+		identities.clear();
+	}
+
+	/**
+	 * JSch instance with the loaded key and the time when the key file was modified.
+	 */
+	private static final class CachedIdentity {
+		private final JSch jsch;
+		private final long lastModified;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param jsch jsch instance
+		 * @param lastModified key file modification time
+		 */
+		private CachedIdentity(JSch jsch, long lastModified) {
+			this.jsch = jsch;
+			this.lastModified = lastModified;
+		}
+	}
+}
@@ -0,0 +1,309 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import com.jcraft.jsch.ChannelShell;
+import com.jcraft.jsch.JSchException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Interactive Karaf console kept open in one shell channel. Each command is followed by the echo of the unique end marker,
+ * the output is read until the marker appears. The prompt is detected when the console is opened and the echoed input lines
+ * prefixed by the prompt are removed from the output. The console executes one command at a time.
+ *
+ * <p>Each read has a deadline ("ssh.karaf.console.timeout" property for the commands, the connect timeout for the prompt). When it
+ * expires, the console is closed, which ends the blocked read, and the SocketTimeoutException is thrown.
+ */
+@Slf4j
+public class KarafConsole implements Closeable {
+	// Property with the time in milliseconds to wait for the output of one command
+	public static final String TIMEOUT = "ssh.karaf.console.timeout";
+
+	// Terminal width - wide enough so that the lines are not wrapped
+	private static final int COLUMNS = 4096;
+	private static final int ROWS = 24;
+	private static final int CONNECT_TIMEOUT = 20000;
+	private static final int ID_LENGTH = 8;
+
+	private static final AtomicLong COUNTER = new AtomicLong();
+
+	// Closes the consoles that didn't respond in time
+	private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			final Thread t = new Thread(r, "karaf-console-watchdog");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	private final String markerPrefix = "FAFRAM_CONSOLE_" + UUID.randomUUID().toString().substring(0, ID_LENGTH) + "_";
+
+	private final SSHClient client;
+	private final ChannelShell channel;
+	private final InputStream in;
+	private final BufferedReader reader;
+	private final Writer writer;
+
+	@Getter
+	private String prompt = "";
+
+	// Time in milliseconds to wait for the output of one command
+	@Getter
+	@Setter
+	private long timeout = Long.parseLong(System.getProperty(TIMEOUT, "600000"));
+
+	private volatile boolean open = true;
+
+	// Set by the watchdog when the deadline expired
+	private volatile boolean timedOut = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param client client owning the channel, null if there is no channel
+	 * @param channel shell channel, null if there is no channel
+	 * @param in console output
+	 * @param out console input
+	 */
+	KarafConsole(SSHClient client, ChannelShell channel, InputStream in, OutputStream out) {
+		this.client = client;
+		this.channel = channel;
+		this.in = in;
+		this.reader = new BufferedReader(new InputStreamReader(new AnsiFilterInputStream(in), StandardCharsets.UTF_8));
+		this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Constructor for the console over the given streams. The expired deadline ends the blocked read only if closing the console
+	 * output stream ends it.
+	 *
+	 * @param in console output
+	 * @param out console input
+	 */
+	public KarafConsole(InputStream in, OutputStream out) {
+		this(null, null, in, out);
+	}
+
+	/**
+	 * Opens the shell channel over the client's session and waits for the console.
+	 *
+	 * @param client connected client
+	 * @return ready console, null if all console slots of the session are taken
+	 * @throws JSchException if the channel can't be opened
+	 * @throws IOException if the console doesn't respond
+	 */
+	static KarafConsole open(SSHClient client) throws JSchException, IOException {
+		final ChannelShell shell = (ChannelShell) client.openConsoleChannel();
+		if (shell == null) {
+			return null;
+		}
+		try {
+			shell.setPtyType("dumb");
+			shell.setPtySize(COLUMNS, ROWS, 0, 0);
+			final InputStream in = shell.getInputStream();
+			final OutputStream out = shell.getOutputStream();
+			shell.connect(CONNECT_TIMEOUT);
+			final KarafConsole console = new KarafConsole(client, shell, in, out);
+			console.detectPrompt();
+			return console;
+		} catch (JSchException | IOException | RuntimeException ex) {
+			client.closeChannel(shell);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Waits until the console is ready and detects the prompt from the echo of the first marker.
+	 *
+	 * @throws IOException if the console is closed
+	 * @throws SocketTimeoutException if the console is not ready in the connect timeout
+	 */
+	public synchronized void detectPrompt() throws IOException {
+		final String marker = nextMarker();
+		send("echo " + marker);
+
+		final ScheduledFuture<?> deadline = watch(Math.min(timeout, CONNECT_TIMEOUT));
+		try {
+			String line;
+			while ((line = readLine()) != null) {
+				final int echo = line.indexOf("echo " + marker);
+				if (echo != -1) {
+					// Echoed input line - the prompt is before it
+					prompt = line.substring(0, echo);
+				} else if (line.endsWith(marker)) {
+					if (prompt.isEmpty()) {
+						// No input echo, the output follows right after the prompt
+						prompt = line.substring(0, line.length() - marker.length());
+					}
+					log.trace("Karaf console ready, prompt \"{}\"", prompt);
+					return;
+				}
+			}
+			throw closed();
+		} finally {
+			deadline.cancel(false);
+		}
+	}
+
+	/**
+	 * Executes the command (or several commands on separate lines) and waits for its output.
+	 *
+	 * @param command command
+	 * @return command output without the prompts and the echoed input
+	 * @throws IOException if the console is closed
+	 * @throws SocketTimeoutException if the output doesn't end in the timeout
+	 */
+	public synchronized String execute(String command) throws IOException {
+		final String marker = nextMarker();
+		final String endCommand = "echo " + marker;
+
+		// Echoed input lines that are not the part of the output
+		final Set<String> input = new HashSet<>();
+		for (String commandLine : command.split("\n")) {
+			input.add(commandLine.trim());
+		}
+		input.add(endCommand);
+
+		send(command + "\n" + endCommand);
+
+		final ScheduledFuture<?> deadline = watch(timeout);
+		try {
+			final StringBuilder output = new StringBuilder();
+			String line;
+			while ((line = readLine()) != null) {
+				if (!prompt.isEmpty() && line.startsWith(prompt)) {
+					final String rest = line.substring(prompt.length());
+					if (input.contains(rest.trim())) {
+						continue;
+					}
+					line = rest;
+				}
+
+				if (line.endsWith(marker) && !line.contains(endCommand)) {
+					// Output without the new line at the end is followed directly by the marker
+					final String last = line.substring(0, line.length() - marker.length());
+					if (!last.trim().isEmpty()) {
+						output.append(last);
+					}
+					return output.toString();
+				}
+				output.append(line).append("\n");
+			}
+			throw closed();
+		} finally {
+			deadline.cancel(false);
+		}
+	}
+
+	/**
+	 * Checks if the console can be used.
+	 *
+	 * @return true if the console is open
+	 */
+	public boolean isOpen() {
+		return open && (channel == null || channel.isConnected());
+	}
+
+	@Override
+	public void close() {
+		open = false;
+		if (channel != null) {
+			client.closeChannel(channel);
+		} else {
+			try {
+				in.close();
+			} catch (IOException ignored) {
+				// Already closed
+			}
+		}
+	}
+
+	/**
+	 * Writes the input to the console.
+	 *
+	 * @param text input lines
+	 * @throws IOException if the console is closed
+	 */
+	private void send(String text) throws IOException {
+		if (!isOpen()) {
+			throw closed();
+		}
+		writer.write(text + "\n");
+		writer.flush();
+	}
+
+	/**
+	 * Reads one output line.
+	 *
+	 * @return line without the carriage return, null at the end of the stream
+	 * @throws IOException on read error
+	 */
+	private String readLine() throws IOException {
+		final String line;
+		try {
+			line = reader.readLine();
+		} catch (IOException ex) {
+			// The read of the console closed by the watchdog may fail instead of ending the stream
+			throw timedOut ? closed() : ex;
+		}
+		return line == null ? null : line.replace("\r", "");
+	}
+
+	/**
+	 * Starts the deadline of the read.
+	 *
+	 * @param millis time to wait in milliseconds
+	 * @return deadline, cancelled when the read ends
+	 */
+	private ScheduledFuture<?> watch(final long millis) {
+		return WATCHDOG.schedule(new Runnable() {
+			@Override
+			public void run() {
+				log.warn("Karaf console didn't respond in " + millis + " ms, closing it");
+				timedOut = true;
+				close();
+			}
+		}, millis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Generates the next unique marker.
+	 *
+	 * @return marker
+	 */
+	private String nextMarker() {
+		return markerPrefix + COUNTER.incrementAndGet() + "_END";
+	}
+
+	/**
+	 * Marks the console as closed.
+	 *
+	 * @return exception to throw, SocketTimeoutException if the console was closed by the watchdog
+	 */
+	private IOException closed() {
+		open = false;
+		return timedOut ? new SocketTimeoutException("Karaf console didn't respond in time") : new IOException("Karaf console is closed");
+	}
+}
@@ -0,0 +1,15 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+/**
+ * Callback for the streamed command output. Gets the output lines (without the ANSI escape sequences) as they arrive
+ * from the remote side.
+ */
+public interface LineConsumer {
+	/**
+	 * Consumes one line of the command output.
+	 *
+	 * @param line output line without the line terminator
+	 * @return true to continue reading, false to stop the command and close the channel
+	 */
+	boolean accept(String line);
+}
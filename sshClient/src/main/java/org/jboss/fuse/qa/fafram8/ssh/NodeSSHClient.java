@@ -25,6 +25,28 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class NodeSSHClient extends SSHClient {
+	/**
+	 * Constructor.
+	 */
+	public NodeSSHClient() {
+	}
+
+	/**
+	 * Copy constructor.
+	 *
+	 * @param client client to be copied
+	 */
+	public NodeSSHClient(SSHClient client) {
+		log.trace("Creating copy of NodeSSHClient: " + client);
+		this.host = client.getHost();
+		this.port = client.getPort();
+		this.username = client.getUsername();
+		this.password = client.getPassword();
+		this.privateKey = client.getPrivateKey();
+		this.passphrase = client.getPassphrase();
+		this.pooled = client.isPooled();
+	}
+
 	@Override
 	public String executeCommand(String command, boolean suppressLog) throws KarafSessionDownException, SSHClientException {
 		return executeCommand(command, suppressLog, false);
@@ -39,18 +61,21 @@ public class NodeSSHClient extends SSHClient {
 			log.debug("Command: " + command);
 		}
 		try {
-			channel = session.openChannel("exec");
-			((ChannelExec) channel).setCommand(command);
-
-			channel.setInputStream(null);
-			((ChannelExec) channel).setErrStream(System.err);
-
-			try (InputStream in = channel.getInputStream()) {
-				channel.connect();
-				returnString = convertStreamToString(in);
+			final ChannelExec channel = (ChannelExec) openChannel("exec");
+			try {
+				channel.setCommand(command);
+
+				channel.setInputStream(null);
+				channel.setErrStream(System.err);
+
+				try (InputStream in = channel.getInputStream()) {
+					channel.connect();
+					returnString = convertStreamToString(in);
+				}
+			} finally {
+				closeChannel(channel);
 			}
-			returnString = returnString.replaceAll("\u001B\\[[;\\d]*m", "").trim();
-			channel.disconnect();
+			returnString = returnString.trim();
 			return returnString;
 		} catch (JSchException ex) {
 			if (!ignoreExceptions) {
@@ -76,14 +101,17 @@ public class NodeSSHClient extends SSHClient {
 		log.info("Copying file " + localPath + " to remote machine path " + remotePath);
 
 		try {
-			final ChannelSftp sftpChannel = (ChannelSftp) session.openChannel("sftp");
-			sftpChannel.connect();
-			final File file = new File(localPath);
-			sftpChannel.cd(StringUtils.substringBeforeLast(remotePath, "/"));
-			try (FileInputStream fis = new FileInputStream(file)) {
-				sftpChannel.put(fis, StringUtils.substringAfterLast(remotePath, "/"));
+			final ChannelSftp sftpChannel = (ChannelSftp) openChannel("sftp");
+			try {
+				sftpChannel.connect();
+				final File file = new File(localPath);
+				sftpChannel.cd(StringUtils.substringBeforeLast(remotePath, "/"));
+				try (FileInputStream fis = new FileInputStream(file)) {
+					sftpChannel.put(fis, StringUtils.substringAfterLast(remotePath, "/"));
+				}
+			} finally {
+				closeChannel(sftpChannel);
 			}
-			sftpChannel.disconnect();
 		} catch (RuntimeException ex) {
 			throw ex;
 		} catch (Exception ex) {
@@ -93,7 +121,7 @@ public class NodeSSHClient extends SSHClient {
 	}
 
 	/**
-	 * Convert remote file to String.
+	 * Convert remote file to String. Use downloadToFile() for the large files.
 	 *
 	 * @param remotePath absolute path to remote file
 	 * @return content of remote file as String
@@ -106,12 +134,15 @@ public class NodeSSHClient extends SSHClient {
 		String propertyFileString;
 
 		try {
-			sftpChannel = (ChannelSftp) session.openChannel("sftp");
-			sftpChannel.connect();
-			try (InputStream stream = sftpChannel.get(remotePath)) {
-				propertyFileString = IOUtils.toString(stream);
+			sftpChannel = (ChannelSftp) openChannel("sftp");
+			try {
+				sftpChannel.connect();
+				try (InputStream stream = sftpChannel.get(remotePath)) {
+					propertyFileString = IOUtils.toString(stream);
+				}
+			} finally {
+				closeChannel(sftpChannel);
 			}
-			sftpChannel.disconnect();
 		} catch (RuntimeException ex) {
 			log.error("Exception thrown during reading file from remote machine ", ex);
 			throw ex;
@@ -122,6 +153,36 @@ public class NodeSSHClient extends SSHClient {
 		return propertyFileString;
 	}
 
+	/**
+	 * Downloads the remote file to the local file. The content is streamed to the disk, not loaded into the memory.
+	 *
+	 * @param remotePath absolute path to remote file
+	 * @param localPath path to local file, parent directories are created
+	 * @return number of downloaded bytes
+	 * @throws CopyFileException if download fails
+	 */
+	public long downloadToFile(String remotePath, String localPath) throws CopyFileException {
+		return downloadToFile(remotePath, localPath, false);
+	}
+
+	/**
+	 * Downloads the remote file to the local file. The content is streamed to the disk, not loaded into the memory. The download
+	 * goes through the SftpTransfer, so the interrupted download is resumed the same way as the downloads of the archived files.
+	 *
+	 * @param remotePath absolute path to remote file
+	 * @param localPath path to local file, parent directories are created
+	 * @param gzip true if the local file should be gzipped
+	 * @return number of downloaded (uncompressed) bytes
+	 * @throws CopyFileException if download fails
+	 */
+	public long downloadToFile(String remotePath, String localPath, boolean gzip) throws CopyFileException {
+		log.info("Downloading file from remote machine path " + remotePath + " to " + localPath);
+
+		try (SftpTransfer transfer = new SftpTransfer(this, 1)) {
+			return transfer.download(remotePath, new File(localPath), gzip);
+		}
+	}
+
 	/**
 	 * Writes input stream to file on remote machine.
 	 *
@@ -133,12 +194,14 @@ public class NodeSSHClient extends SSHClient {
 		log.info("Writing file to remote machine path " + remotePath);
 
 		try {
-			final ChannelSftp sftpChannel = (ChannelSftp) session.openChannel("sftp");
-			sftpChannel.connect();
-			sftpChannel.cd(StringUtils.substringBeforeLast(remotePath, "/"));
-			sftpChannel.put(stream, StringUtils.substringAfterLast(remotePath, "/"));
-
-			sftpChannel.disconnect();
+			final ChannelSftp sftpChannel = (ChannelSftp) openChannel("sftp");
+			try {
+				sftpChannel.connect();
+				sftpChannel.cd(StringUtils.substringBeforeLast(remotePath, "/"));
+				sftpChannel.put(stream, StringUtils.substringAfterLast(remotePath, "/"));
+			} finally {
+				closeChannel(sftpChannel);
+			}
 		} catch (RuntimeException ex) {
 			log.error("Exception thrown during uploading file to remote machine ", ex);
 			throw ex;
@@ -0,0 +1,293 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import org.jboss.fuse.qa.fafram8.exceptions.CopyFileException;
+import org.jboss.fuse.qa.fafram8.exceptions.KarafSessionDownException;
+import org.jboss.fuse.qa.fafram8.exceptions.SSHClientException;
+import org.jboss.fuse.qa.fafram8.exceptions.VerifyFalseException;
+import org.jboss.fuse.qa.fafram8.ssh.SSHRecording.Entry;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * SSH client that passes all calls to the wrapped client and records the commands, responses and durations to the SSHRecording.
+ * The connection parameters set on this client are passed to the wrapped client on connect. The channels and the session are the
+ * wrapped client's ones, so the SFTP transfers work over this client (and are recorded by the SftpTransfer). The recorded file is
+ * replayed by the ReplaySSHClient.
+ */
+@Slf4j
+public class RecordingSSHClient extends NodeSSHClient {
+	@Getter
+	private final SSHClient delegate;
+
+	@Getter
+	private final SSHRecording recording;
+
+	// Connected by this client and not disconnected yet - the connection lost in this state is recorded
+	private volatile boolean connected = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param delegate client that executes the commands
+	 * @param recording recording where the commands are written
+	 */
+	public RecordingSSHClient(SSHClient delegate, SSHRecording recording) {
+		this.delegate = delegate;
+		this.recording = recording;
+		this.host = delegate.getHost();
+		this.port = delegate.getPort();
+		this.username = delegate.getUsername();
+		this.password = delegate.getPassword();
+		this.privateKey = delegate.getPrivateKey();
+		this.passphrase = delegate.getPassphrase();
+		this.pooled = delegate.isPooled();
+	}
+
+	@Override
+	public String executeCommand(String command, boolean suppressLog) throws KarafSessionDownException, SSHClientException {
+		return executeCommand(command, suppressLog, false);
+	}
+
+	@Override
+	public String executeCommand(String command, boolean suppressLog, boolean ignoreExceptions) throws KarafSessionDownException,
+			SSHClientException {
+		final long start = System.currentTimeMillis();
+		try {
+			final String response = delegate.executeCommand(command, suppressLog, ignoreExceptions);
+			record(Entry.EXEC, command, start, Entry.OK, CommandResult.UNKNOWN_EXIT_CODE, response, null);
+			return response;
+		} catch (KarafSessionDownException ex) {
+			record(Entry.EXEC, command, start, Entry.KARAF_DOWN, CommandResult.UNKNOWN_EXIT_CODE, ex.getMessage(), null);
+			throw ex;
+		} catch (SSHClientException ex) {
+			record(Entry.EXEC, command, start, Entry.SSH_ERROR, CommandResult.UNKNOWN_EXIT_CODE, ex.getMessage(), null);
+			throw ex;
+		}
+	}
+
+	@Override
+	public CommandResult executeCommandWithResult(String command, boolean suppressLog) throws KarafSessionDownException,
+			SSHClientException {
+		final long start = System.currentTimeMillis();
+		try {
+			final CommandResult result = delegate.executeCommandWithResult(command, suppressLog);
+			record(Entry.RESULT, command, start, Entry.OK, result.getExitCode(), result.getStdout(), result.getStderr());
+			return result;
+		} catch (KarafSessionDownException ex) {
+			record(Entry.RESULT, command, start, Entry.KARAF_DOWN, CommandResult.UNKNOWN_EXIT_CODE, ex.getMessage(), null);
+			throw ex;
+		} catch (SSHClientException ex) {
+			record(Entry.RESULT, command, start, Entry.SSH_ERROR, CommandResult.UNKNOWN_EXIT_CODE, ex.getMessage(), null);
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean executeCommandStreaming(String command, final LineConsumer consumer, boolean suppressLog)
+			throws KarafSessionDownException, SSHClientException {
+		final long start = System.currentTimeMillis();
+		final List<String> lines = new ArrayList<>();
+		try {
+			final boolean completed = delegate.executeCommandStreaming(command, new LineConsumer() {
+				@Override
+				public boolean accept(String line) {
+					lines.add(line);
+					return consumer.accept(line);
+				}
+			}, suppressLog);
+			record(Entry.STREAM, command, start, completed ? Entry.OK : Entry.STOPPED, CommandResult.UNKNOWN_EXIT_CODE,
+					StringUtils.join(lines, "\n"), null);
+			return completed;
+		} catch (KarafSessionDownException ex) {
+			record(Entry.STREAM, command, start, Entry.KARAF_DOWN, CommandResult.UNKNOWN_EXIT_CODE, ex.getMessage(), null);
+			throw ex;
+		} catch (SSHClientException ex) {
+			record(Entry.STREAM, command, start, Entry.SSH_ERROR, CommandResult.UNKNOWN_EXIT_CODE, ex.getMessage(), null);
+			throw ex;
+		}
+	}
+
+	@Override
+	public void copyFileToRemote(String localPath, String remotePath) throws CopyFileException {
+		final long start = System.currentTimeMillis();
+		try {
+			node().copyFileToRemote(localPath, remotePath);
+			record(Entry.PUT, remotePath, start, Entry.OK, CommandResult.UNKNOWN_EXIT_CODE, null, null);
+		} catch (CopyFileException ex) {
+			record(Entry.PUT, remotePath, start, Entry.COPY_ERROR, CommandResult.UNKNOWN_EXIT_CODE, ex.getMessage(), null);
+			throw ex;
+		}
+	}
+
+	@Override
+	public void writeFileToRemote(InputStream stream, String remotePath) throws CopyFileException {
+		final long start = System.currentTimeMillis();
+		try {
+			node().writeFileToRemote(stream, remotePath);
+			record(Entry.PUT, remotePath, start, Entry.OK, CommandResult.UNKNOWN_EXIT_CODE, null, null);
+		} catch (CopyFileException ex) {
+			record(Entry.PUT, remotePath, start, Entry.COPY_ERROR, CommandResult.UNKNOWN_EXIT_CODE, ex.getMessage(), null);
+			throw ex;
+		}
+	}
+
+	@Override
+	public String readFileFromRemote(String remotePath) throws CopyFileException {
+		final long start = System.currentTimeMillis();
+		try {
+			final String content = node().readFileFromRemote(remotePath);
+			record(Entry.GET, remotePath, start, Entry.OK, CommandResult.UNKNOWN_EXIT_CODE, content, null);
+			return content;
+		} catch (CopyFileException ex) {
+			record(Entry.GET, remotePath, start, Entry.COPY_ERROR, CommandResult.UNKNOWN_EXIT_CODE, ex.getMessage(), null);
+			throw ex;
+		}
+	}
+
+	@Override
+	public long downloadToFile(String remotePath, String localPath, boolean gzip) throws CopyFileException {
+		final long start = System.currentTimeMillis();
+		try {
+			final long bytes = node().downloadToFile(remotePath, localPath, gzip);
+			recordTransfer(Entry.DOWNLOAD, remotePath, start, new File(localPath), gzip, bytes, null);
+			return bytes;
+		} catch (CopyFileException ex) {
+			recordTransfer(Entry.DOWNLOAD, remotePath, start, null, gzip, 0L, ex);
+			throw ex;
+		}
+	}
+
+	@Override
+	public void connect(boolean suppressLog) throws VerifyFalseException, SSHClientException {
+		// The parameters may be changed after the creation (for example the port of the child container)
+		delegate.setHost(host);
+		delegate.setPort(port);
+		delegate.setUsername(username);
+		delegate.setPassword(password);
+		delegate.setPrivateKey(privateKey);
+		delegate.setPassphrase(passphrase);
+		delegate.setPooled(pooled);
+		final long start = System.currentTimeMillis();
+		try {
+			delegate.connect(suppressLog);
+		} catch (VerifyFalseException ex) {
+			record(Entry.CONNECT, "", start, Entry.VERIFY_FALSE, CommandResult.UNKNOWN_EXIT_CODE, ex.getMessage(), null);
+			throw ex;
+		} catch (SSHClientException ex) {
+			record(Entry.CONNECT, "", start, Entry.SSH_ERROR, CommandResult.UNKNOWN_EXIT_CODE, ex.getMessage(), null);
+			throw ex;
+		}
+		record(Entry.CONNECT, "", start, Entry.OK, CommandResult.UNKNOWN_EXIT_CODE, null, null);
+		connected = true;
+		recording.recordState(host + ":" + port, true);
+	}
+
+	@Override
+	public void disconnect() {
+		connected = false;
+		delegate.disconnect();
+	}
+
+	@Override
+	public Boolean isConnected() {
+		final Boolean state = delegate.isConnected();
+		if (connected && !state) {
+			// Dropped by the server, not by this client
+			recording.recordState(host + ":" + port, false);
+		}
+		return state;
+	}
+
+	@Override
+	public boolean enableKeepAlive(int interval) {
+		return delegate.enableKeepAlive(interval);
+	}
+
+	@Override
+	public Session getSession() {
+		return delegate.getSession();
+	}
+
+	@Override
+	protected Channel openChannel(String type) throws JSchException {
+		return delegate.openChannel(type);
+	}
+
+	@Override
+	protected void closeChannel(Channel toClose) {
+		delegate.closeChannel(toClose);
+	}
+
+	/**
+	 * Records the file transfer. The content of the downloaded file is recorded if it is not larger than
+	 * SSHRecording.MAX_RECORDED_DOWNLOAD.
+	 *
+	 * @param kind Entry.PUT or Entry.DOWNLOAD
+	 * @param remotePath remote path
+	 * @param start start of the transfer
+	 * @param local local file, null if the transfer failed
+	 * @param gzip true if the downloaded file is gzipped
+	 * @param bytes number of transferred (uncompressed) bytes
+	 * @param failure failure of the transfer, null if it succeeded
+	 */
+	void recordTransfer(String kind, String remotePath, long start, File local, boolean gzip, long bytes, CopyFileException failure) {
+		if (failure != null) {
+			record(kind, remotePath, start, Entry.COPY_ERROR, CommandResult.UNKNOWN_EXIT_CODE, failure.getMessage(), null);
+			return;
+		}
+		String content = null;
+		if (Entry.DOWNLOAD.equals(kind) && bytes <= SSHRecording.MAX_RECORDED_DOWNLOAD) {
+			try (InputStream in = gzip ? new GZIPInputStream(new FileInputStream(local)) : new FileInputStream(local)) {
+				content = IOUtils.toString(in, "UTF-8");
+			} catch (IOException ex) {
+				log.warn("Unable to record the content of the downloaded file " + local + ": " + ex);
+			}
+		}
+		record(kind, remotePath, start, Entry.OK, CommandResult.UNKNOWN_EXIT_CODE, content, null);
+	}
+
+	/**
+	 * Gets the wrapped client as the node client for the file transfers.
+	 *
+	 * @return node client
+	 * @throws CopyFileException if the wrapped client is not the node client
+	 */
+	private NodeSSHClient node() throws CopyFileException {
+		if (delegate instanceof NodeSSHClient) {
+			return (NodeSSHClient) delegate;
+		}
+		throw new CopyFileException("Recorded SSH client is not instance of NodeSSHClient!");
+	}
+
+	/**
+	 * Records the call.
+	 *
+	 * @param kind kind of the call
+	 * @param command command
+	 * @param start start of the call
+	 * @param outcome outcome
+	 * @param exitCode exit code
+	 * @param response response or the exception message
+	 * @param stderr error output
+	 */
+	private void record(String kind, String command, long start, String outcome, int exitCode, String response, String stderr) {
+		recording.record(new Entry(host + ":" + port, kind, command, System.currentTimeMillis() - start, outcome, exitCode, response,
+				stderr));
+	}
+}
@@ -0,0 +1,234 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import org.jboss.fuse.qa.fafram8.exceptions.CopyFileException;
+import org.jboss.fuse.qa.fafram8.exceptions.KarafSessionDownException;
+import org.jboss.fuse.qa.fafram8.exceptions.SSHClientException;
+import org.jboss.fuse.qa.fafram8.exceptions.VerifyFalseException;
+import org.jboss.fuse.qa.fafram8.ssh.SSHRecording.Entry;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.JSchException;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * SSH client that answers the calls from the SSHRecording instead of the server - no network connection is made. The same
+ * command on the same host:port gets the recorded responses in the recorded order, the last one is repeated then. The recorded
+ * durations are divided by the replay speed, the speed 0 answers immediately. The recorded connection drops are replayed too.
+ * There is no session, so no channel can be opened - the SFTP transfers are replayed by the SftpTransfer.
+ */
+@Slf4j
+public class ReplaySSHClient extends NodeSSHClient {
+	@Getter
+	private final SSHRecording recording;
+
+	@Getter
+	private final double speed;
+
+	private volatile boolean connected = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param client client whose connection parameters are used
+	 * @param recording recording that answers the calls
+	 * @param speed time compression of the recorded durations, 0 for no waiting
+	 */
+	public ReplaySSHClient(SSHClient client, SSHRecording recording, double speed) {
+		this.recording = recording;
+		this.speed = speed;
+		this.host = client.getHost();
+		this.port = client.getPort();
+		this.username = client.getUsername();
+		this.password = client.getPassword();
+		this.privateKey = client.getPrivateKey();
+		this.passphrase = client.getPassphrase();
+		this.pooled = false;
+	}
+
+	@Override
+	public String executeCommand(String command, boolean suppressLog) throws KarafSessionDownException, SSHClientException {
+		return executeCommand(command, suppressLog, false);
+	}
+
+	@Override
+	public String executeCommand(String command, boolean suppressLog, boolean ignoreExceptions) throws KarafSessionDownException,
+			SSHClientException {
+		if (!suppressLog) {
+			log.info("Replaying command: " + command);
+		}
+		return replayCommand(Entry.EXEC, command).getResponse();
+	}
+
+	@Override
+	public CommandResult executeCommandWithResult(String command, boolean suppressLog) throws KarafSessionDownException,
+			SSHClientException {
+		final Entry entry = replayCommand(Entry.RESULT, command);
+		return new CommandResult(entry.getResponse(), entry.getStderr(), entry.getExitCode(), entry.getDurationMillis());
+	}
+
+	@Override
+	public boolean executeCommandStreaming(String command, LineConsumer consumer, boolean suppressLog) throws KarafSessionDownException,
+			SSHClientException {
+		final Entry entry = replayCommand(Entry.STREAM, command);
+		if (entry.getResponse() != null) {
+			for (String line : entry.getResponse().split("\n", -1)) {
+				if (!consumer.accept(line)) {
+					return false;
+				}
+			}
+		}
+		return !Entry.STOPPED.equals(entry.getOutcome());
+	}
+
+	@Override
+	public void copyFileToRemote(String localPath, String remotePath) throws CopyFileException {
+		replayTransfer(Entry.PUT, remotePath);
+	}
+
+	@Override
+	public void writeFileToRemote(InputStream stream, String remotePath) throws CopyFileException {
+		replayTransfer(Entry.PUT, remotePath);
+	}
+
+	@Override
+	public String readFileFromRemote(String remotePath) throws CopyFileException {
+		return replayTransfer(Entry.GET, remotePath).getResponse();
+	}
+
+	@Override
+	public long downloadToFile(String remotePath, String localPath, boolean gzip) throws CopyFileException {
+		final Entry entry = replayTransfer(Entry.DOWNLOAD, remotePath);
+		if (entry.getResponse() == null) {
+			log.debug("Content of " + remotePath + " was not recorded, replaying it as an empty file");
+		}
+		final byte[] content = entry.getResponse() == null ? new byte[0] : entry.getResponse().getBytes(StandardCharsets.UTF_8);
+		try {
+			return FileStreams.copyToFile(new ByteArrayInputStream(content), new File(localPath), false, gzip);
+		} catch (IOException ex) {
+			throw new CopyFileException(ex);
+		}
+	}
+
+	@Override
+	public void connect(boolean suppressLog) throws VerifyFalseException, SSHClientException {
+		// Recordings without the connect calls connect always
+		final Entry entry = replay(Entry.CONNECT, "");
+		if (entry != null && Entry.VERIFY_FALSE.equals(entry.getOutcome())) {
+			throw new VerifyFalseException(entry.getResponse());
+		}
+		if (entry != null && Entry.SSH_ERROR.equals(entry.getOutcome())) {
+			throw new SSHClientException(entry.getResponse());
+		}
+		connected = true;
+	}
+
+	@Override
+	public void disconnect() {
+		connected = false;
+	}
+
+	@Override
+	public Boolean isConnected() {
+		return connected && !Boolean.FALSE.equals(recording.getState(host + ":" + port));
+	}
+
+	@Override
+	protected Channel openChannel(String type) throws JSchException {
+		throw new JSchException("SSH client replaying " + recording.getFile() + " has no session, the " + type
+				+ " channel to " + host + ":" + port + " can't be opened");
+	}
+
+	/**
+	 * Replays the transfer done by the SftpTransfer.
+	 *
+	 * @param local local file
+	 * @param remotePath remote path
+	 * @param upload true for upload, false for download
+	 * @param gzip true if the downloaded file should be gzipped
+	 * @return number of transferred bytes
+	 * @throws CopyFileException if the recorded transfer failed or if the transfer was not recorded
+	 */
+	long replaySftpTransfer(File local, String remotePath, boolean upload, boolean gzip) throws CopyFileException {
+		if (upload) {
+			replayTransfer(Entry.PUT, remotePath);
+			return local.length();
+		}
+		return downloadToFile(remotePath, local.getAbsolutePath(), gzip);
+	}
+
+	@Override
+	public boolean enableKeepAlive(int interval) {
+		return connected;
+	}
+
+	/**
+	 * Replays the command.
+	 *
+	 * @param kind kind of the call
+	 * @param command command
+	 * @return recorded entry
+	 * @throws KarafSessionDownException if the recorded call failed with this exception
+	 * @throws SSHClientException if the recorded call failed with this exception or if the call was not recorded
+	 */
+	private Entry replayCommand(String kind, String command) throws KarafSessionDownException, SSHClientException {
+		final Entry entry = replay(kind, command);
+		if (entry == null) {
+			throw new SSHClientException("Command \"" + command + "\" on " + host + ":" + port + " was not recorded in "
+					+ recording.getFile());
+		}
+		if (Entry.KARAF_DOWN.equals(entry.getOutcome())) {
+			throw new KarafSessionDownException(entry.getResponse());
+		}
+		if (Entry.SSH_ERROR.equals(entry.getOutcome())) {
+			throw new SSHClientException(entry.getResponse());
+		}
+		return entry;
+	}
+
+	/**
+	 * Replays the file transfer.
+	 *
+	 * @param kind kind of the call
+	 * @param remotePath remote path
+	 * @return recorded entry
+	 * @throws CopyFileException if the recorded transfer failed or if the transfer was not recorded
+	 */
+	private Entry replayTransfer(String kind, String remotePath) throws CopyFileException {
+		final Entry entry = replay(kind, remotePath);
+		if (entry == null) {
+			throw new CopyFileException("Transfer of " + remotePath + " on " + host + ":" + port + " was not recorded in "
+					+ recording.getFile());
+		}
+		if (Entry.COPY_ERROR.equals(entry.getOutcome())) {
+			throw new CopyFileException(entry.getResponse());
+		}
+		return entry;
+	}
+
+	/**
+	 * Gets the next recorded entry and waits for its compressed duration.
+	 *
+	 * @param kind kind of the call
+	 * @param command command
+	 * @return entry or null if not recorded
+	 */
+	private Entry replay(String kind, String command) {
+		final Entry entry = recording.next(host + ":" + port, kind, command);
+		if (entry != null && speed > 0) {
+			try {
+				Thread.sleep((long) (entry.getDurationMillis() / speed));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return entry;
+	}
+}
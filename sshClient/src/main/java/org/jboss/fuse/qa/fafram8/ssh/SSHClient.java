@@ -7,11 +7,22 @@ import org.jboss.fuse.qa.fafram8.exceptions.SSHClientException;
 import org.jboss.fuse.qa.fafram8.exceptions.VerifyFalseException;
 
 import com.jcraft.jsch.Channel;
-import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -26,7 +37,7 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 @ToString(of = {"host", "port", "username", "password"})
-@EqualsAndHashCode
+@EqualsAndHashCode(exclude = {"openChannels", "consoleChannels", "session", "pooled", "sessionFromPool"})
 public abstract class SSHClient {
 
 	@Getter
@@ -57,15 +68,30 @@ public abstract class SSHClient {
 	@Setter
 	protected Session session;
 
+	// Borrow the session from the SessionPool instead of creating a new one for each client
 	@Getter
 	@Setter
-	protected Channel channel;
+	protected boolean pooled = SessionPool.isEnabled();
 
-	protected JSch ssh = new JSch();
+	// Whether the current session was borrowed from the pool - used when the pooled flag is changed while connected
+	private boolean sessionFromPool = false;
+
+	// Channels currently opened by this client - each command uses its own channel so the client can be used concurrently
+	private final Set<Channel> openChannels = Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
+
+	// Opened channels of the persistent consoles, they take the console slots of the session
+	private final Set<Channel> consoleChannels = Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
 
 	private static final int DEFAULT_NODE_PORT = 22;
 	private static final int DEFAULT_FUSE_PORT = 8101;
 
+	// How long to wait for the exit status after the end of the output (in milliseconds)
+	private static final long EXIT_STATUS_TIMEOUT = 5000L;
+	private static final long EXIT_STATUS_POLL = 10L;
+
+	// Number of unanswered keep-alive messages after which the session is disconnected
+	private static final int KEEP_ALIVE_COUNT_MAX = 3;
+
 	/**
 	 * Method for executing command on connected SSH server. Each implementation has some specific small hacks.
 	 *
@@ -92,6 +118,188 @@ public abstract class SSHClient {
 	public abstract String executeCommand(String command, boolean suppressLog, boolean ignoreExceptions) throws KarafSessionDownException,
 			SSHClientException;
 
+	/**
+	 * Executes the command in the shared CommandThreadPool. Commands executed asynchronously on one client run
+	 * concurrently, each in its own channel.
+	 *
+	 * @param command command to be executed
+	 * @param suppressLog supress exception/command logging
+	 * @return future with the command response, the future fails with the exception thrown by executeCommand()
+	 */
+	public Future<String> executeCommandAsync(final String command, final boolean suppressLog) {
+		return CommandThreadPool.get().submit(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return executeCommand(command, suppressLog);
+			}
+		});
+	}
+
+	/**
+	 * Executes the command in the shared CommandThreadPool and returns its output, error output, exit code and duration.
+	 *
+	 * @param command command to be executed
+	 * @param suppressLog supress exception/command logging
+	 * @return future with the command result, the future fails with the exception thrown by executeCommandWithResult()
+	 */
+	public Future<CommandResult> executeCommandWithResultAsync(final String command, final boolean suppressLog) {
+		return CommandThreadPool.get().submit(new Callable<CommandResult>() {
+			@Override
+			public CommandResult call() throws Exception {
+				return executeCommandWithResult(command, suppressLog);
+			}
+		});
+	}
+
+	/**
+	 * Executes all commands asynchronously at once.
+	 *
+	 * @param suppressLog supress exception/command logging
+	 * @param commands commands to be executed
+	 * @return futures with the command responses in the same order as the commands
+	 */
+	public List<Future<String>> executeCommandsAsync(boolean suppressLog, String... commands) {
+		final List<Future<String>> futures = new ArrayList<>(commands.length);
+		for (String command : commands) {
+			futures.add(executeCommandAsync(command, suppressLog));
+		}
+		return futures;
+	}
+
+	/**
+	 * Executes the command and passes its output line by line to the consumer as it arrives, without buffering the whole
+	 * response. ANSI escape sequences are removed from the lines.
+	 *
+	 * @param command command to be executed
+	 * @param consumer consumer of the output lines, returning false from the consumer stops the command
+	 * @param suppressLog supress command logging
+	 * @return true if the whole output was read, false if the consumer stopped the command
+	 * @throws KarafSessionDownException throws this exception if Karaf is down(specific for FuseSSHClient)
+	 * @throws SSHClientException common exception for sshclient when there is some problem in executing command
+	 */
+	public boolean executeCommandStreaming(String command, LineConsumer consumer, boolean suppressLog) throws KarafSessionDownException,
+			SSHClientException {
+		if (!suppressLog) {
+			log.debug("Streaming command: " + command);
+		}
+		try {
+			final ChannelExec exec = (ChannelExec) openChannel("exec");
+			try {
+				exec.setCommand(command);
+				exec.setInputStream(null);
+				exec.setErrStream(System.err);
+
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(new AnsiFilterInputStream(exec.getInputStream()), "UTF-8"))) {
+					exec.connect();
+					String line;
+					while ((line = reader.readLine()) != null) {
+						if (!consumer.accept(line)) {
+							// Closing the channel in finally stops the remote command
+							return false;
+						}
+					}
+				}
+				return true;
+			} finally {
+				closeChannel(exec);
+			}
+		} catch (JSchException ex) {
+			if (ex.getMessage() != null && ex.getMessage().contains("session is down")) {
+				throw new KarafSessionDownException(ex);
+			}
+			if (!suppressLog) {
+				log.error("Cannot execute ssh command: \"" + command + "\"", ex);
+			}
+			throw new SSHClientException(ex);
+		} catch (IOException ex) {
+			if (!suppressLog) {
+				log.error(ex.getLocalizedMessage());
+			}
+			throw new SSHClientException(ex);
+		}
+	}
+
+	/**
+	 * Same as executeCommandStreaming(String command, LineConsumer consumer, boolean suppressLog) with the command logging.
+	 *
+	 * @param command command to be executed
+	 * @param consumer consumer of the output lines, returning false from the consumer stops the command
+	 * @return true if the whole output was read, false if the consumer stopped the command
+	 * @throws KarafSessionDownException throws this exception if Karaf is down(specific for FuseSSHClient)
+	 * @throws SSHClientException common exception for sshclient when there is some problem in executing command
+	 */
+	public boolean executeCommandStreaming(String command, LineConsumer consumer) throws KarafSessionDownException, SSHClientException {
+		return executeCommandStreaming(command, consumer, false);
+	}
+
+	/**
+	 * Executes the command and returns its standard output, error output, exit code and duration in one round trip.
+	 * ANSI escape sequences are removed from the standard output, the outputs are not trimmed.
+	 *
+	 * @param command command to be executed
+	 * @param suppressLog supress exception/command logging
+	 * @return command result
+	 * @throws KarafSessionDownException throws this exception if Karaf is down(specific for FuseSSHClient)
+	 * @throws SSHClientException common exception for sshclient when there is some problem in executing command
+	 */
+	public CommandResult executeCommandWithResult(String command, boolean suppressLog) throws KarafSessionDownException,
+			SSHClientException {
+		if (!suppressLog) {
+			log.debug("Command: " + command);
+		}
+		final long start = System.currentTimeMillis();
+		try {
+			final ChannelExec exec = (ChannelExec) openChannel("exec");
+			try {
+				exec.setCommand(command);
+				exec.setInputStream(null);
+				// The error output is written directly by the session thread, so it can't block the standard output
+				final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+				exec.setErrStream(stderr, true);
+
+				final String stdout;
+				try (InputStream in = new AnsiFilterInputStream(exec.getInputStream())) {
+					exec.connect();
+					stdout = IOUtils.toString(in, "UTF-8");
+				}
+				waitForExitStatus(exec);
+				return new CommandResult(stdout, stderr.toString("UTF-8"), exec.getExitStatus(), System.currentTimeMillis() - start);
+			} finally {
+				closeChannel(exec);
+			}
+		} catch (JSchException ex) {
+			if (ex.getMessage() != null && ex.getMessage().contains("session is down")) {
+				throw new KarafSessionDownException(ex);
+			}
+			if (!suppressLog) {
+				log.error("Cannot execute ssh command: \"" + command + "\"", ex);
+			}
+			throw new SSHClientException(ex);
+		} catch (IOException ex) {
+			if (!suppressLog) {
+				log.error(ex.getLocalizedMessage());
+			}
+			throw new SSHClientException(ex);
+		}
+	}
+
+	/**
+	 * Waits until the channel is closed by the server after the end of the output, the exit status is set on close.
+	 *
+	 * @param channel channel
+	 */
+	private void waitForExitStatus(Channel channel) {
+		final long deadline = System.currentTimeMillis() + EXIT_STATUS_TIMEOUT;
+		while (!channel.isClosed() && System.currentTimeMillis() < deadline) {
+			try {
+				Thread.sleep(EXIT_STATUS_POLL);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
 	/**
 	 * Method for creating connection and session, that is is used in executeCommand() method.
 	 *
@@ -102,21 +310,16 @@ public abstract class SSHClient {
 	public void connect(boolean suppressLog) throws VerifyFalseException, SSHClientException {
 		final int sessionTimeout = 20000;
 		try {
-			if (!"none".equals(privateKey)) {
-				if (passphrase != null) {
-					ssh.addIdentity(privateKey, passphrase);
-				} else {
-					ssh.addIdentity(privateKey);
-				}
+			// Connect can be called repeatedly without disconnect, so give back the previous session first
+			releaseSession();
+
+			if (pooled) {
+				session = SessionPool.getInstance().acquire(this, sessionTimeout);
+				sessionFromPool = true;
+			} else {
+				session = createSession(sessionTimeout);
 			}
 
-			session = ssh.getSession(username, host, port);
-
-			session.setConfig("StrictHostKeyChecking", "no");
-			session.setPassword(password);
-
-			session.connect(sessionTimeout);
-
 			if (!suppressLog) {
 				log.info("Connection established.");
 			}
@@ -129,10 +332,10 @@ public abstract class SSHClient {
 			}
 
 			if (ex.getMessage().contains("timeout: socket is not established")) {
-				log.error("Unable to connect to specified host: " + session.getHost() + ":" + session.getPort()
+				log.error("Unable to connect to specified host: " + host + ":" + port
 						+ " after " + sessionTimeout + " miliseconds");
-				throw new SSHClientException("Unable to connect to specified host: " + session.getHost() + ":"
-						+ session.getPort() + " after " + sessionTimeout + " miliseconds");
+				throw new SSHClientException("Unable to connect to specified host: " + host + ":"
+						+ port + " after " + sessionTimeout + " miliseconds");
 			}
 
 			if (!suppressLog) {
@@ -143,16 +346,120 @@ public abstract class SSHClient {
 	}
 
 	/**
-	 * Disconnects channel and session.
+	 * Creates and connects a new session using the client's connection parameters and the cached identity.
+	 *
+	 * @param sessionTimeout connection timeout in milliseconds
+	 * @return connected session
+	 * @throws JSchException when the session can't be connected
+	 */
+	protected Session createSession(int sessionTimeout) throws JSchException {
+		// The key is parsed only once and shared with the other clients using the same key
+		final Session newSession = IdentityCache.getInstance().createSession(this);
+		newSession.connect(sessionTimeout);
+		return newSession;
+	}
+
+	/**
+	 * Disconnects channel and session. Pooled session is returned back to the pool.
 	 */
 	public void disconnect() {
+		for (Channel openChannel : openChannels) {
+			closeChannel(openChannel);
+		}
+		releaseSession();
+	}
+
+	/**
+	 * Opens a new channel of given type over the current session. When the maximum number of channels per session
+	 * is reached, waits until some other channel is closed. Every opened channel must be closed by closeChannel().
+	 *
+	 * @param type channel type ("exec", "sftp", ...)
+	 * @return not connected channel
+	 * @throws JSchException when the channel can't be opened
+	 */
+	protected Channel openChannel(String type) throws JSchException {
+		final Session current = session;
+		if (current == null) {
+			throw new JSchException("session is down");
+		}
 
-		if (channel != null) {
-			channel.disconnect();
+		ChannelLimiter.acquire(current);
+		try {
+			final Channel newChannel = current.openChannel(type);
+			openChannels.add(newChannel);
+			return newChannel;
+		} catch (JSchException | RuntimeException ex) {
+			ChannelLimiter.release(current);
+			throw ex;
 		}
-		if (session != null) {
+	}
+
+	/**
+	 * Opens a new shell channel for the persistent console over the current session. The console holds the channel for the whole
+	 * life of the client, so it doesn't wait for a free channel and it takes the channel only if there is a free console slot
+	 * on the session. The channel must be closed by closeChannel().
+	 *
+	 * @return not connected channel or null if there is no free slot
+	 * @throws JSchException when the channel can't be opened
+	 */
+	protected Channel openConsoleChannel() throws JSchException {
+		final Session current = session;
+		if (current == null) {
+			throw new JSchException("session is down");
+		}
+
+		if (!ChannelLimiter.tryAcquireConsole(current)) {
+			return null;
+		}
+		try {
+			final Channel newChannel = current.openChannel("shell");
+			consoleChannels.add(newChannel);
+			openChannels.add(newChannel);
+			return newChannel;
+		} catch (JSchException | RuntimeException ex) {
+			ChannelLimiter.releaseConsole(current);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Disconnects the channel opened by openChannel() or openConsoleChannel() and frees its slot. Does nothing if the channel
+	 * was already closed.
+	 *
+	 * @param toClose channel to close
+	 */
+	protected void closeChannel(Channel toClose) {
+		if (toClose == null || !openChannels.remove(toClose)) {
+			return;
+		}
+
+		toClose.disconnect();
+		try {
+			if (consoleChannels.remove(toClose)) {
+				ChannelLimiter.releaseConsole(toClose.getSession());
+			} else {
+				ChannelLimiter.release(toClose.getSession());
+			}
+		} catch (JSchException ignored) {
+			// Channel without session can't happen for the channel opened by openChannel()
+		}
+	}
+
+	/**
+	 * Returns the session to the pool or disconnects it if it is not pooled.
+	 */
+	private void releaseSession() {
+		if (session == null) {
+			return;
+		}
+
+		if (sessionFromPool) {
+			SessionPool.getInstance().release(session);
+		} else {
 			session.disconnect();
 		}
+		session = null;
+		sessionFromPool = false;
 	}
 
 	/**
@@ -165,14 +472,36 @@ public abstract class SSHClient {
 	}
 
 	/**
-	 * Helper method for converting Stream to String.
+	 * Enables the SSH protocol keep-alive messages on the current session. The messages are sent by the session's own thread
+	 * when nothing was received from the server for the interval, so no command is executed.
+	 *
+	 * @param interval interval in milliseconds
+	 * @return true if the keep-alive was enabled, false if the client is not connected
+	 */
+	public boolean enableKeepAlive(int interval) {
+		final Session current = session;
+		if (current == null || !current.isConnected()) {
+			return false;
+		}
+		try {
+			current.setServerAliveInterval(interval);
+			current.setServerAliveCountMax(KEEP_ALIVE_COUNT_MAX);
+			return true;
+		} catch (JSchException ex) {
+			log.debug("Unable to enable keep-alive for " + host + ":" + port + ": " + ex.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Helper method for converting Stream to String. ANSI escape sequences are removed from the stream.
 	 *
 	 * @param is InputStream to be converted to String
 	 * @return crated String from InputStream
 	 * @throws IOException if there is some problem with conversion
 	 */
 	protected String convertStreamToString(java.io.InputStream is) throws IOException {
-		return IOUtils.toString(is, "UTF-8");
+		return IOUtils.toString(new AnsiFilterInputStream(is), "UTF-8");
 	}
 
 	/**
@@ -0,0 +1,466 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * File with the recorded SSH traffic - one line per command with the target host:port, the kind of the call, the command, its duration,
+ * the outcome and the response. The recording is written by the RecordingSSHClient during a real run ("ssh.record" property)
+ * and answers the ReplaySSHClient calls in the same order ("ssh.replay" property).
+ * The connection drops noticed during the recording (for example after the shutdown) are recorded too and replayed after the same
+ * number of calls to the same host:port, so the replayed client disconnects at the same point of the run.
+ */
+@Slf4j
+public final class SSHRecording {
+	// Property for the file where the SSH traffic is recorded
+	public static final String RECORD = "ssh.record";
+
+	// Property for the recorded file that answers the SSH calls instead of the real servers
+	public static final String REPLAY = "ssh.replay";
+
+	// Property for the time compression of the replay - the recorded durations are divided by it, 0 means no waiting
+	public static final String REPLAY_SPEED = "ssh.replay.speed";
+
+	private static final String DEFAULT_REPLAY_SPEED = "0";
+
+	private static final String SEPARATOR = "\t";
+
+	private static final int FIELDS = 8;
+
+	// Downloaded files up to this size (in bytes) are recorded with their content, larger files are replayed as empty files
+	public static final long MAX_RECORDED_DOWNLOAD = 1024L * 1024L;
+
+	// Recordings by the mode and the file path, so that all clients of one run share them
+	private static final Map<String, SSHRecording> RECORDINGS = new HashMap<>();
+
+	@Getter
+	private final File file;
+
+	// Recorded entries by the key, in the recorded order
+	private final Map<String, List<Entry>> entries = new HashMap<>();
+
+	// Number of entries already replayed for each key
+	private final Map<String, Integer> positions = new HashMap<>();
+
+	// Number of calls replayed (or loaded when loading the file) for each host:port
+	private final Map<String, Integer> calls = new HashMap<>();
+
+	// Connection state changes for each host:port by the number of the calls before the change
+	private final Map<String, TreeMap<Integer, Boolean>> states = new HashMap<>();
+
+	// Last recorded connection state for each host:port
+	private final Map<String, Boolean> recordedStates = new HashMap<>();
+
+	private Writer writer;
+
+	// The file is overwritten when opened for the first time, the content is appended after close()
+	private boolean opened = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file recording file
+	 */
+	private SSHRecording(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Wraps the client into the recording or the replay client, if the "ssh.record" or "ssh.replay" property is set. The replay
+	 * has the precedence. Already wrapped clients are returned as they are.
+	 *
+	 * @param client ssh client
+	 * @return wrapped client or the client itself
+	 */
+	public static SSHClient wrap(SSHClient client) {
+		if (client == null || client instanceof RecordingSSHClient || client instanceof ReplaySSHClient) {
+			return client;
+		}
+		if (System.getProperty(REPLAY) != null) {
+			return new ReplaySSHClient(client, forFile(new File(System.getProperty(REPLAY)), true), getReplaySpeed());
+		}
+		if (System.getProperty(RECORD) != null) {
+			return new RecordingSSHClient(client, forFile(new File(System.getProperty(RECORD)), false));
+		}
+		return client;
+	}
+
+	/**
+	 * Gets the shared recording of the file. The file is loaded on the first use when replaying.
+	 *
+	 * @param file recording file
+	 * @param load load the recorded entries
+	 * @return recording
+	 */
+	private static SSHRecording forFile(File file, boolean load) {
+		final String key = (load ? REPLAY : RECORD) + ":" + file.getAbsolutePath();
+		synchronized (RECORDINGS) {
+			SSHRecording recording = RECORDINGS.get(key);
+			if (recording == null) {
+				recording = load ? load(file) : new SSHRecording(file);
+				RECORDINGS.put(key, recording);
+			}
+			return recording;
+		}
+	}
+
+	/**
+	 * Gets the replay time compression.
+	 *
+	 * @return replay speed, default 0 (no waiting)
+	 */
+	public static double getReplaySpeed() {
+		return Double.parseDouble(System.getProperty(REPLAY_SPEED, DEFAULT_REPLAY_SPEED));
+	}
+
+	/**
+	 * Creates a new recording that writes to the file. The existing file is overwritten on the first record.
+	 *
+	 * @param file recording file
+	 * @return recording
+	 */
+	public static SSHRecording create(File file) {
+		return new SSHRecording(file);
+	}
+
+	/**
+	 * Loads the recorded file.
+	 *
+	 * @param file recording file
+	 * @return recording
+	 * @throws IllegalArgumentException if the file can't be read
+	 */
+	public static SSHRecording load(File file) {
+		final SSHRecording recording = new SSHRecording(file);
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty()) {
+					final Entry entry = Entry.parse(line);
+					recording.add(entry);
+				}
+			}
+		} catch (IOException ex) {
+			throw new IllegalArgumentException("Unable to load the SSH recording " + file, ex);
+		}
+		// The loaded calls were counted to place the state changes, the replay counts from zero
+		recording.calls.clear();
+		log.debug("Loaded {} recorded commands from {}", recording.size(), file);
+		return recording;
+	}
+
+	/**
+	 * Appends the entry to the file. The recorded entries are not kept in the memory, load() the file to replay them.
+	 *
+	 * @param entry recorded entry
+	 */
+	public synchronized void record(Entry entry) {
+		try {
+			if (writer == null) {
+				if (file.getAbsoluteFile().getParentFile() != null) {
+					Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+				}
+				writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE, opened ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+				opened = true;
+			}
+			writer.write(entry.format());
+			writer.write("\n");
+			// Flushed after each command so that the recording survives the killed run
+			writer.flush();
+		} catch (IOException ex) {
+			log.error("Unable to write the SSH recording " + file + ": " + ex);
+		}
+	}
+
+	/**
+	 * Records the change of the connection state. Only the drop of the connection and the reconnection after the drop are recorded,
+	 * the client that was never disconnected is considered connected.
+	 *
+	 * @param target host:port
+	 * @param connected true if the client is connected
+	 */
+	public synchronized void recordState(String target, boolean connected) {
+		final Boolean previous = recordedStates.put(target, connected);
+		if (connected ? Boolean.FALSE.equals(previous) : !Boolean.FALSE.equals(previous)) {
+			record(new Entry(target, Entry.STATE, "", 0L, Entry.OK, CommandResult.UNKNOWN_EXIT_CODE, String.valueOf(connected), null));
+		}
+	}
+
+	/**
+	 * Gets the replayed connection state - the last state change recorded before the calls replayed so far.
+	 *
+	 * @param target host:port
+	 * @return connection state or null if the connection didn't change
+	 */
+	public synchronized Boolean getState(String target) {
+		final TreeMap<Integer, Boolean> changes = states.get(target);
+		if (changes == null) {
+			return null;
+		}
+		final Map.Entry<Integer, Boolean> change = changes.floorEntry(count(calls, target));
+		return change == null ? null : change.getValue();
+	}
+
+	/**
+	 * Gets the next recorded entry for the call. When all entries of the call were replayed, the last one is repeated, so the polling
+	 * ends with the recorded final state.
+	 *
+	 * @param target host:port
+	 * @param kind kind of the call
+	 * @param command command
+	 * @return entry or null if the call was not recorded
+	 */
+	public synchronized Entry next(String target, String kind, String command) {
+		final String key = key(target, kind, command);
+		final List<Entry> list = entries.get(key);
+		if (list == null) {
+			return null;
+		}
+		final int position = count(positions, key);
+		positions.put(key, position + 1);
+		calls.put(target, count(calls, target) + 1);
+		return list.get(Math.min(position, list.size() - 1));
+	}
+
+	/**
+	 * Gets the number of recorded entries.
+	 *
+	 * @return number of entries
+	 */
+	public synchronized int size() {
+		int size = 0;
+		for (List<Entry> list : entries.values()) {
+			size += list.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Closes the file. The next record is appended to the file.
+	 */
+	public synchronized void close() {
+		if (writer != null) {
+			try {
+				writer.close();
+			} catch (IOException ex) {
+				log.error("Unable to close the SSH recording " + file + ": " + ex);
+			}
+			writer = null;
+		}
+	}
+
+	/**
+	 * Adds the entry to the replayed entries.
+	 *
+	 * @param entry entry
+	 */
+	private void add(Entry entry) {
+		if (Entry.STATE.equals(entry.getKind())) {
+			if (!states.containsKey(entry.getTarget())) {
+				states.put(entry.getTarget(), new TreeMap<Integer, Boolean>());
+			}
+			states.get(entry.getTarget()).put(count(calls, entry.getTarget()), Boolean.valueOf(entry.getResponse()));
+			return;
+		}
+		calls.put(entry.getTarget(), count(calls, entry.getTarget()) + 1);
+		final String key = key(entry.getTarget(), entry.getKind(), entry.getCommand());
+		List<Entry> list = entries.get(key);
+		if (list == null) {
+			list = new ArrayList<>();
+			entries.put(key, list);
+		}
+		list.add(entry);
+	}
+
+	/**
+	 * Gets the counter value.
+	 *
+	 * @param counters counters
+	 * @param key key
+	 * @return value, 0 if not counted yet
+	 */
+	private static int count(Map<String, Integer> counters, String key) {
+		return counters.containsKey(key) ? counters.get(key) : 0;
+	}
+
+	/**
+	 * Creates the key of the call.
+	 *
+	 * @param target host:port
+	 * @param kind kind of the call
+	 * @param command command
+	 * @return key
+	 */
+	private static String key(String target, String kind, String command) {
+		return target + SEPARATOR + kind + SEPARATOR + command;
+	}
+
+	/**
+	 * Escapes the tabs, new lines and backslashes, so that the field fits on one line.
+	 *
+	 * @param value value
+	 * @return escaped value, "\0" for null
+	 */
+	static String escape(String value) {
+		if (value == null) {
+			return "\\0";
+		}
+		final StringBuilder builder = new StringBuilder(value.length());
+		for (char c : value.toCharArray()) {
+			switch (c) {
+				case '\\':
+					builder.append("\\\\");
+					break;
+				case '\t':
+					builder.append("\\t");
+					break;
+				case '\n':
+					builder.append("\\n");
+					break;
+				case '\r':
+					builder.append("\\r");
+					break;
+				default:
+					builder.append(c);
+					break;
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Reverts the escape().
+	 *
+	 * @param value escaped value
+	 * @return value
+	 */
+	static String unescape(String value) {
+		if ("\\0".equals(value)) {
+			return null;
+		}
+		final StringBuilder builder = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c != '\\' || i == value.length() - 1) {
+				builder.append(c);
+				continue;
+			}
+			final char next = value.charAt(++i);
+			switch (next) {
+				case 't':
+					builder.append('\t');
+					break;
+				case 'n':
+					builder.append('\n');
+					break;
+				case 'r':
+					builder.append('\r');
+					break;
+				default:
+					builder.append(next);
+					break;
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * One recorded call.
+	 */
+	@Getter
+	@ToString(exclude = "response")
+	public static final class Entry {
+		// Kinds of the call - executeCommand(), executeCommandWithResult(), executeCommandStreaming(), file upload, file read,
+		// file download, connect() and the change of the connection state
+		public static final String EXEC = "exec";
+		public static final String RESULT = "result";
+		public static final String STREAM = "stream";
+		public static final String PUT = "put";
+		public static final String GET = "get";
+		public static final String DOWNLOAD = "download";
+		public static final String CONNECT = "connect";
+		public static final String STATE = "state";
+
+		// Outcomes of the call
+		public static final String OK = "ok";
+		public static final String STOPPED = "stopped";
+		public static final String KARAF_DOWN = "karaf-down";
+		public static final String SSH_ERROR = "ssh-error";
+		public static final String COPY_ERROR = "copy-error";
+		public static final String VERIFY_FALSE = "verify-false";
+
+		private final String target;
+		private final String kind;
+		private final String command;
+		private final long durationMillis;
+		private final String outcome;
+		private final int exitCode;
+		private final String response;
+		private final String stderr;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param target host:port
+		 * @param kind kind of the call
+		 * @param command command
+		 * @param durationMillis duration of the call
+		 * @param outcome outcome of the call
+		 * @param exitCode exit code, -1 if not known
+		 * @param response response or the exception message
+		 * @param stderr error output
+		 */
+		public Entry(String target, String kind, String command, long durationMillis, String outcome, int exitCode, String response,
+				String stderr) {
+			this.target = target;
+			this.kind = kind;
+			this.command = command;
+			this.durationMillis = durationMillis;
+			this.outcome = outcome;
+			this.exitCode = exitCode;
+			this.response = response;
+			this.stderr = stderr;
+		}
+
+		/**
+		 * Formats the entry as one line.
+		 *
+		 * @return line
+		 */
+		String format() {
+			return escape(target) + SEPARATOR + escape(kind) + SEPARATOR + escape(command) + SEPARATOR + durationMillis + SEPARATOR
+					+ escape(outcome) + SEPARATOR + exitCode + SEPARATOR + escape(response) + SEPARATOR + escape(stderr);
+		}
+
+		/**
+		 * Parses the line created by format().
+		 *
+		 * @param line line
+		 * @return entry
+		 */
+		static Entry parse(String line) {
+			final String[] fields = line.split(SEPARATOR, -1);
+			if (fields.length != FIELDS) {
+				throw new IllegalArgumentException("Invalid SSH recording line: " + line);
+			}
+			int i = 0;
+			return new Entry(unescape(fields[i++]), unescape(fields[i++]), unescape(fields[i++]), Long.parseLong(fields[i++]),
+					unescape(fields[i++]), Integer.parseInt(fields[i++]), unescape(fields[i++]), unescape(fields[i]));
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Identity of the SSH session in the session pool - two clients with the same key share one session.
+ */
+@Getter
+@ToString(of = {"username", "host", "port"})
+@EqualsAndHashCode
+public final class SessionKey {
+	private final String host;
+	private final int port;
+	private final String username;
+	private final String password;
+	private final String privateKey;
+	private final String passphrase;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param client ssh client to take the connection parameters from
+	 */
+	public SessionKey(SSHClient client) {
+		this.host = client.getHost();
+		this.port = client.getPort();
+		this.username = client.getUsername();
+		this.password = client.getPassword();
+		this.privateKey = client.getPrivateKey();
+		this.passphrase = client.getPassphrase();
+	}
+}
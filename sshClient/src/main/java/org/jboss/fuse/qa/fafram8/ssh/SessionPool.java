@@ -0,0 +1,329 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pool of the SSH sessions shared between all SSH clients connecting to the same host/port/user/key.
+ * Sessions are reference counted - the session is borrowed in the SSHClient.connect() and returned back in the
+ * SSHClient.disconnect(). Unused sessions are closed after being idle for "ssh.session.pool.idle" seconds. The session
+ * that was not used for "ssh.session.pool.check" milliseconds is checked by opening a channel before it is handed out again,
+ * so that the session dropped by the server is not given to the next client.
+ */
+@Slf4j
+public final class SessionPool {
+	// Property for enabling/disabling the session pooling
+	public static final String POOL_ENABLED = "ssh.session.pool";
+
+	// Property for the idle time in seconds after which the unused session is closed
+	public static final String IDLE_TIMEOUT = "ssh.session.pool.idle";
+
+	// Property for the time in milliseconds after which the unused session is checked before it is handed out again
+	public static final String HEALTH_CHECK_PERIOD = "ssh.session.pool.check";
+
+	private static final String DEFAULT_IDLE_TIMEOUT = "60";
+
+	private static final String DEFAULT_HEALTH_CHECK_PERIOD = "5000";
+
+	// Timeout of the channel opened by the health check
+	private static final int HEALTH_CHECK_TIMEOUT = 5000;
+
+	// Number of the locks shared by all keys
+	private static final int LOCK_STRIPES = 64;
+
+	private static SessionPool instance = null;
+
+	// Currently active session for each key
+	private final ConcurrentMap<SessionKey, PooledSession> sessions = new ConcurrentHashMap<>();
+
+	// All sessions handed out by this pool, including the retired ones that are still used by some client
+	private final ConcurrentMap<Session, PooledSession> borrowed = new ConcurrentHashMap<>();
+
+	// Striped locks for the session creation so that only one handshake per key is done at the same time
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	private final ScheduledExecutorService reaper;
+
+	/**
+	 * Constructor.
+	 */
+	private SessionPool() {
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new Object();
+		}
+		reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				final Thread t = new Thread(r, "ssh-session-pool-reaper");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		final long idle = getIdleTimeout();
+		reaper.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				evictIdle(getIdleTimeout());
+			}
+		}, idle, Math.max(idle / 2, 1L), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Gets the instance.
+	 *
+	 * @return instance
+	 */
+	public static synchronized SessionPool getInstance() {
+		if (instance == null) {
+			instance = new SessionPool();
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Checks if the session pooling is enabled.
+	 *
+	 * @return true if enabled, default true
+	 */
+	public static boolean isEnabled() {
+		return Boolean.parseBoolean(System.getProperty(POOL_ENABLED, "true"));
+	}
+
+	/**
+	 * Gets the idle timeout in milliseconds.
+	 *
+	 * @return idle timeout
+	 */
+	private static long getIdleTimeout() {
+		return TimeUnit.SECONDS.toMillis(Long.parseLong(System.getProperty(IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT)));
+	}
+
+	/**
+	 * Gets the health check period in milliseconds.
+	 *
+	 * @return health check period
+	 */
+	private static long getHealthCheckPeriod() {
+		return Long.parseLong(System.getProperty(HEALTH_CHECK_PERIOD, DEFAULT_HEALTH_CHECK_PERIOD));
+	}
+
+	/**
+	 * Borrows the session for given client. Creates a new session if there is no session for the client's key
+	 * or if the pooled session is no longer usable.
+	 *
+	 * @param client ssh client
+	 * @param timeout connection timeout for a new session
+	 * @return connected session
+	 * @throws JSchException if the new session can't be connected
+	 */
+	Session acquire(SSHClient client, int timeout) throws JSchException {
+		final SessionKey key = new SessionKey(client);
+		synchronized (lockFor(key)) {
+			PooledSession pooled = sessions.get(key);
+			if (pooled != null && !pooled.isHealthy()) {
+				log.debug("Pooled session for " + key + " is not usable anymore, creating new one");
+				sessions.remove(key);
+				pooled.retire();
+				if (pooled.getReferences() == 0) {
+					borrowed.remove(pooled.getSession());
+				}
+				pooled = null;
+			}
+
+			if (pooled == null) {
+				pooled = new PooledSession(key, client.createSession(timeout));
+				sessions.put(key, pooled);
+				borrowed.put(pooled.getSession(), pooled);
+			}
+
+			pooled.borrow();
+			return pooled.getSession();
+		}
+	}
+
+	/**
+	 * Returns the session back to the pool. The session stays connected until it is evicted.
+	 *
+	 * @param session session to return
+	 */
+	void release(Session session) {
+		final PooledSession pooled = borrowed.get(session);
+		if (pooled == null) {
+			// Not (or no longer) managed by the pool
+			session.disconnect();
+			return;
+		}
+
+		synchronized (lockFor(pooled.getKey())) {
+			pooled.giveBack();
+			if (pooled.isRetired() && pooled.getReferences() == 0) {
+				borrowed.remove(session);
+				session.disconnect();
+			}
+		}
+	}
+
+	/**
+	 * Closes all sessions that are not used by any client and were idle for at least given time.
+	 *
+	 * @param idleMillis idle time in milliseconds
+	 * @return number of closed sessions
+	 */
+	public int evictIdle(long idleMillis) {
+		int evicted = 0;
+		final long now = System.currentTimeMillis();
+		final Iterator<Map.Entry<SessionKey, PooledSession>> it = sessions.entrySet().iterator();
+		while (it.hasNext()) {
+			final Map.Entry<SessionKey, PooledSession> entry = it.next();
+			synchronized (lockFor(entry.getKey())) {
+				final PooledSession pooled = entry.getValue();
+				if (pooled.getReferences() == 0 && now - pooled.getLastUsed() >= idleMillis) {
+					it.remove();
+					borrowed.remove(pooled.getSession());
+					pooled.retire();
+					evicted++;
+				}
+			}
+		}
+
+		if (evicted > 0) {
+			log.debug("Closed " + evicted + " idle SSH session(s)");
+		}
+		return evicted;
+	}
+
+	/**
+	 * Closes all sessions that are not used by any client.
+	 *
+	 * @return number of closed sessions
+	 */
+	public int closeIdle() {
+		return evictIdle(0L);
+	}
+
+	/**
+	 * Gets the number of active pooled sessions.
+	 *
+	 * @return number of sessions
+	 */
+	public int size() {
+		return sessions.size();
+	}
+
+	/**
+	 * Gets the lock object for given key. Different keys may share the same lock.
+	 *
+	 * @param key session key
+	 * @return lock object
+	 */
+	private Object lockFor(SessionKey key) {
+		return locks[(key.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+	}
+
+	/**
+	 * Session in the pool together with its reference count. All mutating methods are called under the key lock.
+	 */
+	private static final class PooledSession {
+		@Getter
+		private final SessionKey key;
+
+		@Getter
+		private final Session session;
+
+		@Getter
+		private volatile int references = 0;
+
+		@Getter
+		private volatile long lastUsed = System.currentTimeMillis();
+
+		@Getter
+		private volatile boolean retired = false;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param key session key
+		 * @param session connected session
+		 */
+		private PooledSession(SessionKey key, Session session) {
+			this.key = key;
+			this.session = session;
+		}
+
+		/**
+		 * Increments the reference count.
+		 */
+		private void borrow() {
+			references++;
+			lastUsed = System.currentTimeMillis();
+		}
+
+		/**
+		 * Decrements the reference count.
+		 */
+		private void giveBack() {
+			if (references > 0) {
+				references--;
+			}
+			lastUsed = System.currentTimeMillis();
+		}
+
+		/**
+		 * Marks the session as retired - no more clients will get it. Closes it if nobody uses it.
+		 */
+		private void retire() {
+			retired = true;
+			if (references == 0 || !session.isConnected()) {
+				session.disconnect();
+			}
+		}
+
+		/**
+		 * Checks if the session is connected. If the session was not used recently, a channel is opened and closed again
+		 * to check that the server still answers. When all channels of the session are in use, the session is busy and so alive.
+		 *
+		 * @return true if the session can be used
+		 */
+		private boolean isHealthy() {
+			if (!session.isConnected()) {
+				return false;
+			}
+
+			if (System.currentTimeMillis() - lastUsed < getHealthCheckPeriod()) {
+				return true;
+			}
+
+			if (!ChannelLimiter.tryAcquire(session)) {
+				return true;
+			}
+
+			Channel probe = null;
+			try {
+				probe = session.openChannel("session");
+				probe.connect(HEALTH_CHECK_TIMEOUT);
+				return true;
+			} catch (JSchException ex) {
+				return false;
+			} finally {
+				if (probe != null) {
+					probe.disconnect();
+				}
+				ChannelLimiter.release(session);
+			}
+		}
+	}
+}
@@ -0,0 +1,570 @@
+package org.jboss.fuse.qa.fafram8.ssh;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.apache.commons.lang3.StringUtils;
+
+import org.jboss.fuse.qa.fafram8.exceptions.CopyFileException;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * SFTP transfer engine for one host. The SFTP channels are kept open and reused for all transfers, several files are
+ * transferred in parallel (each in its own channel) and the interrupted transfer is resumed on a new channel.
+ * The transfer has to be closed after use, that closes all its channels.
+ * Number of the parallel transfers per host is set by the "sftp.parallel.transfers" property, number of the resume attempts
+ * by the "sftp.transfer.retries" property.
+ */
+@Slf4j
+public class SftpTransfer implements Closeable {
+	// Property for the number of files transferred in parallel to one host
+	public static final String PARALLEL_TRANSFERS = "sftp.parallel.transfers";
+
+	// Property for the number of attempts to resume interrupted transfer
+	public static final String TRANSFER_RETRIES = "sftp.transfer.retries";
+
+	private static final String DEFAULT_PARALLEL_TRANSFERS = "4";
+	private static final String DEFAULT_TRANSFER_RETRIES = "2";
+	private static final double MILLIS_IN_SECOND = 1000.0;
+	private static final double BYTES_IN_KB = 1024.0;
+
+	private final SSHClient client;
+
+	private final int parallel;
+
+	private final int retries = Integer.parseInt(System.getProperty(TRANSFER_RETRIES, DEFAULT_TRANSFER_RETRIES));
+
+	// Connected channels that are not used at the moment
+	private final BlockingQueue<ChannelSftp> idle = new LinkedBlockingQueue<>();
+
+	// Remote directories that are known to exist
+	private final Set<String> directories = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	private ExecutorService workers = null;
+
+	private volatile boolean closed = false;
+
+	// Resume the interrupted transfer instead of starting it from the beginning
+	@Getter
+	@Setter
+	private boolean resume = true;
+
+	private final AtomicLong bytes = new AtomicLong();
+	private final AtomicLong files = new AtomicLong();
+	private final long started = System.currentTimeMillis();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param client connected ssh client
+	 */
+	public SftpTransfer(SSHClient client) {
+		this(client, Integer.parseInt(System.getProperty(PARALLEL_TRANSFERS, DEFAULT_PARALLEL_TRANSFERS)));
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param client connected ssh client
+	 * @param parallel number of files transferred in parallel
+	 */
+	public SftpTransfer(SSHClient client, int parallel) {
+		this.client = client;
+		this.parallel = Math.max(1, parallel);
+	}
+
+	/**
+	 * Uploads the local file to all hosts in parallel. The file is uploaded once to each host, by the first client of the host.
+	 *
+	 * @param clients connected clients
+	 * @param remotePaths map of host - remote path
+	 * @param local local file
+	 * @throws CopyFileException if the upload to some host failed or if there is no remote path for the host
+	 */
+	public static void uploadToAll(Collection<? extends SSHClient> clients, Map<String, String> remotePaths, final File local)
+			throws CopyFileException {
+		final Set<String> hosts = new HashSet<>();
+		final List<Future<Long>> futures = new ArrayList<>();
+		for (final SSHClient client : clients) {
+			if (!hosts.add(client.getHost())) {
+				continue;
+			}
+			final String remotePath = remotePaths.get(client.getHost());
+			if (remotePath == null) {
+				throw new CopyFileException("No remote path for host " + client.getHost());
+			}
+			futures.add(CommandThreadPool.get().submit(new Callable<Long>() {
+				@Override
+				public Long call() throws Exception {
+					try (SftpTransfer transfer = new SftpTransfer(client)) {
+						return transfer.upload(local, remotePath);
+					}
+				}
+			}));
+		}
+		waitFor(futures);
+	}
+
+	/**
+	 * Uploads the file.
+	 *
+	 * @param local local file
+	 * @param remotePath remote path
+	 * @return number of transferred bytes
+	 * @throws CopyFileException if the upload failed
+	 */
+	public long upload(File local, String remotePath) throws CopyFileException {
+		return transfer(local, remotePath, true, false);
+	}
+
+	/**
+	 * Uploads the file in the background.
+	 *
+	 * @param local local file
+	 * @param remotePath remote path
+	 * @return future with the number of transferred bytes
+	 */
+	public Future<Long> uploadAsync(final File local, final String remotePath) {
+		return getWorkers().submit(new Callable<Long>() {
+			@Override
+			public Long call() throws CopyFileException {
+				return transfer(local, remotePath, true, false);
+			}
+		});
+	}
+
+	/**
+	 * Uploads the whole directory tree, files are uploaded in parallel.
+	 *
+	 * @param localDir local directory
+	 * @param remoteDir remote directory, created if it doesn't exist
+	 * @return number of uploaded files
+	 * @throws CopyFileException if some upload failed
+	 */
+	public int uploadDirectory(File localDir, String remoteDir) throws CopyFileException {
+		final String base = StringUtils.removeEnd(remoteDir, "/");
+		final List<Future<Long>> futures = new ArrayList<>();
+		for (File file : FileUtils.listFilesAndDirs(localDir, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE)) {
+			final String relative = localDir.toURI().relativize(file.toURI()).getPath();
+			final String remote = StringUtils.removeEnd(base + "/" + relative, "/");
+			if (file.isDirectory()) {
+				createDirectory(remote);
+			} else {
+				futures.add(uploadAsync(file, remote));
+			}
+		}
+		waitFor(futures);
+		log.debug("Uploaded directory " + localDir + " to " + client.getHost() + ":" + remoteDir + ", " + getStatistics());
+		return futures.size();
+	}
+
+	/**
+	 * Downloads the file.
+	 *
+	 * @param remotePath remote path
+	 * @param local local file
+	 * @return number of transferred bytes
+	 * @throws CopyFileException if the download failed
+	 */
+	public long download(String remotePath, File local) throws CopyFileException {
+		return download(remotePath, local, false);
+	}
+
+	/**
+	 * Downloads the file. The file is streamed to the disk through a fixed-size buffer.
+	 *
+	 * @param remotePath remote path
+	 * @param local local file
+	 * @param gzip true if the local file should be gzipped on the fly (the gzipped download is not resumed, but restarted)
+	 * @return number of transferred (uncompressed) bytes
+	 * @throws CopyFileException if the download failed
+	 */
+	public long download(String remotePath, File local, boolean gzip) throws CopyFileException {
+		return transfer(local, remotePath, false, gzip);
+	}
+
+	/**
+	 * Downloads the file in the background.
+	 *
+	 * @param remotePath remote path
+	 * @param local local file
+	 * @return future with the number of transferred bytes
+	 */
+	public Future<Long> downloadAsync(final String remotePath, final File local) {
+		return downloadAsync(remotePath, local, false);
+	}
+
+	/**
+	 * Downloads the file in the background. The file is streamed to the disk through a fixed-size buffer.
+	 *
+	 * @param remotePath remote path
+	 * @param local local file
+	 * @param gzip true if the local file should be gzipped on the fly (the gzipped download is not resumed, but restarted)
+	 * @return future with the number of transferred (uncompressed) bytes
+	 */
+	public Future<Long> downloadAsync(final String remotePath, final File local, final boolean gzip) {
+		return getWorkers().submit(new Callable<Long>() {
+			@Override
+			public Long call() throws CopyFileException {
+				return transfer(local, remotePath, false, gzip);
+			}
+		});
+	}
+
+	/**
+	 * Waits until all transfers are done.
+	 *
+	 * @param futures futures returned by the async methods
+	 * @throws CopyFileException with the first failure
+	 */
+	public static void waitFor(Collection<Future<Long>> futures) throws CopyFileException {
+		CopyFileException failure = null;
+		for (Future<Long> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CopyFileException(e);
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = e.getCause() instanceof CopyFileException ? (CopyFileException) e.getCause() : new CopyFileException(e.getCause());
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Gets the number of transferred bytes.
+	 *
+	 * @return bytes
+	 */
+	public long getTransferredBytes() {
+		return bytes.get();
+	}
+
+	/**
+	 * Gets the number of transferred files.
+	 *
+	 * @return files
+	 */
+	public long getTransferredFiles() {
+		return files.get();
+	}
+
+	/**
+	 * Gets the average throughput since the transfer was created.
+	 *
+	 * @return throughput in bytes per second
+	 */
+	public double getThroughput() {
+		final long elapsed = Math.max(1L, System.currentTimeMillis() - started);
+		return bytes.get() * MILLIS_IN_SECOND / elapsed;
+	}
+
+	/**
+	 * Gets the human readable statistics.
+	 *
+	 * @return statistics
+	 */
+	public String getStatistics() {
+		return String.format("%d file(s), %.1f kB, %.1f kB/s", files.get(), bytes.get() / BYTES_IN_KB, getThroughput() / BYTES_IN_KB);
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		if (workers != null) {
+			workers.shutdownNow();
+		}
+		ChannelSftp channel;
+		while ((channel = idle.poll()) != null) {
+			client.closeChannel(channel);
+		}
+	}
+
+	/**
+	 * Transfers one file. The transfer is recorded by the recording client and answered by the replay client.
+	 *
+	 * @param local local file
+	 * @param remotePath remote path
+	 * @param upload true for upload, false for download
+	 * @param gzip true if the downloaded file should be gzipped
+	 * @return number of transferred bytes
+	 * @throws CopyFileException if the transfer failed
+	 */
+	private long transfer(File local, String remotePath, boolean upload, boolean gzip) throws CopyFileException {
+		if (client instanceof ReplaySSHClient) {
+			final long replayed = ((ReplaySSHClient) client).replaySftpTransfer(local, remotePath, upload, gzip);
+			bytes.addAndGet(replayed);
+			files.incrementAndGet();
+			return replayed;
+		}
+		if (!(client instanceof RecordingSSHClient)) {
+			return transferWithRetries(local, remotePath, upload, gzip);
+		}
+		final RecordingSSHClient recorder = (RecordingSSHClient) client;
+		final String kind = upload ? SSHRecording.Entry.PUT : SSHRecording.Entry.DOWNLOAD;
+		final long start = System.currentTimeMillis();
+		try {
+			final long transferred = transferWithRetries(local, remotePath, upload, gzip);
+			recorder.recordTransfer(kind, remotePath, start, local, gzip, transferred, null);
+			return transferred;
+		} catch (CopyFileException ex) {
+			recorder.recordTransfer(kind, remotePath, start, null, gzip, 0L, ex);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Transfers one file, resumes the transfer on a new channel if it fails.
+	 *
+	 * @param local local file
+	 * @param remotePath remote path
+	 * @param upload true for upload, false for download
+	 * @param gzip true if the downloaded file should be gzipped
+	 * @return number of transferred bytes
+	 * @throws CopyFileException if the transfer failed even after the retries
+	 */
+	private long transferWithRetries(File local, String remotePath, boolean upload, boolean gzip) throws CopyFileException {
+		int attempt = 0;
+		while (true) {
+			ChannelSftp channel = null;
+			// Only the channel of the finished transfer is reused, the channel can be broken otherwise
+			boolean reusable = false;
+			final CountingMonitor monitor = new CountingMonitor();
+			// The first attempt always starts from the beginning, the target could be an older version of the file
+			final boolean resumed = attempt > 0 && resume && !gzip;
+			try {
+				channel = borrow();
+				if (upload) {
+					createDirectory(channel, StringUtils.substringBeforeLast(remotePath, "/"));
+					channel.put(local.getAbsolutePath(), remotePath, monitor, resumed ? ChannelSftp.RESUME : ChannelSftp.OVERWRITE);
+				} else {
+					final long offset = resumed && local.isFile() ? local.length() : 0L;
+					try (InputStream in = channel.get(remotePath, monitor, offset)) {
+						FileStreams.copyToFile(in, local, offset > 0, gzip);
+					}
+				}
+				if (monitor.isStopped()) {
+					// The channel ends the stopped transfer without an error
+					throw new CopyFileException("Transfer of " + (upload ? local : remotePath) + " stopped after " + monitor.getCount()
+							+ " bytes, the transfer engine was closed");
+				}
+				reusable = true;
+				files.incrementAndGet();
+				return monitor.getCount();
+			} catch (JSchException | SftpException | IOException ex) {
+				if (++attempt > retries || closed) {
+					log.error("Transfer of " + (upload ? local + " to " : remotePath + " from ") + client.getHost() + " failed", ex);
+					throw new CopyFileException(ex);
+				}
+				log.warn("Transfer of " + (upload ? local : remotePath) + " interrupted after " + monitor.getCount() + " bytes, "
+						+ (resume && !gzip ? "resuming" : "restarting") + ": " + ex);
+			} finally {
+				release(channel, reusable);
+			}
+		}
+	}
+
+	/**
+	 * Creates the remote directory and its parents if they don't exist.
+	 *
+	 * @param remoteDir remote directory
+	 * @throws CopyFileException if the directory can't be created
+	 */
+	private void createDirectory(String remoteDir) throws CopyFileException {
+		if (client instanceof ReplaySSHClient) {
+			// The directories are created by the replayed uploads
+			return;
+		}
+		ChannelSftp channel = null;
+		boolean reusable = false;
+		try {
+			channel = borrow();
+			createDirectory(channel, remoteDir);
+			reusable = true;
+		} catch (JSchException | SftpException ex) {
+			throw new CopyFileException(ex);
+		} finally {
+			release(channel, reusable);
+		}
+	}
+
+	/**
+	 * Creates the remote directory and its parents if they don't exist.
+	 *
+	 * @param channel channel
+	 * @param remoteDir remote directory
+	 * @throws SftpException if the directory can't be created
+	 */
+	private void createDirectory(ChannelSftp channel, String remoteDir) throws SftpException {
+		if (remoteDir.isEmpty() || directories.contains(remoteDir)) {
+			return;
+		}
+
+		final StringBuilder path = new StringBuilder(remoteDir.startsWith("/") ? "/" : "");
+		for (String part : remoteDir.split("/")) {
+			if (part.isEmpty()) {
+				continue;
+			}
+			path.append(part);
+			final String current = path.toString();
+			if (!directories.contains(current)) {
+				if (!exists(channel, current)) {
+					try {
+						channel.mkdir(current);
+					} catch (SftpException ex) {
+						// Other thread could create it in the meantime
+						if (!exists(channel, current)) {
+							throw ex;
+						}
+					}
+				}
+				directories.add(current);
+			}
+			path.append('/');
+		}
+	}
+
+	/**
+	 * Checks if the remote path exists.
+	 *
+	 * @param channel channel
+	 * @param path remote path
+	 * @return true if exists
+	 * @throws SftpException on other problems than missing file
+	 */
+	private boolean exists(ChannelSftp channel, String path) throws SftpException {
+		try {
+			channel.stat(path);
+			return true;
+		} catch (SftpException ex) {
+			if (ex.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+				return false;
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Gets an idle channel or opens a new one.
+	 *
+	 * @return connected channel
+	 * @throws JSchException if the channel can't be opened
+	 */
+	private ChannelSftp borrow() throws JSchException {
+		ChannelSftp channel;
+		while ((channel = idle.poll()) != null) {
+			if (channel.isConnected()) {
+				return channel;
+			}
+			client.closeChannel(channel);
+		}
+
+		channel = (ChannelSftp) client.openChannel("sftp");
+		try {
+			channel.connect();
+		} catch (JSchException ex) {
+			client.closeChannel(channel);
+			throw ex;
+		}
+		return channel;
+	}
+
+	/**
+	 * Returns the channel for reuse or closes it.
+	 *
+	 * @param channel channel, null if none was borrowed
+	 * @param reusable true if the channel can be reused
+	 */
+	private void release(ChannelSftp channel, boolean reusable) {
+		if (channel == null) {
+			return;
+		}
+		if (reusable && !closed) {
+			idle.offer(channel);
+		} else {
+			client.closeChannel(channel);
+		}
+	}
+
+	/**
+	 * Gets the worker threads, creates them on the first use.
+	 *
+	 * @return executor service
+	 */
+	private synchronized ExecutorService getWorkers() {
+		if (workers == null) {
+			workers = Executors.newFixedThreadPool(parallel, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					final Thread t = new Thread(r, "sftp-" + client.getHost());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return workers;
+	}
+
+	/**
+	 * Progress monitor counting the transferred bytes.
+	 */
+	private final class CountingMonitor implements SftpProgressMonitor {
+		@Getter
+		private long count = 0;
+
+		// Set when the monitor stopped the transfer
+		@Getter
+		private boolean stopped = false;
+
+		@Override
+		public void init(int op, String src, String dest, long max) {
+		}
+
+		@Override
+		public boolean count(long transferred) {
+			count += transferred;
+			bytes.addAndGet(transferred);
+			// Stop the transfer when the engine is closed
+			stopped = closed;
+			return !stopped;
+		}
+
+		@Override
+		public void end() {
+		}
+	}
+}
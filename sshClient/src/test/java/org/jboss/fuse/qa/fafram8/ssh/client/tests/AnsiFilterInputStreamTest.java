@@ -0,0 +1,129 @@
+package org.jboss.fuse.qa.fafram8.ssh.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.commons.io.IOUtils;
+
+import org.jboss.fuse.qa.fafram8.ssh.AnsiFilterInputStream;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ANSI filter stream test. Contains also a simple benchmark against the regular expression used before (run with -Dbenchmark).
+ */
+@Slf4j
+public class AnsiFilterInputStreamTest {
+	private static final String ANSI_REGEX = "\u001B\\[[;\\d]*m";
+
+	// Line from the colored Karaf container-list output
+	private static final String KARAF_LINE = "\u001B[1mroot\u001B[0m*     \u001B[36m6.2.1.redhat-084\u001B[0m  karaf   yes          "
+			+ "fabric, fabric-ensemble-0000-1   \u001B[32msuccess\u001B[0m\n";
+
+	private static final int BENCHMARK_SIZE = 8 * 1024 * 1024;
+	private static final int BENCHMARK_ROUNDS = 5;
+
+	@Test
+	public void removeColorsTest() throws Exception {
+		assertEquals("root* success", filter("\u001B[1mroot\u001B[0m* \u001B[32msuccess\u001B[m"));
+		assertEquals("plain text", filter("plain text"));
+		assertEquals("", filter(""));
+	}
+
+	@Test
+	public void removeOtherCsiSequencesTest() throws Exception {
+		// Cursor movement and erase line
+		assertEquals("ab", filter("a\u001B[2K\u001B[10;20Hb"));
+	}
+
+	@Test
+	public void keepNonCsiEscapeTest() throws Exception {
+		assertEquals("a\u001Bb", filter("a\u001Bb"));
+		assertEquals("a\u001B", filter("a\u001B"));
+		assertEquals("\u001B\u001Bx", filter("\u001B\u001Bx"));
+	}
+
+	@Test
+	public void sequenceSplitBetweenReadsTest() throws Exception {
+		// Underlying stream returning one byte per read
+		final InputStream slow = new ByteArrayInputStream(("x\u001B[32my\u001Bz").getBytes(StandardCharsets.UTF_8)) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 1));
+			}
+		};
+		final InputStream in = new AnsiFilterInputStream(slow);
+		final StringBuilder builder = new StringBuilder();
+		int c;
+		while ((c = in.read()) != -1) {
+			builder.append((char) c);
+		}
+		assertEquals("xy\u001Bz", builder.toString());
+	}
+
+	@Test
+	public void sameResultAsRegexTest() throws Exception {
+		final String output = karafOutput(BENCHMARK_SIZE / 64);
+		assertEquals(output.replaceAll(ANSI_REGEX, ""), filter(output));
+	}
+
+	@Test
+	@Category(Benchmark.class)
+	public void benchmarkTest() throws Exception {
+		final String output = karafOutput(BENCHMARK_SIZE);
+		final byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+
+		long regexTime = Long.MAX_VALUE;
+		long streamTime = Long.MAX_VALUE;
+		String regexResult = null;
+		String streamResult = null;
+		for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+			long start = System.nanoTime();
+			// The previous implementation - read to String, then replace twice (as FuseSSHClient did)
+			regexResult = IOUtils.toString(new ByteArrayInputStream(bytes), "UTF-8");
+			assertFalse(regexResult.replaceAll(ANSI_REGEX, "").trim().startsWith("Command not found"));
+			regexResult = regexResult.replaceAll(ANSI_REGEX, "").trim();
+			regexTime = Math.min(regexTime, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			streamResult = IOUtils.toString(new AnsiFilterInputStream(new ByteArrayInputStream(bytes)), "UTF-8").trim();
+			streamTime = Math.min(streamTime, System.nanoTime() - start);
+		}
+
+		assertEquals(regexResult, streamResult);
+		log.info("ANSI filtering of {} kB: regex {} ms, stream {} ms", bytes.length / 1024, regexTime / 1000000, streamTime / 1000000);
+	}
+
+	/**
+	 * Filters the string through the stream.
+	 *
+	 * @param s string
+	 * @return filtered string
+	 * @throws IOException never
+	 */
+	private String filter(String s) throws IOException {
+		return IOUtils.toString(new AnsiFilterInputStream(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8))), "UTF-8");
+	}
+
+	/**
+	 * Generates colored Karaf-like output of given size.
+	 *
+	 * @param size size in characters
+	 * @return output
+	 */
+	private String karafOutput(int size) {
+		final StringBuilder builder = new StringBuilder(size + KARAF_LINE.length());
+		while (builder.length() < size) {
+			builder.append(KARAF_LINE);
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,102 @@
+package org.jboss.fuse.qa.fafram8.ssh.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.jboss.fuse.qa.fafram8.ssh.ChannelLimiter;
+
+import org.junit.Test;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Channel limiter test.
+ */
+public class ChannelLimiterTest {
+	@Test
+	public void limitPerSessionTest() throws Exception {
+		final Session session = new JSch().getSession("fuse", "localhost", 22);
+		final Session other = new JSch().getSession("fuse", "localhost", 22);
+		final int max = ChannelLimiter.getMaxChannels();
+
+		for (int i = 0; i < max; i++) {
+			ChannelLimiter.acquire(session);
+		}
+		assertEquals(0, ChannelLimiter.available(session));
+		// Other session has its own limit
+		assertEquals(max, ChannelLimiter.available(other));
+
+		final CountDownLatch acquired = new CountDownLatch(1);
+		final Thread waiting = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					ChannelLimiter.acquire(session);
+					acquired.countDown();
+				} catch (Exception ignored) {
+					// Latch stays closed and the test fails
+				}
+			}
+		});
+		waiting.start();
+
+		// Over the limit - has to wait
+		assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+
+		ChannelLimiter.release(session);
+		assertTrue(acquired.await(5, TimeUnit.SECONDS));
+		waiting.join();
+
+		for (int i = 0; i < max; i++) {
+			ChannelLimiter.release(session);
+		}
+		assertEquals(max, ChannelLimiter.available(session));
+	}
+
+	@Test
+	public void waitTimeoutTest() throws Exception {
+		System.setProperty(ChannelLimiter.WAIT_TIMEOUT, "100");
+		final Session session = new JSch().getSession("fuse", "localhost", 22);
+		final int max = ChannelLimiter.getMaxChannels();
+		for (int i = 0; i < max; i++) {
+			ChannelLimiter.acquire(session);
+		}
+		try {
+			ChannelLimiter.acquire(session);
+			fail("Channel over the limit should not be acquired");
+		} catch (JSchException ex) {
+			assertTrue(ex.getMessage().contains("No free channel"));
+		} finally {
+			System.clearProperty(ChannelLimiter.WAIT_TIMEOUT);
+		}
+		assertEquals(0, ChannelLimiter.available(session));
+	}
+
+	@Test
+	public void consoleLimitTest() throws Exception {
+		final Session session = new JSch().getSession("fuse", "localhost", 22);
+		final int consoles = ChannelLimiter.getMaxConsoles();
+		for (int i = 0; i < consoles; i++) {
+			assertTrue(ChannelLimiter.tryAcquireConsole(session));
+		}
+		// Over the console limit, the rest of the channels is left for the commands
+		assertFalse(ChannelLimiter.tryAcquireConsole(session));
+		assertEquals(ChannelLimiter.getMaxChannels() - consoles, ChannelLimiter.available(session));
+		assertTrue(ChannelLimiter.tryAcquire(session));
+
+		ChannelLimiter.releaseConsole(session);
+		assertTrue(ChannelLimiter.tryAcquireConsole(session));
+		ChannelLimiter.release(session);
+		for (int i = 0; i < consoles; i++) {
+			ChannelLimiter.releaseConsole(session);
+		}
+		assertEquals(ChannelLimiter.getMaxChannels(), ChannelLimiter.available(session));
+	}
+}
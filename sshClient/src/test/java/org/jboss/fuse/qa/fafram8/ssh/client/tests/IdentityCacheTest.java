@@ -0,0 +1,96 @@
+package org.jboss.fuse.qa.fafram8.ssh.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.fuse.qa.fafram8.ssh.IdentityCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.KeyPair;
+
+import java.io.File;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Identity cache test. Contains also a simple benchmark of the identity setup done on each reconnect before and after the cache
+ * (run with -Dbenchmark).
+ */
+@Slf4j
+public class IdentityCacheTest {
+	private static final String PASSPHRASE = "fafram";
+	private static final int KEY_SIZE = 1024;
+	private static final int RECONNECTS = 200;
+	private static final long MODIFIED_DIFF = 10000L;
+
+	private File key;
+
+	@Before
+	public void init() throws Exception {
+		key = File.createTempFile("fafram-key", ".pem");
+		final KeyPair keyPair = KeyPair.genKeyPair(new JSch(), KeyPair.RSA, KEY_SIZE);
+		keyPair.writePrivateKey(key.getAbsolutePath(), PASSPHRASE.getBytes("UTF-8"));
+		keyPair.dispose();
+		IdentityCache.getInstance().clear();
+	}
+
+	@After
+	public void clean() {
+		IdentityCache.getInstance().clear();
+		key.delete();
+	}
+
+	@Test
+	public void keyLoadedOnceTest() throws Exception {
+		final JSch first = IdentityCache.getInstance().getJSch(key.getAbsolutePath(), PASSPHRASE);
+		final JSch second = IdentityCache.getInstance().getJSch(key.getAbsolutePath(), PASSPHRASE);
+		assertSame(first, second);
+		assertEquals(1, first.getIdentityNames().size());
+		assertEquals(1, IdentityCache.getInstance().size());
+	}
+
+	@Test
+	public void modifiedKeyReloadedTest() throws Exception {
+		final JSch first = IdentityCache.getInstance().getJSch(key.getAbsolutePath(), PASSPHRASE);
+		assertTrue(key.setLastModified(key.lastModified() - MODIFIED_DIFF));
+		final JSch second = IdentityCache.getInstance().getJSch(key.getAbsolutePath(), PASSPHRASE);
+		assertNotSame(first, second);
+		assertEquals(1, second.getIdentityNames().size());
+	}
+
+	@Test
+	public void noKeyTest() throws Exception {
+		final JSch jsch = IdentityCache.getInstance().getJSch(IdentityCache.NO_KEY, null);
+		assertSame(jsch, IdentityCache.getInstance().getJSch(IdentityCache.NO_KEY, null));
+		assertTrue(jsch.getIdentityNames().isEmpty());
+	}
+
+	@Test
+	@Category(Benchmark.class)
+	public void benchmarkTest() throws Exception {
+		// The previous implementation - the key added to the client's JSch instance on every connect
+		final JSch jsch = new JSch();
+		long start = System.nanoTime();
+		for (int i = 0; i < RECONNECTS; i++) {
+			jsch.addIdentity(key.getAbsolutePath(), PASSPHRASE);
+		}
+		final long uncachedTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		JSch cached = null;
+		for (int i = 0; i < RECONNECTS; i++) {
+			cached = IdentityCache.getInstance().getJSch(key.getAbsolutePath(), PASSPHRASE);
+		}
+		final long cachedTime = System.nanoTime() - start;
+
+		assertEquals(1, cached.getIdentityNames().size());
+		log.info("Identity setup for {} reconnects: uncached {} ms, cached {} ms", RECONNECTS, uncachedTime / 1000000, cachedTime / 1000000);
+	}
+}
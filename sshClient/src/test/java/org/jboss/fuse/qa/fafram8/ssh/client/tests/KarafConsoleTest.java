@@ -0,0 +1,275 @@
+package org.jboss.fuse.qa.fafram8.ssh.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.jboss.fuse.qa.fafram8.ssh.FuseSSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.KarafConsole;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelShell;
+import com.jcraft.jsch.JSchException;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Karaf console test against a simulated Karaf shell. The benchmark only logs the measured time (run with -Dbenchmark).
+ */
+@Slf4j
+public class KarafConsoleTest {
+	private static final String PROMPT = "\u001B[1mJBossFuse:karaf\u001B[0m@root> ";
+	private static final int POLLS = 1000;
+	private static final long TIMEOUT = 300L;
+
+	@Test
+	public void echoedInputTest() throws Exception {
+		final KarafConsole console = start(true);
+		assertEquals("JBossFuse:karaf@root> ", console.getPrompt());
+		assertEquals("6.2.1\n", console.execute("version"));
+		assertEquals("a\nb\n", console.execute("profile-list"));
+		assertEquals("", console.execute("profile-create a"));
+	}
+
+	@Test
+	public void noEchoTest() throws Exception {
+		final KarafConsole console = start(false);
+		assertEquals("JBossFuse:karaf@root> ", console.getPrompt());
+		assertEquals("6.2.1\n", console.execute("version"));
+		assertEquals("a\nb\n", console.execute("profile-list"));
+	}
+
+	@Test
+	public void multiLineCommandTest() throws Exception {
+		final KarafConsole console = start(true);
+		assertEquals("6.2.1\nBATCH_1\na\nb\n", console.execute("version\necho BATCH_1\nprofile-list"));
+	}
+
+	@Test
+	public void closedConsoleTest() throws Exception {
+		final KarafConsole console = start(true);
+		try {
+			// The shell ends before the marker is printed
+			console.execute("exit");
+			fail("Closed console should throw exception");
+		} catch (IOException expected) {
+			assertFalse(console.isOpen());
+		}
+	}
+
+	@Test
+	public void timeoutTest() throws Exception {
+		final KarafConsole console = start(true);
+		console.setTimeout(TIMEOUT);
+		final long start = System.currentTimeMillis();
+		try {
+			// The shell never answers
+			console.execute("hang");
+			fail("Hung console should throw exception");
+		} catch (SocketTimeoutException expected) {
+			assertFalse(console.isOpen());
+			assertTrue(System.currentTimeMillis() - start < TIMEOUT * 10);
+		}
+	}
+
+	@Test
+	public void oneChannelTest() throws Exception {
+		final ConsoleClient client = new ConsoleClient();
+		for (int i = 0; i < POLLS; i++) {
+			assertEquals("6.2.1", client.executeCommand("version", true));
+		}
+		// All commands go through the single console channel, no channel is opened per command
+		assertEquals(1, client.getConsoleChannels());
+		assertEquals(0, client.getExecChannels());
+	}
+
+	@Test
+	@Category(Benchmark.class)
+	public void benchmarkTest() throws Exception {
+		final KarafConsole console = start(true);
+		final long start = System.nanoTime();
+		for (int i = 0; i < POLLS; i++) {
+			assertEquals("6.2.1\n", console.execute("version"));
+		}
+		final long millis = (System.nanoTime() - start) / 1000000;
+		log.info("{} commands in one console: {} ms", POLLS, millis);
+	}
+
+	/**
+	 * Starts the simulated Karaf shell and opens the console.
+	 *
+	 * @param echo true if the shell echoes the input
+	 * @return console
+	 * @throws Exception on error
+	 */
+	private KarafConsole start(boolean echo) throws Exception {
+		final PipedInputStream consoleOutput = new PipedInputStream();
+		final PipedOutputStream shellOutput = new PipedOutputStream(consoleOutput);
+		final PipedOutputStream consoleInput = startShell(shellOutput, echo);
+
+		// Closing the console ends the shell output, like closing the shell channel does
+		final InputStream output = new FilterInputStream(consoleOutput) {
+			@Override
+			public void close() throws IOException {
+				shellOutput.close();
+			}
+		};
+		final KarafConsole console = new KarafConsole(output, consoleInput);
+		console.detectPrompt();
+		return console;
+	}
+
+	/**
+	 * Starts the simulated Karaf shell.
+	 *
+	 * @param shellOutput stream for the shell output
+	 * @param echo true if the shell echoes the input
+	 * @return stream for the shell input
+	 * @throws IOException on error
+	 */
+	private static PipedOutputStream startShell(OutputStream shellOutput, boolean echo) throws IOException {
+		final PipedInputStream shellInput = new PipedInputStream();
+		final PipedOutputStream consoleInput = new PipedOutputStream(shellInput);
+		final Thread shell = new Thread(new FakeShell(shellInput, shellOutput, echo));
+		shell.setDaemon(true);
+		shell.start();
+		return consoleInput;
+	}
+
+	/**
+	 * Client in the console mode that opens the shell channels to the simulated Karaf shell and counts the opened channels.
+	 */
+	private static final class ConsoleClient extends FuseSSHClient {
+		private int consoleChannels = 0;
+		private int execChannels = 0;
+
+		/**
+		 * Constructor.
+		 */
+		private ConsoleClient() {
+			this.consoleMode = true;
+		}
+
+		@Override
+		protected synchronized Channel openConsoleChannel() throws JSchException {
+			consoleChannels++;
+			final ChannelShell channel = mock(ChannelShell.class);
+			when(channel.isConnected()).thenReturn(true);
+			try {
+				final PipedInputStream consoleOutput = new PipedInputStream();
+				when(channel.getOutputStream()).thenReturn(startShell(new PipedOutputStream(consoleOutput), true));
+				when(channel.getInputStream()).thenReturn(consoleOutput);
+			} catch (IOException ex) {
+				throw new JSchException("Shell not started", ex);
+			}
+			return channel;
+		}
+
+		@Override
+		protected synchronized Channel openChannel(String type) throws JSchException {
+			execChannels++;
+			throw new JSchException("Command executed in the exec channel");
+		}
+
+		@Override
+		protected void closeChannel(Channel toClose) {
+			// Nothing to release
+		}
+
+		/**
+		 * Getter.
+		 *
+		 * @return number of the opened console channels
+		 */
+		private synchronized int getConsoleChannels() {
+			return consoleChannels;
+		}
+
+		/**
+		 * Getter.
+		 *
+		 * @return number of the opened exec channels
+		 */
+		private synchronized int getExecChannels() {
+			return execChannels;
+		}
+	}
+
+	/**
+	 * Simulated Karaf shell - prints the banner and the prompt, executes echo and few known commands.
+	 */
+	private static final class FakeShell implements Runnable {
+		private final PipedInputStream in;
+		private final OutputStream out;
+		private final boolean echo;
+		private final Map<String, String> responses = new HashMap<>();
+
+		/**
+		 * Constructor.
+		 *
+		 * @param in shell input
+		 * @param out shell output
+		 * @param echo echo the input
+		 */
+		private FakeShell(PipedInputStream in, OutputStream out, boolean echo) {
+			this.in = in;
+			this.out = out;
+			this.echo = echo;
+			responses.put("version", "6.2.1\r\n");
+			responses.put("profile-list", "a\r\nb\r\n");
+			responses.put("profile-create a", "");
+		}
+
+		@Override
+		public void run() {
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+				write("Welcome to JBoss Fuse\r\n\r\n" + PROMPT);
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if ("exit".equals(line)) {
+						out.close();
+						return;
+					}
+					if ("hang".equals(line)) {
+						// Neither the output nor the next prompt comes
+						Thread.sleep(Long.MAX_VALUE);
+					}
+					final String response = line.startsWith("echo ") ? line.substring("echo ".length()) + "\r\n" : responses.get(line);
+					write((echo ? line + "\r\n" : "") + response + PROMPT);
+				}
+			} catch (IOException | InterruptedException ignored) {
+				// Console closed
+			}
+		}
+
+		/**
+		 * Writes the text to the output.
+		 *
+		 * @param text text
+		 * @throws IOException on error
+		 */
+		private void write(String text) throws IOException {
+			out.write(text.getBytes(StandardCharsets.UTF_8));
+			out.flush();
+		}
+	}
+}
@@ -0,0 +1,321 @@
+package org.jboss.fuse.qa.fafram8.ssh.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.commons.io.IOUtils;
+
+import org.jboss.fuse.qa.fafram8.exceptions.CopyFileException;
+import org.jboss.fuse.qa.fafram8.exceptions.KarafSessionDownException;
+import org.jboss.fuse.qa.fafram8.exceptions.SSHClientException;
+import org.jboss.fuse.qa.fafram8.ssh.CommandResult;
+import org.jboss.fuse.qa.fafram8.ssh.FuseSSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.LineConsumer;
+import org.jboss.fuse.qa.fafram8.ssh.NodeSSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.RecordingSSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.ReplaySSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SSHRecording;
+import org.jboss.fuse.qa.fafram8.ssh.SSHRecording.Entry;
+import org.jboss.fuse.qa.fafram8.ssh.SftpTransfer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Record and replay test. The commands are recorded from the fake client and replayed without it.
+ */
+@Slf4j
+public class RecordReplayTest {
+	private static final int PORT = 8101;
+	private static final long DURATION = 200L;
+	private static final double SPEED = 10;
+	private static final long COMPRESSION_TIMEOUT = 60000L;
+
+	private File file;
+
+	@Before
+	public void init() throws Exception {
+		file = File.createTempFile("fafram-ssh", ".rec");
+	}
+
+	@After
+	public void clean() {
+		System.clearProperty(SSHRecording.RECORD);
+		System.clearProperty(SSHRecording.REPLAY);
+		file.delete();
+	}
+
+	@Test
+	public void recordReplayTest() throws Exception {
+		final FakeClient fake = new FakeClient();
+		fake.responses.add("Provision status: downloading");
+		fake.responses.add("Provision status: success");
+		final SSHRecording recording = SSHRecording.create(file);
+		final RecordingSSHClient recorder = new RecordingSSHClient(fake, recording);
+		recorder.setHost("node1");
+		// Parameters set after the creation are passed to the real client
+		recorder.setPort(PORT);
+		recorder.connect(true);
+		assertEquals(PORT, fake.getPort());
+
+		assertEquals("Provision status: downloading", recorder.executeCommand("container-list", true));
+		assertEquals("Provision status: success", recorder.executeCommand("container-list", true));
+		assertEquals("line\twith\ttabs\nand\\lines", recorder.executeCommand("echo", true));
+		try {
+			recorder.executeCommand("shutdown", true);
+			fail("Exception expected");
+		} catch (KarafSessionDownException ex) {
+			// Recorded
+		}
+		assertEquals(2, recorder.executeCommandWithResult("ls", true).getExitCode());
+		final List<String> lines = new ArrayList<>();
+		assertFalse(recorder.executeCommandStreaming("log:display", new Collector(lines, 2), true));
+		recording.close();
+
+		final ReplaySSHClient replay = new ReplaySSHClient(new FuseSSHClient().host("node1").port(PORT), SSHRecording.load(file), 0);
+		replay.connect(true);
+		assertTrue(replay.isConnected());
+		assertEquals("Provision status: downloading", replay.executeCommand("container-list", true));
+		assertEquals("Provision status: success", replay.executeCommand("container-list", true));
+		// The last response is repeated
+		assertEquals("Provision status: success", replay.executeCommand("container-list", true));
+		assertEquals("line\twith\ttabs\nand\\lines", replay.executeCommand("echo", true));
+		try {
+			replay.executeCommand("shutdown", true);
+			fail("Exception expected");
+		} catch (KarafSessionDownException ex) {
+			// Replayed
+		}
+		final CommandResult result = replay.executeCommandWithResult("ls", true);
+		assertEquals(2, result.getExitCode());
+		assertEquals("No such file", result.getStderr());
+		final List<String> replayed = new ArrayList<>();
+		assertFalse(replay.executeCommandStreaming("log:display", new Collector(replayed, 2), true));
+		assertEquals(lines, replayed);
+		try {
+			replay.executeCommand("not recorded", true);
+			fail("Exception expected");
+		} catch (SSHClientException ex) {
+			assertTrue(ex.getMessage().contains("not recorded"));
+		}
+	}
+
+	@Test
+	public void timeCompressionTest() throws Exception {
+		final FakeClient fake = new FakeClient();
+		fake.delay = DURATION;
+		fake.responses.add("done");
+		final SSHRecording recording = SSHRecording.create(file);
+		final long recordStart = System.currentTimeMillis();
+		new RecordingSSHClient(fake, recording).executeCommand("sleep", true);
+		final long recorded = System.currentTimeMillis() - recordStart;
+		recording.close();
+
+		final ReplaySSHClient replay = new ReplaySSHClient(fake, SSHRecording.load(file), SPEED);
+		final long start = System.currentTimeMillis();
+		assertEquals("done", replay.executeCommand("sleep", true));
+		final long replayed = System.currentTimeMillis() - start;
+		log.info("Recorded {} ms, replayed {} ms", recorded, replayed);
+		assertTrue(recorded >= DURATION);
+		assertTrue(replayed >= (long) (DURATION / SPEED));
+	}
+
+	@Test(timeout = COMPRESSION_TIMEOUT)
+	public void longCallCompressionTest() throws Exception {
+		// The hour long call is replayed in a fraction of a second, without the compression the test times out
+		final long hour = TimeUnit.HOURS.toMillis(1);
+		final SSHRecording recording = SSHRecording.create(file);
+		recording.record(new Entry("node1:" + PORT, Entry.EXEC, "sleep", hour, Entry.OK, CommandResult.UNKNOWN_EXIT_CODE, "done", null));
+		recording.close();
+
+		final ReplaySSHClient replay = new ReplaySSHClient(new FuseSSHClient().host("node1").port(PORT), SSHRecording.load(file),
+				hour / DURATION);
+		assertEquals("done", replay.executeCommand("sleep", true));
+	}
+
+	@Test
+	public void wrapTest() {
+		final SSHClient client = new FuseSSHClient();
+		assertSame(client, SSHRecording.wrap(client));
+		System.setProperty(SSHRecording.RECORD, file.getAbsolutePath());
+		final SSHClient recorder = SSHRecording.wrap(client);
+		assertTrue(recorder instanceof RecordingSSHClient);
+		// Already wrapped client is not wrapped again
+		assertSame(recorder, SSHRecording.wrap(recorder));
+		System.setProperty(SSHRecording.REPLAY, file.getAbsolutePath());
+		assertTrue(SSHRecording.wrap(client) instanceof ReplaySSHClient);
+	}
+
+	@Test
+	public void connectionStateTest() throws Exception {
+		final FakeClient fake = new FakeClient();
+		fake.connectFailures = 1;
+		final SSHRecording recording = SSHRecording.create(file);
+		final RecordingSSHClient recorder = new RecordingSSHClient(fake, recording);
+		recorder.setHost("node1");
+		recorder.setPort(PORT);
+		try {
+			recorder.connect(true);
+			fail("Exception expected");
+		} catch (SSHClientException ex) {
+			// Recorded
+		}
+		recorder.connect(true);
+		assertTrue(recorder.isConnected());
+		// The server drops the connection
+		recorder.executeCommand("stop", true);
+		assertFalse(recorder.isConnected());
+		recorder.connect(true);
+		assertTrue(recorder.isConnected());
+		recording.close();
+
+		final ReplaySSHClient replay = new ReplaySSHClient(new FuseSSHClient().host("node1").port(PORT), SSHRecording.load(file), 0);
+		try {
+			replay.connect(true);
+			fail("Exception expected");
+		} catch (SSHClientException ex) {
+			assertTrue(ex.getMessage().contains("connection refused"));
+		}
+		replay.connect(true);
+		assertTrue(replay.isConnected());
+		replay.executeCommand("stop", true);
+		assertFalse(replay.isConnected());
+		replay.connect(true);
+		assertTrue(replay.isConnected());
+	}
+
+	@Test
+	public void transferReplayTest() throws Exception {
+		final SSHRecording recording = SSHRecording.create(file);
+		recording.record(new Entry("node1:22", Entry.DOWNLOAD, "/fuse/data/log/fuse.log", 1L, Entry.OK, CommandResult.UNKNOWN_EXIT_CODE,
+				"first line\nsecond line", null));
+		recording.record(new Entry("node1:22", Entry.PUT, "/fuse/etc/custom.cfg", 1L, Entry.COPY_ERROR, CommandResult.UNKNOWN_EXIT_CODE,
+				"Permission denied", null));
+		recording.close();
+
+		final ReplaySSHClient replay = new ReplaySSHClient(new NodeSSHClient().host("node1").defaultSSHPort(), SSHRecording.load(file), 0);
+		final File local = File.createTempFile("fafram-ssh", ".log.gz");
+		try (SftpTransfer transfer = new SftpTransfer(replay)) {
+			transfer.downloadAsync("/fuse/data/log/fuse.log", local, true).get();
+			try (InputStream in = new GZIPInputStream(new FileInputStream(local))) {
+				assertEquals("first line\nsecond line", IOUtils.toString(in, "UTF-8"));
+			}
+			try {
+				transfer.upload(file, "/fuse/etc/custom.cfg");
+				fail("Exception expected");
+			} catch (CopyFileException ex) {
+				assertTrue(ex.getMessage().contains("Permission denied"));
+			}
+		} finally {
+			local.delete();
+		}
+	}
+
+	/**
+	 * Fake client returning the queued responses.
+	 */
+	private static class FakeClient extends FuseSSHClient {
+		private final Queue<String> responses = new LinkedList<>();
+		private long delay = 0;
+		private int connectFailures = 0;
+		private boolean connected = false;
+
+		@Override
+		public String executeCommand(String command, boolean suppressLog, boolean ignoreExceptions) throws KarafSessionDownException,
+				SSHClientException {
+			if ("shutdown".equals(command)) {
+				throw new KarafSessionDownException("session is down");
+			}
+			if ("stop".equals(command)) {
+				connected = false;
+				return "";
+			}
+			if ("echo".equals(command)) {
+				return "line\twith\ttabs\nand\\lines";
+			}
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return responses.poll();
+		}
+
+		@Override
+		public CommandResult executeCommandWithResult(String command, boolean suppressLog) {
+			return new CommandResult("", "No such file", 2, 1);
+		}
+
+		@Override
+		public boolean executeCommandStreaming(String command, LineConsumer consumer, boolean suppressLog) {
+			for (String line : new String[] {"first", "second", "third"}) {
+				if (!consumer.accept(line)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public void connect(boolean suppressLog) throws SSHClientException {
+			// Nothing to connect to
+			if (connectFailures > 0) {
+				connectFailures--;
+				throw new SSHClientException("connection refused");
+			}
+			connected = true;
+		}
+
+		@Override
+		public void disconnect() {
+			connected = false;
+		}
+
+		@Override
+		public Boolean isConnected() {
+			return connected;
+		}
+	}
+
+	/**
+	 * Collects the lines up to the limit.
+	 */
+	private static class Collector implements LineConsumer {
+		private final List<String> lines;
+		private final int limit;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param lines collected lines
+		 * @param limit number of lines after which the command is stopped
+		 */
+		Collector(List<String> lines, int limit) {
+			this.lines = lines;
+			this.limit = limit;
+		}
+
+		@Override
+		public boolean accept(String line) {
+			lines.add(line);
+			return lines.size() < limit;
+		}
+	}
+}
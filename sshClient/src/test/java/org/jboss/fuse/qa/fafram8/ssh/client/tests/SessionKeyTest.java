@@ -0,0 +1,54 @@
+package org.jboss.fuse.qa.fafram8.ssh.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+import org.jboss.fuse.qa.fafram8.ssh.NodeSSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SessionKey;
+
+import org.junit.Test;
+
+/**
+ * Session pool key test.
+ */
+public class SessionKeyTest {
+	@Test
+	public void sameConnectionTest() {
+		final SSHClient client = client("node1", "admin");
+		final SSHClient other = client("node1", "admin");
+		other.setPooled(!client.isPooled());
+		assertEquals(new SessionKey(client), new SessionKey(other));
+		assertEquals(new SessionKey(client).hashCode(), new SessionKey(other).hashCode());
+		// The clients with the same connection are equal too, no matter if they use the pool
+		assertEquals(client, other);
+	}
+
+	@Test
+	public void differentConnectionTest() {
+		final SessionKey key = new SessionKey(client("node1", "admin"));
+		assertNotEquals(key, new SessionKey(client("node2", "admin")));
+		assertNotEquals(key, new SessionKey(client("node1", "fuse")));
+		assertNotEquals(key, new SessionKey(client("node1", "admin").port(2222)));
+		final SSHClient withPassword = client("node1", "admin");
+		withPassword.setPassword("other");
+		assertNotEquals(key, new SessionKey(withPassword));
+	}
+
+	@Test
+	public void toStringTest() {
+		assertFalse(new SessionKey(client("node1", "admin")).toString().contains("secret"));
+	}
+
+	/**
+	 * Creates the client.
+	 *
+	 * @param host host
+	 * @param username user name
+	 * @return client
+	 */
+	private static SSHClient client(String host, String username) {
+		return new NodeSSHClient().host(host).defaultSSHPort().username(username).password("secret");
+	}
+}
@@ -0,0 +1,202 @@
+package org.jboss.fuse.qa.fafram8.ssh.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.jboss.fuse.qa.fafram8.ssh.ChannelLimiter;
+import org.jboss.fuse.qa.fafram8.ssh.NodeSSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SessionPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jcraft.jsch.ChannelShell;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Session pool test with the mocked sessions.
+ */
+public class SessionPoolTest {
+	private final List<FakeClient> clients = new ArrayList<>();
+
+	@Before
+	public void init() {
+		System.setProperty(SessionPool.POOL_ENABLED, "true");
+	}
+
+	@After
+	public void clean() {
+		for (FakeClient client : clients) {
+			client.disconnect();
+		}
+		SessionPool.getInstance().closeIdle();
+		System.clearProperty(SessionPool.POOL_ENABLED);
+		System.clearProperty(SessionPool.HEALTH_CHECK_PERIOD);
+	}
+
+	@Test
+	public void sharedSessionTest() throws Exception {
+		final Session session = session();
+		final FakeClient first = client("shared", session);
+		final FakeClient second = client("shared", session());
+		first.connect(true);
+		second.connect(true);
+		assertEquals(1, first.getCreated() + second.getCreated());
+
+		first.disconnect();
+		second.disconnect();
+		// Returned to the pool, stays open for the next client
+		verify(session, never()).disconnect();
+		assertTrue(SessionPool.getInstance().closeIdle() >= 1);
+		verify(session).disconnect();
+	}
+
+	@Test
+	public void otherKeyTest() throws Exception {
+		final FakeClient first = client("node1", session());
+		final FakeClient second = client("node2", session());
+		first.connect(true);
+		second.connect(true);
+		assertEquals(1, first.getCreated());
+		assertEquals(1, second.getCreated());
+	}
+
+	@Test
+	public void disconnectedSessionTest() throws Exception {
+		final Session dropped = session();
+		final FakeClient client = client("dropped", dropped, session());
+		client.connect(true);
+		when(dropped.isConnected()).thenReturn(false);
+		client.connect(true);
+		assertEquals(2, client.getCreated());
+		verify(dropped).disconnect();
+	}
+
+	@Test
+	public void idleSessionRoundTripTest() throws Exception {
+		System.setProperty(SessionPool.HEALTH_CHECK_PERIOD, "0");
+		final Session session = session();
+		final ChannelShell probe = mock(ChannelShell.class);
+		when(session.openChannel("session")).thenReturn(probe);
+		final FakeClient client = client("alive", session);
+		client.connect(true);
+		client.connect(true);
+		assertEquals(1, client.getCreated());
+		verify(probe).connect(anyInt());
+		verify(probe).disconnect();
+		assertEquals(ChannelLimiter.getMaxChannels(), ChannelLimiter.available(session));
+	}
+
+	@Test
+	public void idleSessionDeadTest() throws Exception {
+		System.setProperty(SessionPool.HEALTH_CHECK_PERIOD, "0");
+		final Session dead = session();
+		final ChannelShell probe = mock(ChannelShell.class);
+		doThrow(new JSchException("channel is not opened.")).when(probe).connect(anyInt());
+		when(dead.openChannel("session")).thenReturn(probe);
+		final FakeClient client = client("dead", dead, session());
+		client.connect(true);
+		client.connect(true);
+		assertEquals(2, client.getCreated());
+		verify(probe).disconnect();
+		verify(dead).disconnect();
+		assertEquals(ChannelLimiter.getMaxChannels(), ChannelLimiter.available(dead));
+	}
+
+	@Test
+	public void busySessionTest() throws Exception {
+		System.setProperty(SessionPool.HEALTH_CHECK_PERIOD, "0");
+		final Session busy = session();
+		final FakeClient client = client("busy", busy);
+		client.connect(true);
+		final int max = ChannelLimiter.getMaxChannels();
+		for (int i = 0; i < max; i++) {
+			ChannelLimiter.acquire(busy);
+		}
+		try {
+			// All channels are in use, so the session is alive without the round trip
+			client.connect(true);
+			assertEquals(1, client.getCreated());
+			verify(busy, never()).openChannel(anyString());
+		} finally {
+			for (int i = 0; i < max; i++) {
+				ChannelLimiter.release(busy);
+			}
+		}
+	}
+
+	/**
+	 * Creates the connected session mock.
+	 *
+	 * @return session
+	 */
+	private static Session session() {
+		final Session session = mock(Session.class);
+		when(session.isConnected()).thenReturn(true);
+		return session;
+	}
+
+	/**
+	 * Creates the client that is disconnected after the test.
+	 *
+	 * @param host host
+	 * @param sessions sessions created one after another
+	 * @return client
+	 */
+	private FakeClient client(String host, Session... sessions) {
+		final FakeClient client = new FakeClient(host, sessions);
+		clients.add(client);
+		return client;
+	}
+
+	/**
+	 * Client that creates the given sessions instead of connecting to the server.
+	 */
+	private static final class FakeClient extends NodeSSHClient {
+		private final Queue<Session> sessions;
+		private int created = 0;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param host host
+		 * @param sessions sessions created one after another
+		 */
+		private FakeClient(String host, Session... sessions) {
+			this.host = "pool-test-" + host;
+			this.username = "fuse";
+			this.pooled = true;
+			this.sessions = new LinkedList<>(Arrays.asList(sessions));
+		}
+
+		@Override
+		protected synchronized Session createSession(int sessionTimeout) {
+			created++;
+			return sessions.remove();
+		}
+
+		/**
+		 * Getter.
+		 *
+		 * @return number of the created sessions
+		 */
+		private synchronized int getCreated() {
+			return created;
+		}
+	}
+}
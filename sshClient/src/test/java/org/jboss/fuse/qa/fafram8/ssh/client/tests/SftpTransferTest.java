@@ -0,0 +1,281 @@
+package org.jboss.fuse.qa.fafram8.ssh.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import org.jboss.fuse.qa.fafram8.exceptions.CopyFileException;
+import org.jboss.fuse.qa.fafram8.ssh.NodeSSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.SftpTransfer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * SFTP transfer engine test with the mocked SFTP channels.
+ */
+public class SftpTransferTest {
+	private static final String REMOTE = "/tmp/fafram/file.txt";
+	private static final long SIZE = 100L;
+	private static final String CONTENT = "line 1\nline 2\n";
+
+	private File local;
+
+	@Before
+	public void init() throws Exception {
+		local = File.createTempFile("fafram-sftp", ".txt");
+	}
+
+	@After
+	public void clean() {
+		local.delete();
+	}
+
+	@Test
+	public void channelReuseTest() throws Exception {
+		final ChannelSftp channel = channel();
+		final FakeClient client = new FakeClient("node", channel);
+		try (SftpTransfer transfer = new SftpTransfer(client)) {
+			assertEquals(SIZE, transfer.upload(local, REMOTE));
+			assertEquals(SIZE, transfer.upload(local, REMOTE + ".2"));
+			assertEquals(2, transfer.getTransferredFiles());
+			assertEquals(SIZE * 2, transfer.getTransferredBytes());
+			// Both uploads used the same channel
+			assertEquals(1, client.getOpened());
+			assertTrue(client.getClosed().isEmpty());
+		}
+		assertEquals(Collections.<Channel>singletonList(channel), client.getClosed());
+	}
+
+	@Test
+	public void runtimeExceptionTest() throws Exception {
+		final ChannelSftp channel = channel();
+		doThrow(new IllegalStateException("broken")).when(channel).put(anyString(), anyString(), any(SftpProgressMonitor.class),
+				anyInt());
+		final FakeClient client = new FakeClient("node", channel);
+		try (SftpTransfer transfer = new SftpTransfer(client)) {
+			transfer.upload(local, REMOTE);
+			fail("Upload should fail");
+		} catch (IllegalStateException expected) {
+			// The channel isn't leaked
+			assertEquals(Collections.<Channel>singletonList(channel), client.getClosed());
+		}
+	}
+
+	@Test
+	public void resumeTest() throws Exception {
+		final ChannelSftp broken = channel();
+		doThrow(new SftpException(ChannelSftp.SSH_FX_FAILURE, "connection lost")).when(broken).put(anyString(), anyString(),
+				any(SftpProgressMonitor.class), anyInt());
+		final ChannelSftp channel = channel();
+		final FakeClient client = new FakeClient("node", broken, channel);
+		try (SftpTransfer transfer = new SftpTransfer(client)) {
+			assertEquals(SIZE, transfer.upload(local, REMOTE));
+		}
+		verify(broken).put(anyString(), eq(REMOTE), any(SftpProgressMonitor.class), eq(ChannelSftp.OVERWRITE));
+		verify(channel).put(anyString(), eq(REMOTE), any(SftpProgressMonitor.class), eq(ChannelSftp.RESUME));
+		assertEquals(Arrays.<Channel>asList(broken, channel), client.getClosed());
+	}
+
+	@Test
+	public void closedDuringTransferTest() throws Exception {
+		final ChannelSftp channel = channel();
+		final FakeClient client = new FakeClient("node", channel);
+		final SftpTransfer transfer = new SftpTransfer(client);
+		doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) {
+				transfer.close();
+				// The channel ends the transfer stopped by the monitor without an error
+				((SftpProgressMonitor) invocation.getArguments()[2]).count(SIZE);
+				return null;
+			}
+		}).when(channel).put(anyString(), anyString(), any(SftpProgressMonitor.class), anyInt());
+		try {
+			transfer.upload(local, REMOTE);
+			fail("Stopped upload should fail");
+		} catch (CopyFileException expected) {
+			assertEquals(0, transfer.getTransferredFiles());
+			assertEquals(Collections.<Channel>singletonList(channel), client.getClosed());
+		}
+	}
+
+	@Test
+	public void uploadToAllTest() throws Exception {
+		final ChannelSftp first = channel();
+		final ChannelSftp second = channel();
+		final FakeClient node1 = new FakeClient("node1", first);
+		final FakeClient node2 = new FakeClient("node2", second);
+		// Other client of the same host, the file is uploaded only once
+		final FakeClient node1Again = new FakeClient("node1", channel());
+		final Map<String, String> paths = new HashMap<>();
+		paths.put("node1", REMOTE);
+		paths.put("node2", REMOTE + ".2");
+
+		SftpTransfer.uploadToAll(Arrays.asList(node1, node2, node1Again), paths, local);
+		verify(first, times(1)).put(anyString(), eq(REMOTE), any(SftpProgressMonitor.class), anyInt());
+		verify(second, times(1)).put(anyString(), eq(REMOTE + ".2"), any(SftpProgressMonitor.class), anyInt());
+		assertEquals(0, node1Again.getOpened());
+	}
+
+	@Test
+	public void downloadToFileTest() throws Exception {
+		final ChannelSftp channel = downloadChannel(CONTENT);
+		final FakeClient client = new FakeClient("node", channel);
+		assertEquals(CONTENT.length(), client.downloadToFile(REMOTE, local.getAbsolutePath()));
+		assertEquals(CONTENT, FileUtils.readFileToString(local, StandardCharsets.UTF_8));
+		verify(channel).get(eq(REMOTE), any(SftpProgressMonitor.class), eq(0L));
+		assertEquals(Collections.<Channel>singletonList(channel), client.getClosed());
+	}
+
+	@Test
+	public void gzipDownloadToFileTest() throws Exception {
+		final FakeClient client = new FakeClient("node", downloadChannel(CONTENT));
+		assertEquals(CONTENT.length(), client.downloadToFile(REMOTE, local.getAbsolutePath(), true));
+		try (InputStream in = new GZIPInputStream(new FileInputStream(local))) {
+			assertEquals(CONTENT, IOUtils.toString(in, StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void downloadOverwritesTest() throws Exception {
+		FileUtils.writeStringToFile(local, "older and longer content of the file", StandardCharsets.UTF_8);
+		try (SftpTransfer transfer = new SftpTransfer(new FakeClient("node", downloadChannel(CONTENT)))) {
+			assertEquals(CONTENT.length(), transfer.download(REMOTE, local, false));
+		}
+		assertEquals(CONTENT, FileUtils.readFileToString(local, StandardCharsets.UTF_8));
+	}
+
+	@Test(expected = CopyFileException.class)
+	public void uploadToAllWithoutPathTest() throws Exception {
+		SftpTransfer.uploadToAll(Collections.singletonList(new FakeClient("node", channel())), Collections.<String, String>emptyMap(),
+				local);
+	}
+
+	/**
+	 * Creates the connected channel mock that uploads SIZE bytes.
+	 *
+	 * @return channel
+	 * @throws SftpException never
+	 */
+	private static ChannelSftp channel() throws SftpException {
+		final ChannelSftp channel = mock(ChannelSftp.class);
+		when(channel.isConnected()).thenReturn(true);
+		doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) {
+				((SftpProgressMonitor) invocation.getArguments()[2]).count(SIZE);
+				return null;
+			}
+		}).when(channel).put(anyString(), anyString(), any(SftpProgressMonitor.class), anyInt());
+		return channel;
+	}
+
+	/**
+	 * Creates the connected channel mock that downloads the content.
+	 *
+	 * @param content content of the remote file
+	 * @return channel
+	 * @throws SftpException never
+	 */
+	private static ChannelSftp downloadChannel(final String content) throws SftpException {
+		final ChannelSftp channel = mock(ChannelSftp.class);
+		when(channel.isConnected()).thenReturn(true);
+		when(channel.get(anyString(), any(SftpProgressMonitor.class), anyLong())).thenAnswer(new Answer<InputStream>() {
+			@Override
+			public InputStream answer(InvocationOnMock invocation) {
+				final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+				((SftpProgressMonitor) invocation.getArguments()[1]).count(bytes.length);
+				return new ByteArrayInputStream(bytes);
+			}
+		});
+		return channel;
+	}
+
+	/**
+	 * Client that opens the given channels.
+	 */
+	private static final class FakeClient extends NodeSSHClient {
+		private final Queue<ChannelSftp> channels;
+		private final List<Channel> closed = new ArrayList<>();
+		private int opened = 0;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param host host
+		 * @param channels channels opened one after another
+		 */
+		private FakeClient(String host, ChannelSftp... channels) {
+			this.host = host;
+			this.channels = new LinkedList<>(Arrays.asList(channels));
+		}
+
+		@Override
+		protected synchronized Channel openChannel(String type) {
+			opened++;
+			return channels.remove();
+		}
+
+		@Override
+		protected synchronized void closeChannel(Channel toClose) {
+			closed.add(toClose);
+		}
+
+		/**
+		 * Getter.
+		 *
+		 * @return number of the opened channels
+		 */
+		private synchronized int getOpened() {
+			return opened;
+		}
+
+		/**
+		 * Getter.
+		 *
+		 * @return closed channels
+		 */
+		private synchronized List<Channel> getClosed() {
+			return new ArrayList<>(closed);
+		}
+	}
+}
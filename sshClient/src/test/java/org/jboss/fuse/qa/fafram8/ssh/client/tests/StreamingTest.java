@@ -0,0 +1,155 @@
+package org.jboss.fuse.qa.fafram8.ssh.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.jboss.fuse.qa.fafram8.ssh.FuseSSHClient;
+import org.jboss.fuse.qa.fafram8.ssh.LineConsumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Streamed command output test with the mocked exec channels.
+ */
+public class StreamingTest {
+	private static final String COMMAND = "fabric:container-list";
+
+	@Before
+	public void init() {
+		System.setProperty("command.retry.timeout", "0");
+	}
+
+	@After
+	public void clean() {
+		System.clearProperty("command.retry.timeout");
+	}
+
+	@Test
+	public void linesTest() throws Exception {
+		final ChannelExec channel = channel("\u001B[1mroot\u001B[0m\r\nchild\n");
+		final FakeClient client = new FakeClient(channel);
+		final List<String> lines = new ArrayList<>();
+		assertTrue(client.executeCommandStreaming(COMMAND, collect(lines, Integer.MAX_VALUE), true));
+		// Without the ANSI sequences and the line terminators
+		assertEquals(Arrays.asList("root", "child"), lines);
+		verify(channel).setCommand(COMMAND);
+		assertEquals(Collections.<Channel>singletonList(channel), client.getClosed());
+	}
+
+	@Test
+	public void earlyStopTest() throws Exception {
+		final ChannelExec channel = channel("first\nsecond\nthird\n");
+		final FakeClient client = new FakeClient(channel);
+		final List<String> lines = new ArrayList<>();
+		assertFalse(client.executeCommandStreaming(COMMAND, collect(lines, 1), true));
+		assertEquals(Collections.singletonList("first"), lines);
+		// The channel is closed right away, which stops the remote command
+		assertEquals(Collections.<Channel>singletonList(channel), client.getClosed());
+	}
+
+	@Test
+	public void commandNotFoundRetryTest() throws Exception {
+		final ChannelExec notFound = channel("\nCommand not found: fabric:container-list\n");
+		final ChannelExec channel = channel("\nroot\n");
+		final FakeClient client = new FakeClient(notFound, channel);
+		final List<String> lines = new ArrayList<>();
+		assertTrue(client.executeCommandStreaming(COMMAND, collect(lines, Integer.MAX_VALUE), true));
+		// Nothing from the failed attempt is passed to the consumer, the held empty line of the retry is
+		assertEquals(Arrays.asList("", "root"), lines);
+		assertEquals(Arrays.<Channel>asList(notFound, channel), client.getClosed());
+	}
+
+	@Test
+	public void commandNotFoundLastTryTest() throws Exception {
+		final String output = "Command not found: fabric:container-list";
+		final FakeClient client = new FakeClient(channel(output), channel(output));
+		final List<String> lines = new ArrayList<>();
+		assertTrue(client.executeCommandStreaming(COMMAND, collect(lines, Integer.MAX_VALUE), true));
+		// The last try passes the output as it is
+		assertEquals(Collections.singletonList(output), lines);
+	}
+
+	/**
+	 * Creates the exec channel mock with given output.
+	 *
+	 * @param output command output
+	 * @return channel
+	 * @throws Exception never
+	 */
+	private static ChannelExec channel(String output) throws Exception {
+		final ChannelExec channel = mock(ChannelExec.class);
+		when(channel.getInputStream()).thenReturn(new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8)));
+		return channel;
+	}
+
+	/**
+	 * Creates the consumer that collects the lines.
+	 *
+	 * @param lines list for the lines
+	 * @param limit number of the lines after which the command is stopped
+	 * @return line consumer
+	 */
+	private static LineConsumer collect(final List<String> lines, final int limit) {
+		return new LineConsumer() {
+			@Override
+			public boolean accept(String line) {
+				lines.add(line);
+				return lines.size() < limit;
+			}
+		};
+	}
+
+	/**
+	 * Client that opens the given channels.
+	 */
+	private static final class FakeClient extends FuseSSHClient {
+		private final Queue<Channel> channels;
+		private final List<Channel> closed = new ArrayList<>();
+
+		/**
+		 * Constructor.
+		 *
+		 * @param channels channels opened one after another
+		 */
+		private FakeClient(Channel... channels) {
+			this.channels = new LinkedList<>(Arrays.asList(channels));
+		}
+
+		@Override
+		protected synchronized Channel openChannel(String type) {
+			return channels.remove();
+		}
+
+		@Override
+		protected synchronized void closeChannel(Channel toClose) {
+			closed.add(toClose);
+		}
+
+		/**
+		 * Getter.
+		 *
+		 * @return closed channels
+		 */
+		private synchronized List<Channel> getClosed() {
+			return new ArrayList<>(closed);
+		}
+	}
+}